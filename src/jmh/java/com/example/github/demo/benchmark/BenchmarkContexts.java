@@ -0,0 +1,52 @@
+package com.example.github.demo.benchmark;
+
+import com.example.github.demo.Application;
+import com.example.github.demo.model.Person;
+import com.example.github.demo.repository.PersonRepository;
+import org.springframework.boot.ApplicationContextFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.AnnotationConfigServletWebApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.web.context.support.GenericWebApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Boots the full application the way a mock-environment {@code @SpringBootTest}
+ * does: MVC is configured against a mock servlet context, no server port is
+ * opened, and the in-memory H2 database is seeded with {@value #SEED_PERSONS} persons.
+ */
+final class BenchmarkContexts {
+
+    static final int SEED_PERSONS = 1000;
+
+    private BenchmarkContexts() {
+    }
+
+    static ConfigurableApplicationContext start(String... properties) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class)
+                .contextFactory(ApplicationContextFactory.of(AnnotationConfigServletWebApplicationContext::new))
+                .initializers(ctx -> ((GenericWebApplicationContext) ctx).setServletContext(new MockServletContext()))
+                .logStartupInfo(false)
+                .properties("spring.datasource.url=jdbc:h2:mem:benchmark",
+                        "spring.jpa.show-sql=false",
+                        "logging.level.root=WARN",
+                        "logging.level.com.example.github.demo=WARN")
+                .properties(properties)
+                .run();
+
+        List<Person> persons = new ArrayList<>(SEED_PERSONS);
+        for (int i = 0; i < SEED_PERSONS; i++) {
+            persons.add(person(i));
+        }
+        context.getBean(PersonRepository.class).saveAll(persons);
+        return context;
+    }
+
+    static Person person(int i) {
+        return new Person(null, "First" + i, "Last" + i, "person" + i + "@example.com",
+                "555-000-" + i, i + " Benchmark Street", 20 + i % 50);
+    }
+}
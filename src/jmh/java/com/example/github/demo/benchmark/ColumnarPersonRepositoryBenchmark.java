@@ -0,0 +1,159 @@
+package com.example.github.demo.benchmark;
+
+import com.example.github.demo.model.Person;
+import com.example.github.demo.model.PersonView;
+import com.example.github.demo.repository.ColumnarPersonRepository;
+import com.example.github.demo.repository.PersonSearch;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Limit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read latency of {@link ColumnarPersonRepository}, plus its heap footprint
+ * next to the same persons held as {@link Person} entities. The footprint is
+ * measured once per fork and reported with {@code findViewById} as the
+ * secondary results {@code entityBytesPerPerson} and
+ * {@code columnarBytesPerPerson}, retained bytes per person. Entities here carry no
+ * Hibernate bookkeeping, so the ratio is a lower bound on the saving over a
+ * persistence context. Raise {@code personCount} with
+ * {@code -Djmh.args="-p personCount=10000000 -jvmArgs -Xmx12g"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ColumnarPersonRepositoryBenchmark {
+
+    private static final String[] FIRST_NAMES = {"James", "Mary", "John", "Patricia", "Robert", "Jennifer",
+            "Michael", "Linda", "William", "Elizabeth", "David", "Barbara", "Richard", "Susan", "Joseph",
+            "Jessica", "Thomas", "Sarah", "Charles", "Karen", "Margaret", "Daniel", "Nancy", "Matthew"};
+    private static final String[] SYLLABLES = {"ab", "ber", "cor", "dan", "el", "fitz", "gar", "hol", "ing",
+            "jen", "kin", "lor", "mon", "ner", "ols", "par", "quin", "ros", "son", "thom", "ul", "ver",
+            "wick", "yar", "zel", "ton", "ham", "ley", "man", "ford"};
+    private static final String[] STREETS = {"Elm", "Oak", "Maple", "Cedar", "Pine", "Main", "High", "Church"};
+
+    @Param({"1000000"})
+    public int personCount;
+
+    private ColumnarPersonRepository repository;
+    private long entityBytesPerPerson;
+    private long columnarBytesPerPerson;
+    private final PersonSearch byAge = new PersonSearch(null, null, 40, 45);
+    private final PersonSearch byLastName = new PersonSearch(null, "Thom", null, null);
+
+    @Setup
+    public void setUp() {
+        long baseline = usedHeap();
+        List<Person> entities = new ArrayList<>(personCount);
+        for (int i = 0; i < personCount; i++) {
+            entities.add(person(i));
+        }
+        long entityBytes = usedHeap() - baseline;
+        entities = null;
+
+        baseline = usedHeap();
+        repository = new ColumnarPersonRepository();
+        List<Person> chunk = new ArrayList<>(10_000);
+        for (int i = 0; i < personCount; i++) {
+            chunk.add(person(i));
+            if (chunk.size() == 10_000 || i == personCount - 1) {
+                repository.saveAll(chunk);
+                chunk.clear();
+            }
+        }
+        long columnarBytes = usedHeap() - baseline;
+
+        entityBytesPerPerson = entityBytes / personCount;
+        columnarBytesPerPerson = columnarBytes / personCount;
+    }
+
+    /**
+     * Secondary results carrying the heap footprint measured in {@link #setUp()}.
+     * JMH resets them before each iteration, so the benchmark sets them on every call.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+
+        public long entityBytesPerPerson;
+        public long columnarBytesPerPerson;
+    }
+
+    @Benchmark
+    public Optional<PersonView> findViewById(Footprint footprint) {
+        footprint.entityBytesPerPerson = entityBytesPerPerson;
+        footprint.columnarBytesPerPerson = columnarBytesPerPerson;
+        return repository.findViewById(ThreadLocalRandom.current().nextLong(1, personCount + 1));
+    }
+
+    @Benchmark
+    public List<PersonView> keysetPage() {
+        return repository.findViewsAfterId(ThreadLocalRandom.current().nextLong(personCount), Limit.of(100));
+    }
+
+    @Benchmark
+    public List<PersonView> searchByEmail() {
+        int i = ThreadLocalRandom.current().nextInt(personCount);
+        return repository.searchViews(new PersonSearch(email(i, lastName(i)), null, null, null), null, Limit.of(10));
+    }
+
+    @Benchmark
+    public List<PersonView> searchByAge() {
+        return repository.searchViews(byAge, null, Limit.of(100));
+    }
+
+    @Benchmark
+    public List<PersonView> searchByLastNamePrefix() {
+        return repository.searchViews(byLastName, null, Limit.of(100));
+    }
+
+    /**
+     * Every string is a new instance, as it would be when read from a JDBC result set.
+     */
+    private static Person person(int i) {
+        String lastName = lastName(i);
+        return new Person(null, new String(FIRST_NAMES[i % FIRST_NAMES.length]), lastName, email(i, lastName),
+                "555-" + (1_000_000 + i), (i % 9_999 + 1) + " " + STREETS[i % STREETS.length] + " Street",
+                18 + i % 70);
+    }
+
+    private static String lastName(int i) {
+        int n = i / FIRST_NAMES.length;
+        String name = SYLLABLES[n % SYLLABLES.length]
+                + SYLLABLES[(n / SYLLABLES.length) % SYLLABLES.length]
+                + SYLLABLES[(n / (SYLLABLES.length * SYLLABLES.length)) % SYLLABLES.length];
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private static String email(int i, String lastName) {
+        return FIRST_NAMES[i % FIRST_NAMES.length].toLowerCase() + "." + lastName.toLowerCase() + i + "@example.com";
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+}
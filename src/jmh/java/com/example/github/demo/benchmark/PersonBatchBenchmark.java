@@ -0,0 +1,93 @@
+package com.example.github.demo.benchmark;
+
+import com.example.github.demo.model.Person;
+import com.example.github.demo.repository.PersonRepository;
+import com.example.github.demo.service.BatchCreateResult;
+import com.example.github.demo.service.PersonBatchService;
+import com.example.github.demo.service.PersonService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inserting {@code rows} persons with one {@link PersonService#createPerson}
+ * call each versus one {@link PersonBatchService#createPersons(List)} call,
+ * which sends them as JDBC batches. The table is emptied after every iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersonBatchBenchmark {
+
+    @Param({"1000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private PersonService personService;
+    private PersonBatchService personBatchService;
+    private PersonRepository personRepository;
+    private int invocation;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContexts.start("app.text-search.enabled=false");
+        personService = context.getBean(PersonService.class);
+        personBatchService = context.getBean(PersonBatchService.class);
+        personRepository = context.getBean(PersonRepository.class);
+    }
+
+    @TearDown(Level.Iteration)
+    public void clear() {
+        personRepository.deleteAllInBatch();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int createOneByOne() {
+        List<Person> persons = persons();
+        for (Person person : persons) {
+            personService.createPerson(person);
+        }
+        return persons.size();
+    }
+
+    @Benchmark
+    public BatchCreateResult createBatch() {
+        return personBatchService.createPersons(persons());
+    }
+
+    /**
+     * Fresh emails on every invocation, so the unique index never rejects a row.
+     */
+    private List<Person> persons() {
+        int prefix = invocation++;
+        List<Person> persons = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            persons.add(new Person(null, "Batch", "Person" + i, "batch" + prefix + "-" + i + "@example.com",
+                    "555-000-" + i, "Batch Street " + i, 20 + i % 50));
+        }
+        return persons;
+    }
+}
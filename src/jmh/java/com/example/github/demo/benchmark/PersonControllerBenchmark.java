@@ -0,0 +1,85 @@
+package com.example.github.demo.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+/**
+ * The full {@code PersonController} stack through MockMvc: filters, argument
+ * resolution, the service with its proxies, H2 and Jackson. Only the network
+ * is left out. {@code serverTiming} shows the cost of the Server-Timing header.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersonControllerBenchmark {
+
+    private static final String UPDATE_BODY = "{\"firstName\":\"Bench\",\"lastName\":\"Mark\","
+            + "\"email\":\"bench.mark@example.com\",\"phoneNumber\":\"555-000-0000\","
+            + "\"address\":\"1 Benchmark Street\",\"age\":40}";
+
+    @Param({"true", "false"})
+    public boolean serverTiming;
+
+    private ConfigurableApplicationContext context;
+    private MockMvc mockMvc;
+    private String personUrl;
+
+    @Setup
+    public void setUp() throws Exception {
+        context = BenchmarkContexts.start("app.server-timing.enabled=" + serverTiming);
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+        String first = mockMvc.perform(get("/api/persons").param("limit", "1").param("fields", "id"))
+                .andReturn().getResponse().getContentAsString();
+        personUrl = "/api/persons/" + first.replaceAll("\\D", "");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public MvcResult getPersonById() throws Exception {
+        return mockMvc.perform(get(personUrl)).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult getPersonsPage() throws Exception {
+        return mockMvc.perform(get("/api/persons")).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult getPersonsPageWithFields() throws Exception {
+        return mockMvc.perform(get("/api/persons").param("fields", "firstName,lastName,email")).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult updatePerson() throws Exception {
+        return mockMvc.perform(put(personUrl).contentType(MediaType.APPLICATION_JSON).content(UPDATE_BODY))
+                .andReturn();
+    }
+}
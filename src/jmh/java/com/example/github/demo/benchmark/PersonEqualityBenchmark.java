@@ -0,0 +1,66 @@
+package com.example.github.demo.benchmark;
+
+import com.example.github.demo.model.Person;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Person#hashCode()} goes through {@code Objects.hash}, which allocates
+ * a varargs array per call. Run with {@code -prof gc} to see the allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PersonEqualityBenchmark {
+
+    private Person person;
+    private Person equalPerson;
+    private Person[] persons;
+
+    @Setup
+    public void setUp() {
+        person = BenchmarkContexts.person(7);
+        person.setId(7L);
+        equalPerson = BenchmarkContexts.person(7);
+        equalPerson.setId(7L);
+        persons = new Person[BenchmarkContexts.SEED_PERSONS];
+        for (int i = 0; i < persons.length; i++) {
+            persons[i] = BenchmarkContexts.person(i);
+            persons[i].setId((long) i);
+        }
+    }
+
+    @Benchmark
+    public int hashCodeOfPerson() {
+        return person.hashCode();
+    }
+
+    @Benchmark
+    public boolean equalsOfEqualPersons() {
+        return person.equals(equalPerson);
+    }
+
+    @Benchmark
+    public Set<Person> hashSetOfPersons() {
+        Set<Person> set = new HashSet<>();
+        for (Person p : persons) {
+            set.add(p);
+        }
+        return set;
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.github.demo.benchmark;
+
+import com.example.github.demo.diagnostics.PersonServiceEvent;
+import com.example.github.demo.model.PersonView;
+import com.example.github.demo.service.PersonPage;
+import com.example.github.demo.service.PersonService;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Cost of the custom JFR events: the same service calls with no recording and
+ * with a {@code default}-settings recording that has the person events enabled,
+ * committing every call ({@code 0ms}) or only calls above the shipped
+ * threshold. The cached {@code getPersonById} is the cheapest call and so
+ * shows the largest relative overhead; {@code getPersonByIdRequest} puts it
+ * in proportion to a whole request through MockMvc.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersonJfrOverheadBenchmark {
+
+    @Param({"false", "true"})
+    public boolean recording;
+
+    // Service call threshold of the recording; ignored without one.
+    @Param({"0ms", "100us"})
+    public String threshold;
+
+    private ConfigurableApplicationContext context;
+    private PersonService personService;
+    private MockMvc mockMvc;
+    private Recording jfr;
+    private Long personId;
+
+    @Setup
+    public void setUp() throws Exception {
+        context = BenchmarkContexts.start();
+        personService = context.getBean(PersonService.class);
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+        personId = personService.getPersonsPage(null, 1).persons().get(0).id();
+        if (recording) {
+            jfr = new Recording(Configuration.getConfiguration("default"));
+            jfr.enable(PersonServiceEvent.class).withThreshold(DurationStyle.detectAndParse(threshold));
+            jfr.setToDisk(true);
+            jfr.start();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (jfr != null) {
+            jfr.close();
+        }
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<PersonView> getPersonById() {
+        return personService.getPersonById(personId);
+    }
+
+    @Benchmark
+    public MvcResult getPersonByIdRequest() throws Exception {
+        return mockMvc.perform(get("/api/persons/" + personId)).andReturn();
+    }
+
+    @Benchmark
+    public PersonPage<PersonView> getPersonsPage() {
+        return personService.getPersonsPage(null, PersonService.DEFAULT_PAGE_SIZE);
+    }
+}
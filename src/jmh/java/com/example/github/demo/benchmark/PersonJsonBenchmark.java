@@ -0,0 +1,60 @@
+package com.example.github.demo.benchmark;
+
+import com.example.github.demo.model.Person;
+import com.example.github.demo.model.PersonView;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson cost of one person, with the same modules and defaults Spring Boot
+ * configures for the controllers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PersonJsonBenchmark {
+
+    private ObjectMapper objectMapper;
+    private Person person;
+    private PersonView view;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws Exception {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        person = BenchmarkContexts.person(42);
+        person.setId(42L);
+        view = PersonView.of(person);
+        json = objectMapper.writeValueAsBytes(person);
+    }
+
+    @Benchmark
+    public byte[] serializePerson() throws Exception {
+        return objectMapper.writeValueAsBytes(person);
+    }
+
+    @Benchmark
+    public byte[] serializePersonView() throws Exception {
+        return objectMapper.writeValueAsBytes(view);
+    }
+
+    @Benchmark
+    public Person deserializePerson() throws Exception {
+        return objectMapper.readValue(json, Person.class);
+    }
+}
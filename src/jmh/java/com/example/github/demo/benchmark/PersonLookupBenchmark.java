@@ -0,0 +1,84 @@
+package com.example.github.demo.benchmark;
+
+import com.example.github.demo.config.CacheConfig;
+import com.example.github.demo.model.PersonView;
+import com.example.github.demo.service.PersonService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Resolving {@code ids} persons with one {@code GET /api/persons?ids=} request
+ * versus one {@code GET /api/persons/{id}} per id. The person cache is cleared
+ * before every round, so both reach the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersonLookupBenchmark {
+
+    @Param({"150"})
+    public int ids;
+
+    private ConfigurableApplicationContext context;
+    private MockMvc mockMvc;
+    private CacheManager cacheManager;
+    private List<Long> personIds;
+    private String query;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContexts.start();
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+        cacheManager = context.getBean(CacheManager.class);
+        personIds = context.getBean(PersonService.class).getPersonsPage(null, ids).persons().stream()
+                .map(PersonView::id)
+                .toList();
+        query = personIds.stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int getEachById() throws Exception {
+        cacheManager.getCache(CacheConfig.PERSONS_CACHE).clear();
+        int status = 0;
+        for (Long id : personIds) {
+            status += mockMvc.perform(get("/api/persons/" + id)).andReturn().getResponse().getStatus();
+        }
+        return status;
+    }
+
+    @Benchmark
+    public MvcResult lookupByIds() throws Exception {
+        cacheManager.getCache(CacheConfig.PERSONS_CACHE).clear();
+        return mockMvc.perform(get("/api/persons").param("ids", query)).andReturn();
+    }
+}
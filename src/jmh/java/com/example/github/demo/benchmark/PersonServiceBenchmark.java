@@ -0,0 +1,95 @@
+package com.example.github.demo.benchmark;
+
+import com.example.github.demo.model.Person;
+import com.example.github.demo.model.PersonView;
+import com.example.github.demo.service.PersonPage;
+import com.example.github.demo.service.PersonService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PersonService} CRUD against the in-memory H2 database, through the
+ * transactional and caching proxies. {@code cacheType=none} measures reads
+ * that always reach the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersonServiceBenchmark {
+
+    @Param({"caffeine", "none"})
+    public String cacheType;
+
+    private ConfigurableApplicationContext context;
+    private PersonService personService;
+    private Long personId;
+    private Person update;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContexts.start("spring.cache.type=" + cacheType);
+        personService = context.getBean(PersonService.class);
+        personId = personService.getPersonsPage(null, 1).persons().get(0).id();
+        update = BenchmarkContexts.person(BenchmarkContexts.SEED_PERSONS);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<PersonView> getPersonById() {
+        return personService.getPersonById(personId);
+    }
+
+    @Benchmark
+    public PersonPage<PersonView> getPersonsPage() {
+        return personService.getPersonsPage(null, PersonService.DEFAULT_PAGE_SIZE);
+    }
+
+    @Benchmark
+    public PersonPage<Map<String, Object>> getPersonsPageWithFields() {
+        return personService.getPersonsPage(null, PersonService.DEFAULT_PAGE_SIZE,
+                List.of("id", "firstName", "lastName", "email"));
+    }
+
+    @Benchmark
+    public Optional<PersonView> updatePerson() {
+        return personService.updatePerson(personId, update);
+    }
+
+    @Benchmark
+    public boolean patchPerson() {
+        return personService.patchPerson(personId, Map.of("age", 33));
+    }
+
+    /**
+     * Paired so the table size stays constant across iterations. The email is
+     * not seeded, so the unique email index accepts it.
+     */
+    @Benchmark
+    public boolean createAndDeletePerson() {
+        PersonView created = personService.createPerson(BenchmarkContexts.person(BenchmarkContexts.SEED_PERSONS + 1));
+        return personService.deletePerson(created.id());
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.github.demo.benchmark;
+
+import com.example.github.demo.model.PersonView;
+import com.example.github.demo.service.PersonTextIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Type-ahead latency of {@link PersonTextIndex} against a synthetic corpus.
+ * Last names are built from syllables, so the term dictionary grows with the
+ * corpus the way real surnames do. For the 10M-person target run with
+ * {@code -Djmh.args="-p corpusSize=10000000 -jvmArgs -Xmx8g"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersonTextIndexBenchmark {
+
+    private static final String[] FIRST_NAMES = {"James", "Mary", "John", "Patricia", "Robert", "Jennifer",
+            "Michael", "Linda", "William", "Elizabeth", "David", "Barbara", "Richard", "Susan", "Joseph",
+            "Jessica", "Thomas", "Sarah", "Charles", "Karen", "Margaret", "Daniel", "Nancy", "Matthew"};
+    private static final String[] SYLLABLES = {"ab", "ber", "cor", "dan", "el", "fitz", "gar", "hol", "ing",
+            "jen", "kin", "lor", "mon", "ner", "ols", "par", "quin", "ros", "son", "thom", "ul", "ver",
+            "wick", "yar", "zel", "ton", "ham", "ley", "man", "ford"};
+    private static final String[] STREETS = {"Elm", "Oak", "Maple", "Cedar", "Pine", "Main", "High", "Church"};
+
+    @Param({"100000"})
+    public int corpusSize;
+
+    private PersonTextIndex textIndex;
+
+    @Setup
+    public void setUp() {
+        textIndex = new PersonTextIndex(null, 1);
+        for (int i = 0; i < corpusSize; i++) {
+            textIndex.index(person(i));
+        }
+        textIndex.search("warm up", 1);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        textIndex.destroy();
+    }
+
+    @Benchmark
+    public List<Long> prefix() {
+        return textIndex.search("thomp", 10);
+    }
+
+    @Benchmark
+    public List<Long> twoWordPrefix() {
+        return textIndex.search("mar thom", 10);
+    }
+
+    @Benchmark
+    public List<Long> typo() {
+        return textIndex.search("margret parsonham", 10);
+    }
+
+    @Benchmark
+    public List<Long> email() {
+        return textIndex.search("jennifer.ross", 10);
+    }
+
+    private static PersonView person(int i) {
+        String firstName = FIRST_NAMES[i % FIRST_NAMES.length];
+        int n = i / FIRST_NAMES.length;
+        String lastName = capitalize(SYLLABLES[n % SYLLABLES.length]
+                + SYLLABLES[(n / SYLLABLES.length) % SYLLABLES.length]
+                + SYLLABLES[(n / (SYLLABLES.length * SYLLABLES.length)) % SYLLABLES.length]);
+        String email = firstName.toLowerCase() + "." + lastName.toLowerCase() + i + "@example.com";
+        String address = (i % 999 + 1) + " " + STREETS[i % STREETS.length] + " Street";
+        return new PersonView((long) i, firstName, lastName, email, null, address, 20 + i % 60, 0L);
+    }
+
+    private static String capitalize(String value) {
+        return Character.toUpperCase(value.charAt(0)) + value.substring(1);
+    }
+}
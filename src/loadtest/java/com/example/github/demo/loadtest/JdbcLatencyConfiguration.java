@@ -0,0 +1,36 @@
+package com.example.github.demo.loadtest;
+
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Delays every JDBC statement by {@code load.db-latency} while it holds its
+ * connection, so an in-memory H2 behaves like a database across a network and
+ * request threads spend their time blocked, as they do in production.
+ */
+@TestConfiguration
+class JdbcLatencyConfiguration {
+
+    @Bean
+    static BeanPostProcessor jdbcLatencyDataSourcePostProcessor() {
+        Duration latency = LoadTestSettings.fromSystemProperties().dbLatency();
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !latency.isZero()) {
+                    return ProxyDataSourceBuilder.create(dataSource)
+                            .name(beanName)
+                            .beforeQuery((execution, queries) -> LockSupport.parkNanos(latency.toNanos()))
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.github.demo.loadtest;
+
+import com.example.github.demo.loadtest.OpenModelLoadGenerator.LoadResult;
+import com.example.github.demo.loadtest.OpenModelLoadGenerator.OperationStats;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Checks a {@link LoadResult} against the configured thresholds and writes
+ * {@code report.json} plus one HdrHistogram percentile distribution
+ * ({@code <operation>.hgrm}, in milliseconds) per operation.
+ */
+final class LoadReport {
+
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    private LoadReport() {
+    }
+
+    /**
+     * @return one message per exceeded threshold, empty if the run passed
+     */
+    static List<String> violations(LoadResult result, LoadTestSettings settings) {
+        List<String> violations = new ArrayList<>();
+        Histogram total = result.total();
+        long p99 = total.getValueAtPercentile(99.0);
+        long p999 = total.getValueAtPercentile(99.9);
+        if (p99 > settings.maxP99().toNanos() / 1000) {
+            violations.add(String.format(Locale.ROOT, "p99 %.1f ms exceeds %d ms",
+                    p99 / MICROS_PER_MILLI, settings.maxP99().toMillis()));
+        }
+        if (p999 > settings.maxP999().toNanos() / 1000) {
+            violations.add(String.format(Locale.ROOT, "p99.9 %.1f ms exceeds %d ms",
+                    p999 / MICROS_PER_MILLI, settings.maxP999().toMillis()));
+        }
+        double errorRate = total.getTotalCount() == 0 ? 0 : (double) result.errors() / total.getTotalCount();
+        if (errorRate > settings.maxErrorRate()) {
+            violations.add(String.format(Locale.ROOT, "error rate %.4f exceeds %.4f",
+                    errorRate, settings.maxErrorRate()));
+        }
+        double expectedThroughput = settings.rate() * 0.9;
+        if (result.throughput() < expectedThroughput) {
+            violations.add(String.format(Locale.ROOT, "throughput %.1f/s is below 90%% of the %d/s arrival rate",
+                    result.throughput(), settings.rate()));
+        }
+        return violations;
+    }
+
+    static Path write(LoadResult result, LoadTestSettings settings, List<String> violations) throws IOException {
+        Files.createDirectories(settings.reportDir());
+
+        Map<String, Object> operations = new LinkedHashMap<>();
+        for (Map.Entry<Operation, OperationStats> entry : result.operations().entrySet()) {
+            OperationStats stats = entry.getValue();
+            operations.put(entry.getKey().name(), summary(stats.latencyMicros, stats.errors.get()));
+            Path hgrm = settings.reportDir().resolve(entry.getKey().name().toLowerCase(Locale.ROOT) + ".hgrm");
+            try (PrintStream out = new PrintStream(Files.newOutputStream(hgrm))) {
+                stats.latencyMicros.outputPercentileDistribution(out, MICROS_PER_MILLI);
+            }
+        }
+
+        Map<String, Object> thresholds = new LinkedHashMap<>();
+        thresholds.put("maxP99Ms", settings.maxP99().toMillis());
+        thresholds.put("maxP999Ms", settings.maxP999().toMillis());
+        thresholds.put("maxErrorRate", settings.maxErrorRate());
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("rate", settings.rate());
+        report.put("durationSeconds", settings.duration().toMillis() / 1000.0);
+        report.put("mix", settings.mix());
+        report.put("virtualThreads", settings.virtualThreads());
+        report.put("dbLatencyMs", settings.dbLatency().toMillis());
+        report.put("throughput", round(result.throughput()));
+        report.put("total", summary(result.total(), result.errors()));
+        report.put("operations", operations);
+        report.put("thresholds", thresholds);
+        report.put("violations", violations);
+        report.put("passed", violations.isEmpty());
+
+        Path json = settings.reportDir().resolve("report.json");
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(json.toFile(), report);
+        return json;
+    }
+
+    /**
+     * Writes {@code thread-model.json} with throughput and latency of each run side by side.
+     */
+    static Path writeComparison(Path reportDir, Map<String, LoadResult> results) throws IOException {
+        Files.createDirectories(reportDir);
+        Map<String, Object> comparison = new LinkedHashMap<>();
+        results.forEach((model, result) -> {
+            Map<String, Object> run = new LinkedHashMap<>();
+            run.put("throughput", round(result.throughput()));
+            run.put("total", summary(result.total(), result.errors()));
+            comparison.put(model, run);
+        });
+        Path json = reportDir.resolve("thread-model.json");
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(json.toFile(), comparison);
+        return json;
+    }
+
+    private static Map<String, Object> summary(Histogram latencyMicros, long errors) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", latencyMicros.getTotalCount());
+        summary.put("errors", errors);
+        summary.put("meanMs", round(latencyMicros.getMean() / MICROS_PER_MILLI));
+        summary.put("p50Ms", millis(latencyMicros, 50.0));
+        summary.put("p90Ms", millis(latencyMicros, 90.0));
+        summary.put("p99Ms", millis(latencyMicros, 99.0));
+        summary.put("p999Ms", millis(latencyMicros, 99.9));
+        summary.put("maxMs", round(latencyMicros.getMaxValue() / MICROS_PER_MILLI));
+        return summary;
+    }
+
+    private static double millis(Histogram latencyMicros, double percentile) {
+        return round(latencyMicros.getValueAtPercentile(percentile) / MICROS_PER_MILLI);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000.0) / 1000.0;
+    }
+}
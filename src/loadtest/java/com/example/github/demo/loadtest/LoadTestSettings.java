@@ -0,0 +1,89 @@
+package com.example.github.demo.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Load test configuration, read from the {@code load.*} system properties that
+ * the {@code load-test} Maven profile passes to failsafe.
+ *
+ * @param rate         requests started per second, independent of how fast responses arrive
+ * @param mix          relative weight of each operation
+ * @param maxErrorRate   highest tolerated share of failed requests, 0..1
+ * @param virtualThreads whether the application handles requests on virtual threads
+ * @param dbLatency      delay added to every JDBC statement, to emulate a database across a network
+ */
+record LoadTestSettings(int rate,
+                        Duration warmup,
+                        Duration duration,
+                        Map<Operation, Integer> mix,
+                        Duration maxP99,
+                        Duration maxP999,
+                        double maxErrorRate,
+                        Path reportDir,
+                        boolean virtualThreads,
+                        Duration dbLatency) {
+
+    static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+                Integer.parseInt(property("load.rate", "200")),
+                duration("load.warmup", "5s"),
+                duration("load.duration", "30s"),
+                parseMix(property("load.mix", "get=60,list=10,post=10,put=10,delete=10")),
+                duration("load.max-p99", "250ms"),
+                duration("load.max-p999", "1000ms"),
+                Double.parseDouble(property("load.max-error-rate", "0.01")),
+                Path.of(property("load.report-dir", "target/load-test")),
+                Boolean.parseBoolean(property("load.virtual-threads", "false")),
+                duration("load.db-latency", "0ms"));
+    }
+
+    /**
+     * The same load against the other thread model, reported into a subdirectory.
+     */
+    LoadTestSettings withVirtualThreads(boolean virtualThreads) {
+        return new LoadTestSettings(rate, warmup, duration, mix, maxP99, maxP999, maxErrorRate,
+                reportDir.resolve(virtualThreads ? "virtual" : "platform"), virtualThreads, dbLatency);
+    }
+
+    static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid load.mix entry: " + entry);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight > 0) {
+                weights.put(Operation.valueOf(parts[0].trim().toUpperCase(Locale.ROOT)), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("load.mix selects no operation: " + mix);
+        }
+        return weights;
+    }
+
+    /**
+     * Expected number of requests of one operation over warmup and measurement.
+     */
+    long expectedRequests(Operation operation) {
+        int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+        double seconds = (warmup.toMillis() + duration.toMillis()) / 1000.0;
+        return (long) Math.ceil(rate * seconds * mix.getOrDefault(operation, 0) / total);
+    }
+
+    private static String property(String name, String defaultValue) {
+        String value = System.getProperty(name);
+        return value == null || value.isBlank() ? defaultValue : value;
+    }
+
+    private static Duration duration(String name, String defaultValue) {
+        return DurationStyle.detectAndParse(property(name, defaultValue));
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.github.demo.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Starts requests at a fixed arrival rate, whether or not earlier responses
+ * have come back (an open workload model). Latency is measured from the time
+ * a request was scheduled to start, not from when it was actually sent, so a
+ * stalled server or a late dispatcher shows up in the percentiles instead of
+ * silently lowering the request rate (coordinated omission).
+ */
+final class OpenModelLoadGenerator {
+
+    static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final URI baseUri;
+    private final LoadTestSettings settings;
+    private final List<Long> seededIds;
+    private final Queue<Long> deletableIds;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SplittableRandom random = new SplittableRandom(42);
+    private final Operation[] schedule;
+
+    OpenModelLoadGenerator(URI baseUri, LoadTestSettings settings, List<Long> seededIds, Queue<Long> deletableIds) {
+        this.baseUri = baseUri;
+        this.settings = settings;
+        this.seededIds = seededIds;
+        this.deletableIds = deletableIds;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        List<Operation> weighted = new ArrayList<>();
+        settings.mix().forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                weighted.add(operation);
+            }
+        });
+        this.schedule = weighted.toArray(Operation[]::new);
+    }
+
+    /**
+     * Issues {@code rate * duration} requests and waits for all of them to finish.
+     */
+    LoadResult run(Duration duration) throws InterruptedException {
+        Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+        settings.mix().keySet().forEach(operation -> stats.put(operation, new OperationStats()));
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / settings.rate();
+        long requests = duration.toNanos() / intervalNanos;
+        List<CompletableFuture<?>> inFlight = new ArrayList<>((int) requests);
+
+        long start = System.nanoTime();
+        for (long i = 0; i < requests; i++) {
+            long intended = start + i * intervalNanos;
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Operation operation = schedule[random.nextInt(schedule.length)];
+            inFlight.add(send(operation, intended, stats.get(operation)));
+        }
+        try {
+            CompletableFuture.allOf(inFlight.toArray(CompletableFuture[]::new))
+                    .get(REQUEST_TIMEOUT.toSeconds() + 5, TimeUnit.SECONDS);
+        } catch (Exception ex) {
+            throw new IllegalStateException("Requests did not complete", ex);
+        }
+        return new LoadResult(stats, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    private CompletableFuture<?> send(Operation operation, long intendedStart, OperationStats stats) {
+        HttpRequest request = request(operation);
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .handle((response, failure) -> {
+                    stats.record(intendedStart, System.nanoTime());
+                    if (failure != null || response.statusCode() != operation.getExpectedStatus()) {
+                        stats.errors.incrementAndGet();
+                    } else if (operation == Operation.POST) {
+                        deletableIds.add(createdId(response.body()));
+                    }
+                    return null;
+                });
+    }
+
+    private HttpRequest request(Operation operation) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder().timeout(REQUEST_TIMEOUT);
+        switch (operation) {
+            case GET -> builder.uri(person(randomSeededId())).GET();
+            case LIST -> builder.uri(baseUri.resolve("/api/persons?limit=20")).GET();
+            case POST -> builder.uri(baseUri.resolve("/api/persons"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body(random.nextInt())));
+            case PUT -> builder.uri(person(randomSeededId()))
+                    .header("Content-Type", "application/json")
+                    .PUT(HttpRequest.BodyPublishers.ofString(body(random.nextInt())));
+            case DELETE -> {
+                Long id = deletableIds.poll();
+                builder.uri(person(id == null ? -1L : id)).DELETE();
+            }
+        }
+        return builder.build();
+    }
+
+    private long randomSeededId() {
+        return seededIds.get(random.nextInt(seededIds.size()));
+    }
+
+    private URI person(long id) {
+        return baseUri.resolve("/api/persons/" + id);
+    }
+
+    private Long createdId(String body) {
+        try {
+            return objectMapper.readTree(body).get("id").asLong();
+        } catch (Exception ex) {
+            throw new IllegalStateException("Unexpected POST response: " + body, ex);
+        }
+    }
+
+    static String body(int n) {
+        return "{\"firstName\":\"Load\",\"lastName\":\"Test" + n + "\",\"email\":\"load" + n
+                + "@example.com\",\"phoneNumber\":\"555-0100\",\"address\":\"1 Load Street\",\"age\":30}";
+    }
+
+    static final class OperationStats {
+
+        final Histogram latencyMicros = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        final AtomicLong errors = new AtomicLong();
+
+        void record(long intendedStartNanos, long endNanos) {
+            long micros = TimeUnit.NANOSECONDS.toMicros(endNanos - intendedStartNanos);
+            latencyMicros.recordValue(Math.min(Math.max(micros, 0), HIGHEST_TRACKABLE_MICROS));
+        }
+    }
+
+    record LoadResult(Map<Operation, OperationStats> operations, Duration elapsed) {
+
+        Histogram total() {
+            Histogram total = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+            operations.values().forEach(stats -> total.add(stats.latencyMicros));
+            return total;
+        }
+
+        long errors() {
+            return operations.values().stream().mapToLong(stats -> stats.errors.get()).sum();
+        }
+
+        double throughput() {
+            return total().getTotalCount() / (elapsed.toNanos() / 1e9);
+        }
+    }
+}
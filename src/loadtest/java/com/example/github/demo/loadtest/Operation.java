@@ -0,0 +1,28 @@
+package com.example.github.demo.loadtest;
+
+/**
+ * Request types the load generator can issue against {@code /api/persons}.
+ */
+enum Operation {
+
+    /** GET /api/persons/{id} of a seeded person. */
+    GET(200),
+    /** GET /api/persons, first page of 20. */
+    LIST(200),
+    /** POST /api/persons; the new id becomes available to DELETE. */
+    POST(201),
+    /** PUT /api/persons/{id} of a seeded person. */
+    PUT(200),
+    /** DELETE /api/persons/{id} of a person no other operation touches. */
+    DELETE(204);
+
+    private final int expectedStatus;
+
+    Operation(int expectedStatus) {
+        this.expectedStatus = expectedStatus;
+    }
+
+    int getExpectedStatus() {
+        return expectedStatus;
+    }
+}
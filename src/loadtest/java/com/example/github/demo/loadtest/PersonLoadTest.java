@@ -0,0 +1,70 @@
+package com.example.github.demo.loadtest;
+
+import com.example.github.demo.Application;
+import com.example.github.demo.loadtest.OpenModelLoadGenerator.LoadResult;
+import com.example.github.demo.model.Person;
+import com.example.github.demo.repository.PersonRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives the running application over HTTP at the configured arrival rate and
+ * fails when a latency, error-rate or throughput threshold is exceeded. Only
+ * run by the {@code load-test} Maven profile; see {@link LoadTestSettings}.
+ */
+@SpringBootTest(classes = Application.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.jpa.show-sql=false", "logging.level.com.example.github.demo=WARN"})
+@Import(JdbcLatencyConfiguration.class)
+class PersonLoadTest {
+
+    static final int SEED_PERSONS = 1000;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Test
+    @DisplayName("Load Test: Person API meets latency and error thresholds at the configured rate")
+    void testPersonApiUnderLoad() throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        List<Long> seededIds = seed(personRepository, "seed", SEED_PERSONS);
+        Queue<Long> deletableIds = new ConcurrentLinkedQueue<>(
+                seed(personRepository, "deletable", (int) settings.expectedRequests(Operation.DELETE) + 10));
+
+        OpenModelLoadGenerator generator = new OpenModelLoadGenerator(
+                URI.create("http://localhost:" + port), settings, seededIds, deletableIds);
+        generator.run(settings.warmup());
+        LoadResult result = generator.run(settings.duration());
+
+        List<String> violations = LoadReport.violations(result, settings);
+        Path report = LoadReport.write(result, settings, violations);
+        assertTrue(violations.isEmpty(), "Load test thresholds exceeded (" + report + "): " + violations);
+    }
+
+    /**
+     * @param prefix distinguishes the emails of separate seed calls, which must be unique
+     */
+    static List<Long> seed(PersonRepository personRepository, String prefix, int count) {
+        List<Person> persons = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            persons.add(new Person(null, "Seed", "Person" + i, prefix + i + "@example.com",
+                    "555-0100", "1 Seed Street", 30));
+        }
+        return personRepository.saveAll(persons).stream().map(Person::getId).toList();
+    }
+}
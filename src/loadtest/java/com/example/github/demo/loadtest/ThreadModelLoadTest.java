@@ -0,0 +1,80 @@
+package com.example.github.demo.loadtest;
+
+import com.example.github.demo.Application;
+import com.example.github.demo.loadtest.OpenModelLoadGenerator.LoadResult;
+import com.example.github.demo.repository.PersonRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Runs the same open-model load against the application twice, first with
+ * Tomcat's platform thread pool and then with virtual threads, each on a fresh
+ * database, and writes {@code thread-model.json} next to the report of each
+ * run. Only runs with {@code -Dload.compare-threads=true} on a Java 21+
+ * runtime; without {@code load.db-latency} both models are bound by CPU and
+ * perform about the same.
+ */
+class ThreadModelLoadTest {
+
+    @Test
+    @DisplayName("Load Test: Platform and virtual request threads under the same load")
+    void testCompareThreadModels() throws Exception {
+        assumeTrue(Boolean.getBoolean("load.compare-threads"), "load.compare-threads is not set");
+        assumeTrue(Runtime.version().feature() >= 21, "Virtual threads need Java 21");
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+
+        Map<String, LoadResult> results = new LinkedHashMap<>();
+        Map<String, List<String>> violations = new LinkedHashMap<>();
+        for (boolean virtualThreads : new boolean[]{false, true}) {
+            LoadTestSettings run = settings.withVirtualThreads(virtualThreads);
+            String model = virtualThreads ? "virtual" : "platform";
+            LoadResult result = run(run);
+            results.put(model, result);
+            violations.put(model, LoadReport.violations(result, run));
+            LoadReport.write(result, run, violations.get(model));
+        }
+
+        Path comparison = LoadReport.writeComparison(settings.reportDir(), results);
+        assertTrue(violations.get("virtual").isEmpty(),
+                "Virtual-thread run exceeded thresholds (" + comparison + "): " + violations.get("virtual"));
+    }
+
+    private static LoadResult run(LoadTestSettings settings) throws InterruptedException {
+        try (ServletWebServerApplicationContext context = start(settings.virtualThreads())) {
+            PersonRepository personRepository = context.getBean(PersonRepository.class);
+            List<Long> seededIds = PersonLoadTest.seed(personRepository, "seed", PersonLoadTest.SEED_PERSONS);
+            int deletable = (int) settings.expectedRequests(Operation.DELETE) + 10;
+            Queue<Long> deletableIds = new ConcurrentLinkedQueue<>(
+                    PersonLoadTest.seed(personRepository, "deletable", deletable));
+            OpenModelLoadGenerator generator = new OpenModelLoadGenerator(
+                    URI.create("http://localhost:" + context.getWebServer().getPort()),
+                    settings, seededIds, deletableIds);
+            generator.run(settings.warmup());
+            return generator.run(settings.duration());
+        }
+    }
+
+    private static ServletWebServerApplicationContext start(boolean virtualThreads) {
+        return (ServletWebServerApplicationContext) new SpringApplicationBuilder(
+                Application.class, JdbcLatencyConfiguration.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:threads-" + UUID.randomUUID(),
+                "--spring.jpa.show-sql=false",
+                "--logging.level.com.example.github.demo=WARN",
+                "--spring.threads.virtual.enabled=" + virtualThreads);
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.github.demo.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Enables the in-process person cache. Size, expiry and statistics come from
+ * {@code spring.cache.caffeine.spec}; {@code spring.cache.type=none} turns the
+ * cache off without touching the annotated service.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String PERSONS_CACHE = "persons";
+}
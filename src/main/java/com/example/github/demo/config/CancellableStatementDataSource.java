@@ -0,0 +1,60 @@
+package com.example.github.demo.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Hands out connections whose statements can be cancelled through the
+ * {@link JdbcCancellation} active on the calling thread. Without one the
+ * pooled connection is returned as is, so ordinary requests pay nothing.
+ */
+public class CancellableStatementDataSource extends DelegatingDataSource {
+
+    public CancellableStatementDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return track(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return track(super.getConnection(username, password));
+    }
+
+    private static Connection track(Connection connection) {
+        JdbcCancellation cancellation = JdbcCancellation.current();
+        if (cancellation == null) {
+            return connection;
+        }
+        return (Connection) Proxy.newProxyInstance(CancellableStatementDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new StatementTracker(connection, cancellation));
+    }
+
+    private record StatementTracker(Connection target, JdbcCancellation cancellation) implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+            if (result instanceof Statement statement) {
+                cancellation.register(statement);
+            }
+            return result;
+        }
+    }
+}
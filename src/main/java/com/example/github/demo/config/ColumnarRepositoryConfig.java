@@ -0,0 +1,33 @@
+package com.example.github.demo.config;
+
+import com.example.github.demo.repository.ColumnarPersonRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Serves {@code PersonStore} from the in-memory
+ * {@link ColumnarPersonRepository} when {@code app.repository.backend=columnar}.
+ * The JPA repository is still created but the services no longer use it.
+ * Without {@code app.repository.columnar.log-path} nothing is persisted.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.repository", name = "backend", havingValue = "columnar")
+public class ColumnarRepositoryConfig {
+
+    @Bean
+    @Primary
+    public ColumnarPersonRepository columnarPersonRepository(
+            @Value("${app.repository.columnar.log-path:}") String logPath,
+            @Value("${app.repository.columnar.fsync:true}") boolean fsync) throws IOException {
+        return StringUtils.hasText(logPath)
+                ? new ColumnarPersonRepository(Path.of(logPath), fsync)
+                : new ColumnarPersonRepository();
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.github.demo.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Bounds the number of callers waiting for a pooled connection. Hikari queues
+ * any number of waiters for up to its connection timeout; with platform
+ * request threads Tomcat's thread limit kept that queue short, but with
+ * {@code spring.threads.virtual.enabled} every accepted request can end up in
+ * it. Beyond {@code app.connection-admission.max-waiting} waiters a request is
+ * answered with 503 right away. On unless {@code app.connection-admission.enabled}
+ * is false. The pool is wrapped by {@link DataSourceWrappingConfig}; this
+ * class only exports the waiters and rejections.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.connection-admission", name = "enabled", havingValue = "true",
+        matchIfMissing = true)
+public class ConnectionAdmissionConfig {
+
+    @Bean
+    public MeterBinder connectionAdmissionMetrics(DataSource dataSource) {
+        return registry -> {
+            ConnectionAdmissionDataSource admission;
+            try {
+                admission = dataSource.unwrap(ConnectionAdmissionDataSource.class);
+            } catch (SQLException ex) {
+                return;
+            }
+            Gauge.builder("app.connection.admission.waiting", admission, ConnectionAdmissionDataSource::getWaiting)
+                    .description("Callers waiting for a database connection")
+                    .register(registry);
+            FunctionCounter.builder("app.connection.admission.rejected", admission,
+                            ConnectionAdmissionDataSource::getRejected)
+                    .description("Connection requests refused because too many callers were waiting")
+                    .register(registry);
+        };
+    }
+}
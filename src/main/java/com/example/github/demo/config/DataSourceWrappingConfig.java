@@ -0,0 +1,42 @@
+package com.example.github.demo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * The application's one {@link DataSource} post-processor, so the wrappers
+ * always nest the same way. Outermost to innermost:
+ * <ol>
+ *     <li>{@link CancellableStatementDataSource}, so the statements of
+ *     calls run under a {@link JdbcCancellation} can be cancelled;</li>
+ *     <li>{@link ConnectionAdmissionDataSource}, directly in front of the
+ *     pool, unless {@code app.connection-admission.enabled} is false
+ *     (see {@link ConnectionAdmissionConfig});</li>
+ *     <li>the pool.</li>
+ * </ol>
+ */
+@Configuration
+public class DataSourceWrappingConfig {
+
+    @Bean
+    public static BeanPostProcessor dataSourceWrappingPostProcessor(
+            @Value("${app.connection-admission.enabled:true}") boolean admissionEnabled,
+            @Value("${app.connection-admission.max-waiting:200}") int maxWaiting) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource) {
+                    DataSource wrapped = admissionEnabled
+                            ? new ConnectionAdmissionDataSource(dataSource, maxWaiting)
+                            : dataSource;
+                    return new CancellableStatementDataSource(wrapped);
+                }
+                return bean;
+            }
+        };
+    }
+}
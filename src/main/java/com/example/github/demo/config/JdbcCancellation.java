@@ -0,0 +1,104 @@
+package com.example.github.demo.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Lets another thread abort the JDBC statements of a call. Connections
+ * obtained inside {@link #run(Supplier)} are handed out by
+ * {@link CancellableStatementDataSource}, which registers every statement
+ * they create here; {@link #cancel()} then calls {@link Statement#cancel()}
+ * on those still open, and any statement created afterwards fails at once.
+ */
+public final class JdbcCancellation {
+
+    private static final Logger logger = LoggerFactory.getLogger(JdbcCancellation.class);
+
+    private static final ThreadLocal<JdbcCancellation> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Registered statements beyond which closed ones are dropped, so a call
+     * that runs many statements does not keep them all.
+     */
+    private static final int PRUNE_THRESHOLD = 16;
+
+    // Guarded by this.
+    private final List<Statement> statements = new ArrayList<>();
+    private boolean cancelled;
+
+    /**
+     * Runs {@code call} on the current thread with this cancellation in effect.
+     */
+    public <T> T run(Supplier<T> call) {
+        JdbcCancellation previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return call.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Cancels the open statements of the call. Idempotent, and safe to call
+     * from any thread.
+     */
+    public void cancel() {
+        List<Statement> open;
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            open = new ArrayList<>(statements);
+            statements.clear();
+        }
+        for (Statement statement : open) {
+            try {
+                if (!statement.isClosed()) {
+                    statement.cancel();
+                }
+            } catch (SQLException ex) {
+                logger.debug("Could not cancel statement: {}", ex.getMessage());
+            }
+        }
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    static JdbcCancellation current() {
+        return CURRENT.get();
+    }
+
+    synchronized void register(Statement statement) throws SQLException {
+        if (cancelled) {
+            statement.close();
+            throw new SQLTimeoutException("The call was cancelled");
+        }
+        if (statements.size() >= PRUNE_THRESHOLD) {
+            statements.removeIf(JdbcCancellation::isClosed);
+        }
+        statements.add(statement);
+    }
+
+    private static boolean isClosed(Statement statement) {
+        try {
+            return statement.isClosed();
+        } catch (SQLException ex) {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.github.demo.config;
+
+import com.example.github.demo.model.Person;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Hibernate second-level cache for {@link Person} and query cache for the
+ * keyset list, search and count queries, held in Caffeine through JCache.
+ * <p>
+ * The entity region serves the reads by id, which load entities rather than
+ * projections for that reason. Hibernate drops the whole region after each
+ * bulk UPDATE or DELETE it runs, and the {@code PersonInvalidationBus} evicts
+ * the persons other instances wrote. The query cache is invalidated per
+ * table, so any write to the person table drops every cached result. Only
+ * pages of up to {@code PersonRepositoryCustomImpl.MAX_CACHED_ROWS} rows are
+ * cached, so {@code app.second-level-cache.query-maximum-size} bounds its
+ * memory too.
+ * <p>
+ * With {@code app.second-level-cache.enabled=false} both caches are switched
+ * off explicitly, since Hibernate would otherwise pick up the JCache region
+ * factory from the classpath on its own.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    public static final String PERSON_REGION = Person.class.getName();
+    public static final String QUERY_RESULTS_REGION = RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME;
+    public static final String UPDATE_TIMESTAMPS_REGION =
+            RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME;
+
+    /**
+     * One cache manager per application context, so test contexts do not
+     * share regions. Values are stored by reference: Hibernate only puts
+     * immutable entries, and copying them on every read would cost more than
+     * the database round trip saved for small rows.
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "app.second-level-cache", name = "enabled", havingValue = "true",
+            matchIfMissing = true)
+    public CacheManager secondLevelCacheManager(
+            @Value("${app.second-level-cache.maximum-size:10000}") long maximumSize,
+            @Value("${app.second-level-cache.query-maximum-size:1000}") long queryMaximumSize,
+            @Value("${app.second-level-cache.expire-after-write:10m}") Duration expireAfterWrite) {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("second-level-cache:" + UUID.randomUUID()), getClass().getClassLoader());
+        cacheManager.createCache(PERSON_REGION, region(maximumSize, expireAfterWrite));
+        cacheManager.createCache(QUERY_RESULTS_REGION, region(queryMaximumSize, expireAfterWrite));
+        // Must outlive every cached query result, so it is neither bounded nor expired.
+        cacheManager.createCache(UPDATE_TIMESTAMPS_REGION, new CaffeineConfiguration<>().setStoreByValue(false));
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheProperties(ObjectProvider<CacheManager> secondLevelCacheManager) {
+        return properties -> {
+            CacheManager cacheManager = secondLevelCacheManager.getIfAvailable();
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, cacheManager != null);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, cacheManager != null);
+            if (cacheManager != null) {
+                properties.put(AvailableSettings.CACHE_REGION_FACTORY, ConfigSettings.SIMPLE_FACTORY_NAME);
+                properties.put(ConfigSettings.CACHE_MANAGER, cacheManager);
+                // Every region is created above; a region Hibernate asks for beyond those is a mistake.
+                properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+            }
+        };
+    }
+
+    private static CaffeineConfiguration<Object, Object> region(long maximumSize, Duration expireAfterWrite) {
+        return new CaffeineConfiguration<>()
+                .setStoreByValue(false)
+                .setMaximumSize(OptionalLong.of(maximumSize))
+                .setExpireAfterWrite(OptionalLong.of(expireAfterWrite.toNanos()));
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.github.demo.config;
+
+import com.example.github.demo.diagnostics.ServerTimingFilter;
+import com.example.github.demo.diagnostics.ServerTimingJacksonConverter;
+import com.example.github.demo.diagnostics.ServerTimingSessionListener;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+/**
+ * Adds a {@code Server-Timing} header to every {@code /api/persons} response,
+ * splitting the time into database, application and JSON phases. On unless
+ * {@code app.server-timing.enabled} is false.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.server-timing", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ServerTimingConfig {
+
+    /**
+     * Timing state is reused per thread only on platform threads; a virtual
+     * thread serves one request and is gone.
+     */
+    @Bean
+    public FilterRegistrationBean<ServerTimingFilter> serverTimingFilter(Environment environment) {
+        ServerTimingFilter filter = new ServerTimingFilter(!Threading.VIRTUAL.isActive(environment));
+        FilterRegistrationBean<ServerTimingFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/api/persons/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+
+    /**
+     * Replaces Spring Boot's Jackson converter, which backs off when one is
+     * defined. Only bodies up to a small bound are buffered; larger ones stream.
+     */
+    @Bean
+    public ServerTimingJacksonConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+        return new ServerTimingJacksonConverter(objectMapper);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer serverTimingSessionListener() {
+        return properties -> properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER,
+                ServerTimingSessionListener.class.getName());
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.github.demo.controller;
+
+import com.example.github.demo.diagnostics.JfrRecorder;
+import com.example.github.demo.exception.AdminAccessDeniedException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * On-demand flight recordings for diagnosing latency in production. Disabled
+ * unless {@code app.jfr.recording.enabled} is true; every call must carry the
+ * configured token in the {@value #TOKEN_HEADER} header.
+ */
+@RestController
+@RequestMapping("/admin/jfr")
+@ConditionalOnProperty(prefix = "app.jfr.recording", name = "enabled", havingValue = "true")
+public class JfrRecordingController {
+
+    public static final String TOKEN_HEADER = "X-Admin-Token";
+
+    private final JfrRecorder jfrRecorder;
+
+    public JfrRecordingController(JfrRecorder jfrRecorder) {
+        this.jfrRecorder = jfrRecorder;
+    }
+
+    /**
+     * Starts a recording and returns 202 at once, with the recording's URL in
+     * {@code Location}. The servlet thread is not held while it runs.
+     */
+    @PostMapping("/recordings")
+    public ResponseEntity<Map<String, Object>> start(
+            @RequestHeader(value = TOKEN_HEADER, required = false) String token,
+            @RequestParam(value = "seconds", defaultValue = "30") long seconds,
+            @RequestParam(value = "settings", defaultValue = "default") String settings) {
+        checkToken(token);
+        long id = jfrRecorder.start(Duration.ofSeconds(seconds), settings);
+        return ResponseEntity.accepted()
+                .location(ServletUriComponentsBuilder.fromCurrentRequestUri().path("/{id}").buildAndExpand(id).toUri())
+                .body(Map.of("id", id));
+    }
+
+    /**
+     * Returns the {@code .jfr} file once the recording has stopped, then
+     * releases it: 202 while it is still running, 404 once it has been fetched.
+     */
+    @GetMapping("/recordings/{id}")
+    public ResponseEntity<StreamingResponseBody> fetch(
+            @RequestHeader(value = TOKEN_HEADER, required = false) String token,
+            @PathVariable long id) throws IOException {
+        checkToken(token);
+        if (jfrRecorder.isRunning(id)) {
+            return ResponseEntity.accepted().header(HttpHeaders.RETRY_AFTER, "1").build();
+        }
+        Optional<Path> dumped = jfrRecorder.dump(id);
+        if (dumped.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        Path file = dumped.get();
+        StreamingResponseBody body = out -> {
+            try {
+                Files.copy(file, out);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(Files.size(file))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + file.getFileName() + "\"")
+                .body(body);
+    }
+
+    private void checkToken(String token) {
+        if (!jfrRecorder.isAuthorized(token)) {
+            throw new AdminAccessDeniedException();
+        }
+    }
+}
@@ -1,56 +1,284 @@
 package com.example.github.demo.controller;
 
 import com.example.github.demo.model.Person;
+import com.example.github.demo.model.PersonView;
+import com.example.github.demo.repository.PersonSearch;
+import com.example.github.demo.service.BatchCreateResult;
+import com.example.github.demo.service.ExportFormat;
+import com.example.github.demo.service.PersonBatchService;
+import com.example.github.demo.service.PersonExportService;
+import com.example.github.demo.service.PersonFields;
+import com.example.github.demo.service.PersonLookup;
+import com.example.github.demo.service.PersonPage;
 import com.example.github.demo.service.PersonService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/persons")
 public class PersonController {
 
     private final PersonService personService;
+    private final PersonExportService personExportService;
+    private final PersonBatchService personBatchService;
 
     @Autowired
-    public PersonController(PersonService personService) {
+    public PersonController(PersonService personService,
+                            PersonExportService personExportService,
+                            PersonBatchService personBatchService) {
         this.personService = personService;
+        this.personExportService = personExportService;
+        this.personBatchService = personBatchService;
     }
 
     @GetMapping
-    public ResponseEntity<List<Person>> getAllPersons() {
-        List<Person> persons = personService.getAllPersons();
-        return new ResponseEntity<>(persons, HttpStatus.OK);
+    public ResponseEntity<List<?>> getAllPersons(
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "limit", defaultValue = "" + PersonService.DEFAULT_PAGE_SIZE) int limit,
+            @RequestParam(value = "fields", required = false) String fields) {
+        List<String> projection = PersonFields.parse(fields);
+        Long afterId = PersonCursor.decode(after);
+        PersonPage<?> page = projection == null
+                ? personService.getPersonsPage(afterId, limit)
+                : personService.getPersonsPage(afterId, limit, projection);
+        return pageResponse(page.persons(), page.hasNext() ? PersonCursor.encode(page.nextAfterId()) : null);
     }
 
+    /**
+     * Filters are combined with AND. {@code email} is matched exactly but
+     * case-insensitively, {@code lastName} as a case-sensitive prefix, and the
+     * age bounds are inclusive. Results are ordered by last name when it is
+     * given, otherwise by age, and paged through the {@code Link} header.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<?>> searchPersons(
+            @RequestParam(value = "email", required = false) String email,
+            @RequestParam(value = "lastName", required = false) String lastName,
+            @RequestParam(value = "minAge", required = false) Integer minAge,
+            @RequestParam(value = "maxAge", required = false) Integer maxAge,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "limit", defaultValue = "" + PersonService.DEFAULT_PAGE_SIZE) int limit) {
+        PersonSearch search = new PersonSearch(blankToNull(email), blankToNull(lastName), minAge, maxAge);
+        PersonPage<PersonView> page = personService.searchPersons(search,
+                PersonCursor.decode(after, search.order()), limit);
+        List<PersonView> persons = page.persons();
+        return pageResponse(persons,
+                page.hasNext() ? PersonCursor.encode(search.after(persons.get(persons.size() - 1))) : null);
+    }
+
+    /**
+     * Number of persons matching the same filters as {@code /search}; without
+     * filters, of all persons.
+     */
+    @GetMapping("/count")
+    public ResponseEntity<Map<String, Long>> countPersons(
+            @RequestParam(value = "email", required = false) String email,
+            @RequestParam(value = "lastName", required = false) String lastName,
+            @RequestParam(value = "minAge", required = false) Integer minAge,
+            @RequestParam(value = "maxAge", required = false) Integer maxAge) {
+        PersonSearch search = new PersonSearch(blankToNull(email), blankToNull(lastName), minAge, maxAge);
+        return new ResponseEntity<>(Map.of("count", personService.countPersons(search)), HttpStatus.OK);
+    }
+
+    /**
+     * Type-ahead search: every word of {@code q} must match a name, the email
+     * or the address exactly, as a prefix or with a typo. Best match first.
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<List<PersonView>> suggestPersons(
+            @RequestParam(value = "q", required = false) String q,
+            @RequestParam(value = "limit", defaultValue = "" + PersonService.DEFAULT_SUGGESTIONS) int limit) {
+        return new ResponseEntity<>(personService.suggestPersons(q, limit), HttpStatus.OK);
+    }
+
+    @GetMapping(params = "ids")
+    public ResponseEntity<PersonLookup<?>> getPersonsByIds(
+            @RequestParam("ids") List<Long> ids,
+            @RequestParam(value = "fields", required = false) String fields) {
+        return new ResponseEntity<>(lookup(ids, fields), HttpStatus.OK);
+    }
+
+    @PostMapping("/lookup")
+    public ResponseEntity<PersonLookup<?>> lookupPersons(
+            @RequestBody List<Long> ids,
+            @RequestParam(value = "fields", required = false) String fields) {
+        return new ResponseEntity<>(lookup(ids, fields), HttpStatus.OK);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportPersons(
+            @RequestParam(value = "format", defaultValue = "ndjson") String format) {
+        ExportFormat exportFormat = ExportFormat.fromParameter(format);
+        StreamingResponseBody body = out -> personExportService.export(exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"persons." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+
+    /**
+     * With {@code fields} only the requested columns are selected. Such partial
+     * representations bypass the cache and carry no ETag.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<Person> getPersonById(@PathVariable("id") Long id) {
+    public ResponseEntity<?> getPersonById(
+            @PathVariable("id") Long id,
+            @RequestParam(value = "fields", required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        List<String> projection = PersonFields.parse(fields);
+        if (projection != null) {
+            return personService.getPersonById(id, projection)
+                    .map(ResponseEntity::ok)
+                    .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+        }
+        if (ifNoneMatch != null) {
+            // Revalidation only needs the version column; the entity is loaded only if it changed.
+            Optional<Long> version = personService.getPersonVersion(id);
+            if (version.isEmpty()) {
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+            if (PersonETags.noneMatchHits(ifNoneMatch, version.get())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(PersonETags.of(version.get())).build();
+            }
+        }
         return personService.getPersonById(id)
-                .map(person -> new ResponseEntity<>(person, HttpStatus.OK))
+                .map(person -> withETag(person, HttpStatus.OK))
                 .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
     }
 
     @PostMapping
-    public ResponseEntity<Person> createPerson(@RequestBody Person person) {
-        Person newPerson = personService.createPerson(person);
-        return new ResponseEntity<>(newPerson, HttpStatus.CREATED);
+    public ResponseEntity<PersonView> createPerson(@RequestBody Person person) {
+        PersonView newPerson = personService.createPerson(person);
+        return withETag(newPerson, HttpStatus.CREATED);
+    }
+
+    /**
+     * Like {@code GET /api/persons}, but the page is read on the
+     * {@code PersonAsyncExecutor} and the request thread is released meanwhile.
+     */
+    @GetMapping("/async")
+    public CompletableFuture<ResponseEntity<List<?>>> getPersonsAsync(
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "limit", defaultValue = "" + PersonService.DEFAULT_PAGE_SIZE) int limit) {
+        Long afterId = PersonCursor.decode(after);
+        // The current request is not available on the thread that completes the future.
+        UriComponentsBuilder request = ServletUriComponentsBuilder.fromCurrentRequest();
+        return personService.getPersonsAsync(afterId, limit).thenApply(page -> pageResponse(request,
+                page.persons(), page.hasNext() ? PersonCursor.encode(page.nextAfterId()) : null));
+    }
+
+    @GetMapping("/async/{id}")
+    public CompletableFuture<ResponseEntity<PersonView>> getPersonByIdAsync(@PathVariable("id") Long id) {
+        return personService.getPersonByIdAsync(id).thenApply(person -> person
+                .map(found -> withETag(found, HttpStatus.OK))
+                .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND)));
+    }
+
+    @PostMapping("/async")
+    public CompletableFuture<ResponseEntity<PersonView>> createPersonAsync(@RequestBody Person person) {
+        return personService.createPersonAsync(person).thenApply(created -> withETag(created, HttpStatus.CREATED));
+    }
+
+    /**
+     * The body is read by the service rather than bound with {@code @RequestBody},
+     * so that an oversized array is rejected while it streams in.
+     */
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BatchCreateResult> createPersons(HttpServletRequest request) throws IOException {
+        return batchResponse(personBatchService.createPersonsFromJson(request.getInputStream()));
+    }
+
+    @PostMapping(value = "/batch", consumes = "application/x-ndjson")
+    public ResponseEntity<BatchCreateResult> createPersonsFromNdjson(HttpServletRequest request) throws IOException {
+        return batchResponse(personBatchService.createPersons(request.getInputStream()));
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<Person> updatePerson(@PathVariable("id") Long id, @RequestBody Person person) {
-        return personService.updatePerson(id, person)
-                .map(updatedPerson -> new ResponseEntity<>(updatedPerson, HttpStatus.OK))
+    public ResponseEntity<PersonView> updatePerson(
+            @PathVariable("id") Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestBody Person person) {
+        Long expectedVersion = PersonETags.requiredVersion(id, ifMatch);
+        return personService.updatePerson(id, person, expectedVersion)
+                .map(updatedPerson -> withETag(updatedPerson, HttpStatus.OK))
                 .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
     }
 
+    @PatchMapping("/{id}")
+    public ResponseEntity<HttpStatus> patchPerson(
+            @PathVariable("id") Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestBody Map<String, Object> changes) {
+        boolean patched = personService.patchPerson(id, changes, PersonETags.requiredVersion(id, ifMatch));
+        return patched ?
+                new ResponseEntity<>(HttpStatus.NO_CONTENT) :
+                new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    }
+
     @DeleteMapping("/{id}")
-    public ResponseEntity<HttpStatus> deletePerson(@PathVariable("id") Long id) {
-        boolean deleted = personService.deletePerson(id);
+    public ResponseEntity<HttpStatus> deletePerson(
+            @PathVariable("id") Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        boolean deleted = personService.deletePerson(id, PersonETags.requiredVersion(id, ifMatch));
         return deleted ?
                 new ResponseEntity<>(HttpStatus.NO_CONTENT) :
                 new ResponseEntity<>(HttpStatus.NOT_FOUND);
     }
+
+    private static ResponseEntity<List<?>> pageResponse(List<?> persons, String nextCursor) {
+        return pageResponse(ServletUriComponentsBuilder.fromCurrentRequest(), persons, nextCursor);
+    }
+
+    private static ResponseEntity<List<?>> pageResponse(UriComponentsBuilder request, List<?> persons,
+                                                        String nextCursor) {
+        HttpHeaders headers = new HttpHeaders();
+        if (nextCursor != null) {
+            String next = request
+                    .replaceQueryParam("after", nextCursor)
+                    .replaceQueryParam("limit", persons.size())
+                    .toUriString();
+            headers.add(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return new ResponseEntity<>(persons, headers, HttpStatus.OK);
+    }
+
+    private static String blankToNull(String value) {
+        return StringUtils.hasText(value) ? value : null;
+    }
+
+    private PersonLookup<?> lookup(List<Long> ids, String fields) {
+        List<String> projection = PersonFields.parse(fields);
+        return projection == null
+                ? personService.getPersonsByIds(ids)
+                : personService.getPersonsByIds(ids, projection);
+    }
+
+    private static ResponseEntity<PersonView> withETag(PersonView person, HttpStatus status) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(status);
+        if (person.version() != null) {
+            builder.eTag(PersonETags.of(person.version()));
+        }
+        return builder.body(person);
+    }
+
+    private static ResponseEntity<BatchCreateResult> batchResponse(BatchCreateResult result) {
+        HttpStatus status = result.hasFailures() ? HttpStatus.MULTI_STATUS : HttpStatus.CREATED;
+        return new ResponseEntity<>(result, status);
+    }
 }
@@ -0,0 +1,71 @@
+package com.example.github.demo.controller;
+
+import com.example.github.demo.exception.InvalidCursorException;
+import com.example.github.demo.repository.PersonSearch;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encodes keyset positions as opaque URL-safe cursors so clients do not
+ * depend on the id layout. Shared with the reactive variant of the API.
+ */
+public final class PersonCursor {
+
+    private static final String PREFIX = "p:";
+    private static final String SEARCH_PREFIX = "s:";
+
+    private PersonCursor() {
+    }
+
+    public static String encode(Long afterId) {
+        byte[] raw = (PREFIX + afterId).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    public static Long decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!raw.startsWith(PREFIX)) {
+                throw new InvalidCursorException(cursor);
+            }
+            return Long.valueOf(raw.substring(PREFIX.length()));
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
+
+    /**
+     * Search cursors also carry the sort key, since search results are not in id order.
+     */
+    public static String encode(PersonSearch.After after) {
+        String key = after.key() == null ? "" : after.key().toString();
+        byte[] raw = (SEARCH_PREFIX + after.id() + ":" + key).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    public static PersonSearch.After decode(String cursor, PersonSearch.Order order) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':', SEARCH_PREFIX.length());
+            if (!raw.startsWith(SEARCH_PREFIX) || separator < 0) {
+                throw new InvalidCursorException(cursor);
+            }
+            Long id = Long.valueOf(raw.substring(SEARCH_PREFIX.length(), separator));
+            String key = raw.substring(separator + 1);
+            return switch (order) {
+                case ID -> new PersonSearch.After(null, id);
+                case LAST_NAME -> new PersonSearch.After(key, id);
+                case AGE -> new PersonSearch.After(Integer.valueOf(key), id);
+            };
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.github.demo.controller;
+
+import com.example.github.demo.exception.VersionConflictException;
+
+/**
+ * Maps the {@code Person} version column to strong HTTP entity tags. Shared
+ * with the reactive variant of the API.
+ */
+public final class PersonETags {
+
+    private PersonETags() {
+    }
+
+    public static String of(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Weak comparison as required for {@code If-None-Match}: any listed tag,
+     * with or without the {@code W/} prefix, or {@code *}.
+     */
+    public static boolean noneMatchHits(String ifNoneMatch, long version) {
+        String current = of(version);
+        for (String tag : ifNoneMatch.split(",")) {
+            String candidate = tag.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the version an {@code If-Match} header requires, or {@code null}
+     * when there is no precondition. Weak or malformed tags can never match
+     * strongly and are rejected as a failed precondition.
+     */
+    public static Long requiredVersion(Long id, String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() < 3 || tag.charAt(0) != '"' || tag.charAt(tag.length() - 1) != '"') {
+            throw new VersionConflictException(id);
+        }
+        try {
+            return Long.valueOf(tag.substring(1, tag.length() - 1));
+        } catch (NumberFormatException ex) {
+            throw new VersionConflictException(id);
+        }
+    }
+}
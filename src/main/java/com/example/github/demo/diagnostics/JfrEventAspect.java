@@ -0,0 +1,98 @@
+package com.example.github.demo.diagnostics;
+
+import com.example.github.demo.service.BatchCreateResult;
+import com.example.github.demo.service.PersonLookup;
+import com.example.github.demo.service.PersonPage;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Emits {@link PersonServiceEvent}s around service calls and
+ * {@link PersonErrorEvent}s for handled exceptions. While no recording has the
+ * events enabled, each advice costs one {@code isEnabled()} check. Ordered
+ * outermost, just inside ExposeInvocationInterceptor, so that cache hits and
+ * transaction handling are included.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class JfrEventAspect {
+
+    @Around("execution(public * com.example.github.demo.service.Person*Service.*(..))")
+    public Object recordServiceCall(ProceedingJoinPoint joinPoint) throws Throwable {
+        PersonServiceEvent event = new PersonServiceEvent();
+        if (!event.isEnabled()) {
+            return joinPoint.proceed();
+        }
+        event.begin();
+        try {
+            Object result = joinPoint.proceed();
+            event.rowCount = rowCount(result);
+            return result;
+        } catch (Throwable ex) {
+            event.exception = ex.getClass().getName();
+            throw ex;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = joinPoint.getSignature().getDeclaringType().getSimpleName()
+                        + "." + joinPoint.getSignature().getName();
+                Object[] args = joinPoint.getArgs();
+                if (args.length > 0 && args[0] instanceof Long id) {
+                    event.personId = id;
+                }
+                event.commit();
+            }
+        }
+    }
+
+    @AfterReturning(
+            pointcut = "@annotation(org.springframework.web.bind.annotation.ExceptionHandler) && args(ex, request)",
+            returning = "response")
+    public void recordErrorResponse(Exception ex, WebRequest request, ResponseEntity<?> response) {
+        PersonErrorEvent event = new PersonErrorEvent();
+        if (!event.shouldCommit()) {
+            return;
+        }
+        event.exception = ex.getClass().getName();
+        event.message = ex.getMessage();
+        event.status = response.getStatusCode().value();
+        event.path = request.getDescription(false).replace("uri=", "");
+        event.commit();
+    }
+
+    private static long rowCount(Object result) {
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        if (result instanceof Boolean found) {
+            return found ? 1 : 0;
+        }
+        if (result instanceof Number count) {
+            return count.longValue();
+        }
+        if (result instanceof Collection<?> rows) {
+            return rows.size();
+        }
+        if (result instanceof PersonPage<?> page) {
+            return page.persons().size();
+        }
+        if (result instanceof PersonLookup<?> lookup) {
+            return lookup.persons().size();
+        }
+        if (result instanceof BatchCreateResult batch) {
+            return batch.created();
+        }
+        return result == null ? 0 : 1;
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.github.demo.diagnostics;
+
+import com.example.github.demo.exception.InvalidRecordingSettingsException;
+import com.example.github.demo.exception.RecordingInProgressException;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Takes time-boxed flight recordings on demand, one at a time. A recording
+ * runs in the background and stops itself; its file is fetched once it has
+ * stopped. Only created when {@code app.jfr.recording.enabled} is true, and
+ * refuses every caller unless {@code app.jfr.recording.token} is set.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.jfr.recording", name = "enabled", havingValue = "true")
+public class JfrRecorder implements DisposableBean {
+
+    private static final Set<String> SETTINGS = Set.of("default", "profile");
+
+    private final Duration maxDuration;
+    private final Duration serviceCallThreshold;
+    private final byte[] token;
+
+    // Guarded by this. The latest recording, until its file is fetched or a new one replaces it.
+    private Recording current;
+
+    public JfrRecorder(@Value("${app.jfr.recording.max-duration:5m}") Duration maxDuration,
+                       @Value("${app.jfr.recording.service-call-threshold:100us}") Duration serviceCallThreshold,
+                       @Value("${app.jfr.recording.token:}") String token) {
+        this.maxDuration = maxDuration;
+        this.serviceCallThreshold = serviceCallThreshold;
+        this.token = token.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public boolean isAuthorized(String presented) {
+        return token.length > 0 && presented != null
+                && MessageDigest.isEqual(token, presented.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Starts recording for {@code duration}, capped at {@code app.jfr.recording.max-duration},
+     * with the JDK's {@code default} or {@code profile} settings plus the person
+     * events, and returns at once. Service calls faster than
+     * {@code app.jfr.recording.service-call-threshold} are not recorded. A
+     * finished recording whose file was never fetched is discarded.
+     *
+     * @return the id under which {@link #dump(long)} returns the file
+     * @throws RecordingInProgressException if another recording is running
+     */
+    public synchronized long start(Duration duration, String settings) {
+        if (!SETTINGS.contains(settings)) {
+            throw new InvalidRecordingSettingsException(settings);
+        }
+        if (current != null && current.getState() != RecordingState.STOPPED) {
+            throw new RecordingInProgressException();
+        }
+        discard();
+        Recording jfr;
+        try {
+            jfr = new Recording(Configuration.getConfiguration(settings));
+        } catch (IOException | ParseException ex) {
+            throw new IllegalStateException("Invalid JDK recording settings: " + settings, ex);
+        }
+        jfr.setName("person-api");
+        jfr.enable(PersonServiceEvent.class).withThreshold(serviceCallThreshold);
+        jfr.enable(PersonErrorEvent.class);
+        jfr.setToDisk(true);
+        jfr.setDuration(clamp(duration));
+        jfr.start();
+        current = jfr;
+        return jfr.getId();
+    }
+
+    /**
+     * Whether recording {@code id} is still running.
+     */
+    public synchronized boolean isRunning(long id) {
+        return current != null && current.getId() == id && current.getState() != RecordingState.STOPPED;
+    }
+
+    /**
+     * Writes recording {@code id} to a temporary file and releases it, so each
+     * recording can be fetched once. The caller owns the file and must delete it.
+     *
+     * @return empty if there is no such recording, it was already fetched, or it is still running
+     */
+    public synchronized Optional<Path> dump(long id) throws IOException {
+        if (current == null || current.getId() != id || current.getState() != RecordingState.STOPPED) {
+            return Optional.empty();
+        }
+        Path file = Files.createTempFile("person-api-", ".jfr");
+        try {
+            current.dump(file);
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(file);
+            throw ex;
+        }
+        discard();
+        return Optional.of(file);
+    }
+
+    @Override
+    public synchronized void destroy() {
+        discard();
+    }
+
+    private void discard() {
+        if (current != null) {
+            current.close();
+            current = null;
+        }
+    }
+
+    private Duration clamp(Duration duration) {
+        if (duration.compareTo(Duration.ofSeconds(1)) < 0) {
+            return Duration.ofSeconds(1);
+        }
+        return duration.compareTo(maxDuration) > 0 ? maxDuration : duration;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.github.demo.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * An exception mapped to an error response by
+ * {@link com.example.github.demo.exception.GlobalExceptionHandler}.
+ */
+@Name("com.example.github.demo.ErrorResponse")
+@Label("Error Response")
+@Category({"Person API", "Web"})
+@Description("An exception translated into an HTTP error response")
+@StackTrace(false)
+public class PersonErrorEvent extends Event {
+
+    @Label("Exception")
+    String exception;
+
+    @Label("Message")
+    String message;
+
+    @Label("Status")
+    int status;
+
+    @Label("Path")
+    String path;
+}
@@ -0,0 +1,36 @@
+package com.example.github.demo.diagnostics;
+
+import com.example.github.demo.service.PersonSecondaryIndex;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code /actuator/personindexes}: GET compares the in-process age and last
+ * name indexes with the person table, POST rebuilds them and then compares.
+ * Both walk the whole table, so they are meant for operators, not for probes.
+ */
+@Component
+@Endpoint(id = "personindexes")
+@ConditionalOnProperty(prefix = "app.secondary-index", name = "enabled", havingValue = "true")
+public class PersonIndexesEndpoint {
+
+    private final PersonSecondaryIndex secondaryIndex;
+
+    public PersonIndexesEndpoint(PersonSecondaryIndex secondaryIndex) {
+        this.secondaryIndex = secondaryIndex;
+    }
+
+    @ReadOperation
+    public PersonSecondaryIndex.Check check() {
+        return secondaryIndex.check();
+    }
+
+    @WriteOperation
+    public PersonSecondaryIndex.Check rebuild() {
+        secondaryIndex.rebuild();
+        return secondaryIndex.check();
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.github.demo.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One call of a person service method. The event duration is the time spent in
+ * the call, including transaction and cache handling.
+ */
+@Name("com.example.github.demo.PersonServiceCall")
+@Label("Person Service Call")
+@Category({"Person API", "Service"})
+@Description("A call of a PersonService, PersonBatchService or PersonExportService method")
+@StackTrace(false)
+public class PersonServiceEvent extends Event {
+
+    @Label("Operation")
+    @Description("Service class and method, e.g. PersonService.getPersonById")
+    String operation;
+
+    @Label("Person Id")
+    @Description("Id the call is about, 0 if it is not about a single person")
+    long personId;
+
+    @Label("Row Count")
+    @Description("Persons returned, created, updated or deleted")
+    long rowCount;
+
+    @Label("Exception")
+    @Description("Class of the exception thrown by the call, if any")
+    String exception;
+}
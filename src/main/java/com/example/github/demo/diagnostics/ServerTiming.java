@@ -0,0 +1,234 @@
+package com.example.github.demo.diagnostics;
+
+/**
+ * Per-request phase timings for the {@code Server-Timing} header. On platform
+ * threads one instance per thread is reused for every request, so measuring
+ * allocates nothing. With virtual threads, which serve a single request each,
+ * a thread-local instance would never be reused, so every request gets a new
+ * instance that is dropped from the thread when the request ends.
+ * <p>
+ * The request's own fields are only touched by the thread serving it, which
+ * changes at an async dispatch only through the container's hand-off. An
+ * asynchronous call {@linkplain #propagate(Runnable) handed to} an executor
+ * measures on its own instance there and reports each statement to the
+ * request under a lock. Once the header value is taken, or the request ends
+ * without one, these reports are ignored, so a call still running after its
+ * request timed out changes nothing.
+ */
+public final class ServerTiming {
+
+    public static final String HEADER = "Server-Timing";
+
+    private static final ThreadLocal<ServerTiming> CURRENT = new ThreadLocal<>();
+
+    private final StringBuilder header;
+    // The request timing this executor-side instance reports to, or null.
+    private final ServerTiming parent;
+    private final long parentGeneration;
+    private boolean retained;
+    private boolean active;
+    private long startNanos;
+    private long handlerEndNanos;
+    private long dbNanos;
+    private long dbStartNanos;
+    private int statements;
+    private long jsonNanos;
+
+    // Guarded by this: what propagated calls reported for the current request.
+    private long generation;
+    private boolean completed;
+    private long propagatedDbNanos;
+    private int propagatedStatements;
+
+    private ServerTiming(boolean retained) {
+        this.retained = retained;
+        this.header = retained ? new StringBuilder(128) : null;
+        this.parent = null;
+        this.parentGeneration = 0;
+    }
+
+    private ServerTiming(ServerTiming parent, long parentGeneration) {
+        this.header = null;
+        this.parent = parent;
+        this.parentGeneration = parentGeneration;
+        this.active = true;
+    }
+
+    /**
+     * Resets and activates the timing of a new request on this thread.
+     *
+     * @param perThread whether to reuse one instance per thread
+     */
+    static ServerTiming start(boolean perThread) {
+        ServerTiming timing = perThread ? CURRENT.get() : null;
+        if (timing == null) {
+            timing = new ServerTiming(perThread);
+            CURRENT.set(timing);
+        }
+        timing.active = true;
+        timing.startNanos = System.nanoTime();
+        timing.handlerEndNanos = 0;
+        timing.dbNanos = 0;
+        timing.dbStartNanos = 0;
+        timing.statements = 0;
+        timing.jsonNanos = 0;
+        synchronized (timing) {
+            timing.generation++;
+            timing.completed = false;
+            timing.propagatedDbNanos = 0;
+            timing.propagatedStatements = 0;
+        }
+        return timing;
+    }
+
+    /**
+     * @return the timing of the request served by this thread, or {@code null} if none is measured
+     */
+    static ServerTiming current() {
+        ServerTiming timing = CURRENT.get();
+        return timing != null && timing.active ? timing : null;
+    }
+
+    /**
+     * Lets {@code task} add its database time to the request measured on the
+     * calling thread, if any, when it runs on another thread. Time spent after
+     * that request completed is dropped.
+     */
+    public static Runnable propagate(Runnable task) {
+        ServerTiming timing = current();
+        if (timing == null) {
+            return task;
+        }
+        ServerTiming request = timing.parent != null ? timing.parent : timing;
+        long generation = timing.parent != null ? timing.parentGeneration : timing.generation;
+        return () -> {
+            CURRENT.set(new ServerTiming(request, generation));
+            try {
+                task.run();
+            } finally {
+                CURRENT.remove();
+            }
+        };
+    }
+
+    void stop() {
+        complete();
+        active = false;
+        if (!retained && CURRENT.get() == this) {
+            CURRENT.remove();
+        }
+    }
+
+    /**
+     * Releases this still active instance from the thread, which is about to
+     * serve other requests while an asynchronous call completes this one.
+     */
+    void detach() {
+        if (CURRENT.get() == this) {
+            CURRENT.remove();
+        }
+        retained = false;
+    }
+
+    /**
+     * Makes a {@linkplain #detach() detached} instance current again on the
+     * thread that completes the asynchronous request.
+     */
+    void resume() {
+        CURRENT.set(this);
+    }
+
+    void dbStart() {
+        dbStartNanos = System.nanoTime();
+    }
+
+    void dbEnd(boolean statement) {
+        long nanos = 0;
+        if (dbStartNanos != 0) {
+            nanos = System.nanoTime() - dbStartNanos;
+            dbStartNanos = 0;
+        }
+        if (parent != null) {
+            parent.propagated(parentGeneration, nanos, statement);
+            return;
+        }
+        dbNanos += nanos;
+        if (statement) {
+            statements++;
+        }
+    }
+
+    private synchronized void propagated(long generation, long nanos, boolean statement) {
+        if (generation != this.generation || completed) {
+            return;
+        }
+        propagatedDbNanos += nanos;
+        if (statement) {
+            propagatedStatements++;
+        }
+    }
+
+    /**
+     * Stops taking reports from propagated calls and adds what they reported.
+     */
+    private void complete() {
+        synchronized (this) {
+            if (completed) {
+                return;
+            }
+            completed = true;
+            dbNanos += propagatedDbNanos;
+            statements += propagatedStatements;
+        }
+    }
+
+    /**
+     * Marks the end of controller and service work; response writing follows.
+     */
+    void handlerDone() {
+        if (handlerEndNanos == 0) {
+            handlerEndNanos = System.nanoTime();
+        }
+    }
+
+    void json(long nanos) {
+        jsonNanos += nanos;
+    }
+
+    /**
+     * Formats the header value, e.g.
+     * {@code db;dur=1.204;desc="2 statements", app;dur=0.311, json;dur=0.087, total;dur=1.602}.
+     * {@code app} is handler time minus database time.
+     */
+    String headerValue() {
+        long now = System.nanoTime();
+        complete();
+        handlerDone();
+        long appNanos = Math.max(0, handlerEndNanos - startNanos - dbNanos);
+        StringBuilder value = header != null ? header : new StringBuilder(128);
+        value.setLength(0);
+        value.append("db;dur=");
+        appendMillis(value, dbNanos);
+        value.append(";desc=\"").append(statements).append(statements == 1 ? " statement\"" : " statements\"");
+        value.append(", app;dur=");
+        appendMillis(value, appNanos);
+        value.append(", json;dur=");
+        appendMillis(value, jsonNanos);
+        value.append(", total;dur=");
+        appendMillis(value, now - startNanos);
+        return value.toString();
+    }
+
+    private static void appendMillis(StringBuilder value, long nanos) {
+        long micros = nanos / 1000;
+        long fraction = micros % 1000;
+        value.append(micros / 1000).append('.');
+        if (fraction < 100) {
+            value.append('0');
+        }
+        if (fraction < 10) {
+            value.append('0');
+        }
+        value.append(fraction);
+    }
+}
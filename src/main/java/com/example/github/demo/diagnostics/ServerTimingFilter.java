@@ -0,0 +1,114 @@
+package com.example.github.demo.diagnostics;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Measures each request and adds the {@code Server-Timing} header right before
+ * the response is committed, that is when the body stream is first obtained
+ * or the buffer is flushed. Responses that are never committed inside the
+ * filter chain get the header when the chain returns.
+ * <p>
+ * An asynchronous request keeps its timing across the async dispatch, where
+ * the header is added, and the executor running the call adds its database
+ * time through {@link ServerTiming#propagate(Runnable)}.
+ */
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    private static final String ASYNC_TIMING = ServerTimingFilter.class.getName() + ".timing";
+
+    private final boolean perThread;
+
+    /**
+     * @param perThread whether to reuse one timing instance per thread, which
+     *                  only pays off on pooled platform threads
+     */
+    public ServerTimingFilter(boolean perThread) {
+        this.perThread = perThread;
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ServerTiming timing = (ServerTiming) request.getAttribute(ASYNC_TIMING);
+        if (timing != null) {
+            request.removeAttribute(ASYNC_TIMING);
+            timing.resume();
+        } else {
+            timing = ServerTiming.start(perThread);
+        }
+        TimingResponse timingResponse = new TimingResponse(response, timing);
+        try {
+            chain.doFilter(request, timingResponse);
+        } finally {
+            if (request.isAsyncStarted()) {
+                timing.detach();
+                request.setAttribute(ASYNC_TIMING, timing);
+            } else {
+                timingResponse.addHeader();
+                timing.stop();
+            }
+            timingResponse.timing = null;
+        }
+    }
+
+    private static final class TimingResponse extends HttpServletResponseWrapper {
+
+        private ServerTiming timing;
+
+        TimingResponse(HttpServletResponse response, ServerTiming timing) {
+            super(response);
+            this.timing = timing;
+        }
+
+        void addHeader() {
+            if (timing != null && !isCommitted()) {
+                setHeader(ServerTiming.HEADER, timing.headerValue());
+            }
+            timing = null;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            addHeader();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            addHeader();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            addHeader();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            addHeader();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            addHeader();
+            super.sendError(sc, msg);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.github.demo.diagnostics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * While a request is timed, serializes into a buffer first, so the JSON time
+ * is known before the headers are committed. Buffers come from a pool shared
+ * by all threads rather than one per thread, which neither holds a buffer for
+ * every idle platform thread nor allocates one per virtual thread. At most
+ * {@value #POOLED_BUFFERS} buffers are kept. A body that outgrows
+ * {@value #MAX_BUFFERED_BYTES} bytes is not held in full: the buffered part
+ * is written out and the rest streams straight to the response, whose
+ * {@code json} phase then covers only the buffered part. Buffered responses
+ * carry a Content-Length as a side effect.
+ */
+public class ServerTimingJacksonConverter extends MappingJackson2HttpMessageConverter {
+
+    private static final int POOLED_BUFFERS = 32;
+    private static final int INITIAL_BYTES = 4096;
+    private static final int MAX_BUFFERED_BYTES = 16 * 1024;
+
+    private final BlockingQueue<Buffer> buffers = new ArrayBlockingQueue<>(POOLED_BUFFERS);
+
+    public ServerTimingJacksonConverter(ObjectMapper objectMapper) {
+        super(objectMapper);
+    }
+
+    @Override
+    protected void writeInternal(Object object, @Nullable Type type, HttpOutputMessage outputMessage)
+            throws IOException {
+        ServerTiming timing = ServerTiming.current();
+        if (timing == null) {
+            super.writeInternal(object, type, outputMessage);
+            return;
+        }
+        timing.handlerDone();
+        Buffer buffer = buffers.poll();
+        if (buffer == null) {
+            buffer = new Buffer();
+        }
+        try {
+            long start = System.nanoTime();
+            super.writeInternal(object, type, buffer.target(outputMessage, timing, start));
+            if (!buffer.spilled()) {
+                timing.json(System.nanoTime() - start);
+                outputMessage.getHeaders().setContentLength(buffer.size());
+                buffer.writeTo(outputMessage.getBody());
+            }
+        } finally {
+            buffer.release();
+            buffers.offer(buffer);
+        }
+    }
+
+    private static final class Buffer extends OutputStream implements HttpOutputMessage {
+
+        private byte[] bytes = new byte[INITIAL_BYTES];
+        private int count;
+        private HttpOutputMessage target;
+        private ServerTiming timing;
+        private long startNanos;
+        // The response body once the buffer overflowed, else null.
+        private OutputStream spill;
+
+        HttpOutputMessage target(HttpOutputMessage target, ServerTiming timing, long startNanos) {
+            this.target = target;
+            this.timing = timing;
+            this.startNanos = startNanos;
+            return this;
+        }
+
+        boolean spilled() {
+            return spill != null;
+        }
+
+        int size() {
+            return count;
+        }
+
+        void writeTo(OutputStream out) throws IOException {
+            out.write(bytes, 0, count);
+            count = 0;
+        }
+
+        @Override
+        public OutputStream getBody() {
+            return this;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return target.getHeaders();
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (spill == null && count + len > MAX_BUFFERED_BYTES) {
+                timing.json(System.nanoTime() - startNanos);
+                spill = target.getBody();
+                writeTo(spill);
+            }
+            if (spill != null) {
+                spill.write(b, off, len);
+                return;
+            }
+            if (count + len > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.min(MAX_BUFFERED_BYTES, Math.max(bytes.length * 2, count + len)));
+            }
+            System.arraycopy(b, off, bytes, count, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (spill != null) {
+                spill.flush();
+            }
+        }
+
+        void release() {
+            target = null;
+            timing = null;
+            spill = null;
+            count = 0;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.github.demo.diagnostics;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Adds JDBC connection acquisition, statement preparation and execution time,
+ * and the number of executed statements and batches, to the current
+ * {@link ServerTiming}. Registered through {@code hibernate.session.events.auto}.
+ */
+public class ServerTimingSessionListener implements SessionEventListener {
+
+    @Override
+    public void jdbcConnectionAcquisitionStart() {
+        start();
+    }
+
+    @Override
+    public void jdbcConnectionAcquisitionEnd() {
+        end(false);
+    }
+
+    @Override
+    public void jdbcPrepareStatementStart() {
+        start();
+    }
+
+    @Override
+    public void jdbcPrepareStatementEnd() {
+        end(false);
+    }
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        start();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        end(true);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        start();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        end(true);
+    }
+
+    private static void start() {
+        ServerTiming timing = ServerTiming.current();
+        if (timing != null) {
+            timing.dbStart();
+        }
+    }
+
+    private static void end(boolean statement) {
+        ServerTiming timing = ServerTiming.current();
+        if (timing != null) {
+            timing.dbEnd(statement);
+        }
+    }
+}
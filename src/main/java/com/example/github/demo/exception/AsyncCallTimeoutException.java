@@ -0,0 +1,10 @@
+package com.example.github.demo.exception;
+
+import java.time.Duration;
+
+public class AsyncCallTimeoutException extends RuntimeException {
+
+    public AsyncCallTimeoutException(Duration timeout) {
+        super("The call did not complete within " + timeout.toMillis() + "ms");
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.github.demo.exception;
+
+public class AsyncQueueFullException extends RuntimeException {
+
+    public AsyncQueueFullException(String executor, int queueCapacity) {
+        super("More than " + queueCapacity + " asynchronous " + executor + " calls are already queued");
+    }
+}
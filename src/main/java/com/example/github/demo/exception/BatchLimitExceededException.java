@@ -0,0 +1,8 @@
+package com.example.github.demo.exception;
+
+public class BatchLimitExceededException extends RuntimeException {
+
+    public BatchLimitExceededException(int maxItems, long maxBytes) {
+        super("Batch too large: at most " + maxItems + " persons and " + maxBytes + " bytes allowed");
+    }
+}
@@ -1,10 +1,16 @@
 package com.example.github.demo.exception;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.NestedRuntimeException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.HttpRequestMethodNotSupportedException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -13,6 +19,7 @@ import org.springframework.web.method.annotation.MethodArgumentTypeMismatchExcep
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
 
 @ControllerAdvice
@@ -20,9 +27,15 @@ public class GlobalExceptionHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(GlobalExceptionHandler.class);
 
-    @ExceptionHandler(HttpMessageNotReadableException.class)
+    private static final String EMAIL_INDEX = "ux_person_email_key";
+
+    /**
+     * Also covers bodies that controllers parse themselves, such as the
+     * streamed JSON array of a batch create.
+     */
+    @ExceptionHandler({HttpMessageNotReadableException.class, JsonProcessingException.class})
     public ResponseEntity<Map<String, Object>> handleHttpMessageNotReadableException(
-            HttpMessageNotReadableException ex, WebRequest request) {
+            Exception ex, WebRequest request) {
 
         logger.error("Invalid JSON in request: ", ex);
 
@@ -52,6 +65,173 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler({InvalidCursorException.class, UnsupportedExportFormatException.class,
+            InvalidPatchException.class, LookupLimitExceededException.class,
+            InvalidFieldsException.class, InvalidRecordingSettingsException.class,
+            InvalidSearchException.class})
+    public ResponseEntity<Map<String, Object>> handleInvalidRequestParameterException(
+            RuntimeException ex, WebRequest request) {
+
+        logger.warn("Invalid request parameter: {}", ex.getMessage());
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("status", HttpStatus.BAD_REQUEST.value());
+        body.put("error", "Bad Request");
+        body.put("message", ex.getMessage());
+        body.put("path", request.getDescription(false).replace("uri=", ""));
+
+        return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(VersionConflictException.class)
+    public ResponseEntity<Map<String, Object>> handleVersionConflictException(
+            VersionConflictException ex, WebRequest request) {
+
+        logger.warn("Precondition failed: {}", ex.getMessage());
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("status", HttpStatus.PRECONDITION_FAILED.value());
+        body.put("error", "Precondition Failed");
+        body.put("message", ex.getMessage());
+        body.put("path", request.getDescription(false).replace("uri=", ""));
+
+        return new ResponseEntity<>(body, HttpStatus.PRECONDITION_FAILED);
+    }
+
+    @ExceptionHandler(AdminAccessDeniedException.class)
+    public ResponseEntity<Map<String, Object>> handleAdminAccessDeniedException(
+            AdminAccessDeniedException ex, WebRequest request) {
+
+        logger.warn("Admin access denied: {}", request.getDescription(false));
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("status", HttpStatus.FORBIDDEN.value());
+        body.put("error", "Forbidden");
+        body.put("message", ex.getMessage());
+        body.put("path", request.getDescription(false).replace("uri=", ""));
+
+        return new ResponseEntity<>(body, HttpStatus.FORBIDDEN);
+    }
+
+    @ExceptionHandler(RecordingInProgressException.class)
+    public ResponseEntity<Map<String, Object>> handleRecordingInProgressException(
+            RecordingInProgressException ex, WebRequest request) {
+
+        logger.warn("Conflict: {}", ex.getMessage());
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("status", HttpStatus.CONFLICT.value());
+        body.put("error", "Conflict");
+        body.put("message", ex.getMessage());
+        body.put("path", request.getDescription(false).replace("uri=", ""));
+
+        return new ResponseEntity<>(body, HttpStatus.CONFLICT);
+    }
+
+    /**
+     * Only a clash on the unique index on the lower-cased email is a conflict
+     * with existing data; any other violation, such as a value that is too
+     * long, is a bad request. The driver message is not passed on.
+     */
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<Map<String, Object>> handleDataIntegrityViolationException(
+            DataIntegrityViolationException ex, WebRequest request) {
+
+        logger.warn("Constraint violation: {}", ex.getMostSpecificCause().getMessage());
+
+        boolean duplicateEmail = String.valueOf(ex.getMostSpecificCause().getMessage())
+                .toLowerCase(Locale.ROOT).contains(EMAIL_INDEX);
+        HttpStatus status = duplicateEmail ? HttpStatus.CONFLICT : HttpStatus.BAD_REQUEST;
+        Map<String, Object> body = new HashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("status", status.value());
+        body.put("error", status.getReasonPhrase());
+        body.put("message", duplicateEmail ? "A person with this email already exists" : "Invalid person");
+        body.put("path", request.getDescription(false).replace("uri=", ""));
+
+        return new ResponseEntity<>(body, status);
+    }
+
+    @ExceptionHandler(BatchLimitExceededException.class)
+    public ResponseEntity<Map<String, Object>> handleBatchLimitExceededException(
+            BatchLimitExceededException ex, WebRequest request) {
+
+        logger.warn("Batch rejected: {}", ex.getMessage());
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("status", HttpStatus.PAYLOAD_TOO_LARGE.value());
+        body.put("error", "Payload Too Large");
+        body.put("message", ex.getMessage());
+        body.put("path", request.getDescription(false).replace("uri=", ""));
+
+        return new ResponseEntity<>(body, HttpStatus.PAYLOAD_TOO_LARGE);
+    }
+
+    @ExceptionHandler(TextSearchUnavailableException.class)
+    public ResponseEntity<Map<String, Object>> handleTextSearchUnavailableException(
+            TextSearchUnavailableException ex, WebRequest request) {
+
+        logger.warn("Service unavailable: {}", ex.getMessage());
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("status", HttpStatus.SERVICE_UNAVAILABLE.value());
+        body.put("error", "Service Unavailable");
+        body.put("message", ex.getMessage());
+        body.put("path", request.getDescription(false).replace("uri=", ""));
+
+        return new ResponseEntity<>(body, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    /**
+     * No connection could be obtained, usually because the pool is exhausted
+     * and too many requests are already waiting for it.
+     */
+    @ExceptionHandler({CannotCreateTransactionException.class, DataAccessResourceFailureException.class})
+    public ResponseEntity<Map<String, Object>> handleDatabaseUnavailableException(
+            NestedRuntimeException ex, WebRequest request) {
+
+        logger.warn("Database unavailable: {}", ex.getMostSpecificCause().getMessage());
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("status", HttpStatus.SERVICE_UNAVAILABLE.value());
+        body.put("error", "Service Unavailable");
+        body.put("message", "The database is busy, retry later");
+        body.put("path", request.getDescription(false).replace("uri=", ""));
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(body);
+    }
+
+    /**
+     * An asynchronous call found its executor's queue full or did not finish
+     * in time; either way the service is overloaded for now.
+     */
+    @ExceptionHandler({AsyncQueueFullException.class, AsyncCallTimeoutException.class})
+    public ResponseEntity<Map<String, Object>> handleAsyncOverloadException(
+            RuntimeException ex, WebRequest request) {
+
+        logger.warn("Asynchronous call refused: {}", ex.getMessage());
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("status", HttpStatus.SERVICE_UNAVAILABLE.value());
+        body.put("error", "Service Unavailable");
+        body.put("message", ex.getMessage());
+        body.put("path", request.getDescription(false).replace("uri=", ""));
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(body);
+    }
+
     @ExceptionHandler(HttpRequestMethodNotSupportedException.class)
     public ResponseEntity<Map<String, Object>> handleHttpRequestMethodNotSupportedException(
             HttpRequestMethodNotSupportedException ex, WebRequest request) {
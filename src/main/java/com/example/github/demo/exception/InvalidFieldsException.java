@@ -0,0 +1,8 @@
+package com.example.github.demo.exception;
+
+public class InvalidFieldsException extends RuntimeException {
+
+    public InvalidFieldsException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.github.demo.exception;
+
+public class InvalidRecordingSettingsException extends RuntimeException {
+
+    public InvalidRecordingSettingsException(String settings) {
+        super("Unsupported recording settings: " + settings + " (use default or profile)");
+    }
+}
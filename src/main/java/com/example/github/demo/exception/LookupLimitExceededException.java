@@ -0,0 +1,8 @@
+package com.example.github.demo.exception;
+
+public class LookupLimitExceededException extends RuntimeException {
+
+    public LookupLimitExceededException(int requested, int limit) {
+        super("Too many ids: " + requested + " requested, at most " + limit + " allowed");
+    }
+}
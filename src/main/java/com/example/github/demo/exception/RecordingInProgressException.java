@@ -0,0 +1,8 @@
+package com.example.github.demo.exception;
+
+public class RecordingInProgressException extends RuntimeException {
+
+    public RecordingInProgressException() {
+        super("A flight recording is already in progress");
+    }
+}
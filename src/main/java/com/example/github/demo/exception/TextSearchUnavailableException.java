@@ -0,0 +1,8 @@
+package com.example.github.demo.exception;
+
+public class TextSearchUnavailableException extends RuntimeException {
+
+    public TextSearchUnavailableException() {
+        super("Text search is disabled");
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.github.demo.exception;
+
+public class VersionConflictException extends RuntimeException {
+
+    public VersionConflictException(Long id) {
+        super("Person " + id + " has been modified since the given version");
+    }
+}
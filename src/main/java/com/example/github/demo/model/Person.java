@@ -1,25 +1,45 @@
 package com.example.github.demo.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.Cacheable;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
-import lombok.AllArgsConstructor;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.Objects;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "ux_person_email_key", columnList = "email_key", unique = true),
+        @Index(name = "ix_person_last_name", columnList = "last_name, id"),
+        @Index(name = "ix_person_age", columnList = "age, id")
+})
+// Second-level cache region; see SecondLevelCacheConfig. READ_WRITE locks an
+// entry while a transaction changes it, so no reader caches the old row meanwhile.
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Getter
 @Setter
 @NoArgsConstructor
-@AllArgsConstructor
 public class Person {
 
+    // A pooled sequence rather than IDENTITY: Hibernate has to execute an
+    // IDENTITY insert immediately to learn the key, which disables JDBC batching.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "person_seq")
+    @SequenceGenerator(name = "person_seq", sequenceName = "person_seq", allocationSize = 50)
     private Long id;
 
     private String firstName;
@@ -29,6 +49,31 @@ public class Person {
     private String address;
     private Integer age;
 
+    // Lower-cased email computed by the database, so the unique index and
+    // case-insensitive lookups share one column. Never written by Hibernate.
+    @Column(name = "email_key", insertable = false, updatable = false,
+            columnDefinition = "varchar(255) generated always as (lower(email))")
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private String emailKey;
+
+    // Incremented on every write; exposed to HTTP clients as the ETag rather than in the body.
+    @Version
+    @JsonIgnore
+    private Long version;
+
+    public Person(Long id, String firstName, String lastName, String email,
+                  String phoneNumber, String address, Integer age) {
+        this.id = id;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.email = email;
+        this.phoneNumber = phoneNumber;
+        this.address = address;
+        this.age = age;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,25 @@
+package com.example.github.demo.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * Immutable read model of a {@link Person}, returned by the service layer in
+ * place of the entity. Nothing managed or lazy leaves the transaction, so the
+ * JDBC connection can be released before the response is serialized, and
+ * values can be cached and shared between threads.
+ */
+public record PersonView(Long id,
+                         String firstName,
+                         String lastName,
+                         String email,
+                         String phoneNumber,
+                         String address,
+                         Integer age,
+                         @JsonIgnore Long version) {
+
+    public static PersonView of(Person person) {
+        return new PersonView(person.getId(), person.getFirstName(), person.getLastName(),
+                person.getEmail(), person.getPhoneNumber(), person.getAddress(), person.getAge(),
+                person.getVersion());
+    }
+}
@@ -0,0 +1,680 @@
+package com.example.github.demo.repository;
+
+import com.example.github.demo.model.Person;
+import com.example.github.demo.model.PersonView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntBinaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * {@link PersonRepository} kept entirely in memory in {@link PersonColumns},
+ * for read-heavy deployments. A person costs one slot in a few primitive
+ * arrays plus its UTF-8 bytes instead of an entity with a {@code String} per
+ * attribute, and reads never touch the database. Enabled with
+ * {@code app.repository.backend=columnar}.
+ * <p>
+ * Every write is appended to a {@link PersonWriteAheadLog} before it is
+ * applied, and the log is replayed at startup. Writes are visible and
+ * durable as soon as the call returns, independent of any surrounding Spring
+ * transaction, so a rollback does not undo them. {@code PersonService}
+ * issues one repository write per service call and {@link #saveAll} is
+ * all-or-nothing, so a call that fails leaves nothing behind either way. What
+ * this backend does not support is undoing a call that succeeded, so a
+ * timed-out or cancelled asynchronous write, or any write in a transaction
+ * that later rolls back, keeps what it wrote.
+ * <p>
+ * The unique email index and optimistic version checks behave like their JPA
+ * counterparts and throw the same Spring exceptions. Only the operations of
+ * {@link PersonStore} are offered, not the rest of {@code JpaRepository}.
+ * <p>
+ * The footprint per person is measured by
+ * {@code ColumnarPersonRepositoryBenchmark}: about 250 bytes against 650 for
+ * the same persons held as entities, 2.6 times smaller, which is well short of
+ * the tenfold saving this backend was meant to reach.
+ */
+public class ColumnarPersonRepository implements PersonStore, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ColumnarPersonRepository.class);
+
+    private static final int STREAM_CHUNK = 500;
+    // Sorts persons without an age first, as the database does.
+    private static final int NO_AGE = Integer.MIN_VALUE;
+    // Length of the varchar columns in the JPA schema.
+    private static final int MAX_TEXT_LENGTH = 255;
+    private static final List<String> WRITABLE_ATTRIBUTES =
+            List.of("firstName", "lastName", "email", "phoneNumber", "address", "age");
+
+    private final PersonColumns columns = new PersonColumns();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final PersonWriteAheadLog log;
+    private long nextId = 1L;
+
+    /**
+     * A repository that keeps nothing once the JVM exits.
+     */
+    public ColumnarPersonRepository() {
+        this.log = null;
+    }
+
+    /**
+     * Replays {@code logPath}, if it exists, and appends every later write to it.
+     *
+     * @param fsync force each write to disk rather than only to the operating system
+     */
+    public ColumnarPersonRepository(Path logPath, boolean fsync) throws IOException {
+        this.log = new PersonWriteAheadLog(logPath, fsync);
+        this.nextId = log.replay(columns);
+        if (columns.needsCompaction()) {
+            columns.compact();
+        }
+        if (log.records() > 2L * columns.liveCount() + 1000) {
+            log.checkpoint(columns, nextId);
+        }
+        logger.info("Loaded {} persons from {}", columns.liveCount(), logPath);
+    }
+
+    /**
+     * Rewrites the log as one record per person, so replay time stops
+     * depending on how many updates and deletes came before.
+     */
+    public void checkpoint() throws IOException {
+        if (log == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            log.checkpoint(columns, nextId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (log == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            log.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ---- Writes
+
+    @Override
+    public <S extends Person> S save(S entity) {
+        saveAll(List.of(entity));
+        return entity;
+    }
+
+    /**
+     * Inserts persons without an id, or with an id that does not exist, and
+     * overwrites the others. Either every person is saved or, if any of them
+     * conflicts, none is.
+     */
+    @Override
+    public <S extends Person> List<S> saveAll(Iterable<S> entities) {
+        List<S> persons = new ArrayList<>();
+        entities.forEach(persons::add);
+        lock.writeLock().lock();
+        try {
+            List<Change> changes = new ArrayList<>(persons.size());
+            long id = nextId;
+            for (Person person : persons) {
+                int row = person.getId() == null ? -1 : columns.rowOf(person.getId());
+                if (row < 0) {
+                    changes.add(new Change(id, image(person, id, 0L)));
+                    id++;
+                } else {
+                    if (person.getVersion() != null && person.getVersion() != columns.version(row)) {
+                        throw new ObjectOptimisticLockingFailureException(Person.class, person.getId());
+                    }
+                    changes.add(new Change(person.getId(), image(person, person.getId(), columns.version(row) + 1)));
+                }
+            }
+            apply(changes);
+            nextId = id;
+            for (int i = 0; i < persons.size(); i++) {
+                persons.get(i).setId(changes.get(i).id());
+                persons.get(i).setVersion(changes.get(i).person().version());
+            }
+            return persons;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int updateByIdAndVersion(Long id, Long version, Person person) {
+        lock.writeLock().lock();
+        try {
+            int row = rowOf(id, version);
+            if (row < 0) {
+                return 0;
+            }
+            apply(List.of(new Change(id, image(person, id, columns.version(row) + 1))));
+            return 1;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int patchById(Long id, Map<String, Object> changes, Long version) {
+        return patch(id, changes, version).isPresent() ? 1 : 0;
+    }
+
+    @Override
+    public Optional<Long> patchByIdReturningVersion(Long id, Map<String, Object> changes) {
+        return patch(id, changes, null);
+    }
+
+    private Optional<Long> patch(Long id, Map<String, Object> changes, Long version) {
+        lock.writeLock().lock();
+        try {
+            int row = rowOf(id, version);
+            if (row < 0) {
+                return Optional.empty();
+            }
+            Map<String, Object> values = toMap(columns.view(row), WRITABLE_ATTRIBUTES);
+            changes.forEach((attribute, value) -> {
+                if (!WRITABLE_ATTRIBUTES.contains(attribute)) {
+                    throw new InvalidDataAccessApiUsageException("Unknown or read-only person attribute: " + attribute);
+                }
+                values.put(attribute, value);
+            });
+            PersonView patched = new PersonView(id, (String) values.get("firstName"), (String) values.get("lastName"),
+                    (String) values.get("email"), (String) values.get("phoneNumber"), (String) values.get("address"),
+                    (Integer) values.get("age"), columns.version(row) + 1);
+            apply(List.of(new Change(id, patched)));
+            return Optional.of(patched.version());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int removeById(Long id) {
+        return removeByIdAndVersion(id, null);
+    }
+
+    @Override
+    public int removeByIdAndVersion(Long id, Long version) {
+        lock.writeLock().lock();
+        try {
+            if (rowOf(id, version) < 0) {
+                return 0;
+            }
+            apply(List.of(new Change(id, null)));
+            return 1;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteAll() {
+        lock.writeLock().lock();
+        try {
+            if (log != null) {
+                try {
+                    log.appendClear();
+                    log.commit();
+                } catch (IOException ex) {
+                    throw logFailure(ex);
+                }
+            }
+            columns.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ---- Reads
+
+    @Override
+    public boolean existsById(Long id) {
+        lock.readLock().lock();
+        try {
+            return columns.rowOf(id) >= 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long count() {
+        lock.readLock().lock();
+        try {
+            return columns.liveCount();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<PersonView> findViewsAfterId(Long id, Limit limit) {
+        int max = limit.isLimited() ? limit.max() : Integer.MAX_VALUE;
+        lock.readLock().lock();
+        try {
+            List<PersonView> views = new ArrayList<>(Math.min(max, 1024));
+            for (int row = columns.firstRowAfter(id == null ? 0L : id); row < columns.size() && views.size() < max; row++) {
+                if (columns.isLive(row)) {
+                    views.add(columns.view(row));
+                }
+            }
+            return views;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<PersonView> findViewById(Long id) {
+        lock.readLock().lock();
+        try {
+            int row = columns.rowOf(id);
+            return row < 0 ? Optional.empty() : Optional.of(columns.view(row));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<PersonView> findViewsByIdIn(Collection<Long> ids) {
+        lock.readLock().lock();
+        try {
+            List<PersonView> views = new ArrayList<>(ids.size());
+            for (Long id : new LinkedHashSet<>(ids)) {
+                int row = id == null ? -1 : columns.rowOf(id);
+                if (row >= 0) {
+                    views.add(columns.view(row));
+                }
+            }
+            return views;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reads {@value #STREAM_CHUNK} persons at a time, so the lock is never
+     * held while the caller works through the stream.
+     */
+    @Override
+    public Stream<Person> streamAllByOrderByIdAsc() {
+        Iterator<Person> iterator = new Iterator<>() {
+            private List<PersonView> chunk = List.of();
+            private int next;
+            private long afterId;
+            private boolean exhausted;
+
+            @Override
+            public boolean hasNext() {
+                if (next < chunk.size()) {
+                    return true;
+                }
+                if (exhausted) {
+                    return false;
+                }
+                chunk = findViewsAfterId(afterId, Limit.of(STREAM_CHUNK));
+                next = 0;
+                exhausted = chunk.size() < STREAM_CHUNK;
+                if (!chunk.isEmpty()) {
+                    afterId = chunk.get(chunk.size() - 1).id();
+                }
+                return !chunk.isEmpty();
+            }
+
+            @Override
+            public Person next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return toPerson(chunk.get(next++));
+            }
+        };
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    @Override
+    public Optional<Long> findVersionById(Long id) {
+        lock.readLock().lock();
+        try {
+            int row = columns.rowOf(id);
+            return row < 0 ? Optional.empty() : Optional.of(columns.version(row));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Map<String, Object>> findFieldsAfterId(List<String> fields, Long id, Limit limit) {
+        return findViewsAfterId(id, limit).stream().map(view -> toMap(view, fields)).toList();
+    }
+
+    @Override
+    public Optional<Map<String, Object>> findFieldsById(List<String> fields, Long id) {
+        return findViewById(id).map(view -> toMap(view, fields));
+    }
+
+    @Override
+    public List<Map<String, Object>> findFieldsByIdIn(List<String> fields, Collection<Long> ids) {
+        return findViewsByIdIn(ids).stream().map(view -> toMap(view, fields)).toList();
+    }
+
+    /**
+     * Email searches use the email index. Other searches scan the last name
+     * and age columns without materializing non-matching rows, and keep only
+     * the first {@code limit} matches in a bounded heap of row numbers.
+     */
+    @Override
+    public List<PersonView> searchViews(PersonSearch search, PersonSearch.After after, Limit limit) {
+        int max = limit.isLimited() ? limit.max() : Integer.MAX_VALUE;
+        lock.readLock().lock();
+        try {
+            if (search.email() != null) {
+                int row = columns.rowOfEmail(search.email());
+                if (row < 0 || max == 0 || !matches(search, row) || (after != null && columns.id(row) <= after.id())) {
+                    return List.of();
+                }
+                return List.of(columns.view(row));
+            }
+
+            RowHeap first = new RowHeap((a, b) -> compareRows(search.order(), a, b), max);
+            for (int row = 0; row < columns.size(); row++) {
+                if (columns.isLive(row) && matches(search, row) && isAfter(search.order(), row, after)) {
+                    first.offer(row);
+                }
+            }
+            int[] rows = first.drain();
+            List<PersonView> views = new ArrayList<>(rows.length);
+            for (int row : rows) {
+                views.add(columns.view(row));
+            }
+            return views;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long countSearch(PersonSearch search) {
+        lock.readLock().lock();
+        try {
+            if (search.email() != null) {
+                int row = columns.rowOfEmail(search.email());
+                return row >= 0 && matches(search, row) ? 1 : 0;
+            }
+            long count = 0;
+            for (int row = 0; row < columns.size(); row++) {
+                if (columns.isLive(row) && matches(search, row)) {
+                    count++;
+                }
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ---- Internals
+
+    /**
+     * A new image of one row, or its removal when {@code person} is {@code null}.
+     */
+    private record Change(long id, PersonView person) {
+    }
+
+    /**
+     * Checks the schema's constraints, logs {@code changes} and then applies them to
+     * the columns. Must hold the write lock.
+     */
+    private void apply(List<Change> changes) {
+        checkConstraints(changes);
+        if (log != null) {
+            try {
+                for (Change change : changes) {
+                    if (change.person() == null) {
+                        log.appendDelete(change.id());
+                    } else {
+                        log.appendPut(change.person());
+                    }
+                }
+                log.commit();
+            } catch (IOException ex) {
+                throw logFailure(ex);
+            }
+        }
+        for (Change change : changes) {
+            int row = columns.rowOf(change.id());
+            if (change.person() == null) {
+                columns.delete(row);
+            } else if (row >= 0) {
+                columns.overwrite(row, change.person());
+            } else {
+                columns.append(change.person());
+            }
+        }
+        if (columns.needsCompaction()) {
+            columns.compact();
+        }
+    }
+
+    private void checkConstraints(List<Change> changes) {
+        Map<String, Long> claimed = new HashMap<>();
+        for (Change change : changes) {
+            PersonView person = change.person();
+            if (person == null) {
+                continue;
+            }
+            for (String attribute : List.of("firstName", "lastName", "email", "phoneNumber", "address")) {
+                String value = (String) attribute(person, attribute);
+                if (value != null && value.length() > MAX_TEXT_LENGTH) {
+                    throw new DataIntegrityViolationException("Value too long for " + attribute);
+                }
+            }
+            if (person.email() == null) {
+                continue;
+            }
+            Long otherChange = claimed.put(PersonColumns.emailKey(person.email()), change.id());
+            int row = columns.rowOfEmail(person.email());
+            if ((otherChange != null && otherChange != change.id()) || (row >= 0 && columns.id(row) != change.id())) {
+                // Same constraint name as the JPA schema, so the API reports it the same way.
+                throw new DataIntegrityViolationException("Unique index violation: ux_person_email_key");
+            }
+        }
+    }
+
+    /**
+     * @return the live row of {@code id}, or -1 if there is none or {@code version} is given and differs
+     */
+    private int rowOf(Long id, Long version) {
+        int row = id == null ? -1 : columns.rowOf(id);
+        return row >= 0 && (version == null || version == columns.version(row)) ? row : -1;
+    }
+
+    private boolean matches(PersonSearch search, int row) {
+        if (search.lastNamePrefix() != null) {
+            String lastName = columns.lastName(row);
+            if (lastName == null || !lastName.startsWith(search.lastNamePrefix())) {
+                return false;
+            }
+        }
+        if (search.minAge() != null || search.maxAge() != null) {
+            if (!columns.hasAge(row)) {
+                return false;
+            }
+            int age = columns.age(row, NO_AGE);
+            if ((search.minAge() != null && age < search.minAge())
+                    || (search.maxAge() != null && age > search.maxAge())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isAfter(PersonSearch.Order order, int row, PersonSearch.After after) {
+        if (after == null) {
+            return true;
+        }
+        int byKey = switch (order) {
+            case ID -> 0;
+            case LAST_NAME -> columns.lastName(row).compareTo((String) after.key());
+            case AGE -> Integer.compare(columns.age(row, NO_AGE),
+                    after.key() == null ? NO_AGE : (Integer) after.key());
+        };
+        return byKey > 0 || (byKey == 0 && columns.id(row) > after.id());
+    }
+
+    private int compareRows(PersonSearch.Order order, int a, int b) {
+        int byKey = switch (order) {
+            case ID -> 0;
+            case LAST_NAME -> columns.lastName(a).compareTo(columns.lastName(b));
+            case AGE -> Integer.compare(columns.age(a, NO_AGE), columns.age(b, NO_AGE));
+        };
+        return byKey != 0 ? byKey : Long.compare(columns.id(a), columns.id(b));
+    }
+
+    /**
+     * Bounded max-heap of row numbers that keeps the {@code capacity} first
+     * rows offered, in the given order, without boxing them.
+     */
+    private static final class RowHeap {
+
+        private final IntBinaryOperator order;
+        private final int capacity;
+        private int[] rows;
+        private int size;
+
+        RowHeap(IntBinaryOperator order, int capacity) {
+            this.order = order;
+            this.capacity = capacity;
+            this.rows = new int[Math.min(capacity, 1024)];
+        }
+
+        void offer(int row) {
+            if (size < capacity) {
+                if (size == rows.length) {
+                    rows = Arrays.copyOf(rows, (int) Math.min(capacity, 2L * size));
+                }
+                rows[size] = row;
+                siftUp(size++);
+            } else if (capacity > 0 && order.applyAsInt(row, rows[0]) < 0) {
+                rows[0] = row;
+                siftDown(0);
+            }
+        }
+
+        /**
+         * @return the rows in order; the heap is empty afterwards
+         */
+        int[] drain() {
+            int[] sorted = new int[size];
+            for (int i = sorted.length - 1; i >= 0; i--) {
+                sorted[i] = rows[0];
+                rows[0] = rows[--size];
+                siftDown(0);
+            }
+            return sorted;
+        }
+
+        private void siftUp(int index) {
+            int row = rows[index];
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (order.applyAsInt(row, rows[parent]) <= 0) {
+                    break;
+                }
+                rows[index] = rows[parent];
+                index = parent;
+            }
+            rows[index] = row;
+        }
+
+        private void siftDown(int index) {
+            int row = rows[index];
+            int half = size >>> 1;
+            while (index < half) {
+                int child = 2 * index + 1;
+                if (child + 1 < size && order.applyAsInt(rows[child + 1], rows[child]) > 0) {
+                    child++;
+                }
+                if (order.applyAsInt(row, rows[child]) >= 0) {
+                    break;
+                }
+                rows[index] = rows[child];
+                index = child;
+            }
+            rows[index] = row;
+        }
+    }
+
+    private static PersonView image(Person person, long id, long version) {
+        return new PersonView(id, person.getFirstName(), person.getLastName(), person.getEmail(),
+                person.getPhoneNumber(), person.getAddress(), person.getAge(), version);
+    }
+
+    private static Person toPerson(PersonView view) {
+        Person person = new Person(view.id(), view.firstName(), view.lastName(), view.email(),
+                view.phoneNumber(), view.address(), view.age());
+        person.setVersion(view.version());
+        return person;
+    }
+
+    private static Object attribute(PersonView view, String name) {
+        return switch (name) {
+            case "id" -> view.id();
+            case "firstName" -> view.firstName();
+            case "lastName" -> view.lastName();
+            case "email" -> view.email();
+            case "phoneNumber" -> view.phoneNumber();
+            case "address" -> view.address();
+            case "age" -> view.age();
+            case "version" -> view.version();
+            default -> throw new InvalidDataAccessApiUsageException("Unknown person attribute: " + name);
+        };
+    }
+
+    private static Map<String, Object> toMap(PersonView view, List<String> fields) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (String field : fields) {
+            row.put(field, attribute(view, field));
+        }
+        return row;
+    }
+
+    private static DataAccessResourceFailureException logFailure(IOException ex) {
+        return new DataAccessResourceFailureException("Could not write the person log", ex);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.github.demo.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores each distinct value once and a 4-byte code per row. Meant for
+ * attributes such as first and last names, where a few thousand values
+ * repeat across millions of rows.
+ */
+final class DictionaryStringColumn implements StringColumn {
+
+    private static final int NULL = -1;
+
+    private int[] codes = new int[0];
+    private final List<String> values = new ArrayList<>();
+    private final Map<String, Integer> codeOf = new HashMap<>();
+    private int replaced;
+
+    @Override
+    public String get(int row) {
+        int code = codes[row];
+        return code == NULL ? null : values.get(code);
+    }
+
+    @Override
+    public void set(int row, String value) {
+        if (codes[row] != NULL) {
+            replaced++;
+        }
+        codes[row] = value == null ? NULL : codeOf.computeIfAbsent(value, v -> {
+            values.add(v);
+            return values.size() - 1;
+        });
+    }
+
+    @Override
+    public void resize(int capacity) {
+        int from = codes.length;
+        codes = Arrays.copyOf(codes, capacity);
+        if (capacity > from) {
+            Arrays.fill(codes, from, capacity, NULL);
+        }
+    }
+
+    @Override
+    public void retain(int[] rows, int count) {
+        int[] retained = new int[codes.length];
+        Arrays.fill(retained, NULL);
+        List<String> oldValues = new ArrayList<>(values);
+        values.clear();
+        codeOf.clear();
+        int[] oldCodes = codes;
+        codes = retained;
+        replaced = 0;
+        for (int i = 0; i < count; i++) {
+            int code = oldCodes[rows[i]];
+            if (code != NULL) {
+                set(i, oldValues.get(code));
+            }
+        }
+    }
+
+    @Override
+    public boolean isFragmented() {
+        // Every replaced value may have left an unused dictionary entry behind.
+        return replaced > 1024 && replaced > values.size() / 2;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.github.demo.repository;
+
+import java.util.function.IntFunction;
+
+/**
+ * Unique index from lower-cased email to row number, the in-memory
+ * counterpart of {@code ux_person_email_key}. An open-addressing table of
+ * {@code int} row numbers; keys are not stored but read back from the email
+ * column, so the index costs about 8 bytes per person.
+ */
+final class EmailKeyIndex {
+
+    private static final int EMPTY = 0;
+
+    private final IntFunction<String> keyOfRow;
+    private int[] slots = new int[16];
+    private int count;
+
+    /**
+     * @param keyOfRow lower-cased email stored at a row
+     */
+    EmailKeyIndex(IntFunction<String> keyOfRow) {
+        this.keyOfRow = keyOfRow;
+    }
+
+    /**
+     * @return the row holding {@code key}, or -1
+     */
+    int find(String key) {
+        for (int i = home(key); ; i = next(i)) {
+            int slot = slots[i];
+            if (slot == EMPTY) {
+                return -1;
+            }
+            if (key.equals(keyOfRow.apply(slot - 1))) {
+                return slot - 1;
+            }
+        }
+    }
+
+    /**
+     * Adds a key that is not in the index yet.
+     */
+    void add(String key, int row) {
+        if ((count + 1) * 2 > slots.length) {
+            rehash(slots.length * 2);
+        }
+        insert(home(key), row);
+        count++;
+    }
+
+    /**
+     * Removes {@code row}, which must currently be stored under {@code key}.
+     * Later entries of the probe sequence are shifted back, so lookups never
+     * need tombstones.
+     */
+    void remove(String key, int row) {
+        int hole = home(key);
+        while (slots[hole] != row + 1) {
+            if (slots[hole] == EMPTY) {
+                return;
+            }
+            hole = next(hole);
+        }
+        for (int i = next(hole); slots[i] != EMPTY; i = next(i)) {
+            int home = home(keyOfRow.apply(slots[i] - 1));
+            boolean stays = hole <= i ? hole < home && home <= i : hole < home || home <= i;
+            if (!stays) {
+                slots[hole] = slots[i];
+                hole = i;
+            }
+        }
+        slots[hole] = EMPTY;
+        count--;
+    }
+
+    /**
+     * Drops every entry and sizes the table for {@code expected} keys, which
+     * are then added again with {@link #add}.
+     */
+    void clear(int expected) {
+        int capacity = 16;
+        while (capacity < expected * 2) {
+            capacity <<= 1;
+        }
+        slots = new int[capacity];
+        count = 0;
+    }
+
+    private void rehash(int capacity) {
+        int[] old = slots;
+        slots = new int[capacity];
+        for (int slot : old) {
+            if (slot != EMPTY) {
+                insert(home(keyOfRow.apply(slot - 1)), slot - 1);
+            }
+        }
+    }
+
+    private void insert(int from, int row) {
+        int i = from;
+        while (slots[i] != EMPTY) {
+            i = next(i);
+        }
+        slots[i] = row + 1;
+    }
+
+    private int home(String key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (slots.length - 1);
+    }
+
+    private int next(int i) {
+        return (i + 1) & (slots.length - 1);
+    }
+}
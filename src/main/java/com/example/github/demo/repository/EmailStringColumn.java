@@ -0,0 +1,44 @@
+package com.example.github.demo.repository;
+
+/**
+ * Splits each email at its last {@code @}: the part before is stored as
+ * UTF-8 and the domain in a dictionary, since most persons share a handful
+ * of mail providers.
+ */
+final class EmailStringColumn implements StringColumn {
+
+    private final Utf8StringColumn localParts = new Utf8StringColumn();
+    private final DictionaryStringColumn domains = new DictionaryStringColumn();
+
+    @Override
+    public String get(int row) {
+        String localPart = localParts.get(row);
+        String domain = domains.get(row);
+        return localPart == null || domain == null ? localPart : localPart + '@' + domain;
+    }
+
+    @Override
+    public void set(int row, String value) {
+        int at = value == null ? -1 : value.lastIndexOf('@');
+        // A value without @ is kept whole, with no domain.
+        localParts.set(row, at < 0 ? value : value.substring(0, at));
+        domains.set(row, at < 0 ? null : value.substring(at + 1));
+    }
+
+    @Override
+    public void resize(int capacity) {
+        localParts.resize(capacity);
+        domains.resize(capacity);
+    }
+
+    @Override
+    public void retain(int[] rows, int count) {
+        localParts.retain(rows, count);
+        domains.retain(rows, count);
+    }
+
+    @Override
+    public boolean isFragmented() {
+        return localParts.isFragmented() || domains.isFragmented();
+    }
+}
@@ -0,0 +1,236 @@
+package com.example.github.demo.repository;
+
+import com.example.github.demo.model.PersonView;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Locale;
+
+/**
+ * Column-oriented person storage: a primitive array per numeric attribute and
+ * a {@link StringColumn} per text attribute, all indexed by row. Rows are
+ * only ever appended with a greater id than the last one, so the id column
+ * stays sorted and is searched with a binary search. Deleted rows are marked
+ * and physically removed by {@link #compact()}.
+ * <p>
+ * Not thread-safe; {@link ColumnarPersonRepository} guards it with a lock.
+ */
+final class PersonColumns {
+
+    // Stands for a missing age; no real age comes near it.
+    private static final int NULL_AGE = Integer.MIN_VALUE;
+
+    private long[] ids = new long[0];
+    private long[] versions = new long[0];
+    private int[] ages = new int[0];
+    private final StringColumn firstNames = new DictionaryStringColumn();
+    private final StringColumn lastNames = new DictionaryStringColumn();
+    private final StringColumn emails = new EmailStringColumn();
+    private final StringColumn phoneNumbers = new Utf8StringColumn();
+    private final StringColumn addresses = new Utf8StringColumn();
+    private final StringColumn[] strings = {firstNames, lastNames, emails, phoneNumbers, addresses};
+    private final EmailKeyIndex emailIndex = new EmailKeyIndex(row -> emailKey(emails.get(row)));
+    private BitSet deleted = new BitSet();
+    private int size;
+    private int deletedCount;
+
+    /**
+     * Number of rows, including deleted ones; valid rows are {@code 0..size()-1}.
+     */
+    int size() {
+        return size;
+    }
+
+    int liveCount() {
+        return size - deletedCount;
+    }
+
+    boolean isLive(int row) {
+        return !deleted.get(row);
+    }
+
+    long lastId() {
+        return size == 0 ? 0L : ids[size - 1];
+    }
+
+    /**
+     * @return the live row with this id, or -1
+     */
+    int rowOf(long id) {
+        int row = Arrays.binarySearch(ids, 0, size, id);
+        return row >= 0 && isLive(row) ? row : -1;
+    }
+
+    /**
+     * @return the first row whose id is greater than {@code id}, which may be deleted or {@code size()}
+     */
+    int firstRowAfter(long id) {
+        int row = Arrays.binarySearch(ids, 0, size, id);
+        return row >= 0 ? row + 1 : -row - 1;
+    }
+
+    /**
+     * @return the live row whose email equals {@code email} ignoring case, or -1
+     */
+    int rowOfEmail(String email) {
+        return email == null ? -1 : emailIndex.find(emailKey(email));
+    }
+
+    long id(int row) {
+        return ids[row];
+    }
+
+    long version(int row) {
+        return versions[row];
+    }
+
+    Integer age(int row) {
+        return ages[row] == NULL_AGE ? null : ages[row];
+    }
+
+    boolean hasAge(int row) {
+        return ages[row] != NULL_AGE;
+    }
+
+    /**
+     * @return the age of {@code row}, or {@code missing} if it has none
+     */
+    int age(int row, int missing) {
+        return ages[row] == NULL_AGE ? missing : ages[row];
+    }
+
+    String lastName(int row) {
+        return lastNames.get(row);
+    }
+
+    String email(int row) {
+        return emails.get(row);
+    }
+
+    PersonView view(int row) {
+        return new PersonView(ids[row], firstNames.get(row), lastNames.get(row), emails.get(row),
+                phoneNumbers.get(row), addresses.get(row), age(row), versions[row]);
+    }
+
+    /**
+     * Appends {@code person}, whose id must be greater than {@link #lastId()}.
+     */
+    int append(PersonView person) {
+        if (size > 0 && person.id() <= ids[size - 1]) {
+            throw new IllegalArgumentException("Id " + person.id() + " is not greater than " + ids[size - 1]);
+        }
+        if (size == ids.length) {
+            resize(Math.max(16, size + (size >> 1)));
+        }
+        int row = size++;
+        ids[row] = person.id();
+        write(row, person);
+        return row;
+    }
+
+    /**
+     * Replaces every attribute of a live row except its id.
+     */
+    void overwrite(int row, PersonView person) {
+        String oldEmail = emails.get(row);
+        if (oldEmail != null) {
+            emailIndex.remove(emailKey(oldEmail), row);
+        }
+        write(row, person);
+    }
+
+    void delete(int row) {
+        String email = emails.get(row);
+        if (email != null) {
+            emailIndex.remove(emailKey(email), row);
+        }
+        deleted.set(row);
+        deletedCount++;
+    }
+
+    void clear() {
+        deleted.set(0, size);
+        deletedCount = size;
+        compact();
+    }
+
+    /**
+     * Whether deleted rows or replaced values take up enough memory to be worth a {@link #compact()}.
+     */
+    boolean needsCompaction() {
+        if (deletedCount > 1024 && deletedCount > size / 4) {
+            return true;
+        }
+        for (StringColumn column : strings) {
+            if (column.isFragmented()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Rewrites every column without deleted rows and replaced values. Row
+     * numbers change; ids do not.
+     */
+    void compact() {
+        int[] live = new int[size - deletedCount];
+        int count = 0;
+        for (int row = deleted.nextClearBit(0); row < size; row = deleted.nextClearBit(row + 1)) {
+            live[count++] = row;
+        }
+        int capacity = Math.max(16, count + (count >> 2));
+        long[] newIds = new long[capacity];
+        long[] newVersions = new long[capacity];
+        int[] newAges = new int[capacity];
+        for (int i = 0; i < count; i++) {
+            newIds[i] = ids[live[i]];
+            newVersions[i] = versions[live[i]];
+            newAges[i] = ages[live[i]];
+        }
+        ids = newIds;
+        versions = newVersions;
+        ages = newAges;
+        for (StringColumn column : strings) {
+            column.retain(live, count);
+            column.resize(capacity);
+        }
+        deleted = new BitSet();
+        deletedCount = 0;
+        size = count;
+
+        emailIndex.clear(count);
+        for (int row = 0; row < count; row++) {
+            String email = emails.get(row);
+            if (email != null) {
+                emailIndex.add(emailKey(email), row);
+            }
+        }
+    }
+
+    private void write(int row, PersonView person) {
+        versions[row] = person.version() == null ? 0L : person.version();
+        ages[row] = person.age() == null ? NULL_AGE : person.age();
+        firstNames.set(row, person.firstName());
+        lastNames.set(row, person.lastName());
+        emails.set(row, person.email());
+        phoneNumbers.set(row, person.phoneNumber());
+        addresses.set(row, person.address());
+        if (person.email() != null) {
+            emailIndex.add(emailKey(person.email()), row);
+        }
+    }
+
+    private void resize(int capacity) {
+        ids = Arrays.copyOf(ids, capacity);
+        versions = Arrays.copyOf(versions, capacity);
+        ages = Arrays.copyOf(ages, capacity);
+        for (StringColumn column : strings) {
+            column.resize(capacity);
+        }
+    }
+
+    static String emailKey(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+}
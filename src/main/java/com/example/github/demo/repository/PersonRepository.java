@@ -1,10 +1,87 @@
 package com.example.github.demo.repository;
 
 import com.example.github.demo.model.Person;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface PersonRepository extends JpaRepository<Person, Long> {
+public interface PersonRepository extends JpaRepository<Person, Long>, PersonRepositoryCustom, PersonStore {
+
+    String VIEW = "new com.example.github.demo.model.PersonView("
+            + "p.id, p.firstName, p.lastName, p.email, p.phoneNumber, p.address, p.age, p.version)";
+
+    // Declared by both JpaRepository and PersonStore; redeclared so calls are not ambiguous.
+
+    @Override
+    <S extends Person> S save(S entity);
+
+    @Override
+    <S extends Person> List<S> saveAll(Iterable<S> entities);
+
+    @Override
+    boolean existsById(Long id);
+
+    @Override
+    long count();
+
+    @Override
+    void deleteAll();
+
+    /**
+     * Cursor over every person in id order. Must be consumed inside a
+     * transaction and closed by the caller. Bypasses the second-level cache,
+     * so an export does not push every other person out of it.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE")
+    })
+    Stream<Person> streamAllByOrderByIdAsc();
+
+    /**
+     * Overwrites every column of one person in a single UPDATE, without loading
+     * it first, but only if the stored version still equals {@code version}.
+     *
+     * @return 0 if the person does not exist or has been modified since
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Person p set p.firstName = :#{#person.firstName}, p.lastName = :#{#person.lastName}, "
+            + "p.email = :#{#person.email}, p.phoneNumber = :#{#person.phoneNumber}, "
+            + "p.address = :#{#person.address}, p.age = :#{#person.age}, p.version = p.version + 1 "
+            + "where p.id = :id and p.version = :version")
+    int updateByIdAndVersion(@Param("id") Long id, @Param("version") Long version, @Param("person") Person person);
+
+    /**
+     * Deletes one person in a single DELETE, without loading it first.
+     *
+     * @return the number of rows deleted, 0 if no person has this id
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Person p where p.id = :id")
+    int removeById(@Param("id") Long id);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Person p where p.id = :id and p.version = :version")
+    int removeByIdAndVersion(@Param("id") Long id, @Param("version") Long version);
 
+    /**
+     * Reads only the version column, for conditional requests that never need the entity.
+     */
+    @Query("select p.version from Person p where p.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
 }
@@ -0,0 +1,75 @@
+package com.example.github.demo.repository;
+
+import com.example.github.demo.model.PersonView;
+import org.springframework.data.domain.Limit;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public interface PersonRepositoryCustom {
+
+    /**
+     * Keyset page: seeks on the primary key index instead of skipping rows,
+     * so the cost of a page does not depend on how deep the cursor is.
+     */
+    List<PersonView> findViewsAfterId(Long id, Limit limit);
+
+    Optional<PersonView> findViewById(Long id);
+
+    /**
+     * The persons with these ids, in no particular order; unknown ids are left out.
+     */
+    List<PersonView> findViewsByIdIn(Collection<Long> ids);
+
+    /**
+     * Updates only the given columns of one person in a single UPDATE statement.
+     *
+     * @param changes attribute name to new value; must not be empty
+     * @return the number of rows updated, 0 if no person has this id
+     */
+    default int patchById(Long id, Map<String, Object> changes) {
+        return patchById(id, changes, null);
+    }
+
+    /**
+     * Like {@link #patchById(Long, Map)} but, when {@code version} is not null,
+     * only if the stored version still equals it.
+     */
+    int patchById(Long id, Map<String, Object> changes, Long version);
+
+    /**
+     * Like {@link #patchById(Long, Map)} but returns the version the update
+     * produced, read in the same transaction while the update still holds the
+     * row lock, so an unconditional write knows its version without a race
+     * with other writers.
+     *
+     * @return empty if no person has this id
+     */
+    Optional<Long> patchByIdReturningVersion(Long id, Map<String, Object> changes);
+
+    /**
+     * Keyset page that selects only the given attributes. Each row maps
+     * attribute name to value, in the order of {@code fields}.
+     */
+    List<Map<String, Object>> findFieldsAfterId(List<String> fields, Long id, Limit limit);
+
+    Optional<Map<String, Object>> findFieldsById(List<String> fields, Long id);
+
+    List<Map<String, Object>> findFieldsByIdIn(List<String> fields, Collection<Long> ids);
+
+    /**
+     * Keyset page of the persons matching every filter in {@code search}, in
+     * {@link PersonSearch#order()}.
+     *
+     * @param after position of the previous page's last row, or {@code null} for the first page
+     */
+    List<PersonView> searchViews(PersonSearch search, PersonSearch.After after, Limit limit);
+
+    /**
+     * Number of persons matching every filter in {@code search}; an empty
+     * search counts every person.
+     */
+    long countSearch(PersonSearch search);
+}
@@ -0,0 +1,278 @@
+package com.example.github.demo.repository;
+
+import com.example.github.demo.model.Person;
+import com.example.github.demo.model.PersonView;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+class PersonRepositoryCustomImpl implements PersonRepositoryCustom {
+
+    /**
+     * Largest page kept in the query cache: the default page size plus the
+     * look-ahead row. Larger pages always run the query, so the number of
+     * cached entries also bounds the memory they take.
+     */
+    static final int MAX_CACHED_ROWS = 101;
+
+    private static final Set<String> WRITABLE_ATTRIBUTES =
+            Set.of("firstName", "lastName", "email", "phoneNumber", "address", "age");
+
+    private final EntityManager entityManager;
+
+    PersonRepositoryCustomImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    @Transactional
+    public int patchById(Long id, Map<String, Object> changes, Long version) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Person> update = cb.createCriteriaUpdate(Person.class);
+        Root<Person> person = update.from(Person.class);
+        Path<Long> versionPath = person.get("version");
+        changes.forEach((attribute, value) -> update.set(person.get(attribute), value));
+        update.set(versionPath, cb.sum(versionPath, 1L));
+        if (version == null) {
+            update.where(cb.equal(person.get("id"), id));
+        } else {
+            update.where(cb.equal(person.get("id"), id), cb.equal(versionPath, version));
+        }
+
+        entityManager.flush();
+        int updated = entityManager.createQuery(update).executeUpdate();
+        entityManager.clear();
+        return updated;
+    }
+
+    /**
+     * The UPDATE keeps the row locked until the transaction ends, so the
+     * version read right after it in the same transaction is the one this
+     * update produced, even with concurrent writers.
+     */
+    @Override
+    @Transactional
+    public Optional<Long> patchByIdReturningVersion(Long id, Map<String, Object> changes) {
+        changes.keySet().forEach(attribute -> {
+            if (!WRITABLE_ATTRIBUTES.contains(attribute)) {
+                throw new IllegalArgumentException("Unknown or read-only person attribute: " + attribute);
+            }
+        });
+        if (patchById(id, changes, null) == 0) {
+            return Optional.empty();
+        }
+        return entityManager.createQuery("select p.version from Person p where p.id = :id", Long.class)
+                .setParameter("id", id)
+                .getResultStream()
+                .findFirst();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<PersonView> findViewsAfterId(Long id, Limit limit) {
+        TypedQuery<PersonView> query = entityManager.createQuery(
+                        "select " + PersonRepository.VIEW + " from Person p where p.id > :id order by p.id", PersonView.class)
+                .setParameter("id", id);
+        return limited(query, limit).getResultList();
+    }
+
+    /**
+     * Loads the entity, so a person in the second-level cache is served
+     * without a query.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<PersonView> findViewById(Long id) {
+        return Optional.ofNullable(entityManager.find(Person.class, id)).map(PersonView::of);
+    }
+
+    /**
+     * Loads the entities, so the persons in the second-level cache are served
+     * from there and only the others are read, with one query.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<PersonView> findViewsByIdIn(Collection<Long> ids) {
+        List<Long> distinctIds = ids.stream().filter(Objects::nonNull).distinct().toList();
+        if (distinctIds.isEmpty()) {
+            return List.of();
+        }
+        // Without an explicit cache mode, multi-loads skip the second-level cache lookup.
+        return entityManager.unwrap(Session.class).byMultipleIds(Person.class)
+                .with(CacheMode.NORMAL)
+                .withBatchSize(distinctIds.size())
+                .multiLoad(distinctIds).stream()
+                .filter(Objects::nonNull)
+                .map(PersonView::of)
+                .toList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> findFieldsAfterId(List<String> fields, Long id, Limit limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Person> person = query.from(Person.class);
+        TypedQuery<Tuple> typed = select(query, person, fields, cb.greaterThan(person.get("id"), id));
+        if (limit.isLimited()) {
+            typed.setMaxResults(limit.max());
+        }
+        return toRows(typed.getResultList(), fields);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Map<String, Object>> findFieldsById(List<String> fields, Long id) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Person> person = query.from(Person.class);
+        List<Tuple> tuples = select(query, person, fields, cb.equal(person.get("id"), id)).getResultList();
+        return toRows(tuples, fields).stream().findFirst();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> findFieldsByIdIn(List<String> fields, Collection<Long> ids) {
+        CriteriaQuery<Tuple> query = entityManager.getCriteriaBuilder().createTupleQuery();
+        Root<Person> person = query.from(Person.class);
+        return toRows(select(query, person, fields, person.get("id").in(ids)).getResultList(), fields);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<PersonView> searchViews(PersonSearch search, PersonSearch.After after, Limit limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<PersonView> query = cb.createQuery(PersonView.class);
+        Root<Person> person = query.from(Person.class);
+        Path<Long> id = person.get("id");
+        List<Predicate> where = filters(cb, person, search);
+
+        switch (search.order()) {
+            case ID -> {
+                if (after != null) {
+                    where.add(cb.greaterThan(id, after.id()));
+                }
+                query.orderBy(cb.asc(id));
+            }
+            case LAST_NAME -> {
+                Path<String> lastName = person.get("lastName");
+                if (after != null) {
+                    where.add(afterKey(cb, lastName, (String) after.key(), id, after.id()));
+                }
+                query.orderBy(cb.asc(lastName), cb.asc(id));
+            }
+            case AGE -> {
+                Path<Integer> age = person.get("age");
+                if (after != null) {
+                    where.add(afterKey(cb, age, (Integer) after.key(), id, after.id()));
+                }
+                query.orderBy(cb.asc(age), cb.asc(id));
+            }
+        }
+        query.select(cb.construct(PersonView.class,
+                        id, person.get("firstName"), person.get("lastName"),
+                        person.get("email"), person.get("phoneNumber"), person.get("address"),
+                        person.get("age"), person.get("version")))
+                .where(where.toArray(Predicate[]::new));
+        return limited(entityManager.createQuery(query), limit).getResultList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long countSearch(PersonSearch search) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Person> person = query.from(Person.class);
+        query.select(cb.count(person)).where(filters(cb, person, search).toArray(Predicate[]::new));
+        return entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_CACHEABLE, true)
+                .getSingleResult();
+    }
+
+    /**
+     * Applies {@code limit} and makes the query cacheable if the page is small
+     * enough to cache.
+     */
+    private static <T> TypedQuery<T> limited(TypedQuery<T> query, Limit limit) {
+        if (limit.isLimited()) {
+            query.setMaxResults(limit.max());
+        }
+        return query.setHint(HibernateHints.HINT_CACHEABLE, limit.isLimited() && limit.max() <= MAX_CACHED_ROWS);
+    }
+
+    private static List<Predicate> filters(CriteriaBuilder cb, Root<Person> person, PersonSearch search) {
+        List<Predicate> where = new ArrayList<>();
+        if (search.email() != null) {
+            where.add(cb.equal(person.get("emailKey"), search.email().toLowerCase(Locale.ROOT)));
+        }
+        if (search.lastNamePrefix() != null) {
+            // A range rather than LIKE, so the index on last_name is used even with a bound parameter.
+            Path<String> lastName = person.get("lastName");
+            where.add(cb.greaterThanOrEqualTo(lastName, search.lastNamePrefix()));
+            String upperBound = PersonSearch.prefixUpperBound(search.lastNamePrefix());
+            if (upperBound != null) {
+                where.add(cb.lessThan(lastName, upperBound));
+            }
+        }
+        if (search.minAge() != null) {
+            where.add(cb.greaterThanOrEqualTo(person.get("age"), search.minAge()));
+        }
+        if (search.maxAge() != null) {
+            where.add(cb.lessThanOrEqualTo(person.get("age"), search.maxAge()));
+        }
+        return where;
+    }
+
+    /**
+     * {@code (key, id) > (afterKey, afterId)}, written with a plain lower bound
+     * on {@code key} so it becomes the start of the index range.
+     */
+    private static <K extends Comparable<? super K>> Predicate afterKey(CriteriaBuilder cb, Path<K> key, K afterKey,
+                                                                       Path<Long> id, Long afterId) {
+        return cb.and(cb.greaterThanOrEqualTo(key, afterKey),
+                cb.or(cb.greaterThan(key, afterKey), cb.greaterThan(id, afterId)));
+    }
+
+    private TypedQuery<Tuple> select(CriteriaQuery<Tuple> query, Root<Person> person,
+                                     List<String> fields, Predicate where) {
+        List<Selection<?>> columns = fields.stream()
+                .<Selection<?>>map(field -> person.get(field).alias(field))
+                .toList();
+        query.multiselect(columns)
+                .where(where)
+                .orderBy(entityManager.getCriteriaBuilder().asc(person.get("id")));
+        return entityManager.createQuery(query);
+    }
+
+    private static List<Map<String, Object>> toRows(List<Tuple> tuples, List<String> fields) {
+        return tuples.stream().map(tuple -> {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (String field : fields) {
+                row.put(field, tuple.get(field));
+            }
+            return row;
+        }).toList();
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.github.demo.repository;
+
+import com.example.github.demo.model.PersonView;
+
+import java.util.Locale;
+
+/**
+ * Filters for {@link PersonRepositoryCustom#searchViews}. Every non-null filter
+ * must match; each one is backed by an index on the person table.
+ *
+ * @param email          exact email, compared case-insensitively
+ * @param lastNamePrefix case-sensitive prefix of the last name
+ * @param minAge         inclusive lower bound on age
+ * @param maxAge         inclusive upper bound on age
+ */
+public record PersonSearch(String email, String lastNamePrefix, Integer minAge, Integer maxAge) {
+
+    /**
+     * Result order, chosen so the index that answers the most selective filter
+     * also returns the rows sorted and a page can stop after {@code limit} rows.
+     */
+    public enum Order {
+        /** Email is unique, so there is at most one row. */
+        ID,
+        /** By last name, then id. */
+        LAST_NAME,
+        /** By age, then id. */
+        AGE
+    }
+
+    /**
+     * Keyset position: the sort key and id of the last row of the previous
+     * page. {@code key} is {@code null} in {@link Order#ID} order.
+     */
+    public record After(Object key, Long id) {
+    }
+
+    public boolean isEmpty() {
+        return email == null && lastNamePrefix == null && minAge == null && maxAge == null;
+    }
+
+    /**
+     * Whether {@code person} passes every filter, for results that did not
+     * come from the database query.
+     */
+    public boolean matches(PersonView person) {
+        if (email != null && (person.email() == null
+                || !person.email().toLowerCase(Locale.ROOT).equals(email.toLowerCase(Locale.ROOT)))) {
+            return false;
+        }
+        if (lastNamePrefix != null && (person.lastName() == null || !person.lastName().startsWith(lastNamePrefix))) {
+            return false;
+        }
+        if (minAge == null && maxAge == null) {
+            return true;
+        }
+        return person.age() != null
+                && (minAge == null || person.age() >= minAge)
+                && (maxAge == null || person.age() <= maxAge);
+    }
+
+    public Order order() {
+        if (email != null) {
+            return Order.ID;
+        }
+        return lastNamePrefix != null ? Order.LAST_NAME : Order.AGE;
+    }
+
+    /**
+     * Position to resume after {@code last}, the last row of a page.
+     */
+    public After after(PersonView last) {
+        return switch (order()) {
+            case ID -> new After(null, last.id());
+            case LAST_NAME -> new After(last.lastName(), last.id());
+            case AGE -> new After(last.age(), last.id());
+        };
+    }
+
+    /**
+     * Smallest string greater than every string that starts with {@code prefix},
+     * or {@code null} if there is none.
+     */
+    public static String prefixUpperBound(String prefix) {
+        StringBuilder bound = new StringBuilder(prefix);
+        while (!bound.isEmpty()) {
+            int last = bound.length() - 1;
+            char c = bound.charAt(last);
+            if (c < Character.MAX_VALUE) {
+                bound.setCharAt(last, (char) (c + 1));
+                return bound.toString();
+            }
+            bound.setLength(last);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.github.demo.repository;
+
+import com.example.github.demo.model.Person;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * The person storage operations the services rely on. {@link PersonRepository}
+ * provides them through JPA and {@link ColumnarPersonRepository} from memory;
+ * the services depend on this interface only, so a backend never has to
+ * implement the rest of {@code JpaRepository}.
+ */
+public interface PersonStore extends PersonRepositoryCustom {
+
+    <S extends Person> S save(S entity);
+
+    <S extends Person> List<S> saveAll(Iterable<S> entities);
+
+    boolean existsById(Long id);
+
+    long count();
+
+    void deleteAll();
+
+    /**
+     * Every person in id order. The caller must close the stream.
+     */
+    Stream<Person> streamAllByOrderByIdAsc();
+
+    /**
+     * Overwrites every attribute of one person, but only if the stored version
+     * still equals {@code version}.
+     *
+     * @return 0 if the person does not exist or has been modified since
+     */
+    int updateByIdAndVersion(Long id, Long version, Person person);
+
+    /**
+     * @return the number of persons deleted, 0 if no person has this id
+     */
+    int removeById(Long id);
+
+    int removeByIdAndVersion(Long id, Long version);
+
+    Optional<Long> findVersionById(Long id);
+}
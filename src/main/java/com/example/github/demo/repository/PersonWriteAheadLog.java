@@ -0,0 +1,347 @@
+package com.example.github.demo.repository;
+
+import com.example.github.demo.model.PersonView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of person writes for {@link ColumnarPersonRepository}.
+ * Every write is appended as the full image of the affected row, so replaying
+ * the log from the start rebuilds the columns exactly.
+ * <p>
+ * The file starts with a header holding the next id to assign, followed by
+ * records framed as {@code length, crc32, payload}. A record cut short by a
+ * crash fails its length or checksum; replay stops there and the tail is
+ * truncated. {@link #checkpoint} rewrites the log as one record per live
+ * person, so it does not grow with the number of updates.
+ */
+final class PersonWriteAheadLog implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(PersonWriteAheadLog.class);
+
+    private static final int MAGIC = 0x5057414c;
+    private static final int FORMAT = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    private static final byte CLEAR = 3;
+
+    private final Path path;
+    private final boolean fsync;
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream(256);
+    private final DataOutputStream payload = new DataOutputStream(record);
+    private final CRC32 crc = new CRC32();
+    private FileChannel channel;
+    private ByteBuffer pending = ByteBuffer.allocate(64 * 1024);
+    private long records;
+    private int pendingRecords;
+
+    /**
+     * @param fsync force every {@link #commit()} to disk; otherwise commits only
+     *              reach the operating system and survive a process crash but not a power loss
+     */
+    PersonWriteAheadLog(Path path, boolean fsync) {
+        this.path = path;
+        this.fsync = fsync;
+    }
+
+    /**
+     * Applies every complete record to {@code columns}, which must be empty,
+     * and opens the log for appending.
+     *
+     * @return the next id to assign
+     */
+    long replay(PersonColumns columns) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        long nextId = 1L;
+        long validBytes = 0L;
+        // A file shorter than the header was cut off while being created and holds no records.
+        if (Files.exists(path) && Files.size(path) >= HEADER_BYTES) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+                if (in.readInt() != MAGIC || in.readInt() != FORMAT) {
+                    throw new IOException(path + " is not a person log");
+                }
+                nextId = in.readLong();
+                validBytes = HEADER_BYTES;
+                byte[] buffer = new byte[256];
+                while (true) {
+                    int length;
+                    try {
+                        length = in.readInt();
+                        long expectedCrc = in.readInt() & 0xffffffffL;
+                        if (length <= 0 || length > (1 << 20)) {
+                            break;
+                        }
+                        if (buffer.length < length) {
+                            buffer = new byte[length];
+                        }
+                        in.readFully(buffer, 0, length);
+                        crc.reset();
+                        crc.update(buffer, 0, length);
+                        if (crc.getValue() != expectedCrc) {
+                            break;
+                        }
+                    } catch (EOFException ex) {
+                        break;
+                    }
+                    long id = apply(columns, new DataInputStream(new ByteArrayInputStream(buffer, 0, length)));
+                    nextId = Math.max(nextId, id + 1);
+                    validBytes += 8L + length;
+                    records++;
+                }
+            }
+        }
+
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (validBytes == 0L) {
+            channel.truncate(0L);
+            writeHeader(channel, nextId);
+            validBytes = HEADER_BYTES;
+        } else if (channel.size() > validBytes) {
+            logger.warn("Discarding {} bytes of incomplete records at the end of {}",
+                    channel.size() - validBytes, path);
+            channel.truncate(validBytes);
+        }
+        channel.position(validBytes);
+        return nextId;
+    }
+
+    /**
+     * Number of records in the log, replayed or appended.
+     */
+    long records() {
+        return records;
+    }
+
+    void appendPut(PersonView person) throws IOException {
+        record.reset();
+        payload.writeByte(PUT);
+        payload.writeLong(person.id());
+        payload.writeLong(person.version() == null ? 0L : person.version());
+        writeString(person.firstName());
+        writeString(person.lastName());
+        writeString(person.email());
+        writeString(person.phoneNumber());
+        writeString(person.address());
+        payload.writeBoolean(person.age() != null);
+        payload.writeInt(person.age() == null ? 0 : person.age());
+        frame();
+    }
+
+    void appendDelete(long id) throws IOException {
+        record.reset();
+        payload.writeByte(DELETE);
+        payload.writeLong(id);
+        frame();
+    }
+
+    void appendClear() throws IOException {
+        record.reset();
+        payload.writeByte(CLEAR);
+        frame();
+    }
+
+    /**
+     * Writes the records appended since the last commit, as one write. If
+     * that fails, the records are dropped and the file is cut back to where
+     * it was, so a later commit does not follow a torn record.
+     */
+    void commit() throws IOException {
+        long start = channel.position();
+        int committed = pendingRecords;
+        try {
+            writePending(channel);
+            if (fsync) {
+                channel.force(false);
+            }
+            records += committed;
+        } catch (IOException ex) {
+            try {
+                channel.truncate(start);
+                channel.position(start);
+            } catch (IOException suppressed) {
+                ex.addSuppressed(suppressed);
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Replaces the log with one record per live row of {@code columns}. The
+     * new log is written and forced next to the old one and then moved over
+     * it, so a crash leaves one of the two intact. Appends only switch to the
+     * new log once it is in place; if writing or moving it fails, they carry
+     * on in the old one.
+     */
+    void checkpoint(PersonColumns columns, long nextId) throws IOException {
+        commit();
+        Path next = path.resolveSibling(path.getFileName() + ".next");
+        FileChannel snapshot = FileChannel.open(next, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        long written = 0L;
+        try {
+            writeHeader(snapshot, nextId);
+            for (int row = 0; row < columns.size(); row++) {
+                if (columns.isLive(row)) {
+                    appendPut(columns.view(row));
+                    if (pending.position() > pending.capacity() / 2) {
+                        written += pendingRecords;
+                        writePending(snapshot);
+                    }
+                }
+            }
+            written += pendingRecords;
+            writePending(snapshot);
+            snapshot.force(true);
+            // The open channel follows the file through the move, so appends need not reopen it.
+            Files.move(next, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            try {
+                snapshot.close();
+                Files.deleteIfExists(next);
+            } catch (IOException suppressed) {
+                ex.addSuppressed(suppressed);
+            }
+            throw ex;
+        }
+        FileChannel previous = channel;
+        channel = snapshot;
+        records = written;
+        try {
+            previous.close();
+        } catch (IOException ex) {
+            logger.warn("Could not close the replaced log of {}", path, ex);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            commit();
+            channel.close();
+        }
+    }
+
+    private void frame() throws IOException {
+        payload.flush();
+        int length = record.size();
+        byte[] data = record.toByteArray();
+        crc.reset();
+        crc.update(data, 0, length);
+        if (pending.remaining() < 8 + length) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + 8 + length));
+            pending.flip();
+            grown.put(pending);
+            pending = grown;
+        }
+        pending.putInt(length);
+        pending.putInt((int) crc.getValue());
+        pending.put(data, 0, length);
+        pendingRecords++;
+    }
+
+    /**
+     * Writes and clears the pending records, which are dropped even if the write fails.
+     */
+    private void writePending(FileChannel target) throws IOException {
+        pending.flip();
+        try {
+            while (pending.hasRemaining()) {
+                target.write(pending);
+            }
+        } finally {
+            pending.clear();
+            pendingRecords = 0;
+        }
+    }
+
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            payload.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        payload.writeInt(bytes.length);
+        payload.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the id the record refers to, or 0
+     */
+    private static long apply(PersonColumns columns, DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case PUT -> {
+                long id = in.readLong();
+                long version = in.readLong();
+                String firstName = readString(in);
+                String lastName = readString(in);
+                String email = readString(in);
+                String phoneNumber = readString(in);
+                String address = readString(in);
+                boolean hasAge = in.readBoolean();
+                int age = in.readInt();
+                PersonView person = new PersonView(id, firstName, lastName, email, phoneNumber, address,
+                        hasAge ? age : null, version);
+                int row = columns.rowOf(id);
+                if (row >= 0) {
+                    columns.overwrite(row, person);
+                } else {
+                    columns.append(person);
+                }
+                return id;
+            }
+            case DELETE -> {
+                long id = in.readLong();
+                int row = columns.rowOf(id);
+                if (row >= 0) {
+                    columns.delete(row);
+                }
+                return id;
+            }
+            case CLEAR -> {
+                columns.clear();
+                return 0L;
+            }
+            default -> throw new IOException("Unknown record type " + type);
+        }
+    }
+
+    private static void writeHeader(FileChannel channel, long nextId) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).putInt(FORMAT).putLong(nextId).flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+    }
+}
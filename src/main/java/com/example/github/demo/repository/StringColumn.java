@@ -0,0 +1,28 @@
+package com.example.github.demo.repository;
+
+/**
+ * One text attribute of {@link PersonColumns}, addressed by row number.
+ * {@code null} values are stored as such.
+ */
+interface StringColumn {
+
+    String get(int row);
+
+    void set(int row, String value);
+
+    /**
+     * Grows the column so rows {@code 0..capacity-1} can be set.
+     */
+    void resize(int capacity);
+
+    /**
+     * Keeps only the rows listed in {@code rows[0..count)}, which become rows
+     * {@code 0..count-1}, and releases everything else.
+     */
+    void retain(int[] rows, int count);
+
+    /**
+     * Whether {@link #retain} would free a significant share of the column.
+     */
+    boolean isFragmented();
+}
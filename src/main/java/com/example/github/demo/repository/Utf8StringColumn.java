@@ -0,0 +1,129 @@
+package com.example.github.demo.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Stores every value as length-prefixed UTF-8 in shared 1 MiB pages, with a
+ * 4-byte position per row. Meant for mostly unique attributes such as
+ * addresses, where a dictionary would not save anything but a separate
+ * {@code String} per row costs about 40 bytes of object headers. Pages are
+ * never copied to grow, so there is no slack beyond the last page.
+ * Overwritten values stay in their page until {@link #retain} rewrites them.
+ */
+final class Utf8StringColumn implements StringColumn {
+
+    private static final int NULL = -1;
+    private static final int PAGE_BITS = 20;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int MAX_PAGES = Integer.MAX_VALUE >>> PAGE_BITS;
+
+    private int[] positions = new int[0];
+    private List<byte[]> pages = new ArrayList<>();
+    private int pageUsed = PAGE_SIZE;
+    private long used;
+    private long garbage;
+
+    @Override
+    public String get(int row) {
+        int position = positions[row];
+        if (position == NULL) {
+            return null;
+        }
+        byte[] page = pages.get(position >>> PAGE_BITS);
+        int at = position & (PAGE_SIZE - 1);
+        int length = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = page[at++];
+            length |= (b & 0x7f) << shift;
+            shift += 7;
+        } while (b < 0);
+        return new String(page, at, length, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void set(int row, String value) {
+        if (positions[row] != NULL) {
+            garbage += encodedSize(get(row));
+        }
+        positions[row] = value == null ? NULL : write(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void resize(int capacity) {
+        int from = positions.length;
+        positions = Arrays.copyOf(positions, capacity);
+        if (capacity > from) {
+            Arrays.fill(positions, from, capacity, NULL);
+        }
+    }
+
+    @Override
+    public void retain(int[] rows, int count) {
+        int[] oldPositions = positions;
+        Utf8StringColumn old = new Utf8StringColumn();
+        old.positions = oldPositions;
+        old.pages = pages;
+        positions = new int[oldPositions.length];
+        Arrays.fill(positions, NULL);
+        pages = new ArrayList<>();
+        pageUsed = PAGE_SIZE;
+        used = 0;
+        garbage = 0;
+        for (int i = 0; i < count; i++) {
+            String value = old.get(rows[i]);
+            if (value != null) {
+                positions[i] = write(value.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    @Override
+    public boolean isFragmented() {
+        return garbage > PAGE_SIZE && garbage > used / 2;
+    }
+
+    private int write(byte[] value) {
+        int size = varIntSize(value.length) + value.length;
+        if (size > PAGE_SIZE) {
+            throw new IllegalArgumentException("Value of " + value.length + " bytes does not fit a column page");
+        }
+        if (pageUsed + size > PAGE_SIZE) {
+            if (pages.size() == MAX_PAGES) {
+                throw new IllegalStateException("Column is full: " + pages.size() + " pages");
+            }
+            pages.add(new byte[PAGE_SIZE]);
+            pageUsed = 0;
+        }
+        byte[] page = pages.get(pages.size() - 1);
+        int position = ((pages.size() - 1) << PAGE_BITS) | pageUsed;
+        int length = value.length;
+        while (length >= 0x80) {
+            page[pageUsed++] = (byte) (length | 0x80);
+            length >>>= 7;
+        }
+        page[pageUsed++] = (byte) length;
+        System.arraycopy(value, 0, page, pageUsed, value.length);
+        pageUsed += value.length;
+        used += size;
+        return position;
+    }
+
+    private static int encodedSize(String value) {
+        int length = value.getBytes(StandardCharsets.UTF_8).length;
+        return varIntSize(length) + length;
+    }
+
+    private static int varIntSize(int value) {
+        int size = 1;
+        while (value >= 0x80) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+}
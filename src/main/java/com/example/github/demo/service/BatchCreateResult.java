@@ -0,0 +1,10 @@
+package com.example.github.demo.service;
+
+import java.util.List;
+
+public record BatchCreateResult(int created, int failed, List<BatchItemResult> items) {
+
+    public boolean hasFailures() {
+        return failed > 0;
+    }
+}
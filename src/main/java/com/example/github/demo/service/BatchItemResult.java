@@ -0,0 +1,17 @@
+package com.example.github.demo.service;
+
+/**
+ * Outcome of one item of a bulk create, identified by its position in the
+ * request. Only failed items are reported.
+ */
+public record BatchItemResult(int index, Long id, Status status, String error) {
+
+    public enum Status {
+        CREATED,
+        FAILED
+    }
+
+    static BatchItemResult failed(int index, String error) {
+        return new BatchItemResult(index, null, Status.FAILED, error);
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.github.demo.service;
+
+import com.example.github.demo.model.PersonView;
+import com.example.github.demo.repository.PersonStore;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Coalesces concurrent lookups by id into one IN query.
+ * <p>
+ * The first id of a batch opens a window of {@code app.loader.window}; every id
+ * requested until the window closes, or until {@code app.loader.max-batch-size}
+ * ids are pending, is loaded by the same IN query on one of
+ * {@code app.loader.concurrency} worker threads. Callers that ask for an id
+ * that is already in flight wait for that load instead of starting another.
+ * Only created when {@code app.loader.enabled=true}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.loader", name = "enabled", havingValue = "true")
+public class CoalescingPersonLoader implements DisposableBean {
+
+    private final PersonStore personRepository;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService timer;
+    private final ExecutorService workers;
+    private final Map<Long, CompletableFuture<Optional<PersonView>>> inFlight = new ConcurrentHashMap<>();
+
+    // Guarded by this.
+    private List<Long> pending = new ArrayList<>();
+    private long generation;
+    private boolean flushScheduled;
+
+    @Autowired
+    public CoalescingPersonLoader(PersonStore personRepository,
+                                  @Value("${app.loader.window:2ms}") Duration window,
+                                  @Value("${app.loader.max-batch-size:100}") int maxBatchSize,
+                                  @Value("${app.loader.concurrency:4}") int concurrency) {
+        this.personRepository = personRepository;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.timer = Executors.newSingleThreadScheduledExecutor(daemonThreads("person-loader-timer"));
+        this.workers = Executors.newFixedThreadPool(Math.max(1, concurrency), daemonThreads("person-loader"));
+    }
+
+    public Optional<PersonView> load(Long id) {
+        CompletableFuture<Optional<PersonView>> future = new CompletableFuture<>();
+        CompletableFuture<Optional<PersonView>> existing = inFlight.putIfAbsent(id, future);
+        if (existing != null) {
+            return await(existing);
+        }
+        enqueue(id);
+        return await(future);
+    }
+
+    @Override
+    public void destroy() {
+        timer.shutdownNow();
+        workers.shutdownNow();
+        failAll(new ArrayList<>(inFlight.keySet()), new IllegalStateException("Person loader is shut down"));
+    }
+
+    private synchronized void enqueue(Long id) {
+        pending.add(id);
+        if (pending.size() >= maxBatchSize) {
+            dispatch(takePending());
+        } else if (!flushScheduled) {
+            flushScheduled = true;
+            long scheduledGeneration = generation;
+            timer.schedule(() -> flush(scheduledGeneration), windowNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void flush(long scheduledGeneration) {
+        List<Long> batch;
+        synchronized (this) {
+            // The batch this timer was armed for may already have been dispatched for being full.
+            if (scheduledGeneration != generation) {
+                return;
+            }
+            batch = takePending();
+        }
+        dispatch(batch);
+    }
+
+    private List<Long> takePending() {
+        List<Long> batch = pending;
+        pending = new ArrayList<>();
+        flushScheduled = false;
+        generation++;
+        return batch;
+    }
+
+    private void dispatch(List<Long> batch) {
+        try {
+            workers.execute(() -> loadBatch(batch));
+        } catch (RejectedExecutionException ex) {
+            failAll(batch, ex);
+        }
+    }
+
+    private void loadBatch(List<Long> batch) {
+        Map<Long, PersonView> found = new HashMap<>();
+        try {
+            for (PersonView person : personRepository.findViewsByIdIn(batch)) {
+                found.put(person.id(), person);
+            }
+        } catch (RuntimeException ex) {
+            failAll(batch, ex);
+            return;
+        }
+        for (Long id : batch) {
+            CompletableFuture<Optional<PersonView>> future = inFlight.remove(id);
+            if (future != null) {
+                future.complete(Optional.ofNullable(found.get(id)));
+            }
+        }
+    }
+
+    private void failAll(List<Long> batch, Throwable cause) {
+        for (Long id : batch) {
+            CompletableFuture<Optional<PersonView>> future = inFlight.remove(id);
+            if (future != null) {
+                future.completeExceptionally(cause);
+            }
+        }
+    }
+
+    private static Optional<PersonView> await(CompletableFuture<Optional<PersonView>> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.github.demo.service;
+
+/**
+ * Open-addressing map from {@code long} to {@code int} without boxing. Key 0
+ * marks an empty slot and cannot be stored, which suits generated ids.
+ */
+final class LongIntHashMap {
+
+    private long[] keys = new long[16];
+    private int[] values = new int[16];
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    boolean containsKey(long key) {
+        return key != 0L && keys[slot(key)] == key;
+    }
+
+    /**
+     * @return the value of {@code key}, or {@code missing} if there is none
+     */
+    int get(long key, int missing) {
+        if (key == 0L) {
+            return missing;
+        }
+        int slot = slot(key);
+        return keys[slot] == key ? values[slot] : missing;
+    }
+
+    void put(long key, int value) {
+        if (key == 0L) {
+            throw new IllegalArgumentException("Key 0 is reserved");
+        }
+        int slot = slot(key);
+        if (keys[slot] != key) {
+            if ((size + 1) * 2 > keys.length) {
+                rehash(keys.length * 2);
+                slot = slot(key);
+            }
+            keys[slot] = key;
+            size++;
+        }
+        values[slot] = value;
+    }
+
+    /**
+     * Removes {@code key} and shifts later entries of its probe sequence back,
+     * so no tombstones are needed.
+     */
+    boolean remove(long key) {
+        int hole = slot(key);
+        if (key == 0L || keys[hole] != key) {
+            return false;
+        }
+        int mask = keys.length - 1;
+        for (int i = (hole + 1) & mask; keys[i] != 0L; i = (i + 1) & mask) {
+            int home = home(keys[i]);
+            boolean stays = hole <= i ? hole < home && home <= i : hole < home || home <= i;
+            if (!stays) {
+                keys[hole] = keys[i];
+                values[hole] = values[i];
+                hole = i;
+            }
+        }
+        keys[hole] = 0L;
+        size--;
+        return true;
+    }
+
+    /**
+     * @return the slot holding {@code key}, or the empty slot where it would go
+     */
+    private int slot(long key) {
+        int mask = keys.length - 1;
+        int i = home(key);
+        while (keys[i] != 0L && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private int home(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & (keys.length - 1);
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[capacity];
+        values = new int[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0L) {
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.github.demo.service;
+
+import com.example.github.demo.config.JdbcCancellation;
+import com.example.github.demo.diagnostics.ServerTiming;
+import com.example.github.demo.exception.AsyncCallTimeoutException;
+import com.example.github.demo.exception.AsyncQueueFullException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Runs the asynchronous {@link PersonService} methods on two fixed pools, one
+ * for reads and one for writes, so a burst of one kind cannot starve the
+ * other. Each pool queues at most {@code queue-capacity} calls; beyond that a
+ * call fails at once with {@link AsyncQueueFullException}.
+ * <p>
+ * Every call has a timeout. When it expires, or the caller cancels the
+ * returned future, the call's JDBC statements are cancelled through a
+ * {@link JdbcCancellation} and a call still queued is dropped. The
+ * transaction also gets the timeout, rounded up to whole seconds, so the
+ * database enforces it too. A write cancelled after it committed stays
+ * committed. With {@code app.repository.backend=columnar} there is nothing
+ * to roll back, so cancelling a write that already reached the repository
+ * does not undo it.
+ * <p>
+ * Calls receive the {@link PersonService} proxy, so caching, metrics and
+ * transaction settings apply as for a direct call. Their database time counts
+ * towards the {@link ServerTiming} of the request that submitted them.
+ */
+@Component
+public class PersonAsyncExecutor implements MeterBinder, DisposableBean {
+
+    private final ObjectProvider<PersonService> personService;
+    private final PlatformTransactionManager transactionManager;
+    private final Duration defaultTimeout;
+    private final Pool reads;
+    private final Pool writes;
+    private final ScheduledExecutorService timer;
+    private final AtomicLong timedOut = new AtomicLong();
+
+    @Autowired
+    public PersonAsyncExecutor(ObjectProvider<PersonService> personService,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${app.async.timeout:2s}") Duration defaultTimeout,
+                               @Value("${app.async.read.threads:6}") int readThreads,
+                               @Value("${app.async.read.queue-capacity:200}") int readQueueCapacity,
+                               @Value("${app.async.write.threads:2}") int writeThreads,
+                               @Value("${app.async.write.queue-capacity:50}") int writeQueueCapacity) {
+        this.personService = personService;
+        this.transactionManager = transactionManager;
+        this.defaultTimeout = defaultTimeout;
+        this.reads = new Pool("read", readThreads, readQueueCapacity);
+        this.writes = new Pool("write", writeThreads, writeQueueCapacity);
+        this.timer = Executors.newSingleThreadScheduledExecutor(daemonThreads("person-async-timer"));
+    }
+
+    public Duration getDefaultTimeout() {
+        return defaultTimeout;
+    }
+
+    /**
+     * Runs {@code call} on the read pool in a read-only transaction.
+     */
+    public <T> CompletableFuture<T> read(Duration timeout, Function<PersonService, T> call) {
+        return submit(reads, true, timeout, call);
+    }
+
+    /**
+     * Runs {@code call} on the write pool in a read-write transaction.
+     */
+    public <T> CompletableFuture<T> write(Duration timeout, Function<PersonService, T> call) {
+        return submit(writes, false, timeout, call);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Pool pool : new Pool[]{reads, writes}) {
+            Gauge.builder("app.person.async.queued", pool.executor, executor -> executor.getQueue().size())
+                    .description("Asynchronous person calls waiting for a thread")
+                    .tag("executor", pool.name)
+                    .register(registry);
+            Gauge.builder("app.person.async.active", pool.executor, ThreadPoolExecutor::getActiveCount)
+                    .description("Asynchronous person calls running")
+                    .tag("executor", pool.name)
+                    .register(registry);
+            FunctionCounter.builder("app.person.async.rejected", pool.rejected, AtomicLong::get)
+                    .description("Asynchronous person calls refused because the queue was full")
+                    .tag("executor", pool.name)
+                    .register(registry);
+        }
+        FunctionCounter.builder("app.person.async.timeouts", timedOut, AtomicLong::get)
+                .description("Asynchronous person calls that did not complete within their timeout")
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() {
+        timer.shutdownNow();
+        reads.executor.shutdownNow();
+        writes.executor.shutdownNow();
+    }
+
+    private <T> CompletableFuture<T> submit(Pool pool, boolean readOnly, Duration timeout,
+                                            Function<PersonService, T> call) {
+        JdbcCancellation cancellation = new JdbcCancellation();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(readOnly);
+        transaction.setTimeout((int) Math.max(1, (timeout.toMillis() + 999) / 1000));
+        Runnable task = ServerTiming.propagate(() -> {
+            // Timed out or cancelled while queued.
+            if (result.isDone()) {
+                return;
+            }
+            try {
+                result.complete(cancellation.run(
+                        () -> transaction.execute(status -> call.apply(personService.getObject()))));
+            } catch (RuntimeException | Error ex) {
+                result.completeExceptionally(ex);
+            }
+        });
+        try {
+            pool.executor.execute(task);
+        } catch (RejectedExecutionException ex) {
+            pool.rejected.incrementAndGet();
+            return CompletableFuture.failedFuture(new AsyncQueueFullException(pool.name, pool.queueCapacity));
+        }
+        ScheduledFuture<?> expiry = timer.schedule(() -> {
+            if (result.completeExceptionally(new AsyncCallTimeoutException(timeout))) {
+                timedOut.incrementAndGet();
+            }
+        }, timeout.toNanos(), TimeUnit.NANOSECONDS);
+        result.whenComplete((value, ex) -> {
+            expiry.cancel(false);
+            if (ex != null) {
+                cancellation.cancel();
+                pool.executor.remove(task);
+            }
+        });
+        return result;
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class Pool {
+
+        final String name;
+        final int queueCapacity;
+        final ThreadPoolExecutor executor;
+        final AtomicLong rejected = new AtomicLong();
+
+        Pool(String name, int threads, int queueCapacity) {
+            this.name = name;
+            this.queueCapacity = Math.max(1, queueCapacity);
+            int size = Math.max(1, threads);
+            this.executor = new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(this.queueCapacity), daemonThreads("person-async-" + name));
+        }
+    }
+}
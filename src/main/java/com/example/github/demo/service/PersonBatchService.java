@@ -0,0 +1,442 @@
+package com.example.github.demo.service;
+
+import com.example.github.demo.exception.BatchLimitExceededException;
+import com.example.github.demo.model.Person;
+import com.example.github.demo.model.PersonView;
+import com.example.github.demo.repository.PersonStore;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Bulk inserts persons in chunks of {@code hibernate.jdbc.batch_size}, one
+ * transaction and one JDBC batch per chunk. If a chunk fails it is retried row
+ * by row so that every item gets an exact result. Only failed items are
+ * reported, and a request is cut off at {@code app.batch.max-items} persons
+ * or {@code app.batch.max-bytes} of body, so memory stays bounded however
+ * large the upload.
+ */
+@Service
+@Timed("person.service")
+public class PersonBatchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PersonBatchService.class);
+
+    /**
+     * Longest NDJSON line accepted, in characters. A longer line fails its item
+     * and is skipped without being buffered.
+     */
+    public static final int MAX_LINE_LENGTH = 64 * 1024;
+
+    private static final String EMAIL_INDEX = "ux_person_email_key";
+
+    private static final String BATCH_TOO_LARGE = "Batch too large; the rest of the body was not read";
+
+    private final PersonStore personRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectReader personReader;
+    private final int batchSize;
+    private final int maxItems;
+    private final long maxBytes;
+    private final PersonTextIndex textIndex;
+    private final PersonSecondaryIndex secondaryIndex;
+    private final PersonInvalidationBus invalidationBus;
+
+    @Autowired
+    public PersonBatchService(PersonStore personRepository,
+                              EntityManager entityManager,
+                              PlatformTransactionManager transactionManager,
+                              ObjectMapper objectMapper,
+                              @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize,
+                              @Value("${app.batch.max-items:10000}") int maxItems,
+                              @Value("${app.batch.max-bytes:16MB}") DataSize maxBytes,
+                              @Nullable PersonTextIndex textIndex,
+                              @Nullable PersonSecondaryIndex secondaryIndex,
+                              @Nullable PersonInvalidationBus invalidationBus) {
+        this.personRepository = personRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.personReader = objectMapper.readerFor(Person.class);
+        this.batchSize = Math.max(1, batchSize);
+        this.maxItems = maxItems;
+        this.maxBytes = maxBytes.toBytes();
+        this.textIndex = textIndex;
+        this.secondaryIndex = secondaryIndex;
+        this.invalidationBus = invalidationBus;
+    }
+
+    public BatchCreateResult createPersons(List<Person> persons) {
+        if (persons.size() > maxItems) {
+            throw new BatchLimitExceededException(maxItems, maxBytes);
+        }
+        Batch batch = new Batch();
+        for (Person person : persons) {
+            batch.add(person);
+        }
+        return batch.finish();
+    }
+
+    /**
+     * Reads a JSON array of persons. The array is read whole before anything
+     * is inserted, so invalid JSON fails the request without side effects; it
+     * is read as a stream, though, and given up as soon as it exceeds the item
+     * or byte limit.
+     *
+     * @throws BatchLimitExceededException if the array is over either limit
+     * @throws JsonProcessingException if the body is not a JSON array of persons
+     */
+    public BatchCreateResult createPersonsFromJson(InputStream json) throws IOException {
+        LimitedInputStream body = new LimitedInputStream(json, maxBytes);
+        List<Person> persons = new ArrayList<>();
+        try (JsonParser parser = personReader.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "Expected a JSON array");
+            }
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                if (persons.size() == maxItems) {
+                    throw new BatchLimitExceededException(maxItems, maxBytes);
+                }
+                persons.add(personReader.readValue(parser));
+            }
+        } catch (JsonProcessingException ex) {
+            if (body.isExceeded()) {
+                throw new BatchLimitExceededException(maxItems, maxBytes);
+            }
+            throw ex;
+        }
+        return createPersons(persons);
+    }
+
+    /**
+     * Reads one JSON person per line. Lines are parsed and inserted as they
+     * arrive, so the request body is never held in memory as a whole. A line
+     * that is not valid JSON, or longer than {@value #MAX_LINE_LENGTH}
+     * characters, fails only that item. Past the item or byte limit one more
+     * item fails and the rest of the body is not read; the persons before it
+     * stay inserted.
+     */
+    public BatchCreateResult createPersons(InputStream ndjson) throws IOException {
+        Batch batch = new Batch();
+        LimitedInputStream body = new LimitedInputStream(ndjson, maxBytes);
+        LineReader reader = new LineReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        boolean tooManyItems = false;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (reader.isAtEnd() && body.isExceeded()) {
+                // Cut off at the byte limit.
+                break;
+            }
+            if (line.isBlank() && !reader.isTruncated()) {
+                continue;
+            }
+            if (batch.size() == maxItems) {
+                tooManyItems = true;
+                break;
+            }
+            if (reader.isTruncated()) {
+                batch.reject("Line too long");
+                continue;
+            }
+            try {
+                batch.add(personReader.readValue(line));
+            } catch (JsonProcessingException ex) {
+                batch.reject("Invalid JSON");
+            }
+        }
+        if (tooManyItems || body.isExceeded()) {
+            batch.reject(BATCH_TOO_LARGE);
+        }
+        return batch.finish();
+    }
+
+    private void insertChunk(List<Person> chunk) {
+        transactionTemplate.executeWithoutResult(status -> {
+            // Bulk loads would otherwise evict the persons that are actually read from the second-level cache.
+            entityManager.unwrap(Session.class).setCacheMode(CacheMode.IGNORE);
+            personRepository.saveAll(chunk);
+            entityManager.flush();
+            entityManager.clear();
+            if (textIndex != null) {
+                chunk.forEach(person -> textIndex.index(PersonView.of(person)));
+            }
+            if (secondaryIndex != null) {
+                chunk.forEach(person -> secondaryIndex.index(PersonView.of(person)));
+            }
+            if (invalidationBus != null) {
+                chunk.forEach(person -> invalidationBus.publish(person.getId(), person.getVersion()));
+            }
+        });
+    }
+
+    /**
+     * Driver messages name constraints, SQL and values, so items only get one
+     * of these, as in {@code GlobalExceptionHandler}; the cause is logged.
+     */
+    private static String clientMessage(RuntimeException ex) {
+        // The flush at the end of a chunk throws Hibernate's exception, not a translated one.
+        if (String.valueOf(NestedExceptionUtils.getMostSpecificCause(ex).getMessage())
+                .toLowerCase(Locale.ROOT).contains(EMAIL_INDEX)) {
+            return "A person with this email already exists";
+        }
+        return "Invalid person";
+    }
+
+    private final class Batch {
+
+        private final List<BatchItemResult> failures = new ArrayList<>();
+        private final List<Person> chunk = new ArrayList<>(batchSize);
+        private final List<Integer> chunkIndexes = new ArrayList<>(batchSize);
+        private int nextIndex;
+        private int created;
+
+        void add(Person person) {
+            int index = nextIndex++;
+            if (person == null) {
+                fail(index, "Missing person");
+                return;
+            }
+            // Bulk create always inserts; an id or version would turn save() into a merge.
+            person.setId(null);
+            person.setVersion(null);
+            chunk.add(person);
+            chunkIndexes.add(index);
+            if (chunk.size() == batchSize) {
+                flushChunk();
+            }
+        }
+
+        void reject(String error) {
+            fail(nextIndex++, error);
+        }
+
+        int size() {
+            return nextIndex;
+        }
+
+        BatchCreateResult finish() {
+            flushChunk();
+            failures.sort(Comparator.comparingInt(BatchItemResult::index));
+            return new BatchCreateResult(created, failures.size(), failures);
+        }
+
+        private void fail(int index, String error) {
+            failures.add(BatchItemResult.failed(index, error));
+        }
+
+        private void flushChunk() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            try {
+                insertChunk(chunk);
+                created += chunk.size();
+            } catch (RuntimeException ex) {
+                logger.warn("Batch insert of {} persons failed, retrying one by one: {}", chunk.size(), ex.getMessage());
+                for (int i = 0; i < chunk.size(); i++) {
+                    Person person = chunk.get(i);
+                    // The rolled back persist left an id and version behind.
+                    person.setId(null);
+                    person.setVersion(null);
+                    try {
+                        insertChunk(List.of(person));
+                        created++;
+                    } catch (RuntimeException itemEx) {
+                        logger.warn("Batch item {} failed: {}", chunkIndexes.get(i), itemEx.getMessage());
+                        fail(chunkIndexes.get(i), clientMessage(itemEx));
+                    }
+                }
+            }
+            chunk.clear();
+            chunkIndexes.clear();
+        }
+    }
+
+    /**
+     * Line reader that keeps at most {@value #MAX_LINE_LENGTH} characters of a
+     * line, unlike {@link java.io.BufferedReader#readLine()}, which buffers a
+     * line of any length. Lines end at {@code \n}; a trailing {@code \r} is dropped.
+     */
+    private static final class LineReader {
+
+        private final Reader reader;
+        private final char[] buffer = new char[8192];
+        private final StringBuilder line = new StringBuilder();
+        private int position;
+        private int limit;
+        private boolean truncated;
+        private boolean atEnd;
+
+        LineReader(Reader reader) {
+            this.reader = reader;
+        }
+
+        /**
+         * @return the next line, cut to {@value #MAX_LINE_LENGTH} characters, or {@code null} at the end of the input
+         */
+        String readLine() throws IOException {
+            line.setLength(0);
+            truncated = false;
+            boolean read = false;
+            while (true) {
+                if (position == limit) {
+                    limit = reader.read(buffer);
+                    position = 0;
+                    if (limit <= 0) {
+                        limit = 0;
+                        atEnd = true;
+                        return read ? finishLine() : null;
+                    }
+                }
+                read = true;
+                int start = position;
+                while (position < limit && buffer[position] != '\n') {
+                    position++;
+                }
+                append(start, position);
+                if (position < limit) {
+                    position++;
+                    return finishLine();
+                }
+            }
+        }
+
+        /**
+         * Whether the last line returned was longer than {@value #MAX_LINE_LENGTH} characters.
+         */
+        boolean isTruncated() {
+            return truncated;
+        }
+
+        /**
+         * Whether the input is exhausted, so the last line returned ended
+         * without a line break.
+         */
+        boolean isAtEnd() {
+            return atEnd;
+        }
+
+        private void append(int start, int end) {
+            int room = MAX_LINE_LENGTH + 1 - line.length();
+            if (end - start > room) {
+                truncated = true;
+                end = start + Math.max(0, room);
+            }
+            line.append(buffer, start, end - start);
+        }
+
+        private String finishLine() {
+            int length = line.length();
+            if (length > 0 && line.charAt(length - 1) == '\r') {
+                line.setLength(--length);
+            }
+            if (length > MAX_LINE_LENGTH) {
+                truncated = true;
+                line.setLength(MAX_LINE_LENGTH);
+            }
+            return line.toString();
+        }
+    }
+
+    /**
+     * Passes on at most {@code limit} bytes, then reports the end of the
+     * input. Whether the underlying stream had more is known once the limit
+     * has been reached.
+     */
+    private static final class LimitedInputStream extends FilterInputStream {
+
+        private long remaining;
+        private boolean exceeded;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (atLimit()) {
+                return -1;
+            }
+            int b = in.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (atLimit()) {
+                return -1;
+            }
+            int read = in.read(b, off, (int) Math.min(len, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = in.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(in.available(), remaining);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        boolean isExceeded() {
+            return exceeded;
+        }
+
+        private boolean atLimit() throws IOException {
+            if (remaining > 0) {
+                return false;
+            }
+            if (!exceeded) {
+                exceeded = in.read() >= 0;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.github.demo.service;
+
+import com.example.github.demo.model.Person;
+import com.example.github.demo.model.PersonView;
+import com.example.github.demo.repository.PersonStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes the whole person table to an output stream row by row. Rows come from
+ * a JDBC cursor and the persistence context is cleared every
+ * {@code app.export.clear-interval} rows, so heap use does not grow with the
+ * table size.
+ */
+@Service
+@Timed("person.service")
+public class PersonExportService {
+
+    public static final String CSV_HEADER = "id,firstName,lastName,email,phoneNumber,address,age";
+
+    private final PersonStore personRepository;
+    private final EntityManager entityManager;
+    private final ObjectWriter jsonWriter;
+    private final int clearInterval;
+
+    @Autowired
+    public PersonExportService(PersonStore personRepository,
+                               EntityManager entityManager,
+                               ObjectMapper objectMapper,
+                               @Value("${app.export.clear-interval:500}") int clearInterval) {
+        this.personRepository = personRepository;
+        this.entityManager = entityManager;
+        this.jsonWriter = objectMapper.writerFor(Person.class).without(SerializationFeature.INDENT_OUTPUT);
+        this.clearInterval = Math.max(1, clearInterval);
+    }
+
+    /**
+     * Streams every person to {@code out} in the given format and returns the
+     * number of rows written. The stream is flushed but not closed.
+     */
+    @Transactional(readOnly = true)
+    public long export(ExportFormat format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (format == ExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        long rows = 0;
+        try (Stream<Person> persons = personRepository.streamAllByOrderByIdAsc()) {
+            Iterator<Person> iterator = persons.iterator();
+            while (iterator.hasNext()) {
+                Person person = iterator.next();
+                if (format == ExportFormat.CSV) {
+                    writeCsv(writer, person);
+                } else {
+                    writer.write(jsonWriter.writeValueAsString(person));
+                }
+                writer.write('\n');
+
+                if (++rows % clearInterval == 0) {
+                    writer.flush();
+                    entityManager.clear();
+                }
+            }
+        }
+        writer.flush();
+        return rows;
+    }
+
+    private static void writeCsv(Writer writer, Person person) throws IOException {
+        writeCsv(writer, PersonView.of(person));
+    }
+
+    /**
+     * Writes one CSV row without the line break, in {@link #CSV_HEADER} order.
+     */
+    public static void writeCsv(Writer writer, PersonView person) throws IOException {
+        writer.write(person.id() == null ? "" : person.id().toString());
+        writer.write(',');
+        writeCsvField(writer, person.firstName());
+        writer.write(',');
+        writeCsvField(writer, person.lastName());
+        writer.write(',');
+        writeCsvField(writer, person.email());
+        writer.write(',');
+        writeCsvField(writer, person.phoneNumber());
+        writer.write(',');
+        writeCsvField(writer, person.address());
+        writer.write(',');
+        writer.write(person.age() == null ? "" : person.age().toString());
+    }
+
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
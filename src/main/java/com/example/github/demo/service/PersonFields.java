@@ -0,0 +1,46 @@
+package com.example.github.demo.service;
+
+import com.example.github.demo.exception.InvalidFieldsException;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Parses the {@code fields} request parameter into the person attributes to
+ * select. The id is always selected, because keyset paging and lookups
+ * depend on it.
+ */
+public final class PersonFields {
+
+    public static final List<String> ALL =
+            List.of("id", "firstName", "lastName", "email", "phoneNumber", "address", "age");
+
+    private PersonFields() {
+    }
+
+    /**
+     * @param fields comma-separated attribute names, e.g. {@code "firstName,email"}
+     * @return the attributes in {@link #ALL} order, or {@code null} if {@code fields}
+     *         is {@code null} or blank, meaning all of them
+     * @throws InvalidFieldsException if a name is not a readable person attribute
+     */
+    public static List<String> parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+        Set<String> requested = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!ALL.contains(name)) {
+                throw new InvalidFieldsException("Unknown field: " + name);
+            }
+            requested.add(name);
+        }
+        requested.add("id");
+        return ALL.stream().filter(requested::contains).toList();
+    }
+}
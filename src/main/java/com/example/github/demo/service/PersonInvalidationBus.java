@@ -0,0 +1,324 @@
+package com.example.github.demo.service;
+
+import com.example.github.demo.config.CacheConfig;
+import com.example.github.demo.model.Person;
+import com.example.github.demo.model.PersonView;
+import com.example.github.demo.repository.PersonStore;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tells the other instances of the application which persons changed, so
+ * they drop what they hold in process: the person cache, the Hibernate
+ * entity region and query cache, and the text and secondary indexes.
+ * <p>
+ * Each committed write is queued as an {@code (id, version)} event. The
+ * first event opens a window of {@code app.invalidation.window}; events for
+ * the same id within it are coalesced to the highest version, and the window
+ * is sent to every peer in {@code app.invalidation.peers} as UDP datagrams of
+ * up to {@value #MAX_EVENTS_PER_DATAGRAM} events. Every instance can share
+ * one peer list: an instance ignores its own datagrams, and datagrams from
+ * hosts that are not peers.
+ * <p>
+ * A receiver keeps a cached person whose version is at least the event's,
+ * since it was read after the write. Indexes are refreshed with one IN query
+ * per datagram. UDP may drop a datagram; the cache expiry bounds how long a
+ * lost event leaves a stale entry. Only created when
+ * {@code app.invalidation.enabled=true}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.invalidation", name = "enabled", havingValue = "true")
+public class PersonInvalidationBus implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(PersonInvalidationBus.class);
+
+    // Sent for deletes and for writes whose resulting version is unknown: every receiver evicts.
+    static final long ANY_VERSION = Long.MAX_VALUE;
+
+    // Fits an Ethernet frame without IP fragmentation.
+    static final int MAX_DATAGRAM_SIZE = 1400;
+    private static final int MAGIC = 0x50494e56;
+    private static final byte FORMAT = 1;
+    // magic, format, sender, event count
+    private static final int HEADER_SIZE = 4 + 1 + 8 + 2;
+    private static final int EVENT_SIZE = 16;
+    static final int MAX_EVENTS_PER_DATAGRAM = (MAX_DATAGRAM_SIZE - HEADER_SIZE) / EVENT_SIZE;
+
+    private final CacheManager cacheManager;
+    private final EntityManagerFactory entityManagerFactory;
+    private final PersonStore personRepository;
+    private final PersonTextIndex textIndex;
+    private final PersonSecondaryIndex secondaryIndex;
+    private final List<InetSocketAddress> peers;
+    private final Set<InetAddress> peerAddresses = new HashSet<>();
+    private final long windowNanos;
+    private final long instanceId = ThreadLocalRandom.current().nextLong();
+    private final DatagramChannel channel;
+    private final ScheduledExecutorService sender;
+    private final Thread receiver;
+
+    // Guarded by this. Id to the highest version written since the last send.
+    private Map<Long, Long> pending = new LinkedHashMap<>();
+    private boolean sendScheduled;
+
+    @Autowired
+    public PersonInvalidationBus(CacheManager cacheManager,
+                                 @Nullable EntityManagerFactory entityManagerFactory,
+                                 PersonStore personRepository,
+                                 @Nullable PersonTextIndex textIndex,
+                                 @Nullable PersonSecondaryIndex secondaryIndex,
+                                 @Value("${app.invalidation.bind-address:0.0.0.0}") String bindAddress,
+                                 @Value("${app.invalidation.port:9290}") int port,
+                                 @Value("${app.invalidation.peers:}") List<String> peers,
+                                 @Value("${app.invalidation.window:5ms}") Duration window) throws IOException {
+        this.cacheManager = cacheManager;
+        this.entityManagerFactory = entityManagerFactory;
+        this.personRepository = personRepository;
+        this.textIndex = textIndex;
+        this.secondaryIndex = secondaryIndex;
+        this.peers = peers.stream().filter(peer -> !peer.isBlank()).map(PersonInvalidationBus::parsePeer).toList();
+        for (InetSocketAddress peer : this.peers) {
+            peerAddresses.add(peer.getAddress());
+        }
+        this.windowNanos = window.toNanos();
+        this.channel = DatagramChannel.open().bind(new InetSocketAddress(bindAddress, port));
+        this.sender = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "person-invalidation-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.receiver = new Thread(this::receive, "person-invalidation-receiver");
+        receiver.setDaemon(true);
+        receiver.start();
+        logger.info("Person invalidation bus listening on {}, peers {}", channel.getLocalAddress(), this.peers);
+    }
+
+    /**
+     * Queues an event for {@code id} once the current transaction commits.
+     *
+     * @param version the version the write produced; {@code null} for deletes
+     *                and when it is not known, which makes every peer evict
+     */
+    public void publish(Long id, @Nullable Long version) {
+        long sentVersion = version == null ? ANY_VERSION : version;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(id, sentVersion);
+                }
+            });
+        } else {
+            enqueue(id, sentVersion);
+        }
+    }
+
+    public InetSocketAddress getLocalAddress() throws IOException {
+        return (InetSocketAddress) channel.getLocalAddress();
+    }
+
+    /**
+     * Sends what is queued and stops listening.
+     */
+    @Override
+    public void destroy() throws IOException, InterruptedException {
+        sender.shutdown();
+        sender.awaitTermination(1, TimeUnit.SECONDS);
+        send(takePending());
+        channel.close();
+        receiver.join(TimeUnit.SECONDS.toMillis(1));
+    }
+
+    private synchronized void enqueue(Long id, long version) {
+        pending.merge(id, version, Math::max);
+        try {
+            if (pending.size() >= MAX_EVENTS_PER_DATAGRAM) {
+                Map<Long, Long> batch = takePending();
+                sender.execute(() -> send(batch));
+            } else if (!sendScheduled) {
+                sendScheduled = true;
+                sender.schedule(() -> send(takePending()), windowNanos, TimeUnit.NANOSECONDS);
+            }
+        } catch (RejectedExecutionException ex) {
+            // Shutting down; destroy() sends what is still pending.
+        }
+    }
+
+    private synchronized Map<Long, Long> takePending() {
+        Map<Long, Long> batch = pending;
+        pending = new LinkedHashMap<>();
+        sendScheduled = false;
+        return batch;
+    }
+
+    private void send(Map<Long, Long> events) {
+        for (ByteBuffer datagram : encode(instanceId, events)) {
+            for (InetSocketAddress peer : peers) {
+                try {
+                    channel.send(datagram.duplicate(), peer);
+                } catch (IOException ex) {
+                    logger.warn("Could not send person invalidations to {}: {}", peer, ex.toString());
+                }
+            }
+        }
+    }
+
+    private void receive() {
+        ByteBuffer buffer = ByteBuffer.allocate(MAX_DATAGRAM_SIZE);
+        while (channel.isOpen()) {
+            try {
+                buffer.clear();
+                SocketAddress source = channel.receive(buffer);
+                buffer.flip();
+                if (!(source instanceof InetSocketAddress address) || !peerAddresses.contains(address.getAddress())) {
+                    continue;
+                }
+                Map<Long, Long> events = decode(buffer, instanceId);
+                if (!events.isEmpty()) {
+                    invalidate(events);
+                }
+            } catch (ClosedChannelException ex) {
+                return;
+            } catch (IOException | RuntimeException ex) {
+                logger.warn("Could not apply person invalidations", ex);
+            }
+        }
+    }
+
+    /**
+     * Drops what this instance holds for the persons in {@code events}, id to
+     * the version the peer wrote.
+     */
+    void invalidate(Map<Long, Long> events) {
+        Cache persons = cacheManager.getCache(CacheConfig.PERSONS_CACHE);
+        if (persons != null) {
+            events.forEach((id, version) -> {
+                Cache.ValueWrapper cached = persons.get(id);
+                if (cached != null && !(cached.get() instanceof PersonView view
+                        && view.version() != null && view.version() >= version)) {
+                    persons.evict(id);
+                }
+            });
+        }
+        if (entityManagerFactory != null) {
+            events.keySet().forEach(id -> entityManagerFactory.getCache().evict(Person.class, id));
+            entityManagerFactory.unwrap(SessionFactory.class).getCache().evictDefaultQueryRegion();
+        }
+        if (textIndex != null || secondaryIndex != null) {
+            refreshIndexes(new ArrayList<>(events.keySet()));
+        }
+    }
+
+    private void refreshIndexes(List<Long> ids) {
+        Map<Long, PersonView> found = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += PersonService.LOOKUP_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + PersonService.LOOKUP_CHUNK_SIZE, ids.size()));
+            personRepository.findViewsByIdIn(chunk).forEach(person -> found.put(person.id(), person));
+        }
+        for (Long id : ids) {
+            PersonView person = found.get(id);
+            if (textIndex != null) {
+                if (person != null) {
+                    textIndex.index(person);
+                } else {
+                    textIndex.remove(id);
+                }
+            }
+            if (secondaryIndex != null) {
+                if (person != null) {
+                    secondaryIndex.index(person);
+                } else {
+                    secondaryIndex.remove(id);
+                }
+            }
+        }
+    }
+
+    static List<ByteBuffer> encode(long sender, Map<Long, Long> events) {
+        List<ByteBuffer> datagrams = new ArrayList<>();
+        ByteBuffer datagram = null;
+        int count = 0;
+        for (Map.Entry<Long, Long> event : events.entrySet()) {
+            if (datagram == null) {
+                datagram = ByteBuffer.allocate(MAX_DATAGRAM_SIZE).putInt(MAGIC).put(FORMAT).putLong(sender)
+                        .putShort((short) 0);
+            }
+            datagram.putLong(event.getKey()).putLong(event.getValue());
+            if (++count == MAX_EVENTS_PER_DATAGRAM) {
+                datagrams.add(finish(datagram, count));
+                datagram = null;
+                count = 0;
+            }
+        }
+        if (datagram != null) {
+            datagrams.add(finish(datagram, count));
+        }
+        return datagrams;
+    }
+
+    /**
+     * @return id to version; empty if the datagram is malformed or was sent by {@code self}
+     */
+    static Map<Long, Long> decode(ByteBuffer datagram, long self) {
+        if (datagram.remaining() < HEADER_SIZE || datagram.getInt() != MAGIC || datagram.get() != FORMAT
+                || datagram.getLong() == self) {
+            return Map.of();
+        }
+        int count = Short.toUnsignedInt(datagram.getShort());
+        if (datagram.remaining() != count * EVENT_SIZE) {
+            return Map.of();
+        }
+        Map<Long, Long> events = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            events.merge(datagram.getLong(), datagram.getLong(), Math::max);
+        }
+        return events;
+    }
+
+    private static ByteBuffer finish(ByteBuffer datagram, int count) {
+        datagram.putShort(HEADER_SIZE - 2, (short) count);
+        return datagram.flip();
+    }
+
+    private static InetSocketAddress parsePeer(String peer) {
+        int separator = peer.lastIndexOf(':');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Peer must be host:port: " + peer);
+        }
+        return new InetSocketAddress(peer.substring(0, separator).trim(),
+                Integer.parseInt(peer.substring(separator + 1).trim()));
+    }
+}
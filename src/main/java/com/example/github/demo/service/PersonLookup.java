@@ -0,0 +1,10 @@
+package com.example.github.demo.service;
+
+import java.util.List;
+
+/**
+ * Result of a lookup by ids: the persons found, in request order, and the
+ * requested ids that do not exist.
+ */
+public record PersonLookup<T>(List<T> persons, List<Long> missing) {
+}
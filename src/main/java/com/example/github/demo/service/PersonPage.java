@@ -0,0 +1,15 @@
+package com.example.github.demo.service;
+
+import java.util.List;
+
+/**
+ * One keyset page of persons, either {@link com.example.github.demo.model.PersonView}s
+ * or field projections. {@code nextAfterId} is the id to resume after, or
+ * {@code null} when this is the last page.
+ */
+public record PersonPage<T>(List<T> persons, Long nextAfterId) {
+
+    public boolean hasNext() {
+        return nextAfterId != null;
+    }
+}
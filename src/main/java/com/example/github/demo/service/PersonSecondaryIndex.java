@@ -0,0 +1,543 @@
+package com.example.github.demo.service;
+
+import com.example.github.demo.model.PersonView;
+import com.example.github.demo.repository.PersonSearch;
+import com.example.github.demo.repository.PersonStore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+
+/**
+ * In-process indexes on age and last name, so searches without an email and
+ * counts are answered without a database round trip.
+ * <p>
+ * Each age and each distinct last name maps to a {@link SortedLongSet} of
+ * ids, and two {@link LongIntHashMap}s map every id back to its age and last
+ * name, so updates that only know the id can find the old entries.
+ * <p>
+ * A third map holds the version each person is indexed at, and writes older
+ * than that are ignored, so commit callbacks that run out of order leave the
+ * latest state behind. Removed persons keep their entry there until the next
+ * rebuild. A patch only merges into the version right before its own;
+ * otherwise the stored row is read, before the indexes are locked, and
+ * indexed instead.
+ * <p>
+ * {@link PersonService} and {@link PersonBatchService} report their writes,
+ * which are applied once the transaction commits. Rows written any other way,
+ * including by other application instances, are only picked up by
+ * {@link #rebuild()}, which runs in the background at startup; until it
+ * finishes {@link #canAnswer} is false and the database answers instead.
+ * {@link #check()} compares the indexes with the table. Only created when
+ * {@code app.secondary-index.enabled=true}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.secondary-index", name = "enabled", havingValue = "true")
+public class PersonSecondaryIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(PersonSecondaryIndex.class);
+
+    private static final int NO_AGE = Integer.MIN_VALUE;
+    private static final int NO_LAST_NAME = -1;
+    private static final int NOT_INDEXED = -1;
+    // Version of a removed person, newer than any write of it. Versions are
+    // held as ints; one person would need 2^31 writes to reach it.
+    private static final int REMOVED = Integer.MAX_VALUE;
+
+    /**
+     * Result of comparing the indexes with the person table.
+     *
+     * @param stored     persons in the table
+     * @param indexed    persons in the indexes
+     * @param missing    stored persons that are not indexed
+     * @param mismatched indexed persons whose age or last name differs from the table
+     * @param stale      indexed persons that are no longer stored
+     */
+    public record Check(long stored, long indexed, long missing, long mismatched, long stale) {
+
+        @JsonProperty
+        public boolean consistent() {
+            return missing == 0 && mismatched == 0 && stale == 0;
+        }
+    }
+
+    private final PersonStore personRepository;
+    private final int chunkSize;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object rebuildLock = new Object();
+
+    // Guarded by lock.
+    private Indexes indexes = new Indexes();
+    // Guarded by lock. Writes applied while a rebuild runs, replayed onto its result.
+    private List<IndexesWrite> writesDuringRebuild;
+    private volatile boolean ready;
+
+    @Autowired
+    public PersonSecondaryIndex(PersonStore personRepository,
+                                @Value("${app.secondary-index.rebuild-chunk-size:1000}") int chunkSize) {
+        this.personRepository = personRepository;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * Whether {@link #searchIds} and {@link #count} can answer {@code search}:
+     * the indexes are built and the search does not filter by email, which the
+     * database answers from its unique index.
+     */
+    public boolean canAnswer(PersonSearch search) {
+        return ready && search.email() == null;
+    }
+
+    /**
+     * Ids of up to {@code limit} persons matching {@code search} after
+     * {@code after}, in {@link PersonSearch#order()}.
+     */
+    public List<Long> searchIds(PersonSearch search, PersonSearch.After after, int limit) {
+        lock.readLock().lock();
+        try {
+            List<Long> ids = new ArrayList<>(Math.min(limit, 1024));
+            if (search.order() == PersonSearch.Order.LAST_NAME) {
+                String prefix = search.lastNamePrefix();
+                String from = after == null || prefix.compareTo((String) after.key()) > 0
+                        ? prefix : (String) after.key();
+                for (Map.Entry<String, SortedLongSet> entry : indexes.byLastName.tailMap(from, true).entrySet()) {
+                    if (!entry.getKey().startsWith(prefix)) {
+                        break;
+                    }
+                    boolean resume = after != null && entry.getKey().equals(after.key());
+                    if (!collect(entry.getValue(), resume ? after : null,
+                            id -> matchesAge(search, indexes.ageOf.get(id, NO_AGE)), ids, limit)) {
+                        break;
+                    }
+                }
+            } else {
+                for (Map.Entry<Integer, SortedLongSet> entry : ageRange(search, after).entrySet()) {
+                    boolean resume = after != null && entry.getKey().equals(after.key());
+                    if (!collect(entry.getValue(), resume ? after : null, id -> true, ids, limit)) {
+                        break;
+                    }
+                }
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of persons matching {@code search}; an empty search counts everyone.
+     * When both a last name and an age filter are given, the smaller of the
+     * two candidate sets is walked and checked against the other filter.
+     */
+    public long count(PersonSearch search) {
+        lock.readLock().lock();
+        try {
+            boolean byName = search.lastNamePrefix() != null;
+            boolean byAge = search.minAge() != null || search.maxAge() != null;
+            if (!byName && !byAge) {
+                return indexes.ageOf.size();
+            }
+            NavigableMap<String, SortedLongSet> names = byName ? lastNameRange(search.lastNamePrefix()) : null;
+            NavigableMap<Integer, SortedLongSet> ages = byAge ? ageRange(search, null) : null;
+            long nameCount = names == null ? Long.MAX_VALUE : sizeOf(names);
+            long ageCount = ages == null ? Long.MAX_VALUE : sizeOf(ages);
+            if (!byName || !byAge) {
+                return Math.min(nameCount, ageCount);
+            }
+            long[] count = new long[1];
+            if (nameCount <= ageCount) {
+                for (SortedLongSet ids : names.values()) {
+                    ids.forEach(id -> {
+                        if (matchesAge(search, indexes.ageOf.get(id, NO_AGE))) {
+                            count[0]++;
+                        }
+                        return true;
+                    });
+                }
+            } else {
+                for (SortedLongSet ids : ages.values()) {
+                    ids.forEach(id -> {
+                        String lastName = indexes.lastName(id);
+                        if (lastName != null && lastName.startsWith(search.lastNamePrefix())) {
+                            count[0]++;
+                        }
+                        return true;
+                    });
+                }
+            }
+            return count[0];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds or replaces {@code person} once the current transaction commits,
+     * unless a newer version of it is already indexed.
+     */
+    public void index(PersonView person) {
+        afterCommit(() -> write(indexes -> {
+            indexes.put(person);
+            return true;
+        }));
+    }
+
+    /**
+     * Applies an age or last name in {@code changes}, which produced
+     * {@code version}, once the current transaction commits. Other fields are
+     * ignored, but every patch moves the indexed version on, so the next one
+     * can merge.
+     */
+    public void patch(Long id, Map<String, Object> changes, long version) {
+        afterCommit(() -> {
+            if (write(indexes -> indexes.patch(id, changes, version))) {
+                return;
+            }
+            Optional<PersonView> person;
+            try {
+                person = personRepository.findViewById(id);
+            } catch (RuntimeException ex) {
+                logger.error("Secondary index update for person {} failed; rebuild the indexes", id, ex);
+                return;
+            }
+            write(indexes -> {
+                if (person.isPresent()) {
+                    indexes.put(person.get());
+                } else {
+                    indexes.remove(id);
+                }
+                return true;
+            });
+        });
+    }
+
+    /**
+     * Removes the person once the current transaction commits.
+     */
+    public void remove(Long id) {
+        afterCommit(() -> write(indexes -> {
+            indexes.remove(id);
+            return true;
+        }));
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startRebuild() {
+        Thread thread = new Thread(() -> {
+            try {
+                rebuild();
+            } catch (RuntimeException ex) {
+                logger.error("Secondary index rebuild failed", ex);
+            }
+        }, "person-secondary-index-rebuild");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Builds fresh indexes from the person table, one keyset page at a time,
+     * and swaps them in. Writes reported meanwhile go to the current indexes
+     * and are replayed onto the new ones before the swap, so none is lost.
+     * Runs on the calling thread.
+     */
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            long started = System.nanoTime();
+            lock.writeLock().lock();
+            try {
+                writesDuringRebuild = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            Indexes rebuilt = new Indexes();
+            try {
+                long afterId = 0L;
+                List<PersonView> page;
+                do {
+                    page = personRepository.findViewsAfterId(afterId, Limit.of(chunkSize));
+                    for (PersonView person : page) {
+                        rebuilt.put(person);
+                        afterId = person.id();
+                    }
+                } while (page.size() == chunkSize);
+            } catch (RuntimeException ex) {
+                lock.writeLock().lock();
+                try {
+                    writesDuringRebuild = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                throw ex;
+            }
+            lock.writeLock().lock();
+            try {
+                writesDuringRebuild.forEach(write -> write.apply(rebuilt));
+                writesDuringRebuild = null;
+                indexes = rebuilt;
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            logger.info("Indexed {} persons by age and last name in {} ms", rebuilt.ageOf.size(),
+                    (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+
+    /**
+     * Walks the person table and compares every row with the indexes. Writes
+     * made while the check runs may show up as differences.
+     */
+    public Check check() {
+        long stored = 0;
+        long missing = 0;
+        long mismatched = 0;
+        long afterId = 0L;
+        List<PersonView> page;
+        do {
+            page = personRepository.findViewsAfterId(afterId, Limit.of(chunkSize));
+            lock.readLock().lock();
+            try {
+                for (PersonView person : page) {
+                    stored++;
+                    afterId = person.id();
+                    if (!indexes.ageOf.containsKey(person.id())) {
+                        missing++;
+                    } else if (indexes.ageOf.get(person.id(), NO_AGE) != ageKey(person.age())
+                            || !Objects.equals(indexes.lastName(person.id()), person.lastName())) {
+                        mismatched++;
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        } while (page.size() == chunkSize);
+
+        lock.readLock().lock();
+        try {
+            long indexed = indexes.ageOf.size();
+            return new Check(stored, indexed, missing, mismatched, indexed - (stored - missing));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private NavigableMap<Integer, SortedLongSet> ageRange(PersonSearch search, PersonSearch.After after) {
+        int from = search.minAge() != null ? search.minAge() : Integer.MIN_VALUE;
+        if (after != null) {
+            from = Math.max(from, (Integer) after.key());
+        }
+        int to = search.maxAge() != null ? search.maxAge() : Integer.MAX_VALUE;
+        return from > to ? new TreeMap<>() : indexes.byAge.subMap(from, true, to, true);
+    }
+
+    private NavigableMap<String, SortedLongSet> lastNameRange(String prefix) {
+        NavigableMap<String, SortedLongSet> tail = indexes.byLastName.tailMap(prefix, true);
+        String upperBound = PersonSearch.prefixUpperBound(prefix);
+        return upperBound == null ? tail : tail.headMap(upperBound, false);
+    }
+
+    /**
+     * Appends the ids of {@code set} after {@code after.id()} (or all of them)
+     * that pass {@code filter}.
+     *
+     * @return false once {@code ids} holds {@code limit} ids
+     */
+    private static boolean collect(SortedLongSet set, PersonSearch.After after, LongPredicate filter,
+                                   List<Long> ids, int limit) {
+        LongPredicate add = id -> {
+            if (ids.size() >= limit) {
+                return false;
+            }
+            if (filter.test(id)) {
+                ids.add(id);
+            }
+            return true;
+        };
+        boolean walked = after == null ? set.forEach(add) : set.forEachAfter(after.id(), add);
+        return walked && ids.size() < limit;
+    }
+
+    private static boolean matchesAge(PersonSearch search, int age) {
+        return (search.minAge() == null && search.maxAge() == null)
+                || (age != NO_AGE
+                && (search.minAge() == null || age >= search.minAge())
+                && (search.maxAge() == null || age <= search.maxAge()));
+    }
+
+    private static long sizeOf(Map<?, SortedLongSet> sets) {
+        long size = 0;
+        for (SortedLongSet set : sets.values()) {
+            size += set.size();
+        }
+        return size;
+    }
+
+    private static int ageKey(Integer age) {
+        return age == null ? NO_AGE : age;
+    }
+
+    private static int versionKey(Long version) {
+        return version == null ? 0 : (int) Math.min(version, REMOVED - 1);
+    }
+
+    /**
+     * @return false if the write needs the stored row
+     */
+    private boolean write(IndexesWrite write) {
+        lock.writeLock().lock();
+        try {
+            if (writesDuringRebuild != null) {
+                writesDuringRebuild.add(write);
+            }
+            return write.apply(indexes);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void afterCommit(Runnable apply) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    @FunctionalInterface
+    private interface IndexesWrite {
+        /**
+         * @return whether the indexes now hold the latest state of the person,
+         * false if that needs the stored row
+         */
+        boolean apply(Indexes indexes);
+    }
+
+    /**
+     * One generation of the indexes; {@link #rebuild()} builds a new one and swaps it in.
+     */
+    private static final class Indexes {
+
+        final LongIntHashMap ageOf = new LongIntHashMap();
+        final LongIntHashMap lastNameOf = new LongIntHashMap();
+        final LongIntHashMap versionOf = new LongIntHashMap();
+        final TreeMap<Integer, SortedLongSet> byAge = new TreeMap<>();
+        final TreeMap<String, SortedLongSet> byLastName = new TreeMap<>();
+        // Last names by code, so lastNameOf can hold an int per person.
+        final List<String> lastNames = new ArrayList<>();
+        final Map<String, Integer> lastNameCodes = new HashMap<>();
+
+        String lastName(long id) {
+            int code = lastNameOf.get(id, NO_LAST_NAME);
+            return code == NO_LAST_NAME ? null : lastNames.get(code);
+        }
+
+        void put(PersonView person) {
+            if (versionOf.get(person.id(), NOT_INDEXED) <= versionKey(person.version())) {
+                put(person.id(), versionKey(person.version()), person.age(), person.lastName());
+            }
+        }
+
+        /**
+         * @return false if the patch cannot be merged and the stored row is needed
+         */
+        boolean patch(long id, Map<String, Object> changes, long version) {
+            int indexed = versionOf.get(id, NOT_INDEXED);
+            int patched = versionKey(version);
+            if (indexed == NOT_INDEXED) {
+                // Not indexed; a running rebuild reads the patched row.
+                return true;
+            }
+            if (indexed >= patched) {
+                return true;
+            }
+            if (indexed != patched - 1) {
+                return false;
+            }
+            if (!changes.containsKey("age") && !changes.containsKey("lastName")) {
+                versionOf.put(id, patched);
+                return true;
+            }
+            int age = ageOf.get(id, NO_AGE);
+            Integer newAge = changes.containsKey("age") ? (Integer) changes.get("age")
+                    : age == NO_AGE ? null : age;
+            String newLastName = changes.containsKey("lastName") ? (String) changes.get("lastName") : lastName(id);
+            put(id, patched, newAge, newLastName);
+            return true;
+        }
+
+        void remove(long id) {
+            removeEntries(id);
+            versionOf.put(id, REMOVED);
+        }
+
+        private void put(long id, int version, Integer age, String lastName) {
+            removeEntries(id);
+            versionOf.put(id, version);
+            ageOf.put(id, ageKey(age));
+            if (age != null) {
+                byAge.computeIfAbsent(age, key -> new SortedLongSet()).add(id);
+            }
+            int code = NO_LAST_NAME;
+            if (lastName != null) {
+                code = lastNameCodes.computeIfAbsent(lastName, name -> {
+                    lastNames.add(name);
+                    return lastNames.size() - 1;
+                });
+                byLastName.computeIfAbsent(lastName, key -> new SortedLongSet()).add(id);
+            }
+            lastNameOf.put(id, code);
+        }
+
+        private void removeEntries(long id) {
+            if (!ageOf.containsKey(id)) {
+                return;
+            }
+            int age = ageOf.get(id, NO_AGE);
+            if (age != NO_AGE) {
+                removeFrom(byAge, age, id);
+            }
+            String lastName = lastName(id);
+            if (lastName != null) {
+                removeFrom(byLastName, lastName, id);
+            }
+            ageOf.remove(id);
+            lastNameOf.remove(id);
+        }
+
+        private static <K> void removeFrom(TreeMap<K, SortedLongSet> index, K key, long id) {
+            SortedLongSet ids = index.get(key);
+            if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+}
@@ -1,51 +1,526 @@
 package com.example.github.demo.service;
 
+import com.example.github.demo.config.CacheConfig;
+import com.example.github.demo.exception.InvalidPatchException;
+import com.example.github.demo.exception.InvalidSearchException;
+import com.example.github.demo.exception.LookupLimitExceededException;
+import com.example.github.demo.exception.TextSearchUnavailableException;
+import com.example.github.demo.exception.VersionConflictException;
 import com.example.github.demo.model.Person;
-import com.example.github.demo.repository.PersonRepository;
+import com.example.github.demo.model.PersonView;
+import com.example.github.demo.repository.PersonSearch;
+import com.example.github.demo.repository.PersonStore;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+/**
+ * Reads run in read-only transactions and return {@link PersonView} records,
+ * so the JDBC connection is back in the pool before the controller serializes
+ * anything (open-session-in-view is disabled).
+ */
 @Service
+@Timed("person.service")
 public class PersonService {
 
-    private final PersonRepository personRepository;
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final int MAX_LOOKUP_IDS = 500;
+    public static final int DEFAULT_SUGGESTIONS = 10;
+    public static final int MAX_SUGGESTIONS = 50;
+    static final int LOOKUP_CHUNK_SIZE = 100;
+
+    private static final Map<String, Class<?>> PATCHABLE_FIELDS = Map.of(
+            "firstName", String.class,
+            "lastName", String.class,
+            "email", String.class,
+            "phoneNumber", String.class,
+            "address", String.class,
+            "age", Integer.class);
+
+    private final PersonStore personRepository;
+    private final CoalescingPersonLoader personLoader;
+    private final PersonTextIndex textIndex;
+    private final PersonSecondaryIndex secondaryIndex;
+    private final PersonInvalidationBus invalidationBus;
+    private final PersonAsyncExecutor asyncExecutor;
 
     @Autowired
-    public PersonService(PersonRepository personRepository) {
+    public PersonService(PersonStore personRepository, @Nullable CoalescingPersonLoader personLoader,
+                         @Nullable PersonTextIndex textIndex, @Nullable PersonSecondaryIndex secondaryIndex,
+                         @Nullable PersonInvalidationBus invalidationBus,
+                         @Nullable PersonAsyncExecutor asyncExecutor) {
         this.personRepository = personRepository;
+        this.personLoader = personLoader;
+        this.textIndex = textIndex;
+        this.secondaryIndex = secondaryIndex;
+        this.invalidationBus = invalidationBus;
+        this.asyncExecutor = asyncExecutor;
+    }
+
+    /**
+     * Returns up to {@code limit} persons with an id greater than {@code afterId},
+     * ordered by id. One extra row is fetched to detect whether another page
+     * exists, so no separate count query is needed.
+     */
+    @Transactional(readOnly = true)
+    public PersonPage<PersonView> getPersonsPage(Long afterId, int limit) {
+        return page(afterId, limit, personRepository::findViewsAfterId, PersonView::id);
+    }
+
+    /**
+     * Like {@link #getPersonsPage(Long, int)} but selects only the given
+     * attributes (see {@link PersonFields}), so unused columns are neither
+     * read nor serialized.
+     */
+    @Transactional(readOnly = true)
+    public PersonPage<Map<String, Object>> getPersonsPage(Long afterId, int limit, List<String> fields) {
+        return page(afterId, limit, (after, rows) -> personRepository.findFieldsAfterId(fields, after, rows),
+                row -> (Long) row.get("id"));
+    }
+
+    /**
+     * Keyset page of the persons matching {@code search}, in
+     * {@link PersonSearch#order()} so the filter's index also sorts the rows.
+     * At least one filter is required, so no search becomes a table scan.
+     * When the {@link PersonSecondaryIndex} can answer the search it supplies
+     * the ids, and only the matching rows are read.
+     *
+     * @param after position of the previous page's last row, or {@code null}
+     * @throws InvalidSearchException if no filter is given or the age range is empty
+     */
+    @Transactional(readOnly = true)
+    public PersonPage<PersonView> searchPersons(PersonSearch search, PersonSearch.After after, int limit) {
+        if (search.isEmpty()) {
+            throw new InvalidSearchException("At least one of email, lastName, minAge or maxAge is required");
+        }
+        checkAgeRange(search);
+        if (secondaryIndex != null && secondaryIndex.canAnswer(search)) {
+            return page(null, limit, (ignored, rows) -> findIndexed(search, after, rows), PersonView::id);
+        }
+        return page(null, limit, (ignored, rows) -> personRepository.searchViews(search, after, rows),
+                PersonView::id);
+    }
+
+    /**
+     * Number of persons matching {@code search}; without filters, of all persons.
+     * Answered from the {@link PersonSecondaryIndex} when it can, otherwise
+     * with one COUNT query.
+     *
+     * @throws InvalidSearchException if the age range is empty
+     */
+    @Transactional(readOnly = true)
+    public long countPersons(PersonSearch search) {
+        checkAgeRange(search);
+        if (secondaryIndex != null && secondaryIndex.canAnswer(search)) {
+            return secondaryIndex.count(search);
+        }
+        return personRepository.countSearch(search);
+    }
+
+    /**
+     * Type-ahead search over names, email and address (see {@link PersonTextIndex}),
+     * best match first. The ranked ids are resolved with one IN query.
+     *
+     * @throws InvalidSearchException if {@code text} is blank
+     * @throws TextSearchUnavailableException if the text index is disabled
+     */
+    @Transactional(readOnly = true)
+    public List<PersonView> suggestPersons(String text, int limit) {
+        if (textIndex == null) {
+            throw new TextSearchUnavailableException();
+        }
+        if (!StringUtils.hasText(text)) {
+            throw new InvalidSearchException("q is required");
+        }
+        List<Long> ids = textIndex.search(text, Math.max(1, Math.min(limit, MAX_SUGGESTIONS)));
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, PersonView> views = personRepository.findViewsByIdIn(ids).stream()
+                .collect(Collectors.toMap(PersonView::id, Function.identity()));
+        // A person deleted after the index was read is simply left out.
+        return ids.stream().map(views::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Served from the person cache when possible. Misses are not cached, so an
+     * id that is created later becomes visible immediately. When request
+     * coalescing is enabled, concurrent cache misses share IN queries.
+     * <p>
+     * Not transactional: a caller waiting for a coalesced load must not hold
+     * a pooled connection while the loader needs one for the IN query. The
+     * single repository query runs in its own read-only transaction.
+     */
+    @Cacheable(cacheNames = CacheConfig.PERSONS_CACHE, key = "#id", unless = "#result == null")
+    public Optional<PersonView> getPersonById(Long id) {
+        if (personLoader != null) {
+            return personLoader.load(id);
+        }
+        return personRepository.findViewById(id);
+    }
+
+    /**
+     * Selects only the given attributes of one person. Projections bypass the
+     * person cache, which holds complete views.
+     */
+    @Transactional(readOnly = true)
+    public Optional<Map<String, Object>> getPersonById(Long id, List<String> fields) {
+        return personRepository.findFieldsById(fields, id);
+    }
+
+    /**
+     * Resolves many ids with one IN query per {@value #LOOKUP_CHUNK_SIZE} ids
+     * instead of one SELECT each. Duplicate ids are resolved once.
+     *
+     * @throws LookupLimitExceededException if more than {@value #MAX_LOOKUP_IDS} distinct ids are given
+     */
+    @Transactional(readOnly = true)
+    public PersonLookup<PersonView> getPersonsByIds(List<Long> ids) {
+        return lookup(ids, personRepository::findViewsByIdIn, PersonView::id);
+    }
+
+    /**
+     * Like {@link #getPersonsByIds(List)} but selects only the given attributes.
+     */
+    @Transactional(readOnly = true)
+    public PersonLookup<Map<String, Object>> getPersonsByIds(List<Long> ids, List<String> fields) {
+        return lookup(ids, chunk -> personRepository.findFieldsByIdIn(fields, chunk), row -> (Long) row.get("id"));
+    }
+
+    /**
+     * Reads only the version of a person, for conditional requests.
+     */
+    @Transactional(readOnly = true)
+    public Optional<Long> getPersonVersion(Long id) {
+        return personRepository.findVersionById(id);
+    }
+
+    /**
+     * Always inserts a new person; an id or version sent by the client is ignored.
+     */
+    @CacheEvict(cacheNames = CacheConfig.PERSONS_CACHE, key = "#result.id")
+    @Transactional
+    public PersonView createPerson(Person person) {
+        person.setId(null);
+        person.setVersion(null);
+        PersonView created = PersonView.of(personRepository.save(person));
+        if (textIndex != null) {
+            textIndex.index(created);
+        }
+        if (secondaryIndex != null) {
+            secondaryIndex.index(created);
+        }
+        if (invalidationBus != null) {
+            invalidationBus.publish(created.id(), created.version());
+        }
+        return created;
+    }
+
+    /**
+     * {@link #getPersonById(Long)} on the read pool of the
+     * {@link PersonAsyncExecutor}, with its default timeout.
+     */
+    public CompletableFuture<Optional<PersonView>> getPersonByIdAsync(Long id) {
+        return getPersonByIdAsync(id, async().getDefaultTimeout());
+    }
+
+    /**
+     * {@link #getPersonById(Long)} on the read pool. The future fails with
+     * {@code AsyncCallTimeoutException} after {@code timeout}; cancelling it
+     * cancels the running query.
+     *
+     * @throws IllegalStateException if no {@link PersonAsyncExecutor} is configured
+     */
+    public CompletableFuture<Optional<PersonView>> getPersonByIdAsync(Long id, Duration timeout) {
+        return async().read(timeout, service -> service.getPersonById(id));
     }
 
-    public List<Person> getAllPersons() {
-        return personRepository.findAll();
+    public CompletableFuture<PersonPage<PersonView>> getPersonsAsync(Long afterId, int limit) {
+        return getPersonsAsync(afterId, limit, async().getDefaultTimeout());
     }
 
-    public Optional<Person> getPersonById(Long id) {
-        return personRepository.findById(id);
+    /**
+     * {@link #getPersonsPage(Long, int)} on the read pool.
+     *
+     * @see #getPersonByIdAsync(Long, Duration)
+     */
+    public CompletableFuture<PersonPage<PersonView>> getPersonsAsync(Long afterId, int limit, Duration timeout) {
+        return async().read(timeout, service -> service.getPersonsPage(afterId, limit));
     }
 
-    public Person createPerson(Person person) {
-        return personRepository.save(person);
+    public CompletableFuture<PersonView> createPersonAsync(Person person) {
+        return createPersonAsync(person, async().getDefaultTimeout());
     }
 
-    public Optional<Person> updatePerson(Long id, Person personDetails) {
-        return personRepository.findById(id).map(existingPerson -> {
-            existingPerson.setFirstName(personDetails.getFirstName());
-            existingPerson.setLastName(personDetails.getLastName());
-            existingPerson.setEmail(personDetails.getEmail());
-            existingPerson.setPhoneNumber(personDetails.getPhoneNumber());
-            existingPerson.setAddress(personDetails.getAddress());
-            existingPerson.setAge(personDetails.getAge());
-            return personRepository.save(existingPerson);
-        });
+    /**
+     * {@link #createPerson(Person)} on the write pool. On the JPA backend a
+     * timeout or cancellation before the commit rolls the insert back. The
+     * columnar backend does not support this: its insert is durable as soon as
+     * the repository call returns, so a late cancellation leaves it in place.
+     *
+     * @see #getPersonByIdAsync(Long, Duration)
+     */
+    public CompletableFuture<PersonView> createPersonAsync(Person person, Duration timeout) {
+        return async().write(timeout, service -> service.createPerson(person));
     }
 
+    @CacheEvict(cacheNames = CacheConfig.PERSONS_CACHE, key = "#id")
+    @Transactional
+    public Optional<PersonView> updatePerson(Long id, Person personDetails) {
+        return updatePerson(id, personDetails, null);
+    }
+
+    /**
+     * Replaces every field of an existing person with one UPDATE statement. The
+     * affected-row count decides whether the person existed, so no SELECT is needed.
+     * When {@code expectedVersion} is given the update only applies to that version;
+     * without it the new version is read back in the same transaction, so the
+     * result always has one.
+     *
+     * @throws VersionConflictException if the person exists but its version differs
+     */
+    @CacheEvict(cacheNames = CacheConfig.PERSONS_CACHE, key = "#id")
+    @Transactional
+    public Optional<PersonView> updatePerson(Long id, Person personDetails, Long expectedVersion) {
+        Optional<Long> version;
+        if (expectedVersion == null) {
+            version = personRepository.patchByIdReturningVersion(id, columnsOf(personDetails));
+        } else if (personRepository.updateByIdAndVersion(id, expectedVersion, personDetails) > 0) {
+            version = Optional.of(expectedVersion + 1);
+        } else {
+            checkVersionConflict(id, expectedVersion);
+            version = Optional.empty();
+        }
+        if (version.isEmpty()) {
+            return Optional.empty();
+        }
+        personDetails.setId(id);
+        personDetails.setVersion(version.get());
+        PersonView updatedPerson = PersonView.of(personDetails);
+        if (textIndex != null) {
+            textIndex.index(updatedPerson);
+        }
+        if (secondaryIndex != null) {
+            secondaryIndex.index(updatedPerson);
+        }
+        if (invalidationBus != null) {
+            invalidationBus.publish(id, updatedPerson.version());
+        }
+        return Optional.of(updatedPerson);
+    }
+
+    @CacheEvict(cacheNames = CacheConfig.PERSONS_CACHE, key = "#id")
+    @Transactional
+    public boolean patchPerson(Long id, Map<String, Object> changes) {
+        return patchPerson(id, changes, null);
+    }
+
+    /**
+     * Writes only the fields present in {@code changes}. Fields that are absent
+     * are left as they are; a field mapped to {@code null} is cleared.
+     *
+     * @return {@code false} if no person has this id
+     * @throws VersionConflictException if {@code expectedVersion} is given and differs
+     */
+    @CacheEvict(cacheNames = CacheConfig.PERSONS_CACHE, key = "#id")
+    @Transactional
+    public boolean patchPerson(Long id, Map<String, Object> changes, Long expectedVersion) {
+        if (changes.isEmpty()) {
+            if (expectedVersion == null) {
+                return personRepository.existsById(id);
+            }
+            Optional<Long> version = personRepository.findVersionById(id);
+            if (version.isPresent() && !version.get().equals(expectedVersion)) {
+                throw new VersionConflictException(id);
+            }
+            return version.isPresent();
+        }
+        Map<String, Object> columns = new HashMap<>();
+        changes.forEach((field, value) -> columns.put(field, convertPatchValue(field, value)));
+        Optional<Long> version;
+        if (expectedVersion == null) {
+            version = personRepository.patchByIdReturningVersion(id, columns);
+        } else if (personRepository.patchById(id, columns, expectedVersion) > 0) {
+            version = Optional.of(expectedVersion + 1);
+        } else {
+            checkVersionConflict(id, expectedVersion);
+            version = Optional.empty();
+        }
+        if (version.isEmpty()) {
+            return false;
+        }
+        if (textIndex != null) {
+            textIndex.patch(id, columns, version.get());
+        }
+        if (secondaryIndex != null) {
+            secondaryIndex.patch(id, columns, version.get());
+        }
+        if (invalidationBus != null) {
+            invalidationBus.publish(id, version.get());
+        }
+        return true;
+    }
+
+    @CacheEvict(cacheNames = CacheConfig.PERSONS_CACHE, key = "#id")
+    @Transactional
     public boolean deletePerson(Long id) {
-        return personRepository.findById(id).map(person -> {
-            personRepository.delete(person);
-            return true;
-        }).orElse(false);
+        return deletePerson(id, null);
+    }
+
+    /**
+     * @throws VersionConflictException if {@code expectedVersion} is given and differs
+     */
+    @CacheEvict(cacheNames = CacheConfig.PERSONS_CACHE, key = "#id")
+    @Transactional
+    public boolean deletePerson(Long id, Long expectedVersion) {
+        int deleted = expectedVersion == null
+                ? personRepository.removeById(id)
+                : personRepository.removeByIdAndVersion(id, expectedVersion);
+        if (deleted == 0) {
+            checkVersionConflict(id, expectedVersion);
+            return false;
+        }
+        if (textIndex != null) {
+            textIndex.remove(id);
+        }
+        if (secondaryIndex != null) {
+            secondaryIndex.remove(id);
+        }
+        if (invalidationBus != null) {
+            invalidationBus.publish(id, null);
+        }
+        return true;
+    }
+
+    /**
+     * Resolves the ids the secondary index returns with one IN query. A person
+     * deleted or changed since the index was read is left out, so such a page
+     * may be short.
+     */
+    private List<PersonView> findIndexed(PersonSearch search, PersonSearch.After after, Limit rows) {
+        List<Long> ids = secondaryIndex.searchIds(search, after, rows.max());
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, PersonView> views = personRepository.findViewsByIdIn(ids).stream()
+                .collect(Collectors.toMap(PersonView::id, Function.identity()));
+        return ids.stream().map(views::get).filter(view -> view != null && search.matches(view)).toList();
+    }
+
+    private PersonAsyncExecutor async() {
+        if (asyncExecutor == null) {
+            throw new IllegalStateException("Asynchronous calls need a PersonAsyncExecutor");
+        }
+        return asyncExecutor;
+    }
+
+    private static void checkAgeRange(PersonSearch search) {
+        if (search.minAge() != null && search.maxAge() != null && search.minAge() > search.maxAge()) {
+            throw new InvalidSearchException("minAge must not be greater than maxAge");
+        }
+    }
+
+    /**
+     * Called after a conditional write matched no row, to tell a stale version
+     * apart from a missing person. Only runs on that failure path.
+     */
+    private void checkVersionConflict(Long id, Long expectedVersion) {
+        if (expectedVersion != null && personRepository.existsById(id)) {
+            throw new VersionConflictException(id);
+        }
+    }
+
+    private static <T> PersonPage<T> page(Long afterId, int limit, BiFunction<Long, Limit, List<T>> query,
+                                          Function<T, Long> idOf) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        long after = afterId == null ? 0L : afterId;
+        List<T> rows = query.apply(after, Limit.of(pageSize + 1));
+        if (rows.size() <= pageSize) {
+            return new PersonPage<>(rows, null);
+        }
+        List<T> page = rows.subList(0, pageSize);
+        return new PersonPage<>(page, idOf.apply(page.get(pageSize - 1)));
+    }
+
+    private static <T> PersonLookup<T> lookup(List<Long> ids, Function<List<Long>, List<T>> query,
+                                              Function<T, Long> idOf) {
+        LinkedHashSet<Long> requested = new LinkedHashSet<>(ids);
+        requested.remove(null);
+        List<Long> distinctIds = new ArrayList<>(requested);
+        if (distinctIds.size() > MAX_LOOKUP_IDS) {
+            throw new LookupLimitExceededException(distinctIds.size(), MAX_LOOKUP_IDS);
+        }
+
+        Map<Long, T> found = new HashMap<>();
+        for (int from = 0; from < distinctIds.size(); from += LOOKUP_CHUNK_SIZE) {
+            List<Long> chunk = distinctIds.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, distinctIds.size()));
+            for (T person : query.apply(chunk)) {
+                found.put(idOf.apply(person), person);
+            }
+        }
+
+        List<T> persons = new ArrayList<>(found.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : distinctIds) {
+            T person = found.get(id);
+            if (person != null) {
+                persons.add(person);
+            } else {
+                missing.add(id);
+            }
+        }
+        return new PersonLookup<>(persons, missing);
+    }
+
+    private static Map<String, Object> columnsOf(Person person) {
+        Map<String, Object> columns = new HashMap<>();
+        columns.put("firstName", person.getFirstName());
+        columns.put("lastName", person.getLastName());
+        columns.put("email", person.getEmail());
+        columns.put("phoneNumber", person.getPhoneNumber());
+        columns.put("address", person.getAddress());
+        columns.put("age", person.getAge());
+        return columns;
+    }
+
+    /**
+     * Checks that {@code field} may be patched and converts a JSON-decoded
+     * {@code value} to the field's type.
+     *
+     * @throws InvalidPatchException if the field is unknown or read-only, or the value has the wrong type
+     */
+    public static Object convertPatchValue(String field, Object value) {
+        Class<?> type = PATCHABLE_FIELDS.get(field);
+        if (type == null) {
+            throw new InvalidPatchException("Unknown or read-only field: " + field);
+        }
+        if (value == null || type.isInstance(value)) {
+            return value;
+        }
+        if (type == Integer.class && value instanceof Number number
+                && number.doubleValue() == number.intValue()) {
+            return number.intValue();
+        }
+        throw new InvalidPatchException("Invalid value for field " + field + ": " + value);
     }
 }
@@ -0,0 +1,75 @@
+package com.example.github.demo.service;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+
+import java.io.IOException;
+
+/**
+ * Splits on every character that is not a letter or digit and lower-cases the
+ * result, so {@code "john.doe@example.com"} yields {@code john}, {@code doe},
+ * {@code example} and {@code com}. Lucene's standard tokenizer would keep
+ * {@code john.doe} as one word, which type-ahead on "doe" would miss.
+ */
+final class PersonTextAnalyzer extends Analyzer {
+
+    static final int MAX_TOKEN_LENGTH = 255;
+
+    @Override
+    protected TokenStreamComponents createComponents(String fieldName) {
+        Tokenizer source = new LetterOrDigitTokenizer();
+        return new TokenStreamComponents(source, new LowerCaseFilter(source));
+    }
+
+    private static final class LetterOrDigitTokenizer extends Tokenizer {
+
+        private final CharTermAttribute term = addAttribute(CharTermAttribute.class);
+        private final OffsetAttribute offset = addAttribute(OffsetAttribute.class);
+        private int position;
+        private int finalOffset;
+
+        @Override
+        public boolean incrementToken() throws IOException {
+            clearAttributes();
+            int start = -1;
+            int length = 0;
+            int c;
+            while ((c = input.read()) != -1) {
+                position++;
+                if (Character.isLetterOrDigit(c)) {
+                    if (start < 0) {
+                        start = position - 1;
+                    }
+                    if (length < MAX_TOKEN_LENGTH) {
+                        term.append((char) c);
+                        length++;
+                    }
+                } else if (start >= 0) {
+                    break;
+                }
+            }
+            if (start < 0) {
+                finalOffset = correctOffset(position);
+                return false;
+            }
+            offset.setOffset(correctOffset(start), correctOffset(start + length));
+            return true;
+        }
+
+        @Override
+        public void end() throws IOException {
+            super.end();
+            offset.setOffset(finalOffset, finalOffset);
+        }
+
+        @Override
+        public void reset() throws IOException {
+            super.reset();
+            position = 0;
+            finalOffset = 0;
+        }
+    }
+}
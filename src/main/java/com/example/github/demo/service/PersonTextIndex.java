@@ -0,0 +1,576 @@
+package com.example.github.demo.service;
+
+import com.example.github.demo.model.PersonView;
+import com.example.github.demo.repository.PersonStore;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.FuzzyQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * In-memory Lucene index over first name, last name, email and address, used
+ * for type-ahead search.
+ * <p>
+ * Every word of a query must match some field, either exactly, as a prefix,
+ * or within one or two edits. Exact matches outrank prefixes, prefixes outrank
+ * typos, and a last-name hit outranks an address hit.
+ * <p>
+ * {@link PersonService} and {@link PersonBatchService} report their writes,
+ * which are applied once the transaction commits. Rows written any other way
+ * are only picked up by the rebuild that runs in the background at startup,
+ * one keyset page of {@code app.text-search.rebuild-chunk-size} persons at a
+ * time; searches see each page as soon as it is indexed. A completed rebuild
+ * then drops every document it did not write or see written, so persons
+ * deleted around the service disappear too. A write that fails after its
+ * transaction committed is logged and triggers another background rebuild
+ * rather than failing the request. Only created unless
+ * {@code app.text-search.enabled=false}.
+ * <p>
+ * Writes never reopen the searcher: the first search after a write does.
+ * Until then the text fields of recently written persons are kept aside, so
+ * a patch can merge into them.
+ * <p>
+ * Every document carries the version of the person it reflects, and a write
+ * older than that is ignored, so commit callbacks that run out of order leave
+ * the latest state behind. A removed person keeps a document without text
+ * fields, which no search matches, until the next rebuild. A patch can only
+ * merge into the version right before its own; otherwise, or if the person is
+ * not indexed yet, the stored row is read, before the index is locked, and
+ * indexed instead.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.text-search", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class PersonTextIndex implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(PersonTextIndex.class);
+
+    static final String ID = "id";
+    private static final Map<String, Float> FIELD_BOOSTS = new LinkedHashMap<>();
+
+    static {
+        FIELD_BOOSTS.put("lastName", 3.0f);
+        FIELD_BOOSTS.put("firstName", 2.5f);
+        FIELD_BOOSTS.put("email", 1.5f);
+        FIELD_BOOSTS.put("address", 1.0f);
+    }
+
+    private static final float EXACT_BOOST = 3.0f;
+    private static final float PREFIX_BOOST = 2.0f;
+    private static final float FUZZY_BOOST = 1.0f;
+    // Shorter prefixes expand to too many terms to be useful while typing.
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final int FUZZY_MAX_EXPANSIONS = 50;
+    // Rebuild that last wrote a document; older documents are swept after a rebuild.
+    private static final String GENERATION = "generation";
+    private static final String VERSION = "version";
+    // Version of a removed person, newer than any write of it.
+    private static final long REMOVED = Long.MAX_VALUE;
+    // Writes without a search in between before the writer reopens the searcher itself.
+    private static final int MAX_UNREFRESHED = 1000;
+
+    private final PersonStore personRepository;
+    private final int rebuildChunkSize;
+    private final Analyzer analyzer = new PersonTextAnalyzer();
+    private final ByteBuffersDirectory directory = new ByteBuffersDirectory();
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+    private final AtomicBoolean stale = new AtomicBoolean();
+    private final AtomicBoolean rebuildRequested = new AtomicBoolean();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final Object writeLock = new Object();
+    private final Object refreshLock = new Object();
+
+    // Guarded by writeLock. Ids written while a rebuild runs, which the rebuild must not overwrite.
+    private Set<Long> changedDuringRebuild;
+    // Guarded by writeLock. Persons written since the searcher last
+    // refreshed, or since the running refresh began.
+    private Map<Long, Indexed> unrefreshed = new HashMap<>();
+    private Map<Long, Indexed> refreshing;
+    // Guarded by writeLock.
+    private long generation;
+    private volatile boolean ready;
+
+    @Autowired
+    public PersonTextIndex(PersonStore personRepository,
+                           @Value("${app.text-search.rebuild-chunk-size:1000}") int rebuildChunkSize) {
+        this.personRepository = personRepository;
+        this.rebuildChunkSize = Math.max(1, rebuildChunkSize);
+        try {
+            this.writer = new IndexWriter(directory, new IndexWriterConfig(analyzer));
+            this.searcherManager = new SearcherManager(writer, null);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Ranked ids of the persons best matching {@code text}, at most {@code limit}.
+     */
+    public List<Long> search(String text, int limit) {
+        List<String> words = analyze(text);
+        if (words.isEmpty()) {
+            return List.of();
+        }
+        try {
+            if (stale.getAndSet(false)) {
+                refresh();
+            }
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                TopDocs top = searcher.search(query(words), Math.max(1, limit));
+                StoredFields storedFields = searcher.storedFields();
+                List<Long> ids = new ArrayList<>(top.scoreDocs.length);
+                for (ScoreDoc hit : top.scoreDocs) {
+                    ids.add(storedFields.document(hit.doc, Set.of(ID)).getField(ID).numericValue().longValue());
+                }
+                return ids;
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Adds or replaces {@code person} once the current transaction commits,
+     * unless the index already holds a newer version of it.
+     */
+    public void index(PersonView person) {
+        afterCommit(() -> write(person.id(), () -> {
+            put(person);
+            return true;
+        }));
+    }
+
+    /**
+     * Applies the text fields in {@code changes}, which produced
+     * {@code version}, to the indexed person once the current transaction
+     * commits. Other fields are ignored, and a patch without text fields
+     * leaves the index alone.
+     */
+    public void patch(Long id, Map<String, Object> changes, long version) {
+        if (changes.keySet().stream().noneMatch(FIELD_BOOSTS::containsKey)) {
+            return;
+        }
+        afterCommit(() -> {
+            if (write(id, () -> merge(id, changes, version))) {
+                return;
+            }
+            Optional<PersonView> person;
+            try {
+                person = personRepository.findViewById(id);
+            } catch (RuntimeException ex) {
+                logger.error("Text index update for person {} failed, rebuilding the index", id, ex);
+                startRebuild();
+                return;
+            }
+            write(id, () -> {
+                if (person.isPresent()) {
+                    put(person.get());
+                } else {
+                    delete(id);
+                }
+                return true;
+            });
+        });
+    }
+
+    /**
+     * Removes the person once the current transaction commits.
+     */
+    public void remove(Long id) {
+        afterCommit(() -> write(id, () -> {
+            delete(id);
+            return true;
+        }));
+    }
+
+    /**
+     * Whether the startup rebuild has finished. Until then searches only see
+     * the persons indexed so far.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Rebuilds the index in the background. Requests made while a rebuild runs
+     * start one more once it ends, as it may already have passed their rows.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startRebuild() {
+        rebuildRequested.set(true);
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                while (rebuildRequested.getAndSet(false)) {
+                    rebuild();
+                }
+            } finally {
+                rebuilding.set(false);
+            }
+            if (rebuildRequested.get()) {
+                startRebuild();
+            }
+        }, "person-text-index-rebuild");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Indexes every stored person, one keyset page at a time, for example after
+     * rows were imported around the service, and then removes the persons that
+     * no longer exist. Runs on the calling thread.
+     */
+    public void rebuild() {
+        long rebuildGeneration;
+        synchronized (writeLock) {
+            changedDuringRebuild = new HashSet<>();
+            rebuildGeneration = ++generation;
+        }
+        long started = System.nanoTime();
+        long afterId = 0L;
+        int indexed = 0;
+        try {
+            List<PersonView> page;
+            do {
+                page = personRepository.findViewsAfterId(afterId, Limit.of(rebuildChunkSize));
+                synchronized (writeLock) {
+                    for (PersonView person : page) {
+                        if (!changedDuringRebuild.contains(person.id())) {
+                            replace(person.id(), new Indexed(version(person), fields(person)));
+                        }
+                    }
+                }
+                refresh();
+                indexed += page.size();
+                if (!page.isEmpty()) {
+                    afterId = page.get(page.size() - 1).id();
+                }
+            } while (page.size() == rebuildChunkSize);
+            synchronized (writeLock) {
+                // Every person still stored was written at this generation or later.
+                writer.deleteDocuments(LongPoint.newRangeQuery(GENERATION, Long.MIN_VALUE, rebuildGeneration - 1));
+            }
+            refresh();
+            ready = true;
+            logger.info("Indexed {} persons for text search in {} ms", indexed, (System.nanoTime() - started) / 1_000_000);
+        } catch (IOException | RuntimeException ex) {
+            logger.error("Text index rebuild stopped after {} persons", indexed, ex);
+        } finally {
+            synchronized (writeLock) {
+                changedDuringRebuild = null;
+            }
+        }
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+
+    private Query query(List<String> words) {
+        BooleanQuery.Builder all = new BooleanQuery.Builder();
+        for (String word : words) {
+            BooleanQuery.Builder any = new BooleanQuery.Builder();
+            int maxEdits = word.length() >= 8 ? 2 : word.length() >= 4 ? 1 : 0;
+            FIELD_BOOSTS.forEach((field, boost) -> {
+                Term term = new Term(field, word);
+                any.add(new BoostQuery(new TermQuery(term), boost * EXACT_BOOST), BooleanClause.Occur.SHOULD);
+                if (word.length() >= MIN_PREFIX_LENGTH) {
+                    any.add(new BoostQuery(new PrefixQuery(term), boost * PREFIX_BOOST), BooleanClause.Occur.SHOULD);
+                }
+                if (maxEdits > 0) {
+                    // The first character must match, which keeps the term enumeration small.
+                    any.add(new BoostQuery(new FuzzyQuery(term, maxEdits, 1, FUZZY_MAX_EXPANSIONS, true),
+                            boost * FUZZY_BOOST), BooleanClause.Occur.SHOULD);
+                }
+            });
+            all.add(any.build(), BooleanClause.Occur.MUST);
+        }
+        return all.build();
+    }
+
+    private List<String> analyze(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        try (TokenStream stream = analyzer.tokenStream("query", text)) {
+            CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                words.add(term.toString());
+            }
+            stream.end();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return words;
+    }
+
+    private static long version(PersonView person) {
+        return person.version() == null ? 0L : person.version();
+    }
+
+    private static Map<String, String> fields(PersonView person) {
+        Map<String, String> fields = new HashMap<>();
+        fields.put("firstName", person.firstName());
+        fields.put("lastName", person.lastName());
+        fields.put("email", person.email());
+        fields.put("address", person.address());
+        return fields;
+    }
+
+    /**
+     * Must hold writeLock.
+     */
+    private Document document(Long id, Indexed person) {
+        Document document = new Document();
+        document.add(new StringField(ID, id.toString(), Field.Store.NO));
+        document.add(new StoredField(ID, id));
+        document.add(new StoredField(VERSION, person.version()));
+        document.add(new LongPoint(GENERATION, generation));
+        if (!person.isRemoved()) {
+            FIELD_BOOSTS.keySet().forEach(field -> addText(document, field, person.fields().get(field)));
+        }
+        return document;
+    }
+
+    /**
+     * Must hold writeLock.
+     */
+    private void put(PersonView person) throws IOException {
+        Indexed current = indexed(person.id());
+        if (current == null || current.version() <= version(person)) {
+            replace(person.id(), new Indexed(version(person), fields(person)));
+        }
+    }
+
+    /**
+     * Must hold writeLock.
+     *
+     * @return false if the patch cannot be merged and the stored row is needed
+     */
+    private boolean merge(Long id, Map<String, Object> changes, long version) throws IOException {
+        Indexed current = indexed(id);
+        if (current != null && current.version() >= version) {
+            return true;
+        }
+        if (current == null || current.version() != version - 1) {
+            return false;
+        }
+        Map<String, String> fields = new HashMap<>(current.fields());
+        changes.forEach((field, value) -> {
+            if (FIELD_BOOSTS.containsKey(field)) {
+                fields.put(field, value == null ? null : value.toString());
+            }
+        });
+        replace(id, new Indexed(version, fields));
+        return true;
+    }
+
+    /**
+     * Must hold writeLock.
+     */
+    private void delete(Long id) throws IOException {
+        replace(id, new Indexed(REMOVED, null));
+    }
+
+    /**
+     * Must hold writeLock.
+     */
+    private void replace(Long id, Indexed person) throws IOException {
+        writer.updateDocument(idTerm(id), document(id, person));
+        unrefreshed.put(id, person);
+    }
+
+    private static void addText(Document document, String field, String value) {
+        if (value != null) {
+            document.add(new TextField(field, value, Field.Store.YES));
+        }
+    }
+
+    /**
+     * What the index holds for {@code id}, or null if it holds nothing. Must
+     * hold writeLock, and does not wait for a refresh: persons written since
+     * the current searcher was opened are kept aside.
+     */
+    private Indexed indexed(Long id) throws IOException {
+        Indexed written = unrefreshed.get(id);
+        if (written == null && refreshing != null) {
+            written = refreshing.get(id);
+        }
+        if (written != null) {
+            return written;
+        }
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            TopDocs top = searcher.search(new TermQuery(idTerm(id)), 1);
+            if (top.scoreDocs.length == 0) {
+                return null;
+            }
+            Document document = searcher.storedFields().document(top.scoreDocs[0].doc);
+            long version = document.getField(VERSION).numericValue().longValue();
+            if (version == REMOVED) {
+                return new Indexed(REMOVED, null);
+            }
+            Map<String, String> fields = new HashMap<>();
+            for (IndexableField field : document) {
+                if (FIELD_BOOSTS.containsKey(field.name())) {
+                    fields.put(field.name(), field.stringValue());
+                }
+            }
+            return new Indexed(version, fields);
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    /**
+     * Reopens the searcher. Fields written meanwhile stay aside until the new
+     * searcher is in place.
+     */
+    private void refresh() throws IOException {
+        synchronized (refreshLock) {
+            Map<Long, Indexed> written;
+            synchronized (writeLock) {
+                written = unrefreshed;
+                refreshing = written;
+                unrefreshed = new HashMap<>();
+            }
+            boolean refreshed = false;
+            try {
+                searcherManager.maybeRefreshBlocking();
+                refreshed = true;
+            } finally {
+                synchronized (writeLock) {
+                    refreshing = null;
+                    if (!refreshed) {
+                        written.forEach(unrefreshed::putIfAbsent);
+                    }
+                }
+            }
+        }
+    }
+
+    private static Term idTerm(Long id) {
+        return new Term(ID, id.toString());
+    }
+
+    /**
+     * Runs after the commit, so a failure must not reach the caller: the write
+     * is already durable and only the index is behind.
+     *
+     * @return false if the change needs the stored row
+     */
+    private boolean write(Long id, IndexWrite change) {
+        boolean applied = true;
+        boolean refresh;
+        synchronized (writeLock) {
+            try {
+                applied = change.apply();
+                if (applied && changedDuringRebuild != null) {
+                    changedDuringRebuild.add(id);
+                }
+            } catch (IOException | RuntimeException ex) {
+                logger.error("Text index update for person {} failed, rebuilding the index", id, ex);
+                startRebuild();
+            }
+            refresh = unrefreshed.size() >= MAX_UNREFRESHED;
+        }
+        stale.set(true);
+        if (refresh) {
+            try {
+                refresh();
+            } catch (IOException | RuntimeException ex) {
+                logger.warn("Text index refresh failed", ex);
+            }
+        }
+        return applied;
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+
+    @FunctionalInterface
+    private interface IndexWrite {
+        /**
+         * @return whether the index now holds the latest state of the person,
+         * false if that needs the stored row
+         */
+        boolean apply() throws IOException;
+    }
+
+    /**
+     * The version and text fields the index holds for a person; no fields
+     * once it was removed.
+     */
+    private record Indexed(long version, Map<String, String> fields) {
+
+        boolean isRemoved() {
+            return fields == null;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.github.demo.service;
+
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+
+/**
+ * Set of {@code long} values kept in sorted chunks of at most
+ * {@value #MAX_CHUNK} values. An insert or removal only shifts values within
+ * one chunk, so it costs the same however large the set grows; adding values
+ * in ascending order only appends.
+ */
+final class SortedLongSet {
+
+    static final int MAX_CHUNK = 512;
+
+    private long[][] chunks = {new long[4]};
+    private int[] sizes = new int[1];
+    private int chunkCount = 1;
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean add(long value) {
+        int chunk = chunkFor(value);
+        int index = Arrays.binarySearch(chunks[chunk], 0, sizes[chunk], value);
+        if (index >= 0) {
+            return false;
+        }
+        index = -index - 1;
+        if (sizes[chunk] == MAX_CHUNK) {
+            if (chunk == chunkCount - 1 && index == MAX_CHUNK) {
+                // Appending past the last chunk starts a new one rather than leaving two half full.
+                insertChunk(chunkCount, new long[4]);
+                chunk++;
+                index = 0;
+            } else {
+                split(chunk);
+                if (index > sizes[chunk]) {
+                    index -= sizes[chunk];
+                    chunk++;
+                }
+            }
+        }
+        long[] values = chunks[chunk];
+        int chunkSize = sizes[chunk];
+        if (chunkSize == values.length) {
+            values = Arrays.copyOf(values, Math.min(MAX_CHUNK, chunkSize + (chunkSize >> 1) + 1));
+            chunks[chunk] = values;
+        }
+        System.arraycopy(values, index, values, index + 1, chunkSize - index);
+        values[index] = value;
+        sizes[chunk]++;
+        size++;
+        return true;
+    }
+
+    boolean remove(long value) {
+        int chunk = chunkFor(value);
+        long[] values = chunks[chunk];
+        int index = Arrays.binarySearch(values, 0, sizes[chunk], value);
+        if (index < 0) {
+            return false;
+        }
+        System.arraycopy(values, index + 1, values, index, sizes[chunk] - index - 1);
+        sizes[chunk]--;
+        size--;
+        if (sizes[chunk] == 0 && chunkCount > 1) {
+            removeChunk(chunk);
+        }
+        return true;
+    }
+
+    /**
+     * Passes the values greater than {@code after} to {@code action} in
+     * ascending order, until it returns false.
+     *
+     * @return false if {@code action} stopped the walk
+     */
+    boolean forEachAfter(long after, LongPredicate action) {
+        int chunk = chunkFor(after);
+        int index = Arrays.binarySearch(chunks[chunk], 0, sizes[chunk], after);
+        return walk(chunk, index >= 0 ? index + 1 : -index - 1, action);
+    }
+
+    /**
+     * Passes every value to {@code action} in ascending order, until it returns false.
+     *
+     * @return false if {@code action} stopped the walk
+     */
+    boolean forEach(LongPredicate action) {
+        return walk(0, 0, action);
+    }
+
+    private boolean walk(int chunk, int index, LongPredicate action) {
+        for (; chunk < chunkCount; chunk++, index = 0) {
+            long[] values = chunks[chunk];
+            for (int end = sizes[chunk]; index < end; index++) {
+                if (!action.test(values[index])) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the last chunk whose first value is at most {@code value}, or the first chunk
+     */
+    private int chunkFor(long value) {
+        int low = 1;
+        int high = chunkCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (chunks[mid][0] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low - 1;
+    }
+
+    private void split(int chunk) {
+        int half = sizes[chunk] / 2;
+        long[] upper = new long[MAX_CHUNK];
+        System.arraycopy(chunks[chunk], half, upper, 0, sizes[chunk] - half);
+        insertChunk(chunk + 1, upper);
+        sizes[chunk + 1] = sizes[chunk] - half;
+        sizes[chunk] = half;
+    }
+
+    private void insertChunk(int at, long[] values) {
+        if (chunkCount == chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunkCount * 2);
+            sizes = Arrays.copyOf(sizes, chunkCount * 2);
+        }
+        System.arraycopy(chunks, at, chunks, at + 1, chunkCount - at);
+        System.arraycopy(sizes, at, sizes, at + 1, chunkCount - at);
+        chunks[at] = values;
+        sizes[at] = 0;
+        chunkCount++;
+    }
+
+    private void removeChunk(int at) {
+        System.arraycopy(chunks, at + 1, chunks, at, chunkCount - at - 1);
+        System.arraycopy(sizes, at + 1, sizes, at, chunkCount - at - 1);
+        chunkCount--;
+        chunks[chunkCount] = null;
+        sizes[chunkCount] = 0;
+    }
+}
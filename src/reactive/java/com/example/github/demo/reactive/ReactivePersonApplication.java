@@ -0,0 +1,27 @@
+package com.example.github.demo.reactive;
+
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Non-blocking variant of the person API on WebFlux and R2DBC, compiled by the
+ * {@code reactive} Maven profile and run with the {@code reactive} Spring
+ * profile (see {@code application-reactive.yml}). It serves the
+ * {@code /api/persons} contract of the servlet application from the database
+ * alone: there is no text index, so {@code /suggest} answers 503 as the
+ * servlet application does with text search disabled.
+ * <p>
+ * Nothing in this package is a component, so the servlet application's
+ * component scan does not pick it up when both are on the classpath.
+ */
+@EnableAutoConfiguration
+@Import(ReactivePersonConfig.class)
+public class ReactivePersonApplication {
+
+    public static final String PROFILE = "reactive";
+
+    public static void main(String[] args) {
+        new SpringApplicationBuilder(ReactivePersonApplication.class).profiles(PROFILE).run(args);
+    }
+}
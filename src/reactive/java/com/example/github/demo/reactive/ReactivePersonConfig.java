@@ -0,0 +1,91 @@
+package com.example.github.demo.reactive;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.queryParam;
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+/**
+ * Beans of the reactive variant. Imported by {@link ReactivePersonApplication}
+ * rather than annotated with {@code @Configuration}, so it is not scanned.
+ */
+class ReactivePersonConfig {
+
+    /**
+     * Tomcat is on the classpath for the servlet application and would
+     * otherwise be preferred; this variant runs on Reactor Netty's event loop.
+     */
+    @Bean
+    NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Bean
+    DatabaseClient personDatabaseClient(ConnectionFactory connectionFactory) {
+        return DatabaseClient.create(connectionFactory);
+    }
+
+    @Bean
+    ReactivePersonRepository reactivePersonRepository(DatabaseClient personDatabaseClient) {
+        return new ReactivePersonRepository(personDatabaseClient);
+    }
+
+    /**
+     * Batch chunks are inserted in one transaction each.
+     */
+    @Bean
+    R2dbcTransactionManager personTransactionManager(ConnectionFactory connectionFactory) {
+        return new R2dbcTransactionManager(connectionFactory);
+    }
+
+    @Bean
+    ReactivePersonService reactivePersonService(ReactivePersonRepository reactivePersonRepository,
+                                                R2dbcTransactionManager personTransactionManager) {
+        return new ReactivePersonService(reactivePersonRepository,
+                TransactionalOperator.create(personTransactionManager));
+    }
+
+    /**
+     * Routes are matched in order, so fixed paths come before {@code /{id}},
+     * and the lookup by {@code ids} before the plain list. The handlers never
+     * block, so the servlet application's {@code /async} endpoints are plain
+     * aliases here.
+     */
+    @Bean
+    RouterFunction<ServerResponse> personRoutes(ReactivePersonService reactivePersonService,
+                                                ObjectMapper objectMapper,
+                                                @Value("${app.batch.max-items:10000}") int maxBatchItems,
+                                                @Value("${app.batch.max-bytes:16MB}") DataSize maxBatchBytes) {
+        ReactivePersonHandler handler = new ReactivePersonHandler(reactivePersonService, objectMapper,
+                maxBatchItems, maxBatchBytes.toBytes());
+        return route()
+                .GET("/api/persons", queryParam("ids", ids -> true), handler::getPersonsByIds)
+                .GET("/api/persons", handler::getAllPersons)
+                .GET("/api/persons/search", handler::searchPersons)
+                .GET("/api/persons/count", handler::countPersons)
+                .GET("/api/persons/suggest", handler::suggestPersons)
+                .GET("/api/persons/export", handler::exportPersons)
+                .GET("/api/persons/async", handler::getAllPersons)
+                .GET("/api/persons/async/{id}", handler::getPersonById)
+                .GET("/api/persons/{id}", handler::getPersonById)
+                .POST("/api/persons", handler::createPerson)
+                .POST("/api/persons/async", handler::createPerson)
+                .POST("/api/persons/lookup", handler::lookupPersons)
+                .POST("/api/persons/batch", handler::createPersons)
+                .PUT("/api/persons/{id}", handler::updatePerson)
+                .PATCH("/api/persons/{id}", handler::patchPerson)
+                .DELETE("/api/persons/{id}", handler::deletePerson)
+                .filter(new ReactivePersonErrors())
+                .build();
+    }
+}
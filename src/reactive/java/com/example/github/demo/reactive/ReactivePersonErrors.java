@@ -0,0 +1,125 @@
+package com.example.github.demo.reactive;
+
+import com.example.github.demo.exception.BatchLimitExceededException;
+import com.example.github.demo.exception.InvalidCursorException;
+import com.example.github.demo.exception.InvalidFieldsException;
+import com.example.github.demo.exception.InvalidPatchException;
+import com.example.github.demo.exception.InvalidSearchException;
+import com.example.github.demo.exception.LookupLimitExceededException;
+import com.example.github.demo.exception.TextSearchUnavailableException;
+import com.example.github.demo.exception.UnsupportedExportFormatException;
+import com.example.github.demo.exception.VersionConflictException;
+import io.r2dbc.spi.R2dbcException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.TypeMismatchException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.r2dbc.UncategorizedR2dbcException;
+import org.springframework.web.reactive.function.server.HandlerFilterFunction;
+import org.springframework.web.reactive.function.server.HandlerFunction;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Turns exceptions into the same error responses as the servlet
+ * application's {@code GlobalExceptionHandler}.
+ */
+class ReactivePersonErrors implements HandlerFilterFunction<ServerResponse, ServerResponse> {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactivePersonErrors.class);
+
+    private static final String EMAIL_INDEX = "ux_person_email_key";
+
+    // SQLSTATE class of data exceptions such as a value too long for its column.
+    private static final String DATA_EXCEPTION = "22";
+
+    @Override
+    public Mono<ServerResponse> filter(ServerRequest request, HandlerFunction<ServerResponse> next) {
+        // Handlers validate parameters before returning a Mono, so errors can also be thrown directly.
+        return Mono.defer(() -> next.handle(request)).onErrorResume(ex -> handle(ex, request));
+    }
+
+    private static Mono<ServerResponse> handle(Throwable ex, ServerRequest request) {
+        if (ex instanceof InvalidCursorException || ex instanceof UnsupportedExportFormatException
+                || ex instanceof InvalidPatchException || ex instanceof LookupLimitExceededException
+                || ex instanceof InvalidFieldsException || ex instanceof InvalidSearchException) {
+            logger.warn("Invalid request parameter: {}", ex.getMessage());
+            return respond(request, HttpStatus.BAD_REQUEST, ex.getMessage());
+        }
+        if (ex instanceof TypeMismatchException typeMismatch) {
+            logger.error("Method argument type mismatch: ", ex);
+            return respond(request, HttpStatus.BAD_REQUEST, "Invalid parameter type: " + typeMismatch.getValue());
+        }
+        if (ex instanceof ServerWebInputException) {
+            logger.error("Invalid JSON in request: ", ex);
+            return respond(request, HttpStatus.BAD_REQUEST, "Invalid JSON format");
+        }
+        if (ex instanceof BatchLimitExceededException) {
+            logger.warn("Batch rejected: {}", ex.getMessage());
+            return respond(request, HttpStatus.PAYLOAD_TOO_LARGE, ex.getMessage());
+        }
+        if (ex instanceof VersionConflictException) {
+            logger.warn("Precondition failed: {}", ex.getMessage());
+            return respond(request, HttpStatus.PRECONDITION_FAILED, ex.getMessage());
+        }
+        if (ex instanceof DataIntegrityViolationException violation) {
+            logger.warn("Constraint violation: {}", violation.getMostSpecificCause().getMessage());
+            if (String.valueOf(violation.getMostSpecificCause().getMessage())
+                    .toLowerCase(Locale.ROOT).contains(EMAIL_INDEX)) {
+                return respond(request, HttpStatus.CONFLICT, "A person with this email already exists");
+            }
+            return respond(request, HttpStatus.BAD_REQUEST, "Invalid person");
+        }
+        if (ex instanceof UncategorizedR2dbcException uncategorized
+                && uncategorized.getCause() instanceof R2dbcException cause
+                && cause.getSqlState() != null && cause.getSqlState().startsWith(DATA_EXCEPTION)) {
+            // H2's R2DBC driver leaves data exceptions uncategorized; JDBC translates them to integrity violations.
+            logger.warn("Constraint violation: {}", cause.getMessage());
+            return respond(request, HttpStatus.BAD_REQUEST, "Invalid person");
+        }
+        if (ex instanceof TextSearchUnavailableException) {
+            logger.warn("Service unavailable: {}", ex.getMessage());
+            return respond(request, ServerResponse.status(HttpStatus.SERVICE_UNAVAILABLE),
+                    HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage());
+        }
+        if (ex instanceof DataAccessResourceFailureException failure) {
+            logger.warn("Database unavailable: {}", failure.getMostSpecificCause().getMessage());
+            return respond(request, HttpStatus.SERVICE_UNAVAILABLE, "The database is busy, retry later");
+        }
+        logger.error("Unexpected exception occurred: ", ex);
+        return respond(request, HttpStatus.INTERNAL_SERVER_ERROR,
+                ex instanceof RuntimeException ? ex.getMessage() : "An unexpected error occurred");
+    }
+
+    /**
+     * A 503 asks the client to retry: the database is only busy.
+     */
+    private static Mono<ServerResponse> respond(ServerRequest request, HttpStatus status, String message) {
+        ServerResponse.BodyBuilder response = ServerResponse.status(status);
+        if (status == HttpStatus.SERVICE_UNAVAILABLE) {
+            response.header(HttpHeaders.RETRY_AFTER, "1");
+        }
+        return respond(request, response, status, message);
+    }
+
+    private static Mono<ServerResponse> respond(ServerRequest request, ServerResponse.BodyBuilder response,
+                                                HttpStatus status, String message) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("status", status.value());
+        body.put("error", status.getReasonPhrase());
+        body.put("message", message);
+        body.put("path", request.path());
+        return response.bodyValue(body);
+    }
+}
@@ -0,0 +1,475 @@
+package com.example.github.demo.reactive;
+
+import com.example.github.demo.controller.PersonCursor;
+import com.example.github.demo.controller.PersonETags;
+import com.example.github.demo.exception.BatchLimitExceededException;
+import com.example.github.demo.exception.TextSearchUnavailableException;
+import com.example.github.demo.model.Person;
+import com.example.github.demo.model.PersonView;
+import com.example.github.demo.repository.PersonSearch;
+import com.example.github.demo.service.ExportFormat;
+import com.example.github.demo.service.PersonBatchService;
+import com.example.github.demo.service.PersonExportService;
+import com.example.github.demo.service.PersonFields;
+import com.example.github.demo.service.PersonService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.springframework.beans.TypeMismatchException;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.util.StringUtils;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebInputException;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Handler functions for {@code /api/persons}, with the status codes, headers
+ * and parameters of the servlet {@code PersonController}.
+ */
+class ReactivePersonHandler {
+
+    private static final ParameterizedTypeReference<Map<String, Object>> CHANGES =
+            new ParameterizedTypeReference<>() {
+            };
+
+    private static final ParameterizedTypeReference<List<Long>> IDS = new ParameterizedTypeReference<>() {
+    };
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final ReactivePersonService personService;
+    private final ObjectMapper objectMapper;
+    private final ObjectReader personReader;
+    private final Jackson2JsonDecoder jsonDecoder;
+    private final int maxBatchItems;
+    private final long maxBatchBytes;
+
+    ReactivePersonHandler(ReactivePersonService personService, ObjectMapper objectMapper,
+                          int maxBatchItems, long maxBatchBytes) {
+        this.personService = personService;
+        this.objectMapper = objectMapper;
+        this.personReader = objectMapper.readerFor(Person.class);
+        this.jsonDecoder = new Jackson2JsonDecoder(objectMapper);
+        this.maxBatchItems = maxBatchItems;
+        this.maxBatchBytes = maxBatchBytes;
+    }
+
+    Mono<ServerResponse> getAllPersons(ServerRequest request) {
+        List<String> projection = PersonFields.parse(request.queryParam("fields").orElse(null));
+        Long afterId = PersonCursor.decode(request.queryParam("after").orElse(null));
+        int limit = intParam(request, "limit", PersonService.DEFAULT_PAGE_SIZE);
+        if (projection != null) {
+            return personService.getPersonsPage(afterId, limit, projection).flatMap(page -> pageResponse(request,
+                    page.persons(), page.hasNext() ? PersonCursor.encode(page.nextAfterId()) : null));
+        }
+        return personService.getPersonsPage(afterId, limit).flatMap(page -> pageResponse(request,
+                page.persons(), page.hasNext() ? PersonCursor.encode(page.nextAfterId()) : null));
+    }
+
+    /**
+     * @see com.example.github.demo.controller.PersonController#searchPersons
+     */
+    Mono<ServerResponse> searchPersons(ServerRequest request) {
+        PersonSearch search = search(request);
+        PersonSearch.After after = PersonCursor.decode(request.queryParam("after").orElse(null), search.order());
+        int limit = intParam(request, "limit", PersonService.DEFAULT_PAGE_SIZE);
+        return personService.searchPersons(search, after, limit).flatMap(page -> {
+            List<PersonView> persons = page.persons();
+            return pageResponse(request, persons,
+                    page.hasNext() ? PersonCursor.encode(search.after(persons.get(persons.size() - 1))) : null);
+        });
+    }
+
+    Mono<ServerResponse> countPersons(ServerRequest request) {
+        return personService.countPersons(search(request))
+                .flatMap(count -> ServerResponse.ok().bodyValue(Map.of("count", count)));
+    }
+
+    /**
+     * There is no text index in this variant, so suggestions are unavailable
+     * as they are in the servlet application with {@code app.text-search.enabled=false}.
+     */
+    Mono<ServerResponse> suggestPersons(ServerRequest request) {
+        return Mono.error(new TextSearchUnavailableException());
+    }
+
+    /**
+     * {@code ids} may be repeated or comma-separated, as Spring MVC binds a list parameter.
+     */
+    Mono<ServerResponse> getPersonsByIds(ServerRequest request) {
+        List<Long> ids = new ArrayList<>();
+        for (String value : request.queryParams().getOrDefault("ids", List.of())) {
+            for (String id : value.split(",")) {
+                if (StringUtils.hasText(id)) {
+                    ids.add(parseLong(id.trim()));
+                }
+            }
+        }
+        return lookup(request, ids);
+    }
+
+    Mono<ServerResponse> lookupPersons(ServerRequest request) {
+        return request.bodyToMono(IDS)
+                .switchIfEmpty(Mono.error(() -> new ServerWebInputException("Missing request body")))
+                .flatMap(ids -> lookup(request, ids));
+    }
+
+    /**
+     * Streams every person with backpressure: rows are read from the database
+     * only as fast as the client consumes the response.
+     */
+    Mono<ServerResponse> exportPersons(ServerRequest request) {
+        ExportFormat format = ExportFormat.fromParameter(request.queryParam("format").orElse("ndjson"));
+        ServerResponse.BodyBuilder response = ServerResponse.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"persons." + format.getExtension() + "\"");
+        if (format == ExportFormat.NDJSON) {
+            return response.body(personService.streamPersons(), PersonView.class);
+        }
+        Flux<String> lines = Flux.concat(Mono.just(PersonExportService.CSV_HEADER + "\n"),
+                personService.streamPersons().map(ReactivePersonHandler::csvLine));
+        return response.body(lines, String.class);
+    }
+
+    /**
+     * With {@code fields} only the requested columns are selected, and the
+     * partial representation carries no ETag.
+     */
+    Mono<ServerResponse> getPersonById(ServerRequest request) {
+        Long id = idParam(request);
+        List<String> projection = PersonFields.parse(request.queryParam("fields").orElse(null));
+        if (projection != null) {
+            return personService.getPersonById(id, projection)
+                    .flatMap(person -> ServerResponse.ok().bodyValue(person))
+                    .switchIfEmpty(ServerResponse.notFound().build());
+        }
+        String ifNoneMatch = request.headers().firstHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch == null) {
+            return withETag(personService.getPersonById(id), HttpStatus.OK);
+        }
+        // Revalidation only needs the version column; the row is read only if it changed.
+        return personService.getPersonVersion(id)
+                .flatMap(version -> PersonETags.noneMatchHits(ifNoneMatch, version)
+                        ? ServerResponse.status(HttpStatus.NOT_MODIFIED).eTag(PersonETags.of(version)).build()
+                        : withETag(personService.getPersonById(id), HttpStatus.OK))
+                .switchIfEmpty(ServerResponse.notFound().build());
+    }
+
+    Mono<ServerResponse> createPerson(ServerRequest request) {
+        return withETag(request.bodyToMono(Person.class).flatMap(personService::createPerson), HttpStatus.CREATED);
+    }
+
+    /**
+     * A JSON array is read whole before anything is inserted, as in the servlet
+     * application, and rejected with 413 once it exceeds the item or byte
+     * limit; NDJSON is parsed and inserted as it arrives, and a line that is
+     * not valid JSON or longer than {@value PersonBatchService#MAX_LINE_LENGTH}
+     * characters fails only that item. Past the limits one more NDJSON item
+     * fails and the rest of the body is not read.
+     */
+    Mono<ServerResponse> createPersons(ServerRequest request) {
+        boolean ndjson = request.headers().contentType().map(NDJSON::isCompatibleWith).orElse(false);
+        Flux<ReactivePersonService.BatchEntry> entries = ndjson
+                ? Flux.defer(() -> {
+                    NdjsonLines lines = new NdjsonLines(this::parseLine, maxBatchItems, maxBatchBytes);
+                    return request.bodyToFlux(DataBuffer.class)
+                            .map(lines::read)
+                            .takeUntil(read -> lines.isCutOff())
+                            .concatMapIterable(Function.identity())
+                            .concatWith(Flux.defer(() -> Flux.fromIterable(lines.finish())));
+                })
+                : jsonDecoder.decode(limitBytes(request.bodyToFlux(DataBuffer.class)),
+                                ResolvableType.forClass(JsonNode.class), MediaType.APPLICATION_JSON, null)
+                        .onErrorMap(DecodingException.class, ex -> new ServerWebInputException("Invalid JSON", null, ex))
+                        .index()
+                        .map(entry -> {
+                            if (entry.getT1() == maxBatchItems) {
+                                throw new BatchLimitExceededException(maxBatchItems, maxBatchBytes);
+                            }
+                            return toEntry((JsonNode) entry.getT2());
+                        })
+                        .collectList()
+                        .flatMapMany(Flux::fromIterable);
+        return personService.createPersons(entries).flatMap(result -> ServerResponse
+                .status(result.hasFailures() ? HttpStatus.MULTI_STATUS : HttpStatus.CREATED)
+                .bodyValue(result));
+    }
+
+    Mono<ServerResponse> updatePerson(ServerRequest request) {
+        Long id = idParam(request);
+        Long expectedVersion = PersonETags.requiredVersion(id, request.headers().firstHeader(HttpHeaders.IF_MATCH));
+        return withETag(request.bodyToMono(Person.class)
+                .flatMap(person -> personService.updatePerson(id, person, expectedVersion)), HttpStatus.OK);
+    }
+
+    Mono<ServerResponse> patchPerson(ServerRequest request) {
+        Long id = idParam(request);
+        Long expectedVersion = PersonETags.requiredVersion(id, request.headers().firstHeader(HttpHeaders.IF_MATCH));
+        return request.bodyToMono(CHANGES)
+                .flatMap(changes -> personService.patchPerson(id, changes, expectedVersion))
+                .flatMap(ReactivePersonHandler::noContentOrNotFound);
+    }
+
+    Mono<ServerResponse> deletePerson(ServerRequest request) {
+        Long id = idParam(request);
+        Long expectedVersion = PersonETags.requiredVersion(id, request.headers().firstHeader(HttpHeaders.IF_MATCH));
+        return personService.deletePerson(id, expectedVersion).flatMap(ReactivePersonHandler::noContentOrNotFound);
+    }
+
+    private Mono<ServerResponse> lookup(ServerRequest request, List<Long> ids) {
+        List<String> projection = PersonFields.parse(request.queryParam("fields").orElse(null));
+        if (projection == null) {
+            return personService.getPersonsByIds(ids).flatMap(result -> ServerResponse.ok().bodyValue(result));
+        }
+        return personService.getPersonsByIds(ids, projection)
+                .flatMap(result -> ServerResponse.ok().bodyValue(result));
+    }
+
+    private Flux<DataBuffer> limitBytes(Flux<DataBuffer> body) {
+        return Flux.defer(() -> {
+            long[] read = new long[1];
+            return body.handle((buffer, sink) -> {
+                read[0] += buffer.readableByteCount();
+                if (read[0] > maxBatchBytes) {
+                    DataBufferUtils.release(buffer);
+                    sink.error(new BatchLimitExceededException(maxBatchItems, maxBatchBytes));
+                } else {
+                    sink.next(buffer);
+                }
+            });
+        });
+    }
+
+    private ReactivePersonService.BatchEntry toEntry(JsonNode node) {
+        if (node.isNull()) {
+            return ReactivePersonService.BatchEntry.of(null);
+        }
+        try {
+            return ReactivePersonService.BatchEntry.of(objectMapper.treeToValue(node, Person.class));
+        } catch (JsonProcessingException ex) {
+            throw new ServerWebInputException("Invalid person", null, ex);
+        }
+    }
+
+    private ReactivePersonService.BatchEntry parseLine(String line) {
+        try {
+            return ReactivePersonService.BatchEntry.of(personReader.readValue(line));
+        } catch (JsonProcessingException ex) {
+            return ReactivePersonService.BatchEntry.rejected("Invalid JSON");
+        }
+    }
+
+    private static Mono<ServerResponse> pageResponse(ServerRequest request, List<?> persons, String nextCursor) {
+        ServerResponse.BodyBuilder response = ServerResponse.ok();
+        if (nextCursor != null) {
+            String next = UriComponentsBuilder.fromUri(request.uri())
+                    .replaceQueryParam("after", nextCursor)
+                    .replaceQueryParam("limit", persons.size())
+                    .toUriString();
+            response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return response.bodyValue(persons);
+    }
+
+    private static PersonSearch search(ServerRequest request) {
+        return new PersonSearch(textParam(request, "email"), textParam(request, "lastName"),
+                integerParam(request, "minAge"), integerParam(request, "maxAge"));
+    }
+
+    private static Mono<ServerResponse> withETag(Mono<PersonView> person, HttpStatus status) {
+        return person.flatMap(view -> {
+            ServerResponse.BodyBuilder response = ServerResponse.status(status);
+            if (view.version() != null) {
+                response.eTag(PersonETags.of(view.version()));
+            }
+            return response.bodyValue(view);
+        }).switchIfEmpty(ServerResponse.notFound().build());
+    }
+
+    private static Mono<ServerResponse> noContentOrNotFound(boolean found) {
+        return found ? ServerResponse.noContent().build() : ServerResponse.notFound().build();
+    }
+
+    private static String csvLine(PersonView person) {
+        StringWriter line = new StringWriter();
+        try {
+            PersonExportService.writeCsv(line, person);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return line.append('\n').toString();
+    }
+
+    private static Long idParam(ServerRequest request) {
+        return parseLong(request.pathVariable("id"));
+    }
+
+    private static Long parseLong(String value) {
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException ex) {
+            throw new TypeMismatchException(value, Long.class, ex);
+        }
+    }
+
+    private static int intParam(ServerRequest request, String name, int defaultValue) {
+        Integer value = integerParam(request, name);
+        return value == null ? defaultValue : value;
+    }
+
+    private static Integer integerParam(ServerRequest request, String name) {
+        String value = request.queryParam(name).orElse(null);
+        if (!StringUtils.hasText(value)) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException ex) {
+            throw new TypeMismatchException(value, Integer.class, ex);
+        }
+    }
+
+    private static String textParam(ServerRequest request, String name) {
+        return request.queryParam(name).filter(StringUtils::hasText).orElse(null);
+    }
+
+    /**
+     * Splits an NDJSON body into lines as its buffers arrive, like the servlet
+     * application's line reader: at most {@value #MAX_LINE_BYTES} bytes of a
+     * line are kept. UTF-8 needs at most three bytes per character, so a
+     * longer line has more than {@value PersonBatchService#MAX_LINE_LENGTH}
+     * characters. Blank lines are skipped; a trailing {@code \r} is dropped.
+     * Past the item or byte limit one rejected entry is added and the rest of
+     * the body is ignored.
+     */
+    private static final class NdjsonLines {
+
+        private static final int MAX_LINE_BYTES = 3 * PersonBatchService.MAX_LINE_LENGTH;
+
+        private static final String BATCH_TOO_LARGE = "Batch too large; the rest of the body was not read";
+
+        private final Function<String, ReactivePersonService.BatchEntry> parser;
+        private final int maxItems;
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+        private long remainingBytes;
+        private int items;
+        private boolean truncated;
+        private boolean cutOff;
+
+        NdjsonLines(Function<String, ReactivePersonService.BatchEntry> parser, int maxItems, long maxBytes) {
+            this.parser = parser;
+            this.maxItems = maxItems;
+            this.remainingBytes = maxBytes;
+        }
+
+        List<ReactivePersonService.BatchEntry> read(DataBuffer buffer) {
+            byte[] bytes = new byte[buffer.readableByteCount()];
+            try {
+                buffer.read(bytes);
+            } finally {
+                DataBufferUtils.release(buffer);
+            }
+            List<ReactivePersonService.BatchEntry> entries = new ArrayList<>();
+            if (cutOff) {
+                return entries;
+            }
+            boolean overLimit = bytes.length > remainingBytes;
+            int end = overLimit ? (int) remainingBytes : bytes.length;
+            remainingBytes -= end;
+            int start = 0;
+            for (int i = 0; i < end && !cutOff; i++) {
+                if (bytes[i] == '\n') {
+                    append(bytes, start, i);
+                    finishLine(entries);
+                    start = i + 1;
+                }
+            }
+            if (cutOff || overLimit) {
+                // The first item over the item limit, or the line cut at the byte limit.
+                cutOff(entries);
+            } else {
+                append(bytes, start, end);
+            }
+            return entries;
+        }
+
+        /**
+         * @return the entry of a last line without a line break, if any
+         */
+        List<ReactivePersonService.BatchEntry> finish() {
+            List<ReactivePersonService.BatchEntry> entries = new ArrayList<>(1);
+            if (!cutOff) {
+                finishLine(entries);
+                if (cutOff) {
+                    cutOff(entries);
+                }
+            }
+            return entries;
+        }
+
+        /**
+         * Whether the body went past a limit, so nothing more needs to be read.
+         */
+        boolean isCutOff() {
+            return cutOff;
+        }
+
+        private void cutOff(List<ReactivePersonService.BatchEntry> entries) {
+            cutOff = true;
+            line.reset();
+            entries.add(ReactivePersonService.BatchEntry.rejected(BATCH_TOO_LARGE));
+        }
+
+        private void append(byte[] bytes, int start, int end) {
+            int room = MAX_LINE_BYTES + 1 - line.size();
+            if (end - start > room) {
+                truncated = true;
+                end = start + Math.max(0, room);
+            }
+            line.write(bytes, start, end - start);
+        }
+
+        private void finishLine(List<ReactivePersonService.BatchEntry> entries) {
+            String text = line.toString(StandardCharsets.UTF_8);
+            boolean tooLong = truncated;
+            line.reset();
+            truncated = false;
+            if (text.endsWith("\r")) {
+                text = text.substring(0, text.length() - 1);
+            }
+            if (text.isBlank() && !tooLong) {
+                return;
+            }
+            if (items++ == maxItems) {
+                cutOff = true;
+            } else if (tooLong || text.length() > PersonBatchService.MAX_LINE_LENGTH) {
+                entries.add(ReactivePersonService.BatchEntry.rejected("Line too long"));
+            } else {
+                entries.add(parser.apply(text));
+            }
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package com.example.github.demo.reactive;
+
+import com.example.github.demo.model.Person;
+import com.example.github.demo.model.PersonView;
+import com.example.github.demo.repository.PersonSearch;
+import io.r2dbc.spi.Readable;
+import io.r2dbc.spi.Statement;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.Parameter;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Person table access over R2DBC with hand-written SQL, mirroring the queries
+ * of the JPA repository: keyset pages, projections of the requested columns,
+ * single-statement conditional writes, and version checks in the WHERE clause.
+ */
+class ReactivePersonRepository {
+
+    private static final String COLUMNS = "id, first_name, last_name, email, phone_number, address, age, version";
+
+    private static final Map<String, String> PATCH_COLUMNS = Map.of(
+            "firstName", "first_name",
+            "lastName", "last_name",
+            "email", "email",
+            "phoneNumber", "phone_number",
+            "address", "address",
+            "age", "age");
+
+    private final DatabaseClient databaseClient;
+
+    ReactivePersonRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    Flux<PersonView> findViewsAfterId(long afterId, int limit) {
+        return databaseClient.sql("select " + COLUMNS + " from person where id > :after order by id limit :limit")
+                .bind("after", afterId)
+                .bind("limit", limit)
+                .map(ReactivePersonRepository::view)
+                .all();
+    }
+
+    Mono<PersonView> findViewById(Long id) {
+        return databaseClient.sql("select " + COLUMNS + " from person where id = :id")
+                .bind("id", id)
+                .map(ReactivePersonRepository::view)
+                .one();
+    }
+
+    Mono<Long> findVersionById(Long id) {
+        return databaseClient.sql("select version from person where id = :id")
+                .bind("id", id)
+                .map(row -> row.get("version", Long.class))
+                .one();
+    }
+
+    Mono<Boolean> existsById(Long id) {
+        return findVersionById(id).hasElement();
+    }
+
+    Flux<Map<String, Object>> findFieldsAfterId(List<String> fields, long afterId, int limit) {
+        return databaseClient.sql("select " + columns(fields) + " from person where id > :after order by id limit :limit")
+                .bind("after", afterId)
+                .bind("limit", limit)
+                .map(row -> projection(row, fields))
+                .all();
+    }
+
+    Mono<Map<String, Object>> findFieldsById(List<String> fields, Long id) {
+        return databaseClient.sql("select " + columns(fields) + " from person where id = :id")
+                .bind("id", id)
+                .map(row -> projection(row, fields))
+                .one();
+    }
+
+    Flux<PersonView> findViewsByIdIn(List<Long> ids) {
+        return databaseClient.sql("select " + COLUMNS + " from person where id in (:ids) order by id")
+                .bind("ids", ids)
+                .map(ReactivePersonRepository::view)
+                .all();
+    }
+
+    Flux<Map<String, Object>> findFieldsByIdIn(List<String> fields, List<Long> ids) {
+        return databaseClient.sql("select " + columns(fields) + " from person where id in (:ids) order by id")
+                .bind("ids", ids)
+                .map(row -> projection(row, fields))
+                .all();
+    }
+
+    /**
+     * Same filters, order and keyset condition as the JPA repository's
+     * {@code searchViews}: {@code (key, id) > (afterKey, afterId)} is written
+     * with a plain lower bound on the key so it starts the index range.
+     *
+     * @param after position of the previous page's last row, or {@code null}
+     */
+    Flux<PersonView> searchViews(PersonSearch search, PersonSearch.After after, int limit) {
+        List<String> conditions = new ArrayList<>();
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        filters(search, conditions, parameters);
+        String orderBy = switch (search.order()) {
+            case ID -> "id";
+            case LAST_NAME -> "last_name, id";
+            case AGE -> "age, id";
+        };
+        if (after != null) {
+            parameters.put("afterId", after.id());
+            if (search.order() == PersonSearch.Order.ID) {
+                conditions.add("id > :afterId");
+            } else {
+                String key = search.order() == PersonSearch.Order.LAST_NAME ? "last_name" : "age";
+                conditions.add(key + " >= :afterKey and (" + key + " > :afterKey or id > :afterId)");
+                parameters.put("afterKey", after.key());
+            }
+        }
+        parameters.put("limit", limit);
+        return databaseClient.sql("select " + COLUMNS + " from person" + where(conditions)
+                        + " order by " + orderBy + " limit :limit")
+                .bindValues(parameters)
+                .map(ReactivePersonRepository::view)
+                .all();
+    }
+
+    Mono<Long> countSearch(PersonSearch search) {
+        List<String> conditions = new ArrayList<>();
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        filters(search, conditions, parameters);
+        return databaseClient.sql("select count(*) from person" + where(conditions))
+                .bindValues(parameters)
+                .map(row -> row.get(0, Long.class))
+                .one();
+    }
+
+    private static void filters(PersonSearch search, List<String> conditions, Map<String, Object> parameters) {
+        if (search.email() != null) {
+            conditions.add("email_key = :email");
+            parameters.put("email", search.email().toLowerCase(Locale.ROOT));
+        }
+        if (search.lastNamePrefix() != null) {
+            conditions.add("last_name >= :lastNameFrom");
+            parameters.put("lastNameFrom", search.lastNamePrefix());
+            String upperBound = PersonSearch.prefixUpperBound(search.lastNamePrefix());
+            if (upperBound != null) {
+                conditions.add("last_name < :lastNameTo");
+                parameters.put("lastNameTo", upperBound);
+            }
+        }
+        if (search.minAge() != null) {
+            conditions.add("age >= :minAge");
+            parameters.put("minAge", search.minAge());
+        }
+        if (search.maxAge() != null) {
+            conditions.add("age <= :maxAge");
+            parameters.put("maxAge", search.maxAge());
+        }
+    }
+
+    private static String where(List<String> conditions) {
+        return conditions.isEmpty() ? "" : " where " + String.join(" and ", conditions);
+    }
+
+    /**
+     * Inserts with version 0, as Hibernate does for a new entity.
+     */
+    Mono<PersonView> insert(Person person) {
+        return databaseClient.sql("insert into person "
+                        + "(first_name, last_name, email, phone_number, address, age, version) "
+                        + "values (:firstName, :lastName, :email, :phoneNumber, :address, :age, 0)")
+                .bindValues(values(person))
+                .filter(statement -> statement.returnGeneratedValues("id"))
+                .map(row -> row.get("id", Long.class))
+                .one()
+                .map(id -> new PersonView(id, person.getFirstName(), person.getLastName(), person.getEmail(),
+                        person.getPhoneNumber(), person.getAddress(), person.getAge(), 0L));
+    }
+
+    /**
+     * Inserts all persons with one statement executed once per person, as the
+     * servlet application's JDBC batch does. Not atomic on its own: callers
+     * that need all or nothing run it in a transaction.
+     *
+     * @return the generated ids, in the order of {@code persons}
+     */
+    Flux<Long> insertAll(List<Person> persons) {
+        return databaseClient.inConnectionMany(connection -> {
+            Statement statement = connection.createStatement("insert into person "
+                            + "(first_name, last_name, email, phone_number, address, age, version) "
+                            + "values ($1, $2, $3, $4, $5, $6, 0)")
+                    .returnGeneratedValues("id");
+            for (int i = 0; i < persons.size(); i++) {
+                if (i > 0) {
+                    statement.add();
+                }
+                Person person = persons.get(i);
+                bind(statement, 0, person.getFirstName(), String.class);
+                bind(statement, 1, person.getLastName(), String.class);
+                bind(statement, 2, person.getEmail(), String.class);
+                bind(statement, 3, person.getPhoneNumber(), String.class);
+                bind(statement, 4, person.getAddress(), String.class);
+                bind(statement, 5, person.getAge(), Integer.class);
+            }
+            return Flux.from(statement.execute())
+                    .concatMap(result -> result.map((row, metadata) -> row.get("id", Long.class)));
+        });
+    }
+
+    /**
+     * @param version required stored version, or {@code null} for an unconditional update
+     */
+    Mono<Long> updateById(Long id, Person person, Long version) {
+        Map<String, Object> parameters = values(person);
+        parameters.put("id", id);
+        return databaseClient.sql("update person set first_name = :firstName, last_name = :lastName, "
+                        + "email = :email, phone_number = :phoneNumber, address = :address, age = :age, "
+                        + "version = version + 1 where id = :id" + versionCondition(version, parameters))
+                .bindValues(parameters)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    /**
+     * @param changes attribute name to already converted value; must not be empty
+     */
+    Mono<Long> patchById(Long id, Map<String, Object> changes, Long version) {
+        List<String> assignments = new ArrayList<>();
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        changes.forEach((field, value) -> {
+            assignments.add(PATCH_COLUMNS.get(field) + " = :" + field);
+            parameters.put(field, Parameter.fromOrEmpty(value, "age".equals(field) ? Integer.class : String.class));
+        });
+        parameters.put("id", id);
+        return databaseClient.sql("update person set " + String.join(", ", assignments)
+                        + ", version = version + 1 where id = :id" + versionCondition(version, parameters))
+                .bindValues(parameters)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    Mono<Long> removeById(Long id, Long version) {
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        parameters.put("id", id);
+        return databaseClient.sql("delete from person where id = :id" + versionCondition(version, parameters))
+                .bindValues(parameters)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    private static String versionCondition(Long version, Map<String, Object> parameters) {
+        if (version == null) {
+            return "";
+        }
+        parameters.put("version", version);
+        return " and version = :version";
+    }
+
+    private static void bind(Statement statement, int index, Object value, Class<?> type) {
+        if (value == null) {
+            statement.bindNull(index, type);
+        } else {
+            statement.bind(index, value);
+        }
+    }
+
+    private static String columns(List<String> fields) {
+        return fields.stream().map(ReactivePersonRepository::column).collect(Collectors.joining(", "));
+    }
+
+    private static String column(String field) {
+        return "id".equals(field) ? "id" : PATCH_COLUMNS.get(field);
+    }
+
+    /**
+     * A projected row keyed by attribute name, in {@code fields} order.
+     */
+    private static Map<String, Object> projection(Readable row, List<String> fields) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (String field : fields) {
+            Class<?> type = switch (field) {
+                case "id" -> Long.class;
+                case "age" -> Integer.class;
+                default -> String.class;
+            };
+            values.put(field, row.get(column(field), type));
+        }
+        return values;
+    }
+
+    private static Map<String, Object> values(Person person) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("firstName", Parameter.fromOrEmpty(person.getFirstName(), String.class));
+        values.put("lastName", Parameter.fromOrEmpty(person.getLastName(), String.class));
+        values.put("email", Parameter.fromOrEmpty(person.getEmail(), String.class));
+        values.put("phoneNumber", Parameter.fromOrEmpty(person.getPhoneNumber(), String.class));
+        values.put("address", Parameter.fromOrEmpty(person.getAddress(), String.class));
+        values.put("age", Parameter.fromOrEmpty(person.getAge(), Integer.class));
+        return values;
+    }
+
+    private static PersonView view(Readable row) {
+        return new PersonView(
+                row.get("id", Long.class),
+                row.get("first_name", String.class),
+                row.get("last_name", String.class),
+                row.get("email", String.class),
+                row.get("phone_number", String.class),
+                row.get("address", String.class),
+                row.get("age", Integer.class),
+                row.get("version", Long.class));
+    }
+}
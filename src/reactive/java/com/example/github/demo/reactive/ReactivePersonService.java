@@ -0,0 +1,365 @@
+package com.example.github.demo.reactive;
+
+import com.example.github.demo.exception.InvalidSearchException;
+import com.example.github.demo.exception.LookupLimitExceededException;
+import com.example.github.demo.exception.VersionConflictException;
+import com.example.github.demo.model.Person;
+import com.example.github.demo.model.PersonView;
+import com.example.github.demo.repository.PersonSearch;
+import com.example.github.demo.service.BatchCreateResult;
+import com.example.github.demo.service.BatchItemResult;
+import com.example.github.demo.service.PersonBatchService;
+import com.example.github.demo.service.PersonLookup;
+import com.example.github.demo.service.PersonPage;
+import com.example.github.demo.service.PersonService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Non-blocking counterpart of {@link PersonService} with the same paging,
+ * version, patch, lookup and batch rules. There is no cache or in-memory
+ * index here: every call goes to the database, without holding a thread while
+ * it waits.
+ */
+class ReactivePersonService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactivePersonService.class);
+
+    /**
+     * Rows per keyset query while streaming; the next page is only read once
+     * the subscriber has asked for more.
+     */
+    static final int STREAM_PAGE_SIZE = 500;
+
+    /**
+     * Ids per IN query of a lookup, as in {@link PersonService}.
+     */
+    static final int LOOKUP_CHUNK_SIZE = 100;
+
+    /**
+     * Persons per insert batch and transaction, the servlet application's
+     * {@code hibernate.jdbc.batch_size}.
+     */
+    static final int BATCH_SIZE = 50;
+
+    private static final String EMAIL_INDEX = "ux_person_email_key";
+
+    private final ReactivePersonRepository personRepository;
+    private final TransactionalOperator transactionalOperator;
+
+    ReactivePersonService(ReactivePersonRepository personRepository, TransactionalOperator transactionalOperator) {
+        this.personRepository = personRepository;
+        this.transactionalOperator = transactionalOperator;
+    }
+
+    /**
+     * @see PersonService#getPersonsPage(Long, int)
+     */
+    Mono<PersonPage<PersonView>> getPersonsPage(Long afterId, int limit) {
+        return page(afterId, limit, personRepository::findViewsAfterId, PersonView::id);
+    }
+
+    /**
+     * @see PersonService#getPersonsPage(Long, int, List)
+     */
+    Mono<PersonPage<Map<String, Object>>> getPersonsPage(Long afterId, int limit, List<String> fields) {
+        return page(afterId, limit, (after, rows) -> personRepository.findFieldsAfterId(fields, after, rows),
+                row -> (Long) row.get("id"));
+    }
+
+    /**
+     * Like {@link PersonService#searchPersons}, always answered by the database.
+     *
+     * @param after position of the previous page's last row, or {@code null}
+     */
+    Mono<PersonPage<PersonView>> searchPersons(PersonSearch search, PersonSearch.After after, int limit) {
+        if (search.isEmpty()) {
+            return Mono.error(new InvalidSearchException(
+                    "At least one of email, lastName, minAge or maxAge is required"));
+        }
+        return checkAgeRange(search).then(page(null, limit,
+                (ignored, rows) -> personRepository.searchViews(search, after, rows), PersonView::id));
+    }
+
+    /**
+     * Every person in id order, read one keyset page at a time as the
+     * subscriber requests them, so a slow client holds neither a connection
+     * nor more than two pages of rows.
+     */
+    Flux<PersonView> streamPersons() {
+        return personRepository.findViewsAfterId(0L, STREAM_PAGE_SIZE).collectList()
+                .expand(page -> page.size() < STREAM_PAGE_SIZE
+                        ? Mono.empty()
+                        : personRepository.findViewsAfterId(page.get(page.size() - 1).id(), STREAM_PAGE_SIZE)
+                                .collectList())
+                .concatMapIterable(page -> page, 1);
+    }
+
+    Mono<PersonView> getPersonById(Long id) {
+        return personRepository.findViewById(id);
+    }
+
+    /**
+     * Selects only the given attributes of one person.
+     */
+    Mono<Map<String, Object>> getPersonById(Long id, List<String> fields) {
+        return personRepository.findFieldsById(fields, id);
+    }
+
+    /**
+     * @see PersonService#getPersonsByIds(List)
+     */
+    Mono<PersonLookup<PersonView>> getPersonsByIds(List<Long> ids) {
+        return lookup(ids, personRepository::findViewsByIdIn, PersonView::id);
+    }
+
+    /**
+     * @see PersonService#getPersonsByIds(List, List)
+     */
+    Mono<PersonLookup<Map<String, Object>>> getPersonsByIds(List<Long> ids, List<String> fields) {
+        return lookup(ids, chunk -> personRepository.findFieldsByIdIn(fields, chunk), row -> (Long) row.get("id"));
+    }
+
+    Mono<Long> getPersonVersion(Long id) {
+        return personRepository.findVersionById(id);
+    }
+
+    /**
+     * @see PersonService#countPersons(PersonSearch)
+     */
+    Mono<Long> countPersons(PersonSearch search) {
+        return checkAgeRange(search).then(personRepository.countSearch(search));
+    }
+
+    /**
+     * Always inserts a new person; an id or version sent by the client is ignored.
+     */
+    Mono<PersonView> createPerson(Person person) {
+        return personRepository.insert(person);
+    }
+
+    /**
+     * Inserts the entries {@value #BATCH_SIZE} at a time, one batch and one
+     * transaction per chunk, as {@link PersonBatchService} does. If a chunk
+     * fails it is retried row by row so that every item gets an exact result.
+     * Entries are read from {@code entries} only as chunks are inserted, and
+     * only failed items are kept.
+     */
+    Mono<BatchCreateResult> createPersons(Flux<BatchEntry> entries) {
+        return Mono.defer(() -> {
+            List<BatchItemResult> failures = new ArrayList<>();
+            return entries.index()
+                    .buffer(BATCH_SIZE)
+                    .concatMap(chunk -> insertChunk(chunk, failures))
+                    .reduce(0, Integer::sum)
+                    .map(created -> {
+                        failures.sort(Comparator.comparingInt(BatchItemResult::index));
+                        return new BatchCreateResult(created, failures.size(), failures);
+                    });
+        });
+    }
+
+    /**
+     * @see PersonService#updatePerson(Long, Person, Long)
+     */
+    Mono<PersonView> updatePerson(Long id, Person personDetails, Long expectedVersion) {
+        Mono<Long> version = expectedVersion == null
+                ? updateReturningVersion(id, personDetails)
+                : personRepository.updateById(id, personDetails, expectedVersion).flatMap(updated -> updated == 0
+                        ? checkVersionConflict(id, expectedVersion).then(Mono.<Long>empty())
+                        : Mono.just(expectedVersion + 1));
+        return version.map(newVersion -> new PersonView(id, personDetails.getFirstName(),
+                personDetails.getLastName(), personDetails.getEmail(), personDetails.getPhoneNumber(),
+                personDetails.getAddress(), personDetails.getAge(), newVersion));
+    }
+
+    /**
+     * Unconditional update that knows the version it produced: the UPDATE holds
+     * the row lock until the transaction ends, so the version read after it in
+     * the same transaction is its own, as in the JPA repository.
+     *
+     * @return empty if no person has this id
+     */
+    private Mono<Long> updateReturningVersion(Long id, Person personDetails) {
+        return transactionalOperator.transactional(personRepository.updateById(id, personDetails, null)
+                .flatMap(updated -> updated == 0 ? Mono.<Long>empty() : personRepository.findVersionById(id)));
+    }
+
+    /**
+     * @see PersonService#patchPerson(Long, Map, Long)
+     */
+    Mono<Boolean> patchPerson(Long id, Map<String, Object> changes, Long expectedVersion) {
+        if (changes.isEmpty()) {
+            return personRepository.findVersionById(id)
+                    .flatMap(version -> expectedVersion != null && !version.equals(expectedVersion)
+                            ? Mono.<Boolean>error(new VersionConflictException(id))
+                            : Mono.just(true))
+                    .defaultIfEmpty(false);
+        }
+        Map<String, Object> columns = new HashMap<>();
+        try {
+            changes.forEach((field, value) -> columns.put(field, PersonService.convertPatchValue(field, value)));
+        } catch (RuntimeException ex) {
+            return Mono.error(ex);
+        }
+        return personRepository.patchById(id, columns, expectedVersion).flatMap(updated -> updated == 0
+                ? checkVersionConflict(id, expectedVersion).thenReturn(false)
+                : Mono.just(true));
+    }
+
+    /**
+     * @see PersonService#deletePerson(Long, Long)
+     */
+    Mono<Boolean> deletePerson(Long id, Long expectedVersion) {
+        return personRepository.removeById(id, expectedVersion).flatMap(deleted -> deleted == 0
+                ? checkVersionConflict(id, expectedVersion).thenReturn(false)
+                : Mono.just(true));
+    }
+
+    /**
+     * @return the number of persons inserted; failed items are added to {@code failures}
+     */
+    private Mono<Integer> insertChunk(List<Tuple2<Long, BatchEntry>> chunk, List<BatchItemResult> failures) {
+        List<Integer> indexes = new ArrayList<>(chunk.size());
+        List<Person> persons = new ArrayList<>(chunk.size());
+        for (Tuple2<Long, BatchEntry> entry : chunk) {
+            int index = entry.getT1().intValue();
+            if (entry.getT2().error() != null) {
+                failures.add(new BatchItemResult(index, null, BatchItemResult.Status.FAILED, entry.getT2().error()));
+            } else {
+                indexes.add(index);
+                persons.add(entry.getT2().person());
+            }
+        }
+        if (persons.isEmpty()) {
+            return Mono.just(0);
+        }
+        return transactionalOperator.transactional(personRepository.insertAll(persons))
+                .count()
+                .map(Long::intValue)
+                .onErrorResume(ex -> {
+                    logger.warn("Batch insert of {} persons failed, retrying one by one: {}",
+                            persons.size(), ex.getMessage());
+                    return Flux.range(0, persons.size())
+                            .concatMap(i -> insertOne(indexes.get(i), persons.get(i), failures))
+                            .reduce(0, Integer::sum);
+                });
+    }
+
+    private Mono<Integer> insertOne(int index, Person person, List<BatchItemResult> failures) {
+        return personRepository.insert(person)
+                .thenReturn(1)
+                .onErrorResume(ex -> {
+                    logger.warn("Batch item {} failed: {}", index, ex.getMessage());
+                    failures.add(new BatchItemResult(index, null, BatchItemResult.Status.FAILED, clientMessage(ex)));
+                    return Mono.just(0);
+                });
+    }
+
+    /**
+     * Same item messages as {@link PersonBatchService}; the cause is logged.
+     */
+    private static String clientMessage(Throwable ex) {
+        if (String.valueOf(NestedExceptionUtils.getMostSpecificCause(ex).getMessage())
+                .toLowerCase(Locale.ROOT).contains(EMAIL_INDEX)) {
+            return "A person with this email already exists";
+        }
+        return "Invalid person";
+    }
+
+    private static Mono<Void> checkAgeRange(PersonSearch search) {
+        if (search.minAge() != null && search.maxAge() != null && search.minAge() > search.maxAge()) {
+            return Mono.error(new InvalidSearchException("minAge must not be greater than maxAge"));
+        }
+        return Mono.empty();
+    }
+
+    /**
+     * Reads {@code limit + 1} rows so that a next page is only announced when
+     * there is one.
+     */
+    private static <T> Mono<PersonPage<T>> page(Long afterId, int limit, BiFunction<Long, Integer, Flux<T>> query,
+                                                Function<T, Long> idOf) {
+        int pageSize = Math.max(1, Math.min(limit, PersonService.MAX_PAGE_SIZE));
+        long after = afterId == null ? 0L : afterId;
+        return query.apply(after, pageSize + 1).collectList().map(rows -> {
+            if (rows.size() <= pageSize) {
+                return new PersonPage<>(rows, null);
+            }
+            List<T> page = rows.subList(0, pageSize);
+            return new PersonPage<>(page, idOf.apply(page.get(pageSize - 1)));
+        });
+    }
+
+    private static <T> Mono<PersonLookup<T>> lookup(List<Long> ids, Function<List<Long>, Flux<T>> query,
+                                                    Function<T, Long> idOf) {
+        LinkedHashSet<Long> requested = new LinkedHashSet<>(ids);
+        requested.remove(null);
+        List<Long> distinctIds = new ArrayList<>(requested);
+        if (distinctIds.size() > PersonService.MAX_LOOKUP_IDS) {
+            return Mono.error(new LookupLimitExceededException(distinctIds.size(), PersonService.MAX_LOOKUP_IDS));
+        }
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinctIds.size(); from += LOOKUP_CHUNK_SIZE) {
+            chunks.add(distinctIds.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, distinctIds.size())));
+        }
+        return Flux.fromIterable(chunks)
+                .concatMap(query)
+                .collectMap(idOf)
+                .map(found -> {
+                    List<T> persons = new ArrayList<>(found.size());
+                    List<Long> missing = new ArrayList<>();
+                    for (Long id : distinctIds) {
+                        T person = found.get(id);
+                        if (person != null) {
+                            persons.add(person);
+                        } else {
+                            missing.add(id);
+                        }
+                    }
+                    return new PersonLookup<>(persons, missing);
+                });
+    }
+
+    /**
+     * Called after a conditional write matched no row, to tell a stale version
+     * apart from a missing person.
+     */
+    private Mono<Void> checkVersionConflict(Long id, Long expectedVersion) {
+        if (expectedVersion == null) {
+            return Mono.empty();
+        }
+        return personRepository.existsById(id)
+                .flatMap(exists -> exists ? Mono.error(new VersionConflictException(id)) : Mono.empty());
+    }
+
+    /**
+     * One item of a bulk create: a person to insert, or the reason it was
+     * rejected before reaching the database.
+     */
+    record BatchEntry(Person person, String error) {
+
+        static BatchEntry of(Person person) {
+            return person == null ? rejected("Missing person") : new BatchEntry(person, null);
+        }
+
+        static BatchEntry rejected(String error) {
+            return new BatchEntry(null, error);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+-- Same table as the one Hibernate generates for Person in the servlet application.
+create table if not exists person (
+    id bigint generated by default as identity primary key,
+    first_name varchar(255),
+    last_name varchar(255),
+    email varchar(255),
+    phone_number varchar(255),
+    address varchar(255),
+    age integer,
+    email_key varchar(255) generated always as (lower(email)),
+    version bigint not null
+);
+create unique index if not exists ux_person_email_key on person (email_key);
+create index if not exists ix_person_last_name on person (last_name, id);
+create index if not exists ix_person_age on person (age, id);
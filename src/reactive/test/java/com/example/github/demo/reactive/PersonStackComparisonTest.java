@@ -0,0 +1,180 @@
+package com.example.github.demo.reactive;
+
+import com.example.github.demo.Application;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Holds the same number of concurrent connections against the servlet
+ * application and then the reactive one, each on a fresh database, and writes
+ * throughput, errors and the heap and threads each open connection costs to
+ * {@code stack.report}. Only runs with {@code -Dstack.compare=true}; the
+ * client shares the JVM, so its own fixed threads are part of both baselines.
+ */
+class PersonStackComparisonTest {
+
+    private static final int SEED_PERSONS = 200;
+
+    private static final int CLIENT_THREADS = 8;
+
+    @Test
+    @DisplayName("Stack Comparison: Servlet and reactive stacks at the same concurrency")
+    void testCompareStacks() throws Exception {
+        assumeTrue(Boolean.getBoolean("stack.compare"), "stack.compare is not set");
+        int concurrency = Integer.getInteger("stack.concurrency", 1000);
+        Duration duration = DurationStyle.detectAndParse(System.getProperty("stack.duration", "20s"));
+        Path report = Path.of(System.getProperty("stack.report", "target/stack-comparison.json"));
+
+        Map<String, Object> results = new LinkedHashMap<>();
+        try (ConfigurableApplicationContext servlet = new SpringApplicationBuilder(Application.class)
+                .run(arguments("--spring.datasource.url=jdbc:h2:mem:stack-" + UUID.randomUUID()))) {
+            results.put("servlet", measure(servlet, concurrency, duration));
+        }
+        try (ConfigurableApplicationContext reactive = new SpringApplicationBuilder(ReactivePersonApplication.class)
+                .profiles(ReactivePersonApplication.PROFILE)
+                .run(arguments("--spring.r2dbc.url=r2dbc:h2:mem:///stack-" + UUID.randomUUID()
+                        + ";DB_CLOSE_DELAY=-1"))) {
+            results.put("reactive", measure(reactive, concurrency, duration));
+        }
+
+        Map<String, Object> comparison = new LinkedHashMap<>();
+        comparison.put("concurrency", concurrency);
+        comparison.put("durationSeconds", duration.toSeconds());
+        comparison.put("stacks", results);
+        Files.createDirectories(report.toAbsolutePath().getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(report.toFile(), comparison);
+        for (Object result : results.values()) {
+            assertTrue(((StackResult) result).completed() > 0, "No request completed, see " + report);
+        }
+    }
+
+    private static String[] arguments(String database) {
+        return new String[]{
+                "--server.port=0",
+                database,
+                "--spring.jpa.show-sql=false",
+                "--app.text-search.enabled=false",
+                "--logging.level.com.example.github.demo=WARN"};
+    }
+
+    private static StackResult measure(ConfigurableApplicationContext context, int concurrency, Duration duration)
+            throws Exception {
+        URI base = URI.create("http://localhost:"
+                + ((WebServerApplicationContext) context).getWebServer().getPort());
+        ExecutorService clientThreads = Executors.newFixedThreadPool(CLIENT_THREADS);
+        try {
+            HttpClient client = HttpClient.newBuilder().executor(clientThreads).build();
+            List<Long> ids = seed(client, base);
+
+            MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            System.gc();
+            long baselineHeap = memory.getHeapMemoryUsage().getUsed();
+            int baselineThreads = threads.getThreadCount();
+
+            AtomicLong completed = new AtomicLong();
+            AtomicLong errors = new AtomicLong();
+            long deadline = System.nanoTime() + duration.toNanos();
+            CountDownLatch finished = new CountDownLatch(concurrency);
+            for (int i = 0; i < concurrency; i++) {
+                fire(client, base, ids, deadline, completed, errors, finished);
+            }
+
+            long peakHeap = baselineHeap;
+            int peakThreads = baselineThreads;
+            while (!finished.await(200, TimeUnit.MILLISECONDS)) {
+                peakHeap = Math.max(peakHeap, memory.getHeapMemoryUsage().getUsed());
+                peakThreads = Math.max(peakThreads, threads.getThreadCount());
+            }
+            return new StackResult(completed.get(), errors.get(), completed.get() / (double) duration.toSeconds(),
+                    Math.max(0, peakHeap - baselineHeap) / concurrency,
+                    Math.max(0, peakThreads - baselineThreads) / (double) concurrency,
+                    peakThreads);
+        } finally {
+            clientThreads.shutdownNow();
+        }
+    }
+
+    /**
+     * One closed-loop client: sends the next request as soon as the previous
+     * one completed, until the deadline.
+     */
+    private static void fire(HttpClient client, URI base, List<Long> ids, long deadline,
+                             AtomicLong completed, AtomicLong errors, CountDownLatch finished) {
+        if (System.nanoTime() >= deadline) {
+            finished.countDown();
+            return;
+        }
+        long id = ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+        HttpRequest request = HttpRequest.newBuilder(base.resolve("/api/persons/" + id))
+                .timeout(Duration.ofSeconds(30))
+                .build();
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, failure) -> {
+            if (failure == null && response.statusCode() == 200) {
+                completed.incrementAndGet();
+            } else {
+                errors.incrementAndGet();
+            }
+            fire(client, base, ids, deadline, completed, errors, finished);
+        });
+    }
+
+    private static List<Long> seed(HttpClient client, URI base) throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<Long> ids = new ArrayList<>(SEED_PERSONS);
+        for (int i = 0; i < SEED_PERSONS; i++) {
+            String body = objectMapper.writeValueAsString(Map.of("firstName", "Stack", "lastName", "Person" + i,
+                    "email", "stack" + i + "@example.com", "age", 20 + i % 50));
+            HttpRequest request = HttpRequest.newBuilder(base.resolve("/api/persons"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            ids.add(objectMapper.readTree(response.body()).get("id").asLong());
+        }
+        return ids;
+    }
+
+    /**
+     * @param heapBytesPerConnection peak heap growth under load divided by the concurrency
+     * @param threadsPerConnection   peak thread growth under load divided by the concurrency
+     */
+    record StackResult(long completed,
+                       long errors,
+                       double requestsPerSecond,
+                       long heapBytesPerConnection,
+                       double threadsPerConnection,
+                       int peakThreads) {
+    }
+}
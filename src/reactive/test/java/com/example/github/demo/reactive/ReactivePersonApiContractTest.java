@@ -0,0 +1,41 @@
+package com.example.github.demo.reactive;
+
+import com.example.github.demo.integration.PersonApiContract;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Runs the shared {@link PersonApiContract} against the reactive application.
+ */
+@SpringBootTest(classes = ReactivePersonApplication.class,
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles(ReactivePersonApplication.PROFILE)
+class ReactivePersonApiContractTest extends PersonApiContract {
+
+    @LocalServerPort
+    private int port;
+
+    @Override
+    protected int port() {
+        return port;
+    }
+
+    @Test
+    @DisplayName("Test Suggest is unavailable without a text index, as with text search disabled")
+    void testSuggestUnavailable() throws Exception {
+        ResponseEntity<String> response = send(HttpMethod.GET, "/api/persons/suggest?q=ada", null, headers -> {
+        });
+        assertEquals(503, response.getStatusCode().value());
+        assertEquals("Text search is disabled", json(response).get("message").asText());
+        assertNull(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+}
@@ -1,8 +1,25 @@
 package com.example.github.demo.controller;
 
+import com.example.github.demo.exception.AsyncQueueFullException;
+import com.example.github.demo.exception.BatchLimitExceededException;
+import com.example.github.demo.exception.InvalidPatchException;
+import com.example.github.demo.exception.InvalidSearchException;
+import com.example.github.demo.exception.LookupLimitExceededException;
+import com.example.github.demo.exception.TextSearchUnavailableException;
+import com.example.github.demo.exception.VersionConflictException;
 import com.example.github.demo.model.Person;
+import com.example.github.demo.model.PersonView;
+import com.example.github.demo.repository.PersonSearch;
+import com.example.github.demo.service.BatchCreateResult;
+import com.example.github.demo.service.BatchItemResult;
+import com.example.github.demo.service.ExportFormat;
+import com.example.github.demo.service.PersonBatchService;
+import com.example.github.demo.service.PersonExportService;
+import com.example.github.demo.service.PersonLookup;
+import com.example.github.demo.service.PersonPage;
 import com.example.github.demo.service.PersonService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hamcrest.Matchers;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
@@ -11,13 +28,21 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -31,6 +56,12 @@ class PersonControllerTest {
     @MockBean
     private PersonService personService;
 
+    @MockBean
+    private PersonExportService personExportService;
+
+    @MockBean
+    private PersonBatchService personBatchService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -62,8 +93,9 @@ class PersonControllerTest {
     @DisplayName("GET /api/persons - Get all persons")
     void testGetAllPersons() throws Exception {
         // Arrange
-        List<Person> persons = Arrays.asList(testPerson, secondPerson);
-        when(personService.getAllPersons()).thenReturn(persons);
+        List<PersonView> persons = Arrays.asList(PersonView.of(testPerson), PersonView.of(secondPerson));
+        when(personService.getPersonsPage(null, PersonService.DEFAULT_PAGE_SIZE))
+                .thenReturn(new PersonPage<>(persons, null));
 
         // Act & Assert
         mockMvc.perform(get("/api/persons"))
@@ -79,16 +111,18 @@ class PersonControllerTest {
                 .andExpect(jsonPath("$[0].age").value(30))
                 .andExpect(jsonPath("$[1].id").value(2))
                 .andExpect(jsonPath("$[1].firstName").value("Jane"))
-                .andExpect(jsonPath("$[1].lastName").value("Smith"));
+                .andExpect(jsonPath("$[1].lastName").value("Smith"))
+                .andExpect(header().doesNotExist("Link"));
 
-        verify(personService, times(1)).getAllPersons();
+        verify(personService, times(1)).getPersonsPage(null, PersonService.DEFAULT_PAGE_SIZE);
     }
 
     @Test
     @DisplayName("GET /api/persons - Empty list")
     void testGetAllPersonsEmpty() throws Exception {
         // Arrange
-        when(personService.getAllPersons()).thenReturn(Arrays.asList());
+        when(personService.getPersonsPage(null, PersonService.DEFAULT_PAGE_SIZE))
+                .thenReturn(new PersonPage<>(Arrays.asList(), null));
 
         // Act & Assert
         mockMvc.perform(get("/api/persons"))
@@ -96,14 +130,284 @@ class PersonControllerTest {
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.length()").value(0));
 
-        verify(personService, times(1)).getAllPersons();
+        verify(personService, times(1)).getPersonsPage(null, PersonService.DEFAULT_PAGE_SIZE);
+    }
+
+    @Test
+    @DisplayName("GET /api/persons - Next page link and cursor round trip")
+    void testGetAllPersonsNextPageLink() throws Exception {
+        // Arrange
+        when(personService.getPersonsPage(null, 1))
+                .thenReturn(new PersonPage<>(List.of(PersonView.of(testPerson)), 1L));
+        when(personService.getPersonsPage(1L, 1))
+                .thenReturn(new PersonPage<>(List.of(PersonView.of(secondPerson)), null));
+
+        // Act & Assert
+        String link = mockMvc.perform(get("/api/persons").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(header().exists("Link"))
+                .andReturn().getResponse().getHeader("Link");
+
+        String cursor = link.replaceAll(".*after=([^&>]+).*", "$1");
+        mockMvc.perform(get("/api/persons").param("after", cursor).param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(2))
+                .andExpect(header().doesNotExist("Link"));
+
+        verify(personService, times(1)).getPersonsPage(1L, 1);
+    }
+
+    @Test
+    @DisplayName("GET /api/persons - Invalid cursor")
+    void testGetAllPersonsInvalidCursor() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/persons").param("after", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+
+        verify(personService, never()).getPersonsPage(any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("GET /api/persons/search - Filters, next page link and cursor round trip")
+    void testSearchPersonsNextPageLink() throws Exception {
+        // Arrange
+        PersonSearch search = new PersonSearch("john.doe@example.com", "Do", 18, 65);
+        PersonSearch.After after = new PersonSearch.After(null, 1L);
+        when(personService.searchPersons(search, null, 1))
+                .thenReturn(new PersonPage<>(List.of(PersonView.of(testPerson)), 1L));
+        when(personService.searchPersons(search, after, 1))
+                .thenReturn(new PersonPage<>(List.of(), null));
+
+        // Act & Assert
+        String link = mockMvc.perform(get("/api/persons/search")
+                        .param("email", "john.doe@example.com")
+                        .param("lastName", "Do")
+                        .param("minAge", "18")
+                        .param("maxAge", "65")
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(header().exists("Link"))
+                .andReturn().getResponse().getHeader("Link");
+
+        String cursor = link.replaceAll(".*after=([^&>]+).*", "$1");
+        mockMvc.perform(get("/api/persons/search")
+                        .param("email", "john.doe@example.com")
+                        .param("lastName", "Do")
+                        .param("minAge", "18")
+                        .param("maxAge", "65")
+                        .param("after", cursor)
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0))
+                .andExpect(header().doesNotExist("Link"));
+
+        verify(personService, times(1)).searchPersons(search, after, 1);
+    }
+
+    @Test
+    @DisplayName("GET /api/persons/count - Same filters as search, blank ones ignored")
+    void testCountPersons() throws Exception {
+        // Arrange
+        when(personService.countPersons(new PersonSearch(null, "Do", 18, null))).thenReturn(42L);
+        when(personService.countPersons(new PersonSearch(null, null, null, null))).thenReturn(100L);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/persons/count")
+                        .param("email", " ")
+                        .param("lastName", "Do")
+                        .param("minAge", "18"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(42));
+        mockMvc.perform(get("/api/persons/count"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(100));
+    }
+
+    @Test
+    @DisplayName("GET /api/persons/search - Cursor carries the sort key")
+    void testSearchPersonsCursorCarriesSortKey() throws Exception {
+        // Arrange
+        PersonSearch search = new PersonSearch(null, null, 18, null);
+        when(personService.searchPersons(search, null, 1))
+                .thenReturn(new PersonPage<>(List.of(PersonView.of(testPerson)), 1L));
+        when(personService.searchPersons(search, new PersonSearch.After(30, 1L), 1))
+                .thenReturn(new PersonPage<>(List.of(PersonView.of(secondPerson)), null));
+
+        // Act & Assert
+        String link = mockMvc.perform(get("/api/persons/search").param("minAge", "18").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("Link");
+
+        String cursor = link.replaceAll(".*after=([^&>]+).*", "$1");
+        mockMvc.perform(get("/api/persons/search").param("minAge", "18").param("after", cursor).param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(2));
+    }
+
+    @Test
+    @DisplayName("GET /api/persons/search - Blank filters are ignored, no filter is rejected")
+    void testSearchPersonsWithoutFilter() throws Exception {
+        // Arrange
+        when(personService.searchPersons(new PersonSearch(null, null, null, null), null,
+                PersonService.DEFAULT_PAGE_SIZE))
+                .thenThrow(new InvalidSearchException("At least one of email, lastName, minAge or maxAge is required"));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/persons/search").param("email", " ").param("lastName", ""))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("At least one of email, lastName, minAge or maxAge is required"));
+    }
+
+    @Test
+    @DisplayName("GET /api/persons/search - List cursor is not a search cursor")
+    void testSearchPersonsInvalidCursor() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/persons/search").param("minAge", "18").param("after", PersonCursor.encode(5L)))
+                .andExpect(status().isBadRequest());
+
+        verify(personService, never()).searchPersons(any(), any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("GET /api/persons/suggest - Ranked type-ahead results")
+    void testSuggestPersons() throws Exception {
+        // Arrange
+        when(personService.suggestPersons("jo do", PersonService.DEFAULT_SUGGESTIONS))
+                .thenReturn(List.of(PersonView.of(testPerson), PersonView.of(secondPerson)));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/persons/suggest").param("q", "jo do"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[1].id").value(2));
+    }
+
+    @Test
+    @DisplayName("GET /api/persons/suggest - Text search disabled")
+    void testSuggestPersonsDisabled() throws Exception {
+        // Arrange
+        when(personService.suggestPersons("jo", 5)).thenThrow(new TextSearchUnavailableException());
+
+        // Act & Assert
+        mockMvc.perform(get("/api/persons/suggest").param("q", "jo").param("limit", "5"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.message").value("Text search is disabled"));
+    }
+
+    @Test
+    @DisplayName("GET /api/persons?ids= - Lookup by IDs")
+    void testGetPersonsByIds() throws Exception {
+        // Arrange
+        when(personService.getPersonsByIds(List.of(2L, 999L, 1L)))
+                .thenReturn(new PersonLookup<>(List.of(PersonView.of(secondPerson), PersonView.of(testPerson)), List.of(999L)));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/persons").param("ids", "2,999,1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.persons.length()").value(2))
+                .andExpect(jsonPath("$.persons[0].id").value(2))
+                .andExpect(jsonPath("$.persons[1].id").value(1))
+                .andExpect(jsonPath("$.missing[0]").value(999));
+
+        verify(personService, never()).getPersonsPage(any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("POST /api/persons/lookup - Lookup by IDs in body")
+    void testLookupPersons() throws Exception {
+        // Arrange
+        when(personService.getPersonsByIds(List.of(1L, 2L)))
+                .thenReturn(new PersonLookup<>(List.of(PersonView.of(testPerson), PersonView.of(secondPerson)), List.of()));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/persons/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[1,2]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.persons.length()").value(2))
+                .andExpect(jsonPath("$.missing.length()").value(0));
+    }
+
+    @Test
+    @DisplayName("GET /api/persons?ids= - Too many IDs")
+    void testGetPersonsByIdsTooMany() throws Exception {
+        // Arrange
+        when(personService.getPersonsByIds(anyList()))
+                .thenThrow(new LookupLimitExceededException(501, PersonService.MAX_LOOKUP_IDS));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/persons").param("ids", "1,2"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("GET /api/persons?ids= - Invalid ID")
+    void testGetPersonsByIdsInvalid() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/persons").param("ids", "1,abc"))
+                .andExpect(status().isBadRequest());
+
+        verify(personService, never()).getPersonsByIds(anyList());
+    }
+
+    @Test
+    @DisplayName("GET /api/persons/export - Streams NDJSON by default")
+    void testExportPersonsNdjson() throws Exception {
+        // Arrange
+        when(personExportService.export(eq(ExportFormat.NDJSON), any(OutputStream.class))).thenAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(1);
+            out.write("{\"id\":1}\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        });
+
+        // Act & Assert
+        MvcResult result = mockMvc.perform(get("/api/persons/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"persons.ndjson\""))
+                .andExpect(content().string("{\"id\":1}\n"));
+
+        verify(personExportService, times(1)).export(eq(ExportFormat.NDJSON), any(OutputStream.class));
+    }
+
+    @Test
+    @DisplayName("GET /api/persons/export - CSV format")
+    void testExportPersonsCsv() throws Exception {
+        // Act & Assert
+        MvcResult result = mockMvc.perform(get("/api/persons/export").param("format", "CSV"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv"));
+
+        verify(personExportService, times(1)).export(eq(ExportFormat.CSV), any(OutputStream.class));
+    }
+
+    @Test
+    @DisplayName("GET /api/persons/export - Unsupported format")
+    void testExportPersonsUnsupportedFormat() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/persons/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(personExportService);
     }
 
     @Test
     @DisplayName("GET /api/persons/{id} - Get person by ID - found")
     void testGetPersonByIdFound() throws Exception {
         // Arrange
-        when(personService.getPersonById(1L)).thenReturn(Optional.of(testPerson));
+        when(personService.getPersonById(1L)).thenReturn(Optional.of(PersonView.of(testPerson)));
 
         // Act & Assert
         mockMvc.perform(get("/api/persons/1"))
@@ -120,6 +424,37 @@ class PersonControllerTest {
         verify(personService, times(1)).getPersonById(1L);
     }
 
+    @Test
+    @DisplayName("GET /api/persons/{id}?fields= - Field projection")
+    void testGetPersonByIdWithFields() throws Exception {
+        // Arrange
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", 1L);
+        row.put("email", "john.doe@example.com");
+        when(personService.getPersonById(1L, List.of("id", "email"))).thenReturn(Optional.of(row));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/persons/1").param("fields", "email"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(1))
+                .andExpect(jsonPath("$.email").value("john.doe@example.com"))
+                .andExpect(jsonPath("$.firstName").doesNotExist())
+                .andExpect(header().doesNotExist("ETag"));
+
+        verify(personService, never()).getPersonById(anyLong());
+    }
+
+    @Test
+    @DisplayName("GET /api/persons?fields= - Unknown field")
+    void testGetAllPersonsUnknownField() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/persons").param("fields", "firstName,password"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Unknown field: password"));
+
+        verifyNoInteractions(personService);
+    }
+
     @Test
     @DisplayName("GET /api/persons/{id} - Get person by ID - not found")
     void testGetPersonByIdNotFound() throws Exception {
@@ -133,6 +468,61 @@ class PersonControllerTest {
         verify(personService, times(1)).getPersonById(999L);
     }
 
+    @Test
+    @DisplayName("GET /api/persons/{id} - Strong ETag on 200")
+    void testGetPersonByIdETag() throws Exception {
+        // Arrange
+        testPerson.setVersion(4L);
+        when(personService.getPersonById(1L)).thenReturn(Optional.of(PersonView.of(testPerson)));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/persons/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""))
+                .andExpect(jsonPath("$.version").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("GET /api/persons/{id} - If-None-Match hit returns 304 without loading the entity")
+    void testGetPersonByIdNotModified() throws Exception {
+        // Arrange
+        when(personService.getPersonVersion(1L)).thenReturn(Optional.of(4L));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/persons/1").header("If-None-Match", "W/\"4\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"4\""))
+                .andExpect(content().string(""));
+
+        verify(personService, never()).getPersonById(anyLong());
+    }
+
+    @Test
+    @DisplayName("GET /api/persons/{id} - If-None-Match miss returns the entity")
+    void testGetPersonByIdModified() throws Exception {
+        // Arrange
+        testPerson.setVersion(5L);
+        when(personService.getPersonVersion(1L)).thenReturn(Optional.of(5L));
+        when(personService.getPersonById(1L)).thenReturn(Optional.of(PersonView.of(testPerson)));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/persons/1").header("If-None-Match", "\"4\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"5\""))
+                .andExpect(jsonPath("$.id").value(1));
+    }
+
+    @Test
+    @DisplayName("GET /api/persons/{id} - If-None-Match on missing person")
+    void testGetPersonByIdNotModifiedMissing() throws Exception {
+        // Arrange
+        when(personService.getPersonVersion(999L)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        mockMvc.perform(get("/api/persons/999").header("If-None-Match", "\"1\""))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     @DisplayName("POST /api/persons - Create person")
     void testCreatePerson() throws Exception {
@@ -154,7 +544,7 @@ class PersonControllerTest {
         savedPerson.setAddress("789 Oak St");
         savedPerson.setAge(28);
 
-        when(personService.createPerson(any(Person.class))).thenReturn(savedPerson);
+        when(personService.createPerson(any(Person.class))).thenReturn(PersonView.of(savedPerson));
 
         // Act & Assert
         mockMvc.perform(post("/api/persons")
@@ -185,6 +575,120 @@ class PersonControllerTest {
         verify(personService, never()).createPerson(any(Person.class));
     }
 
+    @Test
+    @DisplayName("GET /api/persons/async/{id} - Completes asynchronously with ETag")
+    void testGetPersonByIdAsync() throws Exception {
+        // Arrange
+        testPerson.setVersion(4L);
+        when(personService.getPersonByIdAsync(1L))
+                .thenReturn(CompletableFuture.completedFuture(Optional.of(PersonView.of(testPerson))));
+
+        // Act
+        MvcResult started = mockMvc.perform(get("/api/persons/async/1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""))
+                .andExpect(jsonPath("$.firstName").value("John"));
+    }
+
+    @Test
+    @DisplayName("GET /api/persons/async - Next page link is built from the original request")
+    void testGetPersonsAsyncNextPageLink() throws Exception {
+        // Arrange
+        PersonPage<PersonView> page = new PersonPage<>(List.of(PersonView.of(testPerson)), 1L);
+        when(personService.getPersonsAsync(null, 1)).thenReturn(CompletableFuture.completedFuture(page));
+
+        // Act
+        MvcResult started = mockMvc.perform(get("/api/persons/async").param("limit", "1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(header().string("Link", Matchers.containsString("/api/persons/async?")));
+    }
+
+    @Test
+    @DisplayName("POST /api/persons/async - Full queue returns 503 with Retry-After")
+    void testCreatePersonAsyncQueueFull() throws Exception {
+        // Arrange
+        when(personService.createPersonAsync(any(Person.class)))
+                .thenReturn(CompletableFuture.failedFuture(new AsyncQueueFullException("write", 50)));
+
+        // Act
+        MvcResult started = mockMvc.perform(post("/api/persons/async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(testPerson)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$.message").value("More than 50 asynchronous write calls are already queued"));
+    }
+
+    @Test
+    @DisplayName("POST /api/persons/batch - Create persons from JSON array")
+    void testCreatePersonsBatch() throws Exception {
+        // Arrange
+        BatchCreateResult result = new BatchCreateResult(2, 0, List.of());
+        when(personBatchService.createPersonsFromJson(any(InputStream.class))).thenReturn(result);
+
+        // Act & Assert
+        mockMvc.perform(post("/api/persons/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(testPerson, secondPerson))))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.created").value(2))
+                .andExpect(jsonPath("$.failed").value(0))
+                .andExpect(jsonPath("$.items").isEmpty());
+
+        verify(personBatchService, times(1)).createPersonsFromJson(any(InputStream.class));
+    }
+
+    @Test
+    @DisplayName("POST /api/persons/batch - Oversized batch returns 413")
+    void testCreatePersonsBatchTooLarge() throws Exception {
+        // Arrange
+        when(personBatchService.createPersonsFromJson(any(InputStream.class)))
+                .thenThrow(new BatchLimitExceededException(1, 1024));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/persons/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(testPerson, secondPerson))))
+                .andExpect(status().isPayloadTooLarge())
+                .andExpect(jsonPath("$.message").value("Batch too large: at most 1 persons and 1024 bytes allowed"));
+    }
+
+    @Test
+    @DisplayName("POST /api/persons/batch - NDJSON with failures returns 207")
+    void testCreatePersonsBatchNdjsonWithFailures() throws Exception {
+        // Arrange
+        BatchCreateResult result = new BatchCreateResult(1, 1, List.of(
+                new BatchItemResult(1, null, BatchItemResult.Status.FAILED, "Invalid JSON")));
+        when(personBatchService.createPersons(any(InputStream.class))).thenReturn(result);
+
+        // Act & Assert
+        mockMvc.perform(post("/api/persons/batch")
+                        .contentType("application/x-ndjson")
+                        .content("{\"firstName\":\"A\"}\n{broken\n"))
+                .andExpect(status().isMultiStatus())
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.items[0].index").value(1))
+                .andExpect(jsonPath("$.items[0].error").value("Invalid JSON"));
+
+        verify(personBatchService, times(1)).createPersons(any(InputStream.class));
+    }
+
     @Test
     @DisplayName("PUT /api/persons/{id} - Update person - found")
     void testUpdatePersonFound() throws Exception {
@@ -206,7 +710,7 @@ class PersonControllerTest {
         savedPerson.setAddress("999 Pine St");
         savedPerson.setAge(35);
 
-        when(personService.updatePerson(eq(1L), any(Person.class))).thenReturn(Optional.of(savedPerson));
+        when(personService.updatePerson(eq(1L), any(Person.class), isNull())).thenReturn(Optional.of(PersonView.of(savedPerson)));
 
         // Act & Assert
         mockMvc.perform(put("/api/persons/1")
@@ -222,7 +726,52 @@ class PersonControllerTest {
                 .andExpect(jsonPath("$.address").value("999 Pine St"))
                 .andExpect(jsonPath("$.age").value(35));
 
-        verify(personService, times(1)).updatePerson(eq(1L), any(Person.class));
+        verify(personService, times(1)).updatePerson(eq(1L), any(Person.class), isNull());
+    }
+
+    @Test
+    @DisplayName("PUT /api/persons/{id} - If-Match is passed on as expected version")
+    void testUpdatePersonIfMatch() throws Exception {
+        // Arrange
+        Person savedPerson = new Person(1L, "Updated", "Person", null, null, null, 35);
+        savedPerson.setVersion(3L);
+        when(personService.updatePerson(eq(1L), any(Person.class), eq(2L))).thenReturn(Optional.of(PersonView.of(savedPerson)));
+
+        // Act & Assert
+        mockMvc.perform(put("/api/persons/1")
+                        .header("If-Match", "\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(savedPerson)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""));
+    }
+
+    @Test
+    @DisplayName("PUT /api/persons/{id} - Stale If-Match returns 412")
+    void testUpdatePersonPreconditionFailed() throws Exception {
+        // Arrange
+        when(personService.updatePerson(eq(1L), any(Person.class), eq(2L)))
+                .thenThrow(new VersionConflictException(1L));
+
+        // Act & Assert
+        mockMvc.perform(put("/api/persons/1")
+                        .header("If-Match", "\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(testPerson)))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    @DisplayName("PUT /api/persons/{id} - Weak If-Match never matches")
+    void testUpdatePersonWeakIfMatch() throws Exception {
+        // Act & Assert
+        mockMvc.perform(put("/api/persons/1")
+                        .header("If-Match", "W/\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(testPerson)))
+                .andExpect(status().isPreconditionFailed());
+
+        verify(personService, never()).updatePerson(anyLong(), any(Person.class), any());
     }
 
     @Test
@@ -233,7 +782,7 @@ class PersonControllerTest {
         updatedPerson.setFirstName("Updated");
         updatedPerson.setLastName("Person");
 
-        when(personService.updatePerson(eq(999L), any(Person.class))).thenReturn(Optional.empty());
+        when(personService.updatePerson(eq(999L), any(Person.class), isNull())).thenReturn(Optional.empty());
 
         // Act & Assert
         mockMvc.perform(put("/api/persons/999")
@@ -241,7 +790,7 @@ class PersonControllerTest {
                         .content(objectMapper.writeValueAsString(updatedPerson)))
                 .andExpect(status().isNotFound());
 
-        verify(personService, times(1)).updatePerson(eq(999L), any(Person.class));
+        verify(personService, times(1)).updatePerson(eq(999L), any(Person.class), isNull());
     }
 
     @Test
@@ -253,53 +802,108 @@ class PersonControllerTest {
                         .content("{invalid json}"))
                 .andExpect(status().isBadRequest());
 
-        verify(personService, never()).updatePerson(anyLong(), any(Person.class));
+        verify(personService, never()).updatePerson(anyLong(), any(Person.class), any());
+    }
+
+    @Test
+    @DisplayName("PATCH /api/persons/{id} - Patch person - found")
+    void testPatchPersonFound() throws Exception {
+        // Arrange
+        when(personService.patchPerson(eq(1L), anyMap(), isNull())).thenReturn(true);
+
+        // Act & Assert
+        mockMvc.perform(patch("/api/persons/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"lastName\":\"Patched\",\"age\":31}"))
+                .andExpect(status().isNoContent());
+
+        verify(personService, times(1)).patchPerson(1L, Map.of("lastName", "Patched", "age", 31), null);
+    }
+
+    @Test
+    @DisplayName("PATCH /api/persons/{id} - Patch person - not found")
+    void testPatchPersonNotFound() throws Exception {
+        // Arrange
+        when(personService.patchPerson(eq(999L), anyMap(), isNull())).thenReturn(false);
+
+        // Act & Assert
+        mockMvc.perform(patch("/api/persons/999")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"lastName\":\"Patched\"}"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("PATCH /api/persons/{id} - Patch person - invalid field")
+    void testPatchPersonInvalidField() throws Exception {
+        // Arrange
+        when(personService.patchPerson(eq(1L), anyMap(), isNull()))
+                .thenThrow(new InvalidPatchException("Unknown or read-only field: id"));
+
+        // Act & Assert
+        mockMvc.perform(patch("/api/persons/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"id\":7}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Unknown or read-only field: id"));
     }
 
     @Test
     @DisplayName("DELETE /api/persons/{id} - Delete person - found")
     void testDeletePersonFound() throws Exception {
         // Arrange
-        when(personService.deletePerson(1L)).thenReturn(true);
+        when(personService.deletePerson(1L, null)).thenReturn(true);
 
         // Act & Assert
         mockMvc.perform(delete("/api/persons/1"))
                 .andExpect(status().isNoContent());
 
-        verify(personService, times(1)).deletePerson(1L);
+        verify(personService, times(1)).deletePerson(1L, null);
+    }
+
+    @Test
+    @DisplayName("DELETE /api/persons/{id} - Stale If-Match returns 412")
+    void testDeletePersonPreconditionFailed() throws Exception {
+        // Arrange
+        when(personService.deletePerson(1L, 7L)).thenThrow(new VersionConflictException(1L));
+
+        // Act & Assert
+        mockMvc.perform(delete("/api/persons/1").header("If-Match", "\"7\""))
+                .andExpect(status().isPreconditionFailed());
     }
 
     @Test
     @DisplayName("DELETE /api/persons/{id} - Delete person - not found")
     void testDeletePersonNotFound() throws Exception {
         // Arrange
-        when(personService.deletePerson(999L)).thenReturn(false);
+        when(personService.deletePerson(999L, null)).thenReturn(false);
 
         // Act & Assert
         mockMvc.perform(delete("/api/persons/999"))
                 .andExpect(status().isNotFound());
 
-        verify(personService, times(1)).deletePerson(999L);
+        verify(personService, times(1)).deletePerson(999L, null);
     }
 
     @Test
     @DisplayName("Test PersonController error handling - Service exception")
     void testServiceException() throws Exception {
         // Arrange
-        when(personService.getAllPersons()).thenThrow(new RuntimeException("Service error"));
+        when(personService.getPersonsPage(null, PersonService.DEFAULT_PAGE_SIZE))
+                .thenThrow(new RuntimeException("Service error"));
 
         // Act & Assert
         mockMvc.perform(get("/api/persons"))
                 .andExpect(status().isInternalServerError());
 
-        verify(personService, times(1)).getAllPersons();
+        verify(personService, times(1)).getPersonsPage(null, PersonService.DEFAULT_PAGE_SIZE);
     }
 
     @Test
     @DisplayName("Test invalid HTTP method")
     void testInvalidHttpMethod() throws Exception {
         // Act & Assert
-        mockMvc.perform(patch("/api/persons/1"))
+        mockMvc.perform(post("/api/persons/1"))
                 .andExpect(status().isMethodNotAllowed());
     }
 
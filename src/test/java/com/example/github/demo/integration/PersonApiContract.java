@@ -0,0 +1,386 @@
+package com.example.github.demo.integration;
+
+import com.example.github.demo.controller.PersonCursor;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestClient;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The {@code /api/persons} behaviour every implementation of the API shares,
+ * exercised over HTTP. Extended for the servlet application here and for the
+ * reactive variant by the {@code reactive} Maven profile.
+ */
+public abstract class PersonApiContract {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * @return the port the application under test listens on
+     */
+    protected abstract int port();
+
+    @Test
+    @DisplayName("Contract: Created person can be read, revalidated, replaced, patched and deleted")
+    void testPersonLifecycle() throws Exception {
+        String email = unique("lifecycle") + "@example.com";
+        ResponseEntity<String> created = send(HttpMethod.POST, "/api/persons",
+                Map.of("firstName", "Ada", "lastName", "Lovelace", "email", email, "age", 36), headers -> {
+                });
+        assertEquals(201, created.getStatusCode().value());
+        assertEquals("\"0\"", created.getHeaders().getETag());
+        JsonNode body = json(created);
+        long id = body.get("id").asLong();
+        assertEquals("Ada", body.get("firstName").asText());
+        assertFalse(body.has("version"));
+
+        ResponseEntity<String> read = send(HttpMethod.GET, "/api/persons/" + id, null, headers -> {
+        });
+        assertEquals(200, read.getStatusCode().value());
+        assertEquals("\"0\"", read.getHeaders().getETag());
+        assertEquals(email, json(read).get("email").asText());
+        ResponseEntity<String> notModified = send(HttpMethod.GET, "/api/persons/" + id, null,
+                headers -> headers.setIfNoneMatch("\"0\""));
+        assertEquals(304, notModified.getStatusCode().value());
+
+        ResponseEntity<String> stale = send(HttpMethod.PUT, "/api/persons/" + id,
+                Map.of("firstName", "Augusta", "lastName", "Lovelace", "email", email),
+                headers -> headers.setIfMatch("\"7\""));
+        assertEquals(412, stale.getStatusCode().value());
+        ResponseEntity<String> replaced = send(HttpMethod.PUT, "/api/persons/" + id,
+                Map.of("firstName", "Augusta", "lastName", "Lovelace", "email", email),
+                headers -> headers.setIfMatch("\"0\""));
+        assertEquals(200, replaced.getStatusCode().value());
+        assertEquals("\"1\"", replaced.getHeaders().getETag());
+        assertTrue(json(replaced).get("age").isNull());
+
+        ResponseEntity<String> patched = send(HttpMethod.PATCH, "/api/persons/" + id, Map.of("age", 37),
+                headers -> headers.setIfMatch("\"1\""));
+        assertEquals(204, patched.getStatusCode().value());
+        ResponseEntity<String> afterPatch = send(HttpMethod.GET, "/api/persons/" + id, null, headers -> {
+        });
+        assertEquals("\"2\"", afterPatch.getHeaders().getETag());
+        assertEquals(37, json(afterPatch).get("age").asInt());
+        assertEquals("Augusta", json(afterPatch).get("firstName").asText());
+
+        assertEquals(412, send(HttpMethod.DELETE, "/api/persons/" + id, null,
+                headers -> headers.setIfMatch("\"1\"")).getStatusCode().value());
+        assertEquals(204, send(HttpMethod.DELETE, "/api/persons/" + id, null,
+                headers -> headers.setIfMatch("\"2\"")).getStatusCode().value());
+        assertEquals(404, send(HttpMethod.GET, "/api/persons/" + id, null, headers -> {
+        }).getStatusCode().value());
+        assertEquals(404, send(HttpMethod.DELETE, "/api/persons/" + id, null, headers -> {
+        }).getStatusCode().value());
+        assertEquals(404, send(HttpMethod.PUT, "/api/persons/" + id,
+                Map.of("firstName", "Gone"), headers -> {
+                }).getStatusCode().value());
+        assertEquals(404, send(HttpMethod.PATCH, "/api/persons/" + id, Map.of("age", 1), headers -> {
+        }).getStatusCode().value());
+    }
+
+    @Test
+    @DisplayName("Contract: Pages follow the Link header until the last page")
+    void testKeysetPaging() throws Exception {
+        String lastName = unique("Paged");
+        long firstId = create(lastName, 1);
+        create(lastName, 2);
+        create(lastName, 3);
+
+        String after = PersonCursor.encode(firstId - 1);
+        ResponseEntity<String> first = send(HttpMethod.GET, "/api/persons?limit=2&after=" + after, null, headers -> {
+        });
+        assertEquals(200, first.getStatusCode().value());
+        assertEquals(2, json(first).size());
+        assertEquals(firstId, json(first).get(0).get("id").asLong());
+        String link = first.getHeaders().getFirst(HttpHeaders.LINK);
+        assertNotNull(link);
+        assertTrue(link.endsWith(">; rel=\"next\""));
+
+        String next = link.substring(1, link.indexOf('>'));
+        ResponseEntity<String> second = RestClient.create().get().uri(next).retrieve().toEntity(String.class);
+        assertEquals(1, json(second).size());
+        assertEquals(lastName, json(second).get(0).get("lastName").asText());
+        assertNull(second.getHeaders().getFirst(HttpHeaders.LINK));
+    }
+
+    @Test
+    @DisplayName("Contract: Count applies the search filters")
+    void testCount() throws Exception {
+        String lastName = unique("Counted");
+        create(lastName, 20);
+        create(lastName, 40);
+
+        ResponseEntity<String> all = send(HttpMethod.GET, "/api/persons/count?lastName=" + lastName, null,
+                headers -> {
+                });
+        assertEquals(2, json(all).get("count").asLong());
+        ResponseEntity<String> older = send(HttpMethod.GET,
+                "/api/persons/count?lastName=" + lastName + "&minAge=30", null, headers -> {
+                });
+        assertEquals(1, json(older).get("count").asLong());
+        ResponseEntity<String> empty = send(HttpMethod.GET, "/api/persons/count?minAge=5&maxAge=4", null,
+                headers -> {
+                });
+        assertEquals(400, empty.getStatusCode().value());
+        assertEquals("minAge must not be greater than maxAge", json(empty).get("message").asText());
+    }
+
+    @Test
+    @DisplayName("Contract: Search pages through the matches in last name order")
+    void testSearch() throws Exception {
+        String lastName = unique("Searched");
+        long first = create(lastName + "B", 30);
+        long second = create(lastName + "A", 31);
+        long third = create(lastName + "C", 32);
+
+        ResponseEntity<String> page = send(HttpMethod.GET, "/api/persons/search?lastName=" + lastName + "&limit=2",
+                null, headers -> {
+                });
+        assertEquals(200, page.getStatusCode().value());
+        assertEquals(second, json(page).get(0).get("id").asLong());
+        assertEquals(first, json(page).get(1).get("id").asLong());
+        String link = page.getHeaders().getFirst(HttpHeaders.LINK);
+        assertNotNull(link);
+
+        String next = link.substring(1, link.indexOf('>'));
+        ResponseEntity<String> last = RestClient.create().get().uri(next).retrieve().toEntity(String.class);
+        assertEquals(1, json(last).size());
+        assertEquals(third, json(last).get(0).get("id").asLong());
+        assertNull(last.getHeaders().getFirst(HttpHeaders.LINK));
+
+        ResponseEntity<String> unfiltered = send(HttpMethod.GET, "/api/persons/search", null, headers -> {
+        });
+        assertEquals(400, unfiltered.getStatusCode().value());
+        assertEquals("At least one of email, lastName, minAge or maxAge is required",
+                json(unfiltered).get("message").asText());
+    }
+
+    @Test
+    @DisplayName("Contract: Lookups by ids and field projections")
+    void testLookupAndFields() throws Exception {
+        String lastName = unique("Looked");
+        long first = create(lastName, 40);
+        long second = create(lastName, 41);
+        long missing = second + 1_000_000;
+
+        ResponseEntity<String> byQuery = send(HttpMethod.GET,
+                "/api/persons?ids=" + second + "," + missing + "," + first + "&fields=lastName", null, headers -> {
+                });
+        assertEquals(200, byQuery.getStatusCode().value());
+        JsonNode persons = json(byQuery).get("persons");
+        assertEquals(2, persons.size());
+        assertEquals(second, persons.get(0).get("id").asLong());
+        assertEquals(lastName, persons.get(0).get("lastName").asText());
+        assertFalse(persons.get(0).has("firstName"));
+        assertEquals(missing, json(byQuery).get("missing").get(0).asLong());
+
+        ResponseEntity<String> byBody = send(HttpMethod.POST, "/api/persons/lookup", List.of(first, first),
+                headers -> {
+                });
+        assertEquals(200, byBody.getStatusCode().value());
+        assertEquals(1, json(byBody).get("persons").size());
+        assertEquals("Contract", json(byBody).get("persons").get(0).get("firstName").asText());
+        assertEquals(0, json(byBody).get("missing").size());
+
+        ResponseEntity<String> projected = send(HttpMethod.GET, "/api/persons/" + first + "?fields=age", null,
+                headers -> {
+                });
+        assertEquals(200, projected.getStatusCode().value());
+        assertNull(projected.getHeaders().getETag());
+        assertEquals(Set.of("id", "age"), fieldNames(json(projected)));
+        assertEquals(40, json(projected).get("age").asInt());
+
+        assertEquals(400, send(HttpMethod.GET, "/api/persons?fields=password", null, headers -> {
+        }).getStatusCode().value());
+    }
+
+    @Test
+    @DisplayName("Contract: Batch creates report failed items from JSON and NDJSON")
+    void testBatch() throws Exception {
+        String email = unique("batch") + "@example.com";
+        ResponseEntity<String> created = send(HttpMethod.POST, "/api/persons/batch",
+                List.of(Map.of("firstName", "One", "email", email),
+                        Map.of("firstName", "Two", "email", unique("batch") + "@example.com")), headers -> {
+                });
+        assertEquals(201, created.getStatusCode().value());
+        assertEquals(2, json(created).get("created").asInt());
+        assertEquals(0, json(created).get("items").size());
+
+        String ndjson = "{\"firstName\":\"Three\",\"email\":\"" + unique("batch") + "@example.com\"}\n"
+                + "not json\n"
+                + "\n"
+                + "{\"firstName\":\"Again\",\"email\":\"" + email.toUpperCase() + "\"}";
+        ResponseEntity<String> partial = RestClient.create("http://localhost:" + port())
+                .post()
+                .uri("/api/persons/batch")
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(ndjson)
+                .retrieve()
+                .onStatus(status -> true, (req, response) -> {
+                })
+                .toEntity(String.class);
+        assertEquals(207, partial.getStatusCode().value());
+        JsonNode result = json(partial);
+        assertEquals(1, result.get("created").asInt());
+        assertEquals(2, result.get("failed").asInt());
+        assertEquals(1, result.get("items").get(0).get("index").asInt());
+        assertEquals("Invalid JSON", result.get("items").get(0).get("error").asText());
+        assertEquals(2, result.get("items").get(1).get("index").asInt());
+        assertEquals("A person with this email already exists", result.get("items").get(1).get("error").asText());
+    }
+
+    @Test
+    @DisplayName("Contract: Batches over the default item limit are rejected or cut off")
+    void testBatchLimit() throws Exception {
+        ResponseEntity<String> rejected = send(HttpMethod.POST, "/api/persons/batch",
+                Collections.nCopies(10_001, null), headers -> {
+                });
+        assertEquals(413, rejected.getStatusCode().value());
+        assertEquals("Batch too large: at most 10000 persons and 16777216 bytes allowed",
+                json(rejected).get("message").asText());
+
+        ResponseEntity<String> cutOff = RestClient.create("http://localhost:" + port())
+                .post()
+                .uri("/api/persons/batch")
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body("null\n".repeat(10_002))
+                .retrieve()
+                .onStatus(status -> true, (req, response) -> {
+                })
+                .toEntity(String.class);
+        assertEquals(207, cutOff.getStatusCode().value());
+        JsonNode result = json(cutOff);
+        assertEquals(0, result.get("created").asInt());
+        assertEquals(10_001, result.get("failed").asInt());
+        assertEquals("Missing person", result.get("items").get(9_999).get("error").asText());
+        assertEquals(10_000, result.get("items").get(10_000).get("index").asInt());
+        assertEquals("Batch too large; the rest of the body was not read",
+                result.get("items").get(10_000).get("error").asText());
+    }
+
+    @Test
+    @DisplayName("Contract: Export streams every person as NDJSON or CSV")
+    void testExport() throws Exception {
+        String lastName = unique("Exported");
+        long id = create(lastName, 50);
+
+        ResponseEntity<String> ndjson = send(HttpMethod.GET, "/api/persons/export", null, headers -> {
+        });
+        assertEquals(200, ndjson.getStatusCode().value());
+        assertTrue(ndjson.getHeaders().getContentType().isCompatibleWith(MediaType.parseMediaType("application/x-ndjson")));
+        assertEquals("attachment; filename=\"persons.ndjson\"",
+                ndjson.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION));
+        boolean found = false;
+        for (String line : ndjson.getBody().split("\n")) {
+            JsonNode person = objectMapper.readTree(line);
+            assertFalse(person.has("version"));
+            found |= person.get("id").asLong() == id && lastName.equals(person.get("lastName").asText());
+        }
+        assertTrue(found);
+
+        ResponseEntity<String> csv = send(HttpMethod.GET, "/api/persons/export?format=csv", null, headers -> {
+        });
+        assertTrue(csv.getHeaders().getContentType().isCompatibleWith(MediaType.parseMediaType("text/csv")));
+        assertTrue(csv.getBody().startsWith("id,firstName,lastName,email,phoneNumber,address,age\n"));
+        assertTrue(csv.getBody().contains("\n" + id + ",Contract," + lastName + ","));
+
+        assertEquals(400, send(HttpMethod.GET, "/api/persons/export?format=xml", null, headers -> {
+        }).getStatusCode().value());
+    }
+
+    @Test
+    @DisplayName("Contract: Invalid requests get the shared error body")
+    void testErrors() throws Exception {
+        String email = unique("Taken") + "@example.com";
+        send(HttpMethod.POST, "/api/persons", Map.of("firstName", "First", "email", email), headers -> {
+        });
+        ResponseEntity<String> duplicate = send(HttpMethod.POST, "/api/persons",
+                Map.of("firstName", "Second", "email", email.toUpperCase()), headers -> {
+                });
+        assertEquals(409, duplicate.getStatusCode().value());
+        assertEquals("A person with this email already exists", json(duplicate).get("message").asText());
+        assertEquals("/api/persons", json(duplicate).get("path").asText());
+
+        ResponseEntity<String> tooLong = send(HttpMethod.POST, "/api/persons",
+                Map.of("firstName", "x".repeat(300), "email", unique("Long") + "@example.com"), headers -> {
+                });
+        assertEquals(400, tooLong.getStatusCode().value());
+        assertEquals("Invalid person", json(tooLong).get("message").asText());
+
+        ResponseEntity<String> invalidJson = send(HttpMethod.POST, "/api/persons", "{\"firstName\":", headers -> {
+        });
+        assertEquals(400, invalidJson.getStatusCode().value());
+        assertEquals("Invalid JSON format", json(invalidJson).get("message").asText());
+
+        ResponseEntity<String> invalidCursor = send(HttpMethod.GET, "/api/persons?after=bogus", null, headers -> {
+        });
+        assertEquals(400, invalidCursor.getStatusCode().value());
+        assertEquals("Invalid cursor: bogus", json(invalidCursor).get("message").asText());
+
+        long id = create(unique("Patched"), 30);
+        ResponseEntity<String> readOnly = send(HttpMethod.PATCH, "/api/persons/" + id, Map.of("id", 5),
+                headers -> {
+                });
+        assertEquals(400, readOnly.getStatusCode().value());
+        assertEquals("Unknown or read-only field: id", json(readOnly).get("message").asText());
+
+        ResponseEntity<String> badId = send(HttpMethod.GET, "/api/persons/abc", null, headers -> {
+        });
+        assertEquals(400, badId.getStatusCode().value());
+        assertEquals("Invalid parameter type: abc", json(badId).get("message").asText());
+    }
+
+    private long create(String lastName, int age) throws Exception {
+        ResponseEntity<String> created = send(HttpMethod.POST, "/api/persons", Map.of("firstName", "Contract",
+                "lastName", lastName, "email", unique(lastName) + "@example.com", "age", age), headers -> {
+        });
+        assertEquals(201, created.getStatusCode().value());
+        return json(created).get("id").asLong();
+    }
+
+    /**
+     * Returns every response, whatever its status, instead of throwing on errors.
+     */
+    protected ResponseEntity<String> send(HttpMethod method, String path, Object body, Consumer<HttpHeaders> headers) {
+        RestClient.RequestBodySpec request = RestClient.create("http://localhost:" + port())
+                .method(method)
+                .uri(path)
+                .headers(headers);
+        if (body != null) {
+            request.contentType(MediaType.APPLICATION_JSON).body(body);
+        }
+        return request.retrieve()
+                .onStatus(status -> true, (req, response) -> {
+                })
+                .toEntity(String.class);
+    }
+
+    protected JsonNode json(ResponseEntity<String> response) throws Exception {
+        return objectMapper.readTree(response.getBody());
+    }
+
+    private static Set<String> fieldNames(JsonNode node) {
+        Set<String> names = new HashSet<>();
+        node.fieldNames().forEachRemaining(names::add);
+        return names;
+    }
+
+    private static String unique(String prefix) {
+        return prefix + UUID.randomUUID().toString().replace("-", "").substring(0, 12);
+    }
+}
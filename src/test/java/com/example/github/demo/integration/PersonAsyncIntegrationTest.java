@@ -0,0 +1,161 @@
+package com.example.github.demo.integration;
+
+import com.example.github.demo.exception.AsyncCallTimeoutException;
+import com.example.github.demo.exception.AsyncQueueFullException;
+import com.example.github.demo.model.Person;
+import com.example.github.demo.model.PersonView;
+import com.example.github.demo.service.PersonAsyncExecutor;
+import com.example.github.demo.service.PersonPage;
+import com.example.github.demo.service.PersonService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Runs the asynchronous calls against H2 with one read thread and a read
+ * queue of one, so a single slow query fills the executor.
+ */
+@SpringBootTest(properties = {
+        "app.async.read.threads=1",
+        "app.async.read.queue-capacity=1",
+        "app.text-search.enabled=false"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class PersonAsyncIntegrationTest {
+
+    /**
+     * Runs for minutes unless cancelled; H2 checks for cancellation while it iterates.
+     */
+    private static final String SLOW_QUERY =
+            "select count(*) from system_range(1, 100000000000) where mod(x, 7) = 3";
+
+    @Autowired
+    private PersonService personService;
+
+    @Autowired
+    private PersonAsyncExecutor asyncExecutor;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @DisplayName("Integration Test: Async create, get and page complete with the same results as the direct calls")
+    void testAsyncCalls() throws Exception {
+        Person person = new Person();
+        person.setFirstName("Async");
+        person.setLastName("Caller");
+        person.setEmail("async-" + UUID.randomUUID() + "@example.com");
+
+        PersonView created = personService.createPersonAsync(person).get(5, TimeUnit.SECONDS);
+        assertNotNull(created.id());
+        assertEquals(0L, created.version());
+
+        // One at a time: the read queue only holds one call.
+        assertEquals(Optional.of(created), personService.getPersonByIdAsync(created.id()).get(5, TimeUnit.SECONDS));
+        assertEquals(Optional.empty(), personService.getPersonByIdAsync(-1L).get(5, TimeUnit.SECONDS));
+        PersonPage<PersonView> page = personService.getPersonsAsync(created.id() - 1, 10).get(5, TimeUnit.SECONDS);
+        assertEquals(created, page.persons().get(0));
+
+        MvcResult started = mockMvc.perform(get("/api/persons/async/" + created.id()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"0\""))
+                .andExpect(jsonPath("$.lastName").value("Caller"));
+    }
+
+    @Test
+    @DisplayName("Integration Test: Cancelling the future cancels the running JDBC statement")
+    void testCancelCancelsStatement() throws Exception {
+        SlowCall slow = startSlowCall(Duration.ofMinutes(1));
+
+        assertTrue(slow.future.cancel(true));
+
+        // The transaction timeout is a minute, so only Statement.cancel ends the query this soon.
+        assertTrue(slow.finished.await(5, TimeUnit.SECONDS), "Query kept running after cancel");
+        assertInstanceOf(DataAccessException.class, slow.failure.get());
+        assertTrue(personService.getPersonByIdAsync(-1L).get(5, TimeUnit.SECONDS).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Integration Test: A call that exceeds its timeout fails and its statement is cancelled")
+    void testTimeoutCancelsStatement() throws Exception {
+        SlowCall slow = startSlowCall(Duration.ofMillis(300));
+
+        ExecutionException timeout = assertThrows(ExecutionException.class,
+                () -> slow.future.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(AsyncCallTimeoutException.class, timeout.getCause());
+        assertTrue(slow.finished.await(5, TimeUnit.SECONDS), "Query kept running after the timeout");
+        assertInstanceOf(DataAccessException.class, slow.failure.get());
+    }
+
+    @Test
+    @DisplayName("Integration Test: Calls beyond the queue capacity are rejected at once")
+    void testQueueFullRejected() throws Exception {
+        SlowCall slow = startSlowCall(Duration.ofMinutes(1));
+        CompletableFuture<Optional<PersonView>> queued = personService.getPersonByIdAsync(-1L);
+
+        CompletableFuture<Optional<PersonView>> rejected = personService.getPersonByIdAsync(-2L);
+
+        assertTrue(rejected.isCompletedExceptionally());
+        ExecutionException failure = assertThrows(ExecutionException.class, rejected::get);
+        assertInstanceOf(AsyncQueueFullException.class, failure.getCause());
+        assertFalse(queued.isDone());
+        slow.future.cancel(true);
+        assertTrue(queued.get(5, TimeUnit.SECONDS).isEmpty());
+    }
+
+    /**
+     * Starts {@link #SLOW_QUERY} on the read pool and returns once it is running.
+     */
+    private SlowCall startSlowCall(Duration timeout) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        CompletableFuture<Long> future = asyncExecutor.read(timeout, service -> {
+            started.countDown();
+            try {
+                return jdbcTemplate.queryForObject(SLOW_QUERY, Long.class);
+            } catch (RuntimeException ex) {
+                failure.set(ex);
+                throw ex;
+            } finally {
+                finished.countDown();
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        // Statement.cancel only stops a statement that is already executing.
+        Thread.sleep(200);
+        return new SlowCall(future, finished, failure);
+    }
+
+    private record SlowCall(CompletableFuture<Long> future, CountDownLatch finished,
+                            AtomicReference<RuntimeException> failure) {
+    }
+}
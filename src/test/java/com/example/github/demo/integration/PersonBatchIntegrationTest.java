@@ -0,0 +1,240 @@
+package com.example.github.demo.integration;
+
+import com.example.github.demo.exception.BatchLimitExceededException;
+import com.example.github.demo.model.Person;
+import com.example.github.demo.repository.PersonRepository;
+import com.example.github.demo.service.BatchCreateResult;
+import com.example.github.demo.service.BatchItemResult;
+import com.example.github.demo.service.PersonBatchService;
+import com.example.github.demo.support.SqlCountingConfiguration;
+import com.example.github.demo.support.SqlStatementCounter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Not {@code @Transactional}: every chunk commits in its own transaction and a
+ * failed chunk must roll back without poisoning a surrounding test transaction.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(SqlCountingConfiguration.class)
+class PersonBatchIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private PersonBatchService personBatchService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private SqlStatementCounter sqlStatementCounter;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        personRepository.deleteAll();
+    }
+
+    @AfterEach
+    void tearDown() {
+        personRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Integration Test: Batch create from JSON array spanning several JDBC batches")
+    void testBatchCreateJsonArray() throws Exception {
+        List<Person> persons = persons(120);
+        sqlStatementCounter.reset();
+
+        mockMvc.perform(post("/api/persons/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(persons)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.created").value(120))
+                .andExpect(jsonPath("$.failed").value(0))
+                .andExpect(jsonPath("$.items").isEmpty());
+
+        // One JDBC batch per chunk; a row-by-row retry would show up as single inserts.
+        List<String> inserts = sqlStatementCounter.getStatements().stream()
+                .filter(sql -> sql.toLowerCase(Locale.ROOT).contains("insert into person"))
+                .toList();
+        assertEquals(3, inserts.size(), () -> "Inserts: " + inserts);
+        assertTrue(inserts.get(0).startsWith("batch(50)"), inserts.get(0));
+        assertTrue(inserts.get(1).startsWith("batch(50)"), inserts.get(1));
+        assertTrue(inserts.get(2).startsWith("batch(20)"), inserts.get(2));
+        assertEquals(120, personRepository.count());
+    }
+
+    @Test
+    @DisplayName("Integration Test: Batch create from NDJSON reports invalid lines")
+    void testBatchCreateNdjson() throws Exception {
+        String body = "{\"firstName\":\"Nd\",\"lastName\":\"One\"}\n"
+                + "\n"
+                + "{not json}\n"
+                + "{\"firstName\":\"Nd\",\"lastName\":\"Two\"}\n";
+
+        mockMvc.perform(post("/api/persons/batch")
+                        .contentType("application/x-ndjson")
+                        .content(body))
+                .andExpect(status().isMultiStatus())
+                .andExpect(jsonPath("$.created").value(2))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.items[0].index").value(1))
+                .andExpect(jsonPath("$.items[0].status").value("FAILED"))
+                .andExpect(jsonPath("$.items[0].error").value("Invalid JSON"));
+
+        assertEquals(2, personRepository.count());
+    }
+
+    @Test
+    @DisplayName("Integration Test: An NDJSON line over the length cap fails only its item")
+    void testBatchCreateNdjsonLineTooLong() throws Exception {
+        String body = "{\"firstName\":\"Nd\",\"lastName\":\"One\"}\n"
+                + "{\"firstName\":\"" + "x".repeat(PersonBatchService.MAX_LINE_LENGTH) + "\"}\n"
+                + "{\"firstName\":\"Nd\",\"lastName\":\"Two\"}";
+
+        mockMvc.perform(post("/api/persons/batch")
+                        .contentType("application/x-ndjson")
+                        .content(body))
+                .andExpect(status().isMultiStatus())
+                .andExpect(jsonPath("$.created").value(2))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.items[0].index").value(1))
+                .andExpect(jsonPath("$.items[0].error").value("Line too long"));
+
+        assertEquals(2, personRepository.count());
+    }
+
+    @Test
+    @DisplayName("Integration Test: A failing row only fails its own item")
+    void testBatchCreateIsolatesFailingRow() {
+        List<Person> persons = persons(10);
+        persons.get(4).setFirstName("x".repeat(300));
+        persons.set(7, null);
+
+        BatchCreateResult result = personBatchService.createPersons(persons);
+
+        assertEquals(8, result.created());
+        assertEquals(2, result.failed());
+        assertEquals(2, result.items().size());
+        assertEquals(4, result.items().get(0).index());
+        assertEquals(BatchItemResult.Status.FAILED, result.items().get(0).status());
+        assertEquals("Invalid person", result.items().get(0).error());
+        assertEquals(7, result.items().get(1).index());
+        assertEquals("Missing person", result.items().get(1).error());
+        assertEquals(8, personRepository.count());
+    }
+
+    @Test
+    @DisplayName("Integration Test: Failed items carry a client message, not the driver error")
+    void testBatchCreateSanitizesErrors() {
+        List<Person> persons = persons(3);
+        persons.get(2).setEmail(persons.get(0).getEmail().toUpperCase());
+
+        BatchCreateResult result = personBatchService.createPersons(persons);
+
+        assertEquals(2, result.created());
+        assertEquals(2, result.items().get(0).index());
+        assertEquals("A person with this email already exists", result.items().get(0).error());
+    }
+
+    @Test
+    @DisplayName("Integration Test: A JSON array over the item limit is rejected before any insert")
+    void testBatchCreateJsonArrayOverItemLimit() throws Exception {
+        PersonBatchService limited = limitedService(3, DataSize.ofMegabytes(1));
+
+        assertThrows(BatchLimitExceededException.class,
+                () -> limited.createPersonsFromJson(json(objectMapper.writeValueAsString(persons(4)))));
+        assertEquals(3, limited.createPersonsFromJson(json(objectMapper.writeValueAsString(persons(3)))).created());
+        assertEquals(3, personRepository.count());
+    }
+
+    @Test
+    @DisplayName("Integration Test: A JSON array over the byte limit is rejected before any insert")
+    void testBatchCreateJsonArrayOverByteLimit() throws Exception {
+        String body = objectMapper.writeValueAsString(persons(10));
+        PersonBatchService limited = limitedService(100, DataSize.ofBytes(body.length() - 1));
+
+        assertThrows(BatchLimitExceededException.class, () -> limited.createPersonsFromJson(json(body)));
+        assertEquals(0, personRepository.count());
+    }
+
+    @Test
+    @DisplayName("Integration Test: An NDJSON body is cut off at the item and byte limits")
+    void testBatchCreateNdjsonOverLimits() throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 5; i++) {
+            body.append("{\"firstName\":\"Nd\",\"lastName\":\"Person").append(i).append("\"}\n");
+        }
+
+        BatchCreateResult byItems = limitedService(3, DataSize.ofMegabytes(1)).createPersons(json(body.toString()));
+        assertEquals(3, byItems.created());
+        assertEquals(1, byItems.failed());
+        assertEquals(3, byItems.items().get(0).index());
+        assertEquals("Batch too large; the rest of the body was not read", byItems.items().get(0).error());
+        personRepository.deleteAll();
+
+        // Two whole lines fit; the third is cut in the middle.
+        int twoLines = body.indexOf("\n", body.indexOf("\n") + 1) + 1;
+        BatchCreateResult byBytes = limitedService(100, DataSize.ofBytes(twoLines + 10))
+                .createPersons(json(body.toString()));
+        assertEquals(2, byBytes.created());
+        assertEquals(1, byBytes.failed());
+        assertEquals(2, byBytes.items().get(0).index());
+        assertEquals(2, personRepository.count());
+    }
+
+    private PersonBatchService limitedService(int maxItems, DataSize maxBytes) {
+        return new PersonBatchService(personRepository, entityManager, transactionManager, objectMapper,
+                50, maxItems, maxBytes, null, null, null);
+    }
+
+    private static InputStream json(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<Person> persons(int count) {
+        List<Person> persons = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            persons.add(new Person(null, "Batch", "Person" + i, "batch" + i + "@example.com",
+                    "555-000-" + i, "Batch Street " + i, 20 + i % 50));
+        }
+        return persons;
+    }
+}
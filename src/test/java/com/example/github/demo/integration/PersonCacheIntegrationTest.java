@@ -0,0 +1,113 @@
+package com.example.github.demo.integration;
+
+import com.example.github.demo.config.CacheConfig;
+import com.example.github.demo.model.Person;
+import com.example.github.demo.repository.PersonRepository;
+import com.example.github.demo.service.PersonService;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+class PersonCacheIntegrationTest {
+
+    @Autowired
+    private PersonService personService;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private Cache cache;
+    private Person savedPerson;
+
+    @BeforeEach
+    void setUp() {
+        cache = cacheManager.getCache(CacheConfig.PERSONS_CACHE);
+        cache.clear();
+        savedPerson = personRepository.save(new Person(null, "Cached", "Person", "cached@example.com",
+                "555-111-2222", "Cache Street", 40));
+    }
+
+    @Test
+    @DisplayName("Integration Test: Reads are served from the cache after the first miss")
+    void testReadThrough() {
+        Long id = savedPerson.getId();
+        CacheStats before = stats();
+
+        assertTrue(personService.getPersonById(id).isPresent());
+        assertTrue(personService.getPersonById(id).isPresent());
+
+        CacheStats after = stats();
+        assertEquals(1, after.missCount() - before.missCount());
+        assertEquals(1, after.hitCount() - before.hitCount());
+    }
+
+    @Test
+    @DisplayName("Integration Test: Writes through PersonService evict the cached entry")
+    void testWritesEvict() {
+        Long id = savedPerson.getId();
+        personService.getPersonById(id);
+        assertNotNull(cache.get(id));
+
+        Person details = new Person(null, "Fresh", "Person", "fresh@example.com", null, null, 41);
+        personService.updatePerson(id, details);
+        assertNull(cache.get(id));
+        assertEquals("Fresh", personService.getPersonById(id).orElseThrow().firstName());
+
+        personService.patchPerson(id, Map.of("lastName", "Patched"));
+        assertNull(cache.get(id));
+        assertEquals("Patched", personService.getPersonById(id).orElseThrow().lastName());
+
+        personService.deletePerson(id);
+        assertNull(cache.get(id));
+        assertTrue(personService.getPersonById(id).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Integration Test: Missing ids are not cached")
+    void testMissesAreNotCached() {
+        assertTrue(personService.getPersonById(999_999L).isEmpty());
+        assertNull(cache.get(999_999L));
+    }
+
+    @Test
+    @DisplayName("Integration Test: Cache counters are exposed as metrics")
+    void testCacheMetricsExposed() throws Exception {
+        personService.getPersonById(savedPerson.getId());
+
+        mockMvc.perform(get("/actuator/metrics/cache.gets").param("tag", "cache:persons"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("cache.gets"));
+        mockMvc.perform(get("/actuator/metrics/cache.evictions").param("tag", "cache:persons"))
+                .andExpect(status().isOk());
+    }
+
+    private CacheStats stats() {
+        return ((CaffeineCache) cache).getNativeCache().stats();
+    }
+}
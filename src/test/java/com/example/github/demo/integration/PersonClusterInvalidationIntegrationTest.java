@@ -0,0 +1,143 @@
+package com.example.github.demo.integration;
+
+import com.example.github.demo.Application;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.net.DatagramSocket;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs two instances of the application on localhost against one shared
+ * database, each with its own person cache, Hibernate caches and text
+ * index, and talks to them over HTTP like a load balancer would.
+ */
+class PersonClusterInvalidationIntegrationTest {
+
+    private static ServletWebServerApplicationContext first;
+    private static ServletWebServerApplicationContext second;
+    private static RestClient firstClient;
+    private static RestClient secondClient;
+
+    @BeforeAll
+    static void startInstances() throws IOException {
+        String database = "jdbc:h2:mem:cluster-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+        int firstPort = freePort();
+        int secondPort = freePort();
+        String peers = "localhost:" + firstPort + ",localhost:" + secondPort;
+        first = start(database, firstPort, peers);
+        second = start(database, secondPort, peers);
+        firstClient = RestClient.create("http://localhost:" + first.getWebServer().getPort());
+        secondClient = RestClient.create("http://localhost:" + second.getWebServer().getPort());
+    }
+
+    @AfterAll
+    static void stopInstances() {
+        if (second != null) {
+            second.close();
+        }
+        if (first != null) {
+            first.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Integration Test: A write on one instance is visible on the other despite its caches")
+    void testWritesInvalidatePeer() {
+        long id = firstClient.post().uri("/api/persons")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Map.of("firstName", "Clustered", "lastName", "Kowalczyk", "email", "cluster@example.com"))
+                .retrieve().body(JsonNode.class).get("id").asLong();
+        awaitOnSecond(() -> secondClient.get().uri("/api/persons/suggest?q=kowalczyk")
+                .retrieve().body(JsonNode.class).size() == 1);
+        // Cached on the second instance from here on.
+        assertEquals("Clustered", person(secondClient, id).get("firstName").asText());
+        assertEquals("Clustered", person(secondClient, id).get("firstName").asText());
+
+        firstClient.put().uri("/api/persons/{id}", id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Map.of("firstName", "Renamed", "lastName", "Kowalczyk", "email", "cluster@example.com"))
+                .retrieve().toBodilessEntity();
+        awaitOnSecond(() -> "Renamed".equals(person(secondClient, id).get("firstName").asText()));
+
+        firstClient.delete().uri("/api/persons/{id}", id).retrieve().toBodilessEntity();
+        awaitOnSecond(() -> secondClient.get().uri("/api/persons/{id}", id).exchange(
+                (request, response) -> response.getStatusCode()).isSameCodeAs(HttpStatusCode.valueOf(404)));
+        awaitOnSecond(() -> secondClient.get().uri("/api/persons/suggest?q=kowalczyk")
+                .retrieve().body(JsonNode.class).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Integration Test: Cached list pages on the other instance follow writes")
+    void testListFollowsWrites() {
+        long id = firstClient.post().uri("/api/persons")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Map.of("firstName", "Listed", "lastName", "Nakamura", "email", "listed@example.com"))
+                .retrieve().body(JsonNode.class).get("id").asLong();
+        awaitOnSecond(() -> count(secondClient, "Nakamura") == 1);
+
+        firstClient.patch().uri("/api/persons/{id}", id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Map.of("lastName", "Okafor"))
+                .retrieve().toBodilessEntity();
+        awaitOnSecond(() -> count(secondClient, "Nakamura") == 0 && count(secondClient, "Okafor") == 1);
+
+        firstClient.delete().uri("/api/persons/{id}", id).retrieve().toBodilessEntity();
+    }
+
+    private static JsonNode person(RestClient client, long id) {
+        return client.get().uri("/api/persons/{id}", id).retrieve().body(JsonNode.class);
+    }
+
+    private static long count(RestClient client, String lastName) {
+        return client.get().uri("/api/persons/count?lastName={lastName}", lastName)
+                .retrieve().body(JsonNode.class).get("count").asLong();
+    }
+
+    private static void awaitOnSecond(Supplier<Boolean> condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.get()) {
+            if (System.nanoTime() > deadline) {
+                fail("The second instance did not see the write within 5 seconds");
+            }
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                fail(ex);
+            }
+        }
+    }
+
+    private static ServletWebServerApplicationContext start(String database, int busPort, String peers) {
+        return (ServletWebServerApplicationContext) new SpringApplicationBuilder(Application.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=" + database,
+                "--spring.jpa.hibernate.ddl-auto=update",
+                "--spring.jpa.show-sql=false",
+                "--app.invalidation.enabled=true",
+                "--app.invalidation.bind-address=127.0.0.1",
+                "--app.invalidation.port=" + busPort,
+                "--app.invalidation.peers=" + peers);
+    }
+
+    private static int freePort() throws IOException {
+        try (DatagramSocket socket = new DatagramSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
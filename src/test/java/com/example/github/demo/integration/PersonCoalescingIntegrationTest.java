@@ -0,0 +1,82 @@
+package com.example.github.demo.integration;
+
+import com.example.github.demo.model.Person;
+import com.example.github.demo.model.PersonView;
+import com.example.github.demo.repository.PersonRepository;
+import com.example.github.demo.service.PersonService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Callers waiting for a coalesced load must not hold a pooled connection, or
+ * a few more concurrent misses than the pool has connections leave the
+ * loader's own query waiting for the connection timeout.
+ */
+@SpringBootTest(properties = {
+        "app.loader.enabled=true",
+        "app.loader.window=20ms",
+        "spring.datasource.hikari.maximum-pool-size=2",
+        "spring.datasource.hikari.connection-timeout=1000",
+        "spring.cache.type=none",
+        "app.text-search.enabled=false"
+})
+@ActiveProfiles("test")
+class PersonCoalescingIntegrationTest {
+
+    private static final int CALLERS = 16;
+
+    @Autowired
+    private PersonService personService;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Test
+    @DisplayName("Integration Test: More concurrent misses than pool connections all complete through the loader")
+    void testConcurrentMissesDoNotStarvePool() throws Exception {
+        List<Person> persons = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            persons.add(new Person(null, "Coalesced", "Person" + i, "coalesced" + i + "@example.com", null, null, i));
+        }
+        List<Long> ids = personRepository.saveAll(persons).stream().map(Person::getId).toList();
+
+        ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<CompletableFuture<Optional<PersonView>>> results = new ArrayList<>();
+            for (Long id : ids) {
+                results.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return personService.getPersonById(id);
+                }, callers));
+            }
+            start.countDown();
+
+            for (int i = 0; i < CALLERS; i++) {
+                Optional<PersonView> person = results.get(i).get(5, TimeUnit.SECONDS);
+                assertEquals(ids.get(i), person.orElseThrow().id());
+            }
+        } finally {
+            callers.shutdownNow();
+            personRepository.deleteAllById(ids);
+        }
+    }
+}
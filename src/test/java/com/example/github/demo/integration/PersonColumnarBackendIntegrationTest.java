@@ -0,0 +1,126 @@
+package com.example.github.demo.integration;
+
+import com.example.github.demo.model.Person;
+import com.example.github.demo.repository.ColumnarPersonRepository;
+import com.example.github.demo.repository.PersonStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * The person API with {@code app.repository.backend=columnar}: the same
+ * contract, served without touching the person table.
+ */
+@SpringBootTest(properties = "app.repository.backend=columnar")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class PersonColumnarBackendIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PersonStore personRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @AfterEach
+    void tearDown() {
+        personRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Integration Test: Columnar backend serves CRUD, conditional requests and search")
+    void testCrudAndSearch() throws Exception {
+        assertInstanceOf(ColumnarPersonRepository.class, personRepository);
+
+        Long id = create(new Person(null, "Ada", "Lovelace", "ada@example.com", "1", "London", 36));
+        create(new Person(null, "Alan", "Turing", "alan@example.com", null, null, 41));
+
+        mockMvc.perform(get("/api/persons/" + id))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"0\""))
+                .andExpect(jsonPath("$.lastName").value("Lovelace"));
+        mockMvc.perform(put("/api/persons/" + id)
+                        .header("If-Match", "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"firstName\":\"Augusta Ada\",\"lastName\":\"King\",\"email\":\"ada@example.com\",\"age\":36}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(patch("/api/persons/" + id)
+                        .header("If-Match", "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"age\":37}"))
+                .andExpect(status().isPreconditionFailed());
+
+        mockMvc.perform(get("/api/persons/search?minAge=30&maxAge=40"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].lastName").value(contains("King")));
+        mockMvc.perform(get("/api/persons?limit=1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(header().exists("Link"));
+
+        mockMvc.perform(post("/api/persons")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"firstName\":\"Copy\",\"email\":\"ALAN@example.com\"}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message").value("A person with this email already exists"));
+
+        mockMvc.perform(delete("/api/persons/" + id))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get("/api/persons/" + id))
+                .andExpect(status().isNotFound());
+
+        assertEquals(1, personRepository.count());
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from person", Integer.class));
+    }
+
+    @Test
+    @DisplayName("Integration Test: Columnar backend handles batch create and export")
+    void testBatchAndExport() throws Exception {
+        mockMvc.perform(post("/api/persons/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"firstName\":\"One\",\"email\":\"one@example.com\"},"
+                                + "{\"firstName\":\"Two\",\"email\":\"ONE@example.com\"},"
+                                + "{\"firstName\":\"Three\"}]"))
+                .andExpect(status().isMultiStatus())
+                .andExpect(jsonPath("$.created").value(2))
+                .andExpect(jsonPath("$.failed").value(1));
+
+        MvcResult export = mockMvc.perform(get("/api/persons/export?format=csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String csv = mockMvc.perform(asyncDispatch(export))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals(3, csv.lines().count());
+    }
+
+    private Long create(Person person) throws Exception {
+        String body = mockMvc.perform(post("/api/persons")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(person)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("id").asLong();
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.github.demo.integration;
+
+import com.example.github.demo.config.ConnectionAdmissionDataSource;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * With the single pool connection taken and one caller already waiting for
+ * it, a request is turned away at once instead of queueing for the whole
+ * connection timeout.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.hikari.maximum-pool-size=1",
+        "spring.datasource.hikari.connection-timeout=3000",
+        "app.connection-admission.max-waiting=1",
+        "spring.cache.type=none",
+        "app.text-search.enabled=false"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class PersonConnectionAdmissionIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    @DisplayName("Integration Test: Requests beyond the waiting limit get 503 without waiting for a connection")
+    void testExcessWaitersRejected() throws Exception {
+        ConnectionAdmissionDataSource admission = dataSource.unwrap(ConnectionAdmissionDataSource.class);
+        CompletableFuture<Void> waiter;
+        try (Connection held = dataSource.getConnection()) {
+            waiter = CompletableFuture.runAsync(() -> {
+                try (Connection next = dataSource.getConnection()) {
+                    assertNotNull(next);
+                } catch (Exception ex) {
+                    throw new IllegalStateException(ex);
+                }
+            });
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+            while (admission.getWaiting() < 1 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(1, admission.getWaiting());
+
+            long rejectedBefore = admission.getRejected();
+            long start = System.nanoTime();
+            mockMvc.perform(get("/api/persons"))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string("Retry-After", "1"))
+                    .andExpect(jsonPath("$.message").value("The database is busy, retry later"));
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+            assertTrue(admission.getRejected() > rejectedBefore);
+        }
+
+        waiter.get(5, TimeUnit.SECONDS);
+        mockMvc.perform(get("/api/persons"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/actuator/metrics/app.connection.admission.rejected"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.measurements[0].value").value((double) admission.getRejected()));
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.github.demo.integration;
+
+import com.example.github.demo.model.Person;
+import com.example.github.demo.repository.PersonRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.servlet.Filter;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Slow clients must not pin JDBC connections. A filter makes every response
+ * write take {@value #WRITE_DELAY_MS} ms and records whether the writing thread
+ * still has a transaction, EntityManager or connection bound. With
+ * open-session-in-view disabled it never does, so more concurrent slow requests
+ * than pool connections all succeed within the short acquire timeout.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.hikari.maximum-pool-size=2",
+        "spring.datasource.hikari.connection-timeout=250"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class PersonConnectionHoldIntegrationTest {
+
+    private static final long WRITE_DELAY_MS = 400;
+    private static final AtomicInteger boundDuringWrite = new AtomicInteger();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private Long personId;
+
+    @TestConfiguration
+    static class SlowClientConfig {
+
+        @Bean
+        Filter slowClientFilter() {
+            return (request, response, chain) -> chain.doFilter(request,
+                    new SlowResponse((HttpServletResponse) response));
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        personRepository.deleteAll();
+        personId = personRepository.save(new Person(null, "Slow", "Client", "slow@example.com", null, null, 30)).getId();
+        boundDuringWrite.set(0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        personRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Integration Test: No connection is held while the response is written")
+    void testSlowClientsDoNotSaturatePool() throws Exception {
+        int clients = 6;
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        try {
+            List<Future<Integer>> statuses = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                String url = i % 2 == 0 ? "/api/persons" : "/api/persons?ids=" + personId;
+                statuses.add(executor.submit(() -> mockMvc.perform(get(url))
+                        .andReturn().getResponse().getStatus()));
+            }
+            for (Future<Integer> status : statuses) {
+                assertEquals(200, status.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(0, boundDuringWrite.get());
+        assertTrue(dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize() < clients);
+    }
+
+    @Test
+    @DisplayName("Integration Test: Connection hold time is exposed as a metric")
+    void testConnectionUsageMetricExposed() throws Exception {
+        mockMvc.perform(get("/api/persons"));
+
+        mockMvc.perform(get("/actuator/metrics/hikaricp.connections.usage"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("hikaricp.connections.usage"));
+    }
+
+    private static final class SlowResponse extends HttpServletResponseWrapper {
+
+        private ServletOutputStream slowStream;
+
+        SlowResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (slowStream == null) {
+                ServletOutputStream delegate = super.getOutputStream();
+                slowStream = new ServletOutputStream() {
+                    private boolean delayed;
+
+                    @Override
+                    public void write(int b) throws IOException {
+                        delay();
+                        delegate.write(b);
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        delay();
+                        delegate.write(b, off, len);
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return delegate.isReady();
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener listener) {
+                        delegate.setWriteListener(listener);
+                    }
+
+                    private void delay() throws IOException {
+                        if (TransactionSynchronizationManager.isActualTransactionActive()
+                                || !TransactionSynchronizationManager.getResourceMap().isEmpty()) {
+                            boundDuringWrite.incrementAndGet();
+                        }
+                        if (delayed) {
+                            return;
+                        }
+                        delayed = true;
+                        try {
+                            Thread.sleep(WRITE_DELAY_MS);
+                        } catch (InterruptedException ex) {
+                            Thread.currentThread().interrupt();
+                            throw new IOException(ex);
+                        }
+                    }
+                };
+            }
+            return slowStream;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.github.demo.integration;
+
+import com.example.github.demo.model.Person;
+import com.example.github.demo.repository.PersonRepository;
+import com.example.github.demo.service.ExportFormat;
+import com.example.github.demo.service.PersonExportService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * The export runs on an async thread in its own transaction, so the data set
+ * has to be committed and this class is deliberately not {@code @Transactional}.
+ */
+@SpringBootTest(properties = "app.export.clear-interval=2")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class PersonExportIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private PersonExportService personExportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        personRepository.deleteAll();
+
+        List<Person> persons = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            persons.add(new Person(null, "Export", "Person" + i, "export" + i + "@example.com",
+                    "555-000-000" + i, "Street " + i, 20 + i));
+        }
+        persons.add(new Person(null, "Quoted", "Smith, Jr.", "quoted@example.com",
+                null, "1 \"Main\" St", null));
+        personRepository.saveAll(persons);
+    }
+
+    @AfterEach
+    void tearDown() {
+        personRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Integration Test: NDJSON export writes one JSON object per line")
+    void testNdjsonExport() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/persons/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        String[] lines = body.split("\n");
+        assertEquals(6, lines.length);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals("Person0", first.get("lastName").asText());
+        assertEquals("Smith, Jr.", objectMapper.readTree(lines[5]).get("lastName").asText());
+    }
+
+    @Test
+    @DisplayName("Integration Test: CSV export escapes fields")
+    void testCsvExport() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = personExportService.export(ExportFormat.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(6, rows);
+        assertEquals(7, lines.length);
+        assertEquals("id,firstName,lastName,email,phoneNumber,address,age", lines[0]);
+        assertTrue(lines[1].endsWith(",Export,Person0,export0@example.com,555-000-0000,Street 0,20"));
+        assertTrue(lines[6].endsWith(",Quoted,\"Smith, Jr.\",quoted@example.com,,\"1 \"\"Main\"\" St\","));
+    }
+}
@@ -12,8 +12,10 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasSize;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -182,6 +184,189 @@ class PersonIntegrationTest {
                 .andExpect(jsonPath("$", hasSize(2)));
     }
 
+    @Test
+    @DisplayName("Integration Test: Keyset pagination walks every person once")
+    void testKeysetPagination() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            Person person = new Person();
+            person.setFirstName("Page");
+            person.setLastName("Person" + i);
+            person.setEmail("page" + i + "@example.com");
+            personRepository.save(person);
+        }
+
+        String link = mockMvc.perform(get("/api/persons").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andReturn().getResponse().getHeader("Link");
+        assertNotNull(link);
+
+        String next = link.substring(link.indexOf('<') + 1, link.indexOf('>'));
+        link = mockMvc.perform(get(next))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andReturn().getResponse().getHeader("Link");
+        assertNotNull(link);
+
+        next = link.substring(link.indexOf('<') + 1, link.indexOf('>'));
+        mockMvc.perform(get(next))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].lastName").value("Person4"))
+                .andExpect(header().doesNotExist("Link"));
+    }
+
+    @Test
+    @DisplayName("Integration Test: Search by email, last name prefix and age range")
+    void testSearch() throws Exception {
+        String[][] people = {{"Anna", "Berg", "31"}, {"Bert", "Bergman", "45"}, {"Cara", "Berg", "28"},
+                {"Dirk", "Stone", "31"}, {"Emma", "Bergstrom", "52"}};
+        for (String[] values : people) {
+            personRepository.save(new Person(null, values[0], values[1],
+                    values[0].toLowerCase() + "@example.com", null, null, Integer.valueOf(values[2])));
+        }
+
+        mockMvc.perform(get("/api/persons/search").param("email", "DIRK@Example.com"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].firstName").value("Dirk"));
+
+        mockMvc.perform(get("/api/persons/search").param("lastName", "Berg").param("maxAge", "50"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].firstName").value(contains("Anna", "Cara", "Bert")));
+
+        // In the query string, since the next link is built from it.
+        String link = mockMvc.perform(get("/api/persons/search?minAge=30&limit=2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].firstName").value(contains("Anna", "Dirk")))
+                .andReturn().getResponse().getHeader("Link");
+        assertNotNull(link);
+
+        String next = link.substring(link.indexOf('<') + 1, link.indexOf('>'));
+        mockMvc.perform(get(next))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].firstName").value(contains("Bert", "Emma")))
+                .andExpect(header().doesNotExist("Link"));
+
+        mockMvc.perform(get("/api/persons/search"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/persons/search").param("minAge", "40").param("maxAge", "30"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Integration Test: Email is unique regardless of case")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void testDuplicateEmail() throws Exception {
+        try {
+            personRepository.save(testPerson);
+            Person other = personRepository.save(new Person(null, "Other", "Person", "other@example.com",
+                    null, null, null));
+
+            testPerson.setEmail("Integration.Test@Example.com");
+            mockMvc.perform(post("/api/persons")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(testPerson)))
+                    .andExpect(status().isConflict())
+                    .andExpect(jsonPath("$.message").value("A person with this email already exists"));
+
+            mockMvc.perform(put("/api/persons/" + other.getId())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(testPerson)))
+                    .andExpect(status().isConflict());
+        } finally {
+            personRepository.deleteAll();
+        }
+    }
+
+    @Test
+    @DisplayName("Integration Test: Field projection on read endpoints")
+    void testFieldProjection() throws Exception {
+        Person savedPerson = personRepository.save(testPerson);
+
+        mockMvc.perform(get("/api/persons").param("fields", "firstName,email"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id").value(savedPerson.getId()))
+                .andExpect(jsonPath("$[0].email").value("integration.test@example.com"))
+                .andExpect(jsonPath("$[0].address").doesNotExist());
+
+        mockMvc.perform(get("/api/persons/" + savedPerson.getId()).param("fields", "lastName"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.lastName").value("Test"))
+                .andExpect(jsonPath("$.age").doesNotExist());
+
+        mockMvc.perform(get("/api/persons").param("ids", savedPerson.getId() + ",999").param("fields", "age"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.persons[0].age").value(25))
+                .andExpect(jsonPath("$.persons[0].email").doesNotExist())
+                .andExpect(jsonPath("$.missing[0]").value(999));
+    }
+
+    @Test
+    @DisplayName("Integration Test: PATCH only changes the given fields")
+    void testPatchPerson() throws Exception {
+        Person savedPerson = personRepository.save(testPerson);
+
+        mockMvc.perform(patch("/api/persons/" + savedPerson.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"patched@example.com\",\"age\":26}"))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/persons/" + savedPerson.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.firstName").value("Integration"))
+                .andExpect(jsonPath("$.email").value("patched@example.com"))
+                .andExpect(jsonPath("$.age").value(26));
+
+        mockMvc.perform(patch("/api/persons/999")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"age\":26}"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("Integration Test: Conditional GET and optimistic concurrency")
+    void testETagsAndOptimisticConcurrency() throws Exception {
+        Person savedPerson = personRepository.save(testPerson);
+        String url = "/api/persons/" + savedPerson.getId();
+
+        String etag = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"0\""))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get(url).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        Person changes = new Person(null, "Versioned", "Person", "versioned@example.com", null, null, 50);
+        mockMvc.perform(put(url)
+                        .header("If-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(changes)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""));
+
+        // The same stale tag is now a lost update and must be rejected.
+        mockMvc.perform(put(url)
+                        .header("If-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(changes)))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(delete(url).header("If-Match", etag))
+                .andExpect(status().isPreconditionFailed());
+
+        mockMvc.perform(get(url).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""))
+                .andExpect(jsonPath("$.firstName").value("Versioned"));
+
+        mockMvc.perform(delete(url).header("If-Match", "\"1\""))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(delete("/api/persons/999").header("If-Match", "\"1\""))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     @DisplayName("Integration Test: Error scenarios")
     void testErrorScenarios() throws Exception {
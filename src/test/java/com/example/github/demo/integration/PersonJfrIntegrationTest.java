@@ -0,0 +1,146 @@
+package com.example.github.demo.integration;
+
+import com.example.github.demo.controller.JfrRecordingController;
+import com.example.github.demo.model.Person;
+import com.example.github.demo.repository.PersonRepository;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+        "app.jfr.recording.enabled=true",
+        "app.jfr.recording.token=secret",
+        // Cache hits are faster than the default threshold; record every call.
+        "app.jfr.recording.service-call-threshold=0ms"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class PersonJfrIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @AfterEach
+    void tearDown() {
+        personRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Integration Test: Recording endpoint requires the admin token")
+    void testRecordingRequiresToken() throws Exception {
+        mockMvc.perform(post("/admin/jfr/recordings"))
+                .andExpect(status().isForbidden());
+
+        mockMvc.perform(post("/admin/jfr/recordings").header(JfrRecordingController.TOKEN_HEADER, "wrong"))
+                .andExpect(status().isForbidden())
+                .andExpect(jsonPath("$.message").value("Missing or invalid admin token"));
+    }
+
+    @Test
+    @DisplayName("Integration Test: Unsupported recording settings")
+    void testRecordingUnsupportedSettings() throws Exception {
+        mockMvc.perform(post("/admin/jfr/recordings")
+                        .header(JfrRecordingController.TOKEN_HEADER, "secret")
+                        .param("settings", "/etc/passwd"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Integration Test: Recording contains service call and error events")
+    void testRecordingContainsPersonEvents() throws Exception {
+        Long id = personRepository.save(new Person(null, "Flight", "Recorder", "jfr@example.com", null, null, 50)).getId();
+        AtomicBoolean done = new AtomicBoolean();
+        Thread traffic = new Thread(() -> {
+            while (!done.get()) {
+                try {
+                    mockMvc.perform(get("/api/persons/" + id));
+                    mockMvc.perform(get("/api/persons").param("after", "not-a-cursor"));
+                    Thread.sleep(20);
+                } catch (Exception ex) {
+                    return;
+                }
+            }
+        });
+        traffic.start();
+
+        String location;
+        byte[] jfr;
+        try {
+            location = mockMvc.perform(post("/admin/jfr/recordings")
+                            .header(JfrRecordingController.TOKEN_HEADER, "secret")
+                            .param("seconds", "1"))
+                    .andExpect(status().isAccepted())
+                    .andExpect(jsonPath("$.id").isNumber())
+                    .andReturn().getResponse().getHeader("Location");
+            assertNotNull(location);
+
+            // The POST returned at once; the recording keeps running in the background.
+            mockMvc.perform(get(location).header(JfrRecordingController.TOKEN_HEADER, "secret"))
+                    .andExpect(status().isAccepted())
+                    .andExpect(header().string("Retry-After", "1"));
+            mockMvc.perform(post("/admin/jfr/recordings").header(JfrRecordingController.TOKEN_HEADER, "secret"))
+                    .andExpect(status().isConflict());
+
+            MvcResult result;
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            do {
+                Thread.sleep(100);
+                result = mockMvc.perform(get(location).header(JfrRecordingController.TOKEN_HEADER, "secret"))
+                        .andReturn();
+            } while (!result.getRequest().isAsyncStarted() && System.nanoTime() < deadline);
+            jfr = mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("Content-Type", "application/octet-stream"))
+                    .andReturn().getResponse().getContentAsByteArray();
+            mockMvc.perform(get(location).header(JfrRecordingController.TOKEN_HEADER, "secret"))
+                    .andExpect(status().isNotFound());
+        } finally {
+            done.set(true);
+            traffic.join();
+        }
+
+        Path file = Files.createTempFile("person-api-test-", ".jfr");
+        try {
+            Files.write(file, jfr);
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+
+            RecordedEvent serviceCall = events.stream()
+                    .filter(event -> event.getEventType().getName().equals("com.example.github.demo.PersonServiceCall"))
+                    .filter(event -> "PersonService.getPersonById".equals(event.getString("operation")))
+                    .findFirst().orElseThrow();
+            assertEquals(id, serviceCall.getLong("personId"));
+            assertEquals(1, serviceCall.getLong("rowCount"));
+
+            RecordedEvent error = events.stream()
+                    .filter(event -> event.getEventType().getName().equals("com.example.github.demo.ErrorResponse"))
+                    .filter(event -> event.getString("exception").endsWith("InvalidCursorException"))
+                    .findFirst().orElseThrow();
+            assertEquals("com.example.github.demo.exception.InvalidCursorException", error.getString("exception"));
+            assertEquals(400, error.getInt("status"));
+            assertEquals("/api/persons", error.getString("path"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.github.demo.integration;
+
+import com.example.github.demo.model.Person;
+import com.example.github.demo.repository.PersonRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+class PersonLookupIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    private List<Long> ids;
+
+    @BeforeEach
+    void setUp() {
+        personRepository.deleteAll();
+        List<Person> persons = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            persons.add(new Person(null, "Lookup", "Person" + i, "lookup" + i + "@example.com", null, null, i));
+        }
+        ids = personRepository.saveAll(persons).stream().map(Person::getId).toList();
+    }
+
+    @Test
+    @DisplayName("Integration Test: Lookup by IDs keeps request order and reports missing IDs")
+    void testLookupByIds() throws Exception {
+        String query = ids.get(120) + ",999999," + ids.get(3) + "," + ids.get(0);
+
+        mockMvc.perform(get("/api/persons").param("ids", query))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.persons", hasSize(3)))
+                .andExpect(jsonPath("$.persons[0].lastName").value("Person120"))
+                .andExpect(jsonPath("$.persons[1].lastName").value("Person3"))
+                .andExpect(jsonPath("$.persons[2].lastName").value("Person0"))
+                .andExpect(jsonPath("$.missing[0]").value(999999));
+    }
+
+    @Test
+    @DisplayName("Integration Test: Lookup spanning several IN chunks")
+    void testLookupAcrossChunks() throws Exception {
+        String body = ids.stream().map(String::valueOf).collect(Collectors.joining(",", "[", "]"));
+
+        mockMvc.perform(post("/api/persons/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.persons", hasSize(150)))
+                .andExpect(jsonPath("$.persons[149].lastName").value("Person149"))
+                .andExpect(jsonPath("$.missing", hasSize(0)));
+    }
+}
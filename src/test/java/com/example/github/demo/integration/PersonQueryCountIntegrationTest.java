@@ -0,0 +1,251 @@
+package com.example.github.demo.integration;
+
+import com.example.github.demo.config.CacheConfig;
+import com.example.github.demo.model.Person;
+import com.example.github.demo.repository.PersonRepository;
+import com.example.github.demo.support.SqlCountingConfiguration;
+import com.example.github.demo.support.SqlStatementCounter;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Pins the number of SQL round-trips each endpoint makes. An extra SELECT or an
+ * N+1 fails here with the statements that ran. Statements have to reach the
+ * database, so this class is deliberately not {@code @Transactional}.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(SqlCountingConfiguration.class)
+class PersonQueryCountIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private SqlStatementCounter sqlStatementCounter;
+
+    private List<Person> persons;
+    private Person person;
+
+    @BeforeEach
+    void setUp() {
+        personRepository.deleteAll();
+        cacheManager.getCache(CacheConfig.PERSONS_CACHE).clear();
+
+        List<Person> seed = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            seed.add(new Person(null, "Budget", "Person" + i, "budget" + i + "@example.com",
+                    "555-000-000" + i, "Street " + i, 30 + i));
+        }
+        persons = personRepository.saveAll(seed);
+        person = persons.get(0);
+        // Budgets count the queries a cold instance runs.
+        entityManagerFactory.getCache().evictAll();
+        sqlStatementCounter.reset();
+    }
+
+    @AfterEach
+    void tearDown() {
+        personRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Query Budget: GET by id is one SELECT on a cache miss and none on a hit")
+    void testGetById() throws Exception {
+        mockMvc.perform(get("/api/persons/{id}", person.getId())).andExpect(status().isOk());
+        sqlStatementCounter.assertStatements(1);
+
+        sqlStatementCounter.reset();
+        mockMvc.perform(get("/api/persons/{id}", person.getId())).andExpect(status().isOk());
+        sqlStatementCounter.assertStatements(0);
+    }
+
+    @Test
+    @DisplayName("Query Budget: GET by id for a missing person is one SELECT")
+    void testGetByIdNotFound() throws Exception {
+        mockMvc.perform(get("/api/persons/{id}", Long.MAX_VALUE)).andExpect(status().isNotFound());
+        sqlStatementCounter.assertStatements(1);
+    }
+
+    @Test
+    @DisplayName("Query Budget: A matching If-None-Match only reads the version")
+    void testGetByIdNotModified() throws Exception {
+        mockMvc.perform(get("/api/persons/{id}", person.getId())
+                        .header("If-None-Match", "\"" + person.getVersion() + "\""))
+                .andExpect(status().isNotModified());
+        sqlStatementCounter.assertStatements(1);
+    }
+
+    @Test
+    @DisplayName("Query Budget: GET by id with fields is one SELECT")
+    void testGetByIdWithFields() throws Exception {
+        mockMvc.perform(get("/api/persons/{id}", person.getId()).param("fields", "firstName"))
+                .andExpect(status().isOk());
+        sqlStatementCounter.assertStatements(1);
+    }
+
+    @Test
+    @DisplayName("Query Budget: A page of persons is one SELECT, with or without fields")
+    void testGetPage() throws Exception {
+        mockMvc.perform(get("/api/persons").param("limit", "2")).andExpect(status().isOk());
+        sqlStatementCounter.assertStatements(1);
+
+        sqlStatementCounter.reset();
+        mockMvc.perform(get("/api/persons").param("limit", "2").param("fields", "email"))
+                .andExpect(status().isOk());
+        sqlStatementCounter.assertStatements(1);
+    }
+
+    @Test
+    @DisplayName("Query Budget: A count is one SELECT")
+    void testCount() throws Exception {
+        mockMvc.perform(get("/api/persons/count").param("lastName", "Person").param("minAge", "31"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(4));
+        sqlStatementCounter.assertStatements(1);
+    }
+
+    @Test
+    @DisplayName("Query Budget: A lookup is one SELECT per chunk of ids")
+    void testLookup() throws Exception {
+        String ids = persons.stream().map(p -> p.getId().toString()).collect(Collectors.joining(","));
+        mockMvc.perform(get("/api/persons").param("ids", ids)).andExpect(status().isOk());
+        sqlStatementCounter.assertStatements(1);
+
+        sqlStatementCounter.reset();
+        String manyIds = LongStream.rangeClosed(1, 250).mapToObj(Long::toString)
+                .collect(Collectors.joining(",", "[", "]"));
+        mockMvc.perform(post("/api/persons/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(manyIds))
+                .andExpect(status().isOk());
+        sqlStatementCounter.assertStatements(3);
+    }
+
+    @Test
+    @DisplayName("Query Budget: Export streams every person from one SELECT")
+    void testExport() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/persons/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+        sqlStatementCounter.assertStatements(1);
+    }
+
+    @Test
+    @DisplayName("Query Budget: POST is one INSERT")
+    void testCreate() throws Exception {
+        mockMvc.perform(post("/api/persons")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"firstName\":\"New\",\"lastName\":\"Person\",\"email\":\"new@example.com\"}"))
+                .andExpect(status().isCreated());
+        sqlStatementCounter.assertStatements(1);
+        sqlStatementCounter.assertSequenceFetchesAtMost(1);
+    }
+
+    @Test
+    @DisplayName("Query Budget: A batch POST is one JDBC batch")
+    void testBatchCreate() throws Exception {
+        mockMvc.perform(post("/api/persons/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"firstName\":\"A\",\"lastName\":\"One\",\"email\":\"a@example.com\"},"
+                                + "{\"firstName\":\"B\",\"lastName\":\"Two\",\"email\":\"b@example.com\"},"
+                                + "{\"firstName\":\"C\",\"lastName\":\"Three\",\"email\":\"c@example.com\"}]"))
+                .andExpect(status().isCreated());
+        sqlStatementCounter.assertStatements(1);
+        sqlStatementCounter.assertSequenceFetchesAtMost(1);
+    }
+
+    @Test
+    @DisplayName("Query Budget: PUT is one UPDATE with If-Match, plus a version read without it")
+    void testUpdate() throws Exception {
+        mockMvc.perform(put("/api/persons/{id}", person.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"firstName\":\"Updated\",\"lastName\":\"Person\",\"email\":\"updated@example.com\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"" + (person.getVersion() + 1) + "\""));
+        sqlStatementCounter.assertStatements(2);
+
+        sqlStatementCounter.reset();
+        mockMvc.perform(put("/api/persons/{id}", persons.get(1).getId())
+                        .header("If-Match", "\"" + persons.get(1).getVersion() + "\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"firstName\":\"Matched\",\"lastName\":\"Person\",\"email\":\"matched@example.com\"}"))
+                .andExpect(status().isOk());
+        sqlStatementCounter.assertStatements(1);
+    }
+
+    @Test
+    @DisplayName("Query Budget: A stale If-Match costs one extra SELECT to tell 412 from 404")
+    void testUpdateVersionConflict() throws Exception {
+        mockMvc.perform(put("/api/persons/{id}", person.getId())
+                        .header("If-Match", "\"" + (person.getVersion() + 1) + "\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"firstName\":\"Stale\",\"lastName\":\"Person\",\"email\":\"stale@example.com\"}"))
+                .andExpect(status().isPreconditionFailed());
+        sqlStatementCounter.assertStatements(2);
+    }
+
+    @Test
+    @DisplayName("Query Budget: PUT on a missing person is one UPDATE")
+    void testUpdateNotFound() throws Exception {
+        mockMvc.perform(put("/api/persons/{id}", Long.MAX_VALUE)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"firstName\":\"Ghost\",\"lastName\":\"Person\",\"email\":\"ghost@example.com\"}"))
+                .andExpect(status().isNotFound());
+        sqlStatementCounter.assertStatements(1);
+    }
+
+    @Test
+    @DisplayName("Query Budget: PATCH is one UPDATE and a version read")
+    void testPatch() throws Exception {
+        mockMvc.perform(patch("/api/persons/{id}", person.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"age\":50}"))
+                .andExpect(status().isNoContent());
+        sqlStatementCounter.assertStatements(2);
+    }
+
+    @Test
+    @DisplayName("Query Budget: DELETE is one DELETE, with or without If-Match")
+    void testDelete() throws Exception {
+        mockMvc.perform(delete("/api/persons/{id}", person.getId())).andExpect(status().isNoContent());
+        sqlStatementCounter.assertStatements(1);
+
+        sqlStatementCounter.reset();
+        mockMvc.perform(delete("/api/persons/{id}", persons.get(1).getId())
+                        .header("If-Match", "\"" + persons.get(1).getVersion() + "\""))
+                .andExpect(status().isNoContent());
+        sqlStatementCounter.assertStatements(1);
+    }
+}
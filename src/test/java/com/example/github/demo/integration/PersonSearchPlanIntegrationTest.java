@@ -0,0 +1,111 @@
+package com.example.github.demo.integration;
+
+import com.example.github.demo.model.Person;
+import com.example.github.demo.model.PersonView;
+import com.example.github.demo.repository.PersonRepository;
+import com.example.github.demo.repository.PersonSearch;
+import com.example.github.demo.service.PersonService;
+import com.example.github.demo.support.SqlCountingConfiguration;
+import com.example.github.demo.support.SqlStatementCounter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs every supported search filter combination, captures the SQL Hibernate
+ * generated and checks H2's EXPLAIN output for it: each must be answered from
+ * the filter's index, never a table scan or a walk of the primary key.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(SqlCountingConfiguration.class)
+class PersonSearchPlanIntegrationTest {
+
+    @Autowired
+    private PersonService personService;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private SqlStatementCounter sqlStatementCounter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        personRepository.deleteAllInBatch();
+        List<Person> persons = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            persons.add(new Person(null, "Plan", "Name" + i, "plan" + i + "@example.com",
+                    null, null, 18 + i % 60));
+        }
+        personRepository.saveAll(persons);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @AfterEach
+    void tearDown() {
+        personRepository.deleteAllInBatch();
+    }
+
+    static Stream<Arguments> searches() {
+        return Stream.of(
+                Arguments.of(new PersonSearch("Plan7@Example.com", null, null, null), "ux_person_email_key"),
+                Arguments.of(new PersonSearch(null, "Name1", null, null), "ix_person_last_name"),
+                Arguments.of(new PersonSearch(null, null, 30, null), "ix_person_age"),
+                Arguments.of(new PersonSearch(null, null, null, 20), "ix_person_age"),
+                Arguments.of(new PersonSearch(null, null, 30, 32), "ix_person_age"),
+                Arguments.of(new PersonSearch(null, "Name1", 30, 40), "ix_person_last_name"),
+                Arguments.of(new PersonSearch("plan7@example.com", "Name", 18, 80), "ux_person_email_key"),
+                Arguments.of(new PersonSearch("plan7@example.com", null, 18, null), "ux_person_email_key"));
+    }
+
+    @ParameterizedTest
+    @MethodSource("searches")
+    @DisplayName("Integration Test: Every search filter combination uses an index")
+    void testSearchUsesIndex(PersonSearch search, String expectedIndex) {
+        assertIndexUsed(search, null, expectedIndex);
+    }
+
+    @ParameterizedTest
+    @MethodSource("searches")
+    @DisplayName("Integration Test: Later search pages still use the filter index")
+    void testLaterSearchPageUsesIndex(PersonSearch search, String expectedIndex) {
+        List<PersonView> firstPage = personService.searchPersons(search, null, 1).persons();
+        assertFalse(firstPage.isEmpty());
+        assertIndexUsed(search, search.after(firstPage.get(0)), expectedIndex);
+    }
+
+    private void assertIndexUsed(PersonSearch search, PersonSearch.After after, String expectedIndex) {
+        sqlStatementCounter.reset();
+        personService.searchPersons(search, after, 10);
+        SqlStatementCounter.Statement statement = sqlStatementCounter.lastStatement();
+
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + statement.sql(), String.class,
+                statement.parameters().toArray()).toLowerCase(Locale.ROOT);
+
+        assertFalse(plan.contains("tablescan"), "Table scan for " + search + ":\n" + plan);
+        assertFalse(plan.contains("primary_key"), "Primary key walk for " + search + ":\n" + plan);
+        assertTrue(plan.contains(expectedIndex), "Expected " + expectedIndex + " for " + search + ":\n" + plan);
+        if (search.order() != PersonSearch.Order.ID) {
+            assertTrue(plan.contains("index sorted"), "Sort step for " + search + ":\n" + plan);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.github.demo.integration;
+
+import com.example.github.demo.config.SecondLevelCacheConfig;
+import com.example.github.demo.model.Person;
+import com.example.github.demo.repository.PersonRepository;
+import com.example.github.demo.support.SqlCountingConfiguration;
+import com.example.github.demo.support.SqlStatementCounter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Writes have to commit for Hibernate to invalidate the caches, so this class
+ * is deliberately not {@code @Transactional}.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+@ActiveProfiles("test")
+@Import(SqlCountingConfiguration.class)
+class PersonSecondLevelCacheIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private SqlStatementCounter sqlStatementCounter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        personRepository.deleteAll();
+        entityManagerFactory.getCache().evictAll();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        personRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Integration Test: Reads by id are served from the entity region and never go stale")
+    void testEntityRegion() throws Exception {
+        Long doe = create("John", "Doe", 30);
+        Long dunn = create("Jane", "Dunn", 45);
+        entityManagerFactory.getCache().evictAll();
+        String lookup = "[" + doe + "," + dunn + "]";
+
+        sqlStatementCounter.reset();
+        mockMvc.perform(post("/api/persons/lookup").contentType(MediaType.APPLICATION_JSON).content(lookup))
+                .andExpect(jsonPath("$.persons[*].lastName").value(containsInAnyOrder("Doe", "Dunn")));
+        sqlStatementCounter.assertStatements(1);
+        long hits = statistics.getDomainDataRegionStatistics(SecondLevelCacheConfig.PERSON_REGION).getHitCount();
+
+        sqlStatementCounter.reset();
+        mockMvc.perform(post("/api/persons/lookup").contentType(MediaType.APPLICATION_JSON).content(lookup))
+                .andExpect(jsonPath("$.persons[*].lastName").value(containsInAnyOrder("Doe", "Dunn")));
+        sqlStatementCounter.assertStatements(0);
+        assertEquals(hits + 2,
+                statistics.getDomainDataRegionStatistics(SecondLevelCacheConfig.PERSON_REGION).getHitCount());
+
+        mockMvc.perform(put("/api/persons/" + doe)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"firstName\":\"John\",\"lastName\":\"Doe-Smith\",\"email\":\"john@example.com\",\"age\":31}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/persons/lookup").contentType(MediaType.APPLICATION_JSON).content(lookup))
+                .andExpect(jsonPath("$.persons[*].lastName").value(containsInAnyOrder("Doe-Smith", "Dunn")));
+
+        mockMvc.perform(patch("/api/persons/" + dunn)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"lastName\":\"Roe\"}"))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(post("/api/persons/lookup").contentType(MediaType.APPLICATION_JSON).content(lookup))
+                .andExpect(jsonPath("$.persons[*].lastName").value(containsInAnyOrder("Doe-Smith", "Roe")));
+
+        mockMvc.perform(delete("/api/persons/" + doe)).andExpect(status().isNoContent());
+        mockMvc.perform(post("/api/persons/lookup").contentType(MediaType.APPLICATION_JSON).content(lookup))
+                .andExpect(jsonPath("$.persons[*].lastName").value(contains("Roe")))
+                .andExpect(jsonPath("$.missing").value(contains(doe.intValue())));
+    }
+
+    @Test
+    @DisplayName("Integration Test: List, search and count results are cached until the next write")
+    void testQueryCache() throws Exception {
+        Long doe = create("John", "Doe", 30);
+        create("Jane", "Dunn", 45);
+
+        mockMvc.perform(get("/api/persons/count").param("minAge", "40"))
+                .andExpect(jsonPath("$.count").value(1));
+        mockMvc.perform(get("/api/persons/search").param("lastName", "D"))
+                .andExpect(jsonPath("$[*].lastName").value(contains("Doe", "Dunn")));
+        mockMvc.perform(get("/api/persons"))
+                .andExpect(jsonPath("$[*].firstName").value(contains("John", "Jane")));
+        long hits = statistics.getQueryCacheHitCount();
+
+        sqlStatementCounter.reset();
+        mockMvc.perform(get("/api/persons/count").param("minAge", "40"))
+                .andExpect(jsonPath("$.count").value(1));
+        mockMvc.perform(get("/api/persons/search").param("lastName", "D"))
+                .andExpect(jsonPath("$[*].lastName").value(contains("Doe", "Dunn")));
+        mockMvc.perform(get("/api/persons"))
+                .andExpect(jsonPath("$[*].firstName").value(contains("John", "Jane")));
+        sqlStatementCounter.assertStatements(0);
+        assertEquals(hits + 3, statistics.getQueryCacheHitCount());
+
+        // Pages too large to cache always reach the database.
+        mockMvc.perform(get("/api/persons").param("limit", "500"))
+                .andExpect(jsonPath("$", hasSize(2)));
+        mockMvc.perform(get("/api/persons").param("limit", "500"))
+                .andExpect(jsonPath("$", hasSize(2)));
+        sqlStatementCounter.assertStatements(2);
+
+        mockMvc.perform(patch("/api/persons/" + doe)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"lastName\":\"Roe\",\"age\":50}"))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get("/api/persons/count").param("minAge", "40"))
+                .andExpect(jsonPath("$.count").value(2));
+        mockMvc.perform(get("/api/persons/search").param("lastName", "D"))
+                .andExpect(jsonPath("$[*].lastName").value(contains("Dunn")));
+        mockMvc.perform(get("/api/persons"))
+                .andExpect(jsonPath("$[*].lastName").value(contains("Roe", "Dunn")));
+
+        mockMvc.perform(delete("/api/persons/" + doe)).andExpect(status().isNoContent());
+        mockMvc.perform(get("/api/persons/count").param("minAge", "40"))
+                .andExpect(jsonPath("$.count").value(1));
+        mockMvc.perform(get("/api/persons"))
+                .andExpect(jsonPath("$[*].lastName").value(contains("Dunn")));
+    }
+
+    @Test
+    @DisplayName("Integration Test: Entity region and query cache hits and misses are exposed as metrics")
+    void testHitRatioMetrics() throws Exception {
+        Long id = create("Metric", "Person", 40);
+        mockMvc.perform(get("/api/persons/count")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/persons/count")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/persons").param("ids", id.toString())).andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("hibernate_cache_query_requests_total{")))
+                .andExpect(content().string(containsString("hibernate_second_level_cache_requests_total{")));
+    }
+
+    private Long create(String firstName, String lastName, int age) throws Exception {
+        Person person = new Person(null, firstName, lastName, firstName.toLowerCase() + "@example.com", null, null, age);
+        String body = mockMvc.perform(post("/api/persons")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(person)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("id").asLong();
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.github.demo.integration;
+
+import com.example.github.demo.model.Person;
+import com.example.github.demo.repository.PersonRepository;
+import com.example.github.demo.service.PersonSecondaryIndex;
+import com.example.github.demo.support.SqlCountingConfiguration;
+import com.example.github.demo.support.SqlStatementCounter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * The secondary index is updated after commit, so this class is deliberately
+ * not {@code @Transactional}.
+ */
+@SpringBootTest(properties = {
+        "app.secondary-index.enabled=true",
+        "management.endpoints.web.exposure.include=personindexes"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(SqlCountingConfiguration.class)
+class PersonSecondaryIndexIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private PersonSecondaryIndex secondaryIndex;
+
+    @Autowired
+    private SqlStatementCounter sqlStatementCounter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        personRepository.deleteAll();
+        secondaryIndex.rebuild();
+    }
+
+    @AfterEach
+    void tearDown() {
+        personRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Integration Test: Writes through the API are counted and searched from the index")
+    void testIndexFollowsWrites() throws Exception {
+        Long doe = create(new Person(null, "John", "Doe", "john@example.com", null, null, 30));
+        Long dunn = create(new Person(null, "Jane", "Dunn", "jane@example.com", null, null, 45));
+        create(new Person(null, "Ann", "Smith", "ann@example.com", null, null, 30));
+
+        sqlStatementCounter.reset();
+        mockMvc.perform(get("/api/persons/count").param("lastName", "D"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(2));
+        mockMvc.perform(get("/api/persons/count").param("minAge", "30").param("maxAge", "30"))
+                .andExpect(jsonPath("$.count").value(2));
+        sqlStatementCounter.assertStatements(0);
+
+        mockMvc.perform(get("/api/persons/search").param("lastName", "D").param("minAge", "40"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id").value(contains(dunn.intValue())));
+        // The matching row comes from the entity region the create filled.
+        sqlStatementCounter.assertStatements(0);
+
+        mockMvc.perform(patch("/api/persons/" + doe)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"lastName\":\"Roe\",\"age\":50}"))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(delete("/api/persons/" + dunn))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get("/api/persons/search").param("minAge", "40"))
+                .andExpect(jsonPath("$[*].lastName").value(contains("Roe")));
+        mockMvc.perform(get("/api/persons/count").param("lastName", "D"))
+                .andExpect(jsonPath("$.count").value(0));
+
+        mockMvc.perform(post("/api/persons/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"firstName\":\"Otto\",\"lastName\":\"Batch\",\"age\":30},"
+                                + "{\"firstName\":\"Ottilie\",\"lastName\":\"Batch\",\"age\":31}]"))
+                .andExpect(status().isCreated());
+        mockMvc.perform(get("/api/persons/count").param("minAge", "30").param("maxAge", "31"))
+                .andExpect(jsonPath("$.count").value(3));
+        mockMvc.perform(get("/actuator/personindexes"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.stored").value(4))
+                .andExpect(jsonPath("$.consistent").value(true));
+    }
+
+    @Test
+    @DisplayName("Integration Test: The actuator endpoint finds and rebuilds rows written around the service")
+    void testCheckAndRebuild() throws Exception {
+        personRepository.save(new Person(null, "Imported", "Directly", "imported@example.com", null, null, 60));
+        mockMvc.perform(get("/api/persons/count").param("lastName", "Direct"))
+                .andExpect(jsonPath("$.count").value(0));
+        mockMvc.perform(get("/actuator/personindexes"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.missing").value(1))
+                .andExpect(jsonPath("$.consistent").value(false));
+
+        mockMvc.perform(post("/actuator/personindexes"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.indexed").value(1))
+                .andExpect(jsonPath("$.consistent").value(true));
+
+        mockMvc.perform(get("/api/persons/count").param("lastName", "Direct"))
+                .andExpect(jsonPath("$.count").value(1));
+        // Email lookups stay on the database's unique index.
+        mockMvc.perform(get("/api/persons/count").param("email", "IMPORTED@example.com"))
+                .andExpect(jsonPath("$.count").value(1));
+    }
+
+    private Long create(Person person) throws Exception {
+        String body = mockMvc.perform(post("/api/persons")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(person)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("id").asLong();
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.github.demo.integration;
+
+import com.example.github.demo.diagnostics.ServerTiming;
+import com.example.github.demo.model.Person;
+import com.example.github.demo.repository.PersonRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class PersonServerTimingIntegrationTest {
+
+    private static final String DURATION = "\\d+\\.\\d{3}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @AfterEach
+    void tearDown() {
+        personRepository.deleteAll();
+    }
+
+    /**
+     * Saves a person and evicts it from the entity region, so the first read goes to the database.
+     */
+    private Long saveCold(Person person) {
+        Long id = personRepository.save(person).getId();
+        entityManagerFactory.getCache().evictAll();
+        return id;
+    }
+
+    private static String timing(String statements) {
+        return "db;dur=" + DURATION + ";desc=\"" + statements + "\", app;dur=" + DURATION
+                + ", json;dur=" + DURATION + ", total;dur=" + DURATION;
+    }
+
+    @Test
+    @DisplayName("Integration Test: Server-Timing splits db, app and json time")
+    void testServerTimingOnRead() throws Exception {
+        Long id = saveCold(new Person(null, "Server", "Timing", "timing@example.com", null, null, 33));
+
+        mockMvc.perform(get("/api/persons/" + id))
+                .andExpect(status().isOk())
+                .andExpect(header().string(ServerTiming.HEADER, matchesPattern(timing("1 statement"))))
+                .andExpect(header().exists("Content-Length"))
+                .andExpect(jsonPath("$.email").value("timing@example.com"));
+
+        // Served from the person cache: no statement runs.
+        mockMvc.perform(get("/api/persons/" + id))
+                .andExpect(header().string(ServerTiming.HEADER, matchesPattern(timing("0 statements"))));
+    }
+
+    @Test
+    @DisplayName("Integration Test: Server-Timing on responses without a body and on errors")
+    void testServerTimingWithoutBody() throws Exception {
+        Long id = personRepository.save(new Person(null, "Server", "Timing", "timing@example.com", null, null, 33)).getId();
+
+        mockMvc.perform(patch("/api/persons/" + id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"age\":34}"))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string(ServerTiming.HEADER, matchesPattern(timing("2 statements"))));
+
+        mockMvc.perform(get("/api/persons").param("after", "not-a-cursor"))
+                .andExpect(status().isBadRequest())
+                .andExpect(header().string(ServerTiming.HEADER, matchesPattern(timing("0 statements"))));
+    }
+
+    @Test
+    @DisplayName("Integration Test: Large bodies stream past the Server-Timing buffer")
+    void testServerTimingOnLargeBody() throws Exception {
+        List<Person> persons = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            persons.add(new Person(null, "Server" + i, "Timing", "timing" + i + "@example.com", null, null, 33));
+        }
+        personRepository.saveAll(persons);
+
+        MvcResult result = mockMvc.perform(get("/api/persons").param("limit", "300"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(ServerTiming.HEADER, matchesPattern(timing("1 statement"))))
+                .andExpect(header().doesNotExist("Content-Length"))
+                .andExpect(jsonPath("$.length()").value(300))
+                .andReturn();
+        assertTrue(result.getResponse().getContentAsByteArray().length > 16 * 1024);
+    }
+
+    @Test
+    @DisplayName("Integration Test: Server-Timing on async endpoints includes the executor's database time")
+    void testServerTimingOnAsyncRead() throws Exception {
+        Long id = saveCold(new Person(null, "Server", "Timing", "timing@example.com", null, null, 33));
+
+        MvcResult started = mockMvc.perform(get("/api/persons/async/" + id))
+                .andExpect(request().asyncStarted())
+                .andExpect(header().doesNotExist(ServerTiming.HEADER))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string(ServerTiming.HEADER, matchesPattern(timing("1 statement"))))
+                .andExpect(jsonPath("$.email").value("timing@example.com"));
+    }
+
+    @Nested
+    @TestPropertySource(properties = "app.server-timing.enabled=false")
+    class Disabled {
+
+        @Autowired
+        private MockMvc disabledMockMvc;
+
+        @Test
+        @DisplayName("Integration Test: No Server-Timing header when switched off")
+        void testServerTimingDisabled() throws Exception {
+            disabledMockMvc.perform(get("/api/persons"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().doesNotExist(ServerTiming.HEADER));
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.github.demo.integration;
+
+import com.example.github.demo.model.Person;
+import com.example.github.demo.repository.PersonRepository;
+import com.example.github.demo.service.PersonTextIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * The text index is updated after commit, so this class is deliberately not
+ * {@code @Transactional}.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class PersonTextSearchIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private PersonTextIndex textIndex;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @AfterEach
+    void tearDown() {
+        personRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Integration Test: Writes through the API are searchable after commit")
+    void testIndexFollowsWrites() throws Exception {
+        Long id = create(new Person(null, "Margaret", "Thompson", "maggie@example.com", null, "12 Elm Street", 52));
+        create(new Person(null, "Thomas", "Margolis", "tom@example.com", null, null, 31));
+
+        mockMvc.perform(get("/api/persons/suggest").param("q", "margret thom"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].firstName").value(contains("Margaret")))
+                .andExpect(jsonPath("$[0].address").value("12 Elm Street"));
+
+        mockMvc.perform(patch("/api/persons/" + id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"lastName\":\"Whitfield\"}"))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get("/api/persons/suggest").param("q", "whitf"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id").value(contains(id.intValue())));
+
+        mockMvc.perform(delete("/api/persons/" + id))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get("/api/persons/suggest").param("q", "whitfield"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    @DisplayName("Integration Test: Rolled back and batch writes")
+    void testRollbackAndBatch() throws Exception {
+        create(new Person(null, "Quentin", "Abernathy", "quentin@example.com", null, null, null));
+        mockMvc.perform(post("/api/persons")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"firstName\":\"Zebulon\",\"email\":\"QUENTIN@example.com\"}"))
+                .andExpect(status().isConflict());
+        mockMvc.perform(get("/api/persons/suggest").param("q", "zebulon"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+
+        mockMvc.perform(post("/api/persons/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"firstName\":\"Ottoline\",\"lastName\":\"Batch\"},"
+                                + "{\"firstName\":\"Ottokar\",\"lastName\":\"Batch\"}]"))
+                .andExpect(status().isCreated());
+        mockMvc.perform(get("/api/persons/suggest").param("q", "otto batch"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)));
+    }
+
+    @Test
+    @DisplayName("Integration Test: Rebuild picks up rows written around the service")
+    void testRebuild() throws Exception {
+        personRepository.save(new Person(null, "Imported", "Directly", "imported@example.com", null, null, null));
+        mockMvc.perform(get("/api/persons/suggest").param("q", "imported"))
+                .andExpect(jsonPath("$", hasSize(0)));
+
+        textIndex.rebuild();
+
+        mockMvc.perform(get("/api/persons/suggest").param("q", "imported"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].lastName").value("Directly"));
+    }
+
+    private Long create(Person person) throws Exception {
+        String body = mockMvc.perform(post("/api/persons")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(person)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("id").asLong();
+    }
+}
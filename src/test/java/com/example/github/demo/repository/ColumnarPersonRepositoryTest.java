@@ -0,0 +1,347 @@
+package com.example.github.demo.repository;
+
+import com.example.github.demo.model.Person;
+import com.example.github.demo.model.PersonView;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarPersonRepositoryTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Test columnar repository - save, update, patch and delete with versions")
+    void testWrites() {
+        // Arrange
+        ColumnarPersonRepository repository = new ColumnarPersonRepository();
+        Person saved = repository.save(new Person(null, "John", "Doe", "john@example.com", "123", "1 Main St", 30));
+
+        // Act
+        int updated = repository.updateByIdAndVersion(saved.getId(), 0L,
+                new Person(null, "Johnny", "Doe", "johnny@example.com", null, "2 Main St", 31));
+        int staleUpdate = repository.updateByIdAndVersion(saved.getId(), 0L,
+                new Person(null, "Stale", "Doe", null, null, null, null));
+        Map<String, Object> changes = new HashMap<>();
+        changes.put("lastName", "Roe");
+        changes.put("age", null);
+        int patched = repository.patchById(saved.getId(), changes, 1L);
+
+        // Assert
+        assertEquals(0L, saved.getVersion());
+        assertEquals(1, updated);
+        assertEquals(0, staleUpdate);
+        assertEquals(1, patched);
+        assertEquals(view(saved.getId(), "Johnny", "Roe", "johnny@example.com", null, "2 Main St", null, 2L),
+                repository.findViewById(saved.getId()).orElseThrow());
+        assertEquals(Optional.of(3L), repository.patchByIdReturningVersion(saved.getId(), Map.of("age", 32)));
+        assertEquals(0, repository.removeByIdAndVersion(saved.getId(), 1L));
+        assertEquals(1, repository.removeById(saved.getId()));
+        assertFalse(repository.existsById(saved.getId()));
+        assertEquals(0, repository.removeById(saved.getId()));
+        assertEquals(0, repository.updateByIdAndVersion(saved.getId(), 3L, new Person()));
+        assertEquals(Optional.empty(), repository.patchByIdReturningVersion(saved.getId(), Map.of("age", 33)));
+    }
+
+    @Test
+    @DisplayName("Test columnar repository - save of an existing person checks its version")
+    void testSaveExisting() {
+        // Arrange
+        ColumnarPersonRepository repository = new ColumnarPersonRepository();
+        Person saved = repository.save(new Person(null, "Jane", "Doe", "jane@example.com", null, null, 25));
+        Person stale = new Person(saved.getId(), "Stale", "Doe", "jane@example.com", null, null, 25);
+        stale.setVersion(0L);
+        saved.setFirstName("Janet");
+
+        // Act
+        repository.save(saved);
+
+        // Assert
+        assertEquals(1L, saved.getVersion());
+        assertEquals("Janet", repository.findViewById(saved.getId()).orElseThrow().firstName());
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> repository.save(stale));
+    }
+
+    @Test
+    @DisplayName("Test columnar repository - email is unique ignoring case and saveAll is all-or-nothing")
+    void testUniqueEmail() {
+        // Arrange
+        ColumnarPersonRepository repository = new ColumnarPersonRepository();
+        Person first = repository.save(new Person(null, "A", "One", "same@example.com", null, null, null));
+        Person other = repository.save(new Person(null, "B", "Two", "other@example.com", null, null, null));
+
+        // Act & Assert
+        assertThrows(DataIntegrityViolationException.class, () -> repository.saveAll(List.of(
+                new Person(null, "C", "Three", "new@example.com", null, null, null),
+                new Person(null, "D", "Four", "SAME@example.com", null, null, null))));
+        assertThrows(DataIntegrityViolationException.class, () -> repository.saveAll(List.of(
+                new Person(null, "E", "Five", "twice@example.com", null, null, null),
+                new Person(null, "F", "Six", "Twice@example.com", null, null, null))));
+        assertThrows(DataIntegrityViolationException.class,
+                () -> repository.patchById(other.getId(), Map.of("email", "Same@Example.com")));
+        assertEquals(2, repository.count());
+
+        // The address is free again once its owner changes it.
+        repository.patchById(first.getId(), Map.of("email", "changed@example.com"));
+        assertEquals(1, repository.patchById(other.getId(), Map.of("email", "same@example.com")));
+        assertEquals("same@example.com",
+                repository.searchViews(new PersonSearch("SAME@example.com", null, null, null), null, Limit.of(10))
+                        .get(0).email());
+    }
+
+    @Test
+    @DisplayName("Test columnar repository - email index stays exact while emails change and persons go")
+    void testEmailIndexChurn() {
+        // Arrange
+        ColumnarPersonRepository repository = new ColumnarPersonRepository();
+        Random random = new Random(42);
+        Map<Long, String> expected = new HashMap<>();
+        for (int i = 0; i < 500; i++) {
+            Person person = repository.save(new Person(null, "P", "Q", "p" + i + "@example.com", null, null, null));
+            expected.put(person.getId(), person.getEmail());
+        }
+
+        // Act
+        List<Long> ids = new ArrayList<>(expected.keySet());
+        for (int i = 0; i < 2000; i++) {
+            Long id = ids.get(random.nextInt(ids.size()));
+            if (!expected.containsKey(id)) {
+                continue;
+            }
+            if (random.nextInt(4) == 0) {
+                repository.removeById(id);
+                expected.remove(id);
+            } else {
+                String email = "q" + i + "@example.com";
+                repository.patchById(id, Map.of("email", email));
+                expected.put(id, email);
+            }
+        }
+
+        // Assert
+        expected.forEach((id, email) -> assertEquals(List.of(id),
+                repository.searchViews(new PersonSearch(email.toUpperCase(), null, null, null), null, Limit.of(1))
+                        .stream().map(PersonView::id).toList()));
+        for (int i = 0; i < 500; i++) {
+            String replaced = "p" + i + "@example.com";
+            if (!expected.containsValue(replaced)) {
+                assertEquals(List.of(), repository.searchViews(new PersonSearch(replaced, null, null, null), null,
+                        Limit.of(1)));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Test columnar repository - keyset pages, lookups and sorting")
+    void testReads() {
+        // Arrange
+        ColumnarPersonRepository repository = new ColumnarPersonRepository();
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(repository.save(new Person(null, "P" + i, "L" + (4 - i), "p" + i + "@example.com",
+                    null, null, 20 + i)).getId());
+        }
+        repository.removeById(ids.get(1));
+
+        // Act & Assert
+        assertEquals(List.of(ids.get(2), ids.get(3)), repository.findViewsAfterId(ids.get(0), Limit.of(2)).stream()
+                .map(PersonView::id).toList());
+        assertEquals(List.of(ids.get(4), ids.get(0)), repository.findViewsByIdIn(List.of(ids.get(4), ids.get(1), ids.get(0), 999L))
+                .stream().map(PersonView::id).toList());
+        assertEquals(List.of(Map.of("id", ids.get(3), "age", 23)),
+                repository.findFieldsByIdIn(List.of("id", "age"), List.of(ids.get(3))));
+        assertEquals(List.of("L0", "L1", "L2", "L4"), repository.searchViews(new PersonSearch(null, "L", null, null),
+                null, Limit.of(10)).stream().map(PersonView::lastName).toList());
+        try (Stream<Person> all = repository.streamAllByOrderByIdAsc()) {
+            assertEquals(List.of(ids.get(0), ids.get(2), ids.get(3), ids.get(4)), all.map(Person::getId).toList());
+        }
+    }
+
+    @Test
+    @DisplayName("Test columnar repository - search orders by the driving key, resumes after a cursor and counts")
+    void testSearch() {
+        // Arrange
+        ColumnarPersonRepository repository = new ColumnarPersonRepository();
+        repository.saveAll(List.of(
+                new Person(null, "A", "Smyth", "a@example.com", null, null, 40),
+                new Person(null, "B", "Smith", "b@example.com", null, null, 30),
+                new Person(null, "C", "Smith", "c@example.com", null, null, 50),
+                new Person(null, "D", "Jones", "d@example.com", null, null, 30),
+                new Person(null, "E", null, "e@example.com", null, null, null)));
+        PersonSearch byName = new PersonSearch(null, "Sm", null, 45);
+        PersonSearch byAge = new PersonSearch(null, null, 30, null);
+
+        // Act
+        List<PersonView> firstPage = repository.searchViews(byName, null, Limit.of(1));
+        List<PersonView> secondPage = repository.searchViews(byName, byName.after(firstPage.get(0)), Limit.of(5));
+        List<PersonView> ages = repository.searchViews(byAge, null, Limit.of(3));
+
+        // Assert
+        assertEquals(List.of("B"), firstPage.stream().map(PersonView::firstName).toList());
+        assertEquals(List.of("A"), secondPage.stream().map(PersonView::firstName).toList());
+        assertEquals(List.of("B", "D", "A"), ages.stream().map(PersonView::firstName).toList());
+        assertEquals(List.of(), repository.searchViews(new PersonSearch("a@example.com", null, 41, null),
+                null, Limit.of(1)));
+        assertEquals(2, repository.countSearch(byName));
+        assertEquals(4, repository.countSearch(byAge));
+        assertEquals(5, repository.countSearch(new PersonSearch(null, null, null, null)));
+        assertEquals(1, repository.countSearch(new PersonSearch("A@example.com", null, null, null)));
+    }
+
+    @Test
+    @DisplayName("Test columnar repository - log is replayed and keeps assigning new ids")
+    void testReplay() throws IOException {
+        // Arrange
+        Path log = tempDir.resolve("persons.wal");
+        ColumnarPersonRepository repository = new ColumnarPersonRepository(log, false);
+        Person kept = repository.save(new Person(null, "Kept", "Person", "kept@example.com", "1", "Here", 33));
+        repository.patchById(kept.getId(), Map.of("age", 34));
+        Person deleted = repository.save(new Person(null, "Gone", "Person", "gone@example.com", null, null, null));
+        repository.removeById(deleted.getId());
+        repository.close();
+
+        // Act
+        ColumnarPersonRepository reopened = new ColumnarPersonRepository(log, false);
+        Person added = reopened.save(new Person(null, "New", "Person", "gone@example.com", null, null, null));
+
+        // Assert
+        assertEquals(Optional.of(view(kept.getId(), "Kept", "Person", "kept@example.com", "1", "Here", 34, 1L)),
+                reopened.findViewById(kept.getId()));
+        assertEquals(2, reopened.count());
+        assertTrue(added.getId() > deleted.getId());
+        reopened.close();
+    }
+
+    @Test
+    @DisplayName("Test columnar repository - a torn record at the end of the log is discarded")
+    void testTornTail() throws IOException {
+        // Arrange
+        Path log = tempDir.resolve("persons.wal");
+        ColumnarPersonRepository repository = new ColumnarPersonRepository(log, false);
+        repository.save(new Person(null, "Whole", "Record", "whole@example.com", null, null, null));
+        repository.close();
+        Files.write(log, new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        // Act
+        ColumnarPersonRepository reopened = new ColumnarPersonRepository(log, false);
+        reopened.save(new Person(null, "After", "Crash", "after@example.com", null, null, null));
+        reopened.close();
+
+        // Assert
+        ColumnarPersonRepository again = new ColumnarPersonRepository(log, false);
+        assertEquals(List.of("Whole", "After"), again.findViewsAfterId(0L, Limit.unlimited()).stream()
+                .map(PersonView::firstName).toList());
+        again.close();
+    }
+
+    @Test
+    @DisplayName("Test columnar repository - compaction and checkpoint keep every live person")
+    void testCompactionAndCheckpoint() throws IOException {
+        // Arrange
+        Path log = tempDir.resolve("persons.wal");
+        ColumnarPersonRepository repository = new ColumnarPersonRepository(log, false);
+        List<Person> persons = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            persons.add(new Person(null, "First" + i % 10, "Last" + i % 100, "p" + i + "@example.com", null, null, i % 90));
+        }
+        repository.saveAll(persons);
+        List<Long> deleted = persons.stream().filter(p -> p.getId() % 3 != 0).map(Person::getId).toList();
+        long sizeBefore = Files.size(log);
+
+        // Act
+        deleted.forEach(repository::removeById);
+        repository.checkpoint();
+
+        // Assert
+        assertEquals(1000, repository.count());
+        assertTrue(Files.size(log) < sizeBefore);
+        Person sample = persons.stream().filter(p -> p.getId() % 3 == 0).skip(500).findFirst().orElseThrow();
+        assertEquals(sample.getEmail(), repository.findViewById(sample.getId()).orElseThrow().email());
+        assertEquals(sample.getId(), repository.searchViews(new PersonSearch(sample.getEmail(), null, null, null),
+                null, Limit.of(1)).get(0).id());
+        assertFalse(repository.existsById(deleted.get(0)));
+        repository.close();
+
+        ColumnarPersonRepository reopened = new ColumnarPersonRepository(log, false);
+        assertEquals(1000, reopened.count());
+        reopened.close();
+    }
+
+    @Test
+    @DisplayName("Test columnar repository - a failed checkpoint keeps appending to the old log")
+    void testFailedCheckpoint() throws IOException {
+        // Arrange
+        Path log = tempDir.resolve("persons.wal");
+        ColumnarPersonRepository repository = new ColumnarPersonRepository(log, false);
+        repository.save(new Person(null, "Before", "Checkpoint", "before@example.com", null, null, null));
+        Files.createDirectory(tempDir.resolve("persons.wal.next"));
+
+        // Act
+        assertThrows(IOException.class, repository::checkpoint);
+        repository.save(new Person(null, "After", "Checkpoint", "after@example.com", null, null, null));
+        repository.close();
+
+        // Assert
+        ColumnarPersonRepository reopened = new ColumnarPersonRepository(log, false);
+        assertEquals(List.of("Before", "After"), reopened.findViewsAfterId(0L, Limit.unlimited()).stream()
+                .map(PersonView::firstName).toList());
+        reopened.close();
+    }
+
+    @Test
+    @DisplayName("Test columnar repository - bounded search pages match a full sort")
+    void testSearchPagesMatchFullSort() {
+        // Arrange
+        ColumnarPersonRepository repository = new ColumnarPersonRepository();
+        Random random = new Random(7);
+        List<Person> persons = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            persons.add(new Person(null, "P", "L" + random.nextInt(50), null, null, null,
+                    random.nextInt(10) == 0 ? null : random.nextInt(100)));
+        }
+        repository.saveAll(persons);
+        PersonSearch byAge = new PersonSearch(null, null, 20, 60);
+        List<Long> expected = repository.findViewsAfterId(0L, Limit.unlimited()).stream()
+                .filter(view -> view.age() != null && view.age() >= 20 && view.age() <= 60)
+                .sorted(Comparator.comparing(PersonView::age).thenComparing(PersonView::id))
+                .map(PersonView::id)
+                .toList();
+
+        // Act
+        List<Long> paged = new ArrayList<>();
+        PersonSearch.After after = null;
+        for (int size = 1; paged.size() < expected.size(); size = size * 2 + 1) {
+            List<PersonView> page = repository.searchViews(byAge, after, Limit.of(size));
+            page.forEach(view -> paged.add(view.id()));
+            after = byAge.after(page.get(page.size() - 1));
+        }
+
+        // Assert
+        assertEquals(expected, paged);
+        assertEquals(expected.size(), repository.countSearch(byAge));
+    }
+
+    private static PersonView view(Long id, String firstName, String lastName, String email, String phoneNumber,
+                                    String address, Integer age, Long version) {
+        return new PersonView(id, firstName, lastName, email, phoneNumber, address, age, version);
+    }
+}
@@ -1,20 +1,28 @@
 package com.example.github.demo.repository;
 
+import com.example.github.demo.config.SecondLevelCacheConfig;
 import com.example.github.demo.model.Person;
+import com.example.github.demo.model.PersonView;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 @DataJpaTest
+@Import(SecondLevelCacheConfig.class)
 @ActiveProfiles("test")
 class PersonRepositoryTest {
 
@@ -124,4 +132,187 @@ class PersonRepositoryTest {
         
         assertEquals(initialCount + 1, personRepository.count());
     }
+
+    @Test
+    @DisplayName("Test keyset page of views after ID")
+    void testFindByIdGreaterThan() {
+        Person person1 = personRepository.save(new Person(null, "A", "One", "a@example.com", "1", "addr1", 20));
+        Person person2 = personRepository.save(new Person(null, "B", "Two", "b@example.com", "2", "addr2", 21));
+        Person person3 = personRepository.save(new Person(null, "C", "Three", "c@example.com", "3", "addr3", 22));
+
+        List<PersonView> firstPage = personRepository.findViewsAfterId(person1.getId() - 1, Limit.of(2));
+        assertEquals(List.of(person1.getId(), person2.getId()), firstPage.stream().map(PersonView::id).toList());
+        assertEquals("One", firstPage.get(0).lastName());
+
+        List<PersonView> secondPage = personRepository.findViewsAfterId(person2.getId(), Limit.of(2));
+        assertEquals(List.of(person3.getId()), secondPage.stream().map(PersonView::id).toList());
+    }
+
+    @Test
+    @DisplayName("Test update by ID and version in one statement")
+    void testUpdateByIdAndVersion() {
+        Person savedPerson = personRepository.save(testPerson);
+        Person details = new Person(null, "Jane", "Smith", "jane@example.com", "456", "addr2", 25);
+
+        assertEquals(0, personRepository.updateByIdAndVersion(savedPerson.getId(), 7L, details));
+        assertEquals(1, personRepository.updateByIdAndVersion(savedPerson.getId(), 0L, details));
+        assertEquals(0, personRepository.updateByIdAndVersion(999_999L, 0L, details));
+
+        Person reloaded = personRepository.findById(savedPerson.getId()).orElseThrow();
+        assertEquals("Jane", reloaded.getFirstName());
+        assertEquals("addr2", reloaded.getAddress());
+        assertEquals(25, reloaded.getAge());
+    }
+
+    @Test
+    @DisplayName("Test patch by ID only writes given columns")
+    void testPatchById() {
+        Person savedPerson = personRepository.save(testPerson);
+        Map<String, Object> changes = new HashMap<>();
+        changes.put("lastName", "Patched");
+        changes.put("phoneNumber", null);
+
+        assertEquals(1, personRepository.patchById(savedPerson.getId(), changes));
+        assertEquals(0, personRepository.patchById(999_999L, changes));
+
+        Person reloaded = personRepository.findById(savedPerson.getId()).orElseThrow();
+        assertEquals("John", reloaded.getFirstName());
+        assertEquals("Patched", reloaded.getLastName());
+        assertNull(reloaded.getPhoneNumber());
+        assertEquals(30, reloaded.getAge());
+    }
+
+    @Test
+    @DisplayName("Test patch by ID returns the version it produced")
+    void testPatchByIdReturningVersion() {
+        Person savedPerson = personRepository.save(testPerson);
+        Map<String, Object> changes = new HashMap<>();
+        changes.put("email", "Patched@Example.com");
+        changes.put("age", null);
+
+        assertEquals(Optional.of(1L), personRepository.patchByIdReturningVersion(savedPerson.getId(), changes));
+        assertEquals(Optional.of(2L),
+                personRepository.patchByIdReturningVersion(savedPerson.getId(), Map.of("age", 31)));
+        assertEquals(Optional.empty(), personRepository.patchByIdReturningVersion(999_999L, changes));
+
+        PersonView reloaded = personRepository.findViewById(savedPerson.getId()).orElseThrow();
+        assertEquals("Patched@Example.com", reloaded.email());
+        assertEquals(31, reloaded.age());
+        assertEquals(2L, reloaded.version());
+        assertEquals(1L, personRepository.countSearch(new PersonSearch("patched@example.com", null, null, null)));
+    }
+
+    @Test
+    @DisplayName("Test remove by ID in one statement")
+    void testRemoveById() {
+        Person savedPerson = personRepository.save(testPerson);
+
+        assertEquals(1, personRepository.removeById(savedPerson.getId()));
+        assertEquals(0, personRepository.removeById(savedPerson.getId()));
+        assertFalse(personRepository.existsById(savedPerson.getId()));
+    }
+
+    @Test
+    @DisplayName("Test conditional writes only apply to the current version")
+    void testVersionedWrites() {
+        Person savedPerson = personRepository.save(testPerson);
+        Long id = savedPerson.getId();
+        assertEquals(Optional.of(0L), personRepository.findVersionById(id));
+
+        assertEquals(1, personRepository.updateByIdAndVersion(id, 0L, testPerson));
+        assertEquals(0, personRepository.updateByIdAndVersion(id, 0L, testPerson));
+        assertEquals(Optional.of(1L), personRepository.findVersionById(id));
+
+        assertEquals(1, personRepository.patchById(id, Map.of("age", 31), 1L));
+        assertEquals(0, personRepository.patchById(id, Map.of("age", 32), 1L));
+        assertEquals(Optional.of(2L), personRepository.findVersionById(id));
+
+        assertEquals(0, personRepository.removeByIdAndVersion(id, 1L));
+        assertEquals(1, personRepository.removeByIdAndVersion(id, 2L));
+        assertEquals(Optional.empty(), personRepository.findVersionById(id));
+    }
+
+    @Test
+    @DisplayName("Test view projections by ID and by IDs")
+    void testViewProjections() {
+        Person savedPerson = personRepository.save(testPerson);
+
+        PersonView view = personRepository.findViewById(savedPerson.getId()).orElseThrow();
+        assertEquals(PersonView.of(savedPerson), view);
+        assertFalse(personRepository.findViewById(999_999L).isPresent());
+
+        List<PersonView> views = personRepository.findViewsByIdIn(List.of(savedPerson.getId(), 999_999L));
+        assertEquals(List.of(view), views);
+    }
+
+    @Test
+    @DisplayName("Test field projections select only the requested attributes")
+    void testFieldProjections() {
+        Person savedPerson = personRepository.save(testPerson);
+        List<String> fields = List.of("id", "firstName", "email");
+
+        Map<String, Object> row = personRepository.findFieldsById(fields, savedPerson.getId()).orElseThrow();
+        assertEquals(fields, List.copyOf(row.keySet()));
+        assertEquals("John", row.get("firstName"));
+        assertFalse(personRepository.findFieldsById(fields, 999_999L).isPresent());
+
+        List<Map<String, Object>> page = personRepository.findFieldsAfterId(fields, 0L, Limit.of(10));
+        assertEquals(List.of(row), page);
+        assertEquals(List.of(row), personRepository.findFieldsByIdIn(fields, List.of(savedPerson.getId(), 999_999L)));
+    }
+
+    @Test
+    @DisplayName("Test search by email ignores case")
+    void testSearchByEmail() {
+        Person savedPerson = personRepository.save(testPerson);
+
+        List<PersonView> found = personRepository.searchViews(
+                new PersonSearch("John.Doe@Example.COM", null, null, null), null, Limit.of(10));
+
+        assertEquals(List.of(PersonView.of(savedPerson)), found);
+        assertTrue(personRepository.searchViews(
+                new PersonSearch("john@example.com", null, null, null), null, Limit.of(10)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Test search by last name prefix and age pages in key order")
+    void testSearchKeysetOrder() {
+        Person smithOld = personRepository.save(new Person(null, "A", "Smith", "a@example.com", null, null, 60));
+        Person smithson = personRepository.save(new Person(null, "B", "Smithson", "b@example.com", null, null, 20));
+        Person smithYoung = personRepository.save(new Person(null, "C", "Smith", "c@example.com", null, null, 25));
+        personRepository.save(new Person(null, "D", "Smyth", "d@example.com", null, null, 40));
+
+        PersonSearch byName = new PersonSearch(null, "Smith", null, null);
+        List<PersonView> firstPage = personRepository.searchViews(byName, null, Limit.of(2));
+        assertEquals(List.of(smithOld.getId(), smithYoung.getId()), firstPage.stream().map(PersonView::id).toList());
+        List<PersonView> secondPage = personRepository.searchViews(byName, byName.after(firstPage.get(1)), Limit.of(2));
+        assertEquals(List.of(smithson.getId()), secondPage.stream().map(PersonView::id).toList());
+
+        PersonSearch byAge = new PersonSearch(null, null, 20, 40);
+        List<PersonView> ages = personRepository.searchViews(byAge, null, Limit.of(10));
+        assertEquals(List.of(20, 25, 40), ages.stream().map(PersonView::age).toList());
+        List<PersonView> afterFirst = personRepository.searchViews(byAge, byAge.after(ages.get(0)), Limit.of(10));
+        assertEquals(ages.subList(1, 3), afterFirst);
+
+        PersonSearch combined = new PersonSearch(null, "Smith", 21, null);
+        assertEquals(List.of(smithOld.getId(), smithYoung.getId()),
+                personRepository.searchViews(combined, null, Limit.of(10)).stream().map(PersonView::id).toList());
+    }
+
+    @Test
+    @DisplayName("Test prefix upper bound covers every string with the prefix")
+    void testPrefixUpperBound() {
+        assertEquals("Smiti", PersonSearch.prefixUpperBound("Smith"));
+        assertEquals("b", PersonSearch.prefixUpperBound("a" + Character.MAX_VALUE));
+        assertNull(PersonSearch.prefixUpperBound(String.valueOf(Character.MAX_VALUE)));
+    }
+
+    @Test
+    @DisplayName("Test email is unique regardless of case")
+    void testEmailUnique() {
+        personRepository.saveAndFlush(testPerson);
+        Person duplicate = new Person(null, "Other", "Person", "JOHN.DOE@example.com", null, null, null);
+
+        assertThrows(DataIntegrityViolationException.class, () -> personRepository.saveAndFlush(duplicate));
+    }
 }
@@ -0,0 +1,131 @@
+package com.example.github.demo.service;
+
+import com.example.github.demo.model.PersonView;
+import com.example.github.demo.repository.PersonRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CoalescingPersonLoaderTest {
+
+    @Mock
+    private PersonRepository personRepository;
+
+    private CoalescingPersonLoader loader;
+
+    private final ExecutorService callers = Executors.newFixedThreadPool(16);
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+        if (loader != null) {
+            loader.destroy();
+        }
+    }
+
+    @Test
+    @DisplayName("Test concurrent lookups share one IN query")
+    void testConcurrentLookupsCoalesce() throws Exception {
+        // Arrange
+        loader = new CoalescingPersonLoader(personRepository, Duration.ofMillis(200), 100, 2);
+        when(personRepository.findViewsByIdIn(anyList())).thenAnswer(invocation -> {
+            List<Long> ids = invocation.getArgument(0);
+            return ids.stream().filter(id -> id % 2 == 0).map(CoalescingPersonLoaderTest::person).toList();
+        });
+
+        // Act
+        List<Future<Optional<PersonView>>> results = loadConcurrently(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L);
+
+        // Assert
+        for (int i = 0; i < results.size(); i++) {
+            Optional<PersonView> person = results.get(i).get(5, TimeUnit.SECONDS);
+            long id = i + 1;
+            assertEquals(id % 2 == 0, person.isPresent());
+            person.ifPresent(p -> assertEquals(id, p.id()));
+        }
+        verify(personRepository, times(1)).findViewsByIdIn(anyList());
+    }
+
+    @Test
+    @DisplayName("Test duplicate in-flight ids are loaded once")
+    void testSingleFlight() throws Exception {
+        // Arrange
+        loader = new CoalescingPersonLoader(personRepository, Duration.ofMillis(200), 100, 2);
+        when(personRepository.findViewsByIdIn(List.of(7L))).thenReturn(List.of(person(7L)));
+
+        // Act
+        List<Future<Optional<PersonView>>> results = loadConcurrently(7L, 7L, 7L, 7L, 7L);
+
+        // Assert
+        for (Future<Optional<PersonView>> result : results) {
+            assertEquals(7L, result.get(5, TimeUnit.SECONDS).orElseThrow().id());
+        }
+        verify(personRepository, times(1)).findViewsByIdIn(List.of(7L));
+    }
+
+    @Test
+    @DisplayName("Test a full batch is dispatched without waiting for the window")
+    void testMaxBatchSizeDispatchesEarly() throws Exception {
+        // Arrange
+        loader = new CoalescingPersonLoader(personRepository, Duration.ofSeconds(30), 2, 2);
+        when(personRepository.findViewsByIdIn(anyList())).thenReturn(List.of());
+
+        // Act
+        List<Future<Optional<PersonView>>> results = loadConcurrently(1L, 2L);
+
+        // Assert
+        for (Future<Optional<PersonView>> result : results) {
+            assertTrue(result.get(5, TimeUnit.SECONDS).isEmpty());
+        }
+    }
+
+    @Test
+    @DisplayName("Test query failures reach every caller of the batch")
+    void testFailurePropagates() {
+        // Arrange
+        loader = new CoalescingPersonLoader(personRepository, Duration.ofMillis(1), 100, 1);
+        when(personRepository.findViewsByIdIn(anyList())).thenThrow(new IllegalStateException("database down"));
+
+        // Act & Assert
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () -> loader.load(1L));
+        assertEquals("database down", ex.getMessage());
+    }
+
+    private List<Future<Optional<PersonView>>> loadConcurrently(Long... ids) throws InterruptedException {
+        CountDownLatch ready = new CountDownLatch(ids.length);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Optional<PersonView>>> results = new ArrayList<>();
+        for (Long id : ids) {
+            results.add(callers.submit(() -> {
+                ready.countDown();
+                start.await();
+                return loader.load(id);
+            }));
+        }
+        ready.await();
+        start.countDown();
+        return results;
+    }
+
+    private static PersonView person(Long id) {
+        return new PersonView(id, "Loaded", "Person" + id, null, null, null, null, 0L);
+    }
+}
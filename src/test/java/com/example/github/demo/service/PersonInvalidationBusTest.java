@@ -0,0 +1,123 @@
+package com.example.github.demo.service;
+
+import com.example.github.demo.config.CacheConfig;
+import com.example.github.demo.model.PersonView;
+import com.example.github.demo.repository.PersonRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.io.IOException;
+import java.net.DatagramSocket;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class PersonInvalidationBusTest {
+
+    private PersonInvalidationBus first;
+    private PersonInvalidationBus second;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (first != null) {
+            first.destroy();
+        }
+        if (second != null) {
+            second.destroy();
+        }
+    }
+
+    @Test
+    @DisplayName("Test invalidation datagrams - round trip, split when full, own and malformed ones ignored")
+    void testEncodeDecode() {
+        // Arrange
+        Map<Long, Long> events = new LinkedHashMap<>();
+        for (long id = 1; id <= PersonInvalidationBus.MAX_EVENTS_PER_DATAGRAM + 1; id++) {
+            events.put(id, id * 10);
+        }
+        events.put(0L, PersonInvalidationBus.ANY_VERSION);
+
+        // Act
+        List<ByteBuffer> datagrams = PersonInvalidationBus.encode(7L, events);
+
+        // Assert
+        assertEquals(2, datagrams.size());
+        assertTrue(datagrams.get(0).remaining() <= PersonInvalidationBus.MAX_DATAGRAM_SIZE);
+        Map<Long, Long> decoded = new LinkedHashMap<>(PersonInvalidationBus.decode(datagrams.get(0).duplicate(), 8L));
+        decoded.putAll(PersonInvalidationBus.decode(datagrams.get(1).duplicate(), 8L));
+        assertEquals(events, decoded);
+        assertEquals(Map.of(), PersonInvalidationBus.decode(datagrams.get(0).duplicate(), 7L));
+        assertEquals(Map.of(), PersonInvalidationBus.decode(ByteBuffer.wrap(new byte[]{1, 2, 3}), 8L));
+        ByteBuffer truncated = datagrams.get(1).duplicate();
+        truncated.limit(truncated.limit() - 1);
+        assertEquals(Map.of(), PersonInvalidationBus.decode(truncated, 8L));
+    }
+
+    @Test
+    @DisplayName("Test invalidation bus - coalesced events evict older cached versions on the peer only")
+    void testPeerEvicts() throws Exception {
+        // Arrange
+        int firstPort = freePort();
+        int secondPort = freePort();
+        List<String> peers = List.of("localhost:" + firstPort, "localhost:" + secondPort);
+        ConcurrentMapCacheManager firstCaches = new ConcurrentMapCacheManager(CacheConfig.PERSONS_CACHE);
+        ConcurrentMapCacheManager secondCaches = new ConcurrentMapCacheManager(CacheConfig.PERSONS_CACHE);
+        PersonRepository personRepository = mock(PersonRepository.class);
+        PersonTextIndex textIndex = mock(PersonTextIndex.class);
+        when(personRepository.findViewsByIdIn(anyList())).thenReturn(List.of(person(1L, 5L)));
+        first = new PersonInvalidationBus(firstCaches, null, personRepository, null, null,
+                "127.0.0.1", firstPort, peers, Duration.ofMillis(50));
+        second = new PersonInvalidationBus(secondCaches, null, personRepository, textIndex, null,
+                "127.0.0.1", secondPort, peers, Duration.ofMillis(50));
+        Cache firstCache = firstCaches.getCache(CacheConfig.PERSONS_CACHE);
+        Cache secondCache = secondCaches.getCache(CacheConfig.PERSONS_CACHE);
+        firstCache.put(2L, person(2L, 1L));
+        secondCache.put(1L, person(1L, 5L));
+        secondCache.put(2L, person(2L, 1L));
+        secondCache.put(3L, person(3L, 0L));
+
+        // Act
+        first.publish(1L, 4L);
+        first.publish(1L, 5L);
+        first.publish(2L, PersonInvalidationBus.ANY_VERSION);
+
+        // Assert
+        await(() -> secondCache.get(2L) == null);
+        verify(textIndex, timeout(5000)).index(person(1L, 5L));
+        verify(textIndex, timeout(5000)).remove(2L);
+        verify(personRepository, times(1)).findViewsByIdIn(List.of(1L, 2L));
+        assertNotNull(secondCache.get(1L), "already holds the written version");
+        assertNotNull(secondCache.get(3L));
+        assertNotNull(firstCache.get(2L), "own datagrams are ignored");
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("Condition not met within 5 seconds");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (DatagramSocket socket = new DatagramSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static PersonView person(Long id, Long version) {
+        return new PersonView(id, "First", "Last", null, null, null, null, version);
+    }
+}
@@ -0,0 +1,283 @@
+package com.example.github.demo.service;
+
+import com.example.github.demo.model.PersonView;
+import com.example.github.demo.repository.PersonRepository;
+import com.example.github.demo.repository.PersonSearch;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PersonSecondaryIndexTest {
+
+    private PersonRepository personRepository;
+    private PersonSecondaryIndex secondaryIndex;
+
+    @BeforeEach
+    void setUp() {
+        personRepository = mock(PersonRepository.class);
+        secondaryIndex = new PersonSecondaryIndex(personRepository, 2);
+    }
+
+    @Test
+    @DisplayName("Test secondary index - last name prefix order with age filter and keyset resume")
+    void testSearchByLastName() {
+        // Arrange
+        secondaryIndex.index(view(5L, "Doe", 30));
+        secondaryIndex.index(view(2L, "Doe", 50));
+        secondaryIndex.index(view(3L, "Dale", 35));
+        secondaryIndex.index(view(4L, "Dunn", null));
+        secondaryIndex.index(view(1L, "Smith", 30));
+        secondaryIndex.index(view(6L, null, 30));
+        PersonSearch byName = new PersonSearch(null, "D", null, null);
+        PersonSearch byNameAndAge = new PersonSearch(null, "D", 30, 40);
+
+        // Act & Assert
+        assertEquals(List.of(3L, 2L, 5L, 4L), secondaryIndex.searchIds(byName, null, 10));
+        assertEquals(List.of(3L, 2L), secondaryIndex.searchIds(byName, null, 2));
+        assertEquals(List.of(5L, 4L), secondaryIndex.searchIds(byName, new PersonSearch.After("Doe", 2L), 10));
+        assertEquals(List.of(3L, 5L), secondaryIndex.searchIds(byNameAndAge, null, 10));
+        assertEquals(List.of(), secondaryIndex.searchIds(new PersonSearch(null, "Do", null, null),
+                new PersonSearch.After("Dunn", 4L), 10));
+    }
+
+    @Test
+    @DisplayName("Test secondary index - age range order and keyset resume")
+    void testSearchByAge() {
+        // Arrange
+        secondaryIndex.index(view(1L, "Smith", 30));
+        secondaryIndex.index(view(2L, "Doe", 25));
+        secondaryIndex.index(view(3L, "Dale", 30));
+        secondaryIndex.index(view(4L, "Dunn", null));
+        secondaryIndex.index(view(5L, "Roe", 70));
+        PersonSearch search = new PersonSearch(null, null, 20, 65);
+
+        // Act & Assert
+        assertEquals(List.of(2L, 1L, 3L), secondaryIndex.searchIds(search, null, 10));
+        assertEquals(List.of(3L), secondaryIndex.searchIds(search, new PersonSearch.After(30, 1L), 10));
+        assertEquals(List.of(5L), secondaryIndex.searchIds(new PersonSearch(null, null, 66, null), null, 10));
+        assertEquals(List.of(), secondaryIndex.searchIds(new PersonSearch(null, null, 40, 30), null, 10));
+    }
+
+    @Test
+    @DisplayName("Test secondary index - counts by name, age, both and in total")
+    void testCount() {
+        // Arrange
+        for (long id = 1; id <= 40; id++) {
+            secondaryIndex.index(view(id, id % 4 == 0 ? "Doe" : "Smith", (int) (20 + id % 10)));
+        }
+        secondaryIndex.index(view(41L, null, null));
+
+        // Act & Assert
+        assertEquals(41, secondaryIndex.count(new PersonSearch(null, null, null, null)));
+        assertEquals(10, secondaryIndex.count(new PersonSearch(null, "Do", null, null)));
+        assertEquals(12, secondaryIndex.count(new PersonSearch(null, null, 20, 22)));
+        // id % 4 == 0 and id % 10 in 0..2: 20, 40 (age 20), 12, 32 (age 22)
+        assertEquals(4, secondaryIndex.count(new PersonSearch(null, "Doe", 20, 22)));
+        assertEquals(4, secondaryIndex.count(new PersonSearch(null, "D", null, 22)));
+        assertEquals(8, secondaryIndex.count(new PersonSearch(null, "Smi", 20, 22)));
+        assertEquals(0, secondaryIndex.count(new PersonSearch(null, "X", null, null)));
+    }
+
+    @Test
+    @DisplayName("Test secondary index - updates, patches and removes move ids between keys")
+    void testWrites() {
+        // Arrange
+        secondaryIndex.index(view(1L, "Doe", 30));
+        secondaryIndex.index(view(2L, "Doe", 30));
+        Map<String, Object> changes = new HashMap<>();
+        changes.put("lastName", "Roe");
+        changes.put("email", "roe@example.com");
+
+        // Act
+        secondaryIndex.index(view(1L, "Doe", 45));
+        secondaryIndex.patch(2L, changes, 1L);
+        secondaryIndex.patch(2L, Map.of("age", 31), 2L);
+        secondaryIndex.patch(9L, Map.of("age", 31), 1L);
+
+        // Assert
+        assertEquals(List.of(1L), secondaryIndex.searchIds(new PersonSearch(null, "Doe", null, null), null, 10));
+        assertEquals(List.of(2L), secondaryIndex.searchIds(new PersonSearch(null, "Roe", 31, 31), null, 10));
+        assertEquals(List.of(), secondaryIndex.searchIds(new PersonSearch(null, null, 30, 30), null, 10));
+        assertEquals(2, secondaryIndex.count(new PersonSearch(null, null, null, null)));
+
+        secondaryIndex.remove(1L);
+        secondaryIndex.remove(1L);
+        assertEquals(List.of(), secondaryIndex.searchIds(new PersonSearch(null, "D", null, null), null, 10));
+        assertEquals(1, secondaryIndex.count(new PersonSearch(null, null, null, null)));
+    }
+
+    @Test
+    @DisplayName("Test secondary index - out-of-order writes keep the newest version")
+    void testOutOfOrderWrites() {
+        // Arrange
+        secondaryIndex.index(view(1L, "Doe", 30, 0L));
+        secondaryIndex.index(view(2L, "Doe", 30, 0L));
+        when(personRepository.findViewById(1L)).thenReturn(Optional.of(view(1L, "Roe", 32, 2L)));
+
+        // Act
+        secondaryIndex.index(view(2L, "Roe", 40, 3L));
+        secondaryIndex.index(view(2L, "Poe", 35, 2L));
+        secondaryIndex.patch(2L, Map.of("age", 36), 3L);
+        secondaryIndex.patch(1L, Map.of("age", 32), 2L);
+        secondaryIndex.patch(1L, Map.of("lastName", "Roe"), 1L);
+        secondaryIndex.remove(3L);
+        secondaryIndex.index(view(3L, "Late", 20, 0L));
+
+        // Assert
+        assertEquals(List.of(1L, 2L), secondaryIndex.searchIds(new PersonSearch(null, "Roe", null, null), null, 10));
+        assertEquals(List.of(2L), secondaryIndex.searchIds(new PersonSearch(null, null, 40, 40), null, 10));
+        assertEquals(List.of(1L), secondaryIndex.searchIds(new PersonSearch(null, null, 32, 32), null, 10));
+        assertEquals(List.of(), secondaryIndex.searchIds(new PersonSearch(null, "Late", null, null), null, 10));
+        verify(personRepository).findViewById(1L);
+    }
+
+    @Test
+    @DisplayName("Test secondary index - answers only once built and never by email")
+    void testCanAnswer() {
+        // Arrange
+        when(personRepository.findViewsAfterId(0L, Limit.of(2))).thenReturn(List.of());
+        PersonSearch byAge = new PersonSearch(null, null, 18, null);
+        assertFalse(secondaryIndex.canAnswer(byAge));
+
+        // Act
+        secondaryIndex.rebuild();
+
+        // Assert
+        assertTrue(secondaryIndex.isReady());
+        assertTrue(secondaryIndex.canAnswer(byAge));
+        assertFalse(secondaryIndex.canAnswer(new PersonSearch("a@example.com", null, 18, null)));
+    }
+
+    @Test
+    @DisplayName("Test secondary index - rebuild pages through every person and keeps concurrent writes")
+    void testRebuild() {
+        // Arrange
+        secondaryIndex.index(view(99L, "Gone", 20));
+        when(personRepository.findViewsAfterId(0L, Limit.of(2))).thenAnswer(invocation -> {
+            // Committed after the rebuild read its page.
+            secondaryIndex.index(view(1L, "King", 36));
+            secondaryIndex.remove(2L);
+            return List.of(view(1L, "Lovelace", 36), view(2L, "Turing", 41));
+        });
+        when(personRepository.findViewsAfterId(2L, Limit.of(2))).thenReturn(List.of(view(3L, "Hopper", 85)));
+
+        // Act
+        secondaryIndex.rebuild();
+
+        // Assert
+        assertEquals(List.of(1L), secondaryIndex.searchIds(new PersonSearch(null, "K", null, null), null, 10));
+        assertEquals(List.of(), secondaryIndex.searchIds(new PersonSearch(null, "Lovelace", null, null), null, 10));
+        assertEquals(List.of(1L, 3L), secondaryIndex.searchIds(new PersonSearch(null, null, 0, null), null, 10));
+        verify(personRepository, never()).findViewsAfterId(3L, Limit.of(2));
+    }
+
+    @Test
+    @DisplayName("Test secondary index - check reports missing, mismatched and stale persons")
+    void testCheck() {
+        // Arrange
+        secondaryIndex.index(view(1L, "Doe", 30));
+        secondaryIndex.index(view(2L, "Roe", 40));
+        secondaryIndex.index(view(7L, "Gone", null));
+        when(personRepository.findViewsAfterId(0L, Limit.of(2)))
+                .thenReturn(List.of(view(1L, "Doe", 30), view(2L, "Roe", 41)));
+        when(personRepository.findViewsAfterId(2L, Limit.of(2))).thenReturn(List.of(view(3L, "New", 20)));
+
+        // Act
+        PersonSecondaryIndex.Check check = secondaryIndex.check();
+
+        // Assert
+        assertEquals(new PersonSecondaryIndex.Check(3, 3, 1, 1, 1), check);
+        assertFalse(check.consistent());
+    }
+
+    @Test
+    @DisplayName("Test primitive collections - sorted long set and long to int map")
+    void testPrimitiveCollections() {
+        // Arrange
+        SortedLongSet set = new SortedLongSet();
+        LongIntHashMap map = new LongIntHashMap();
+
+        // Act
+        for (long value = 1000; value > 0; value--) {
+            set.add(value * 3);
+            map.put(value * 3, (int) value);
+        }
+        for (long value = 1; value <= 1000; value += 2) {
+            set.remove(value * 3);
+            map.remove(value * 3);
+        }
+
+        // Assert
+        assertEquals(500, set.size());
+        assertEquals(List.of(6L, 12L, 18L), first(set, Long.MIN_VALUE, 3));
+        assertFalse(set.add(6L));
+        assertFalse(set.remove(9L));
+        assertEquals(List.of(12L), first(set, 6L, 1));
+        assertEquals(List.of(12L), first(set, 7L, 1));
+        assertEquals(List.of(), first(set, 3000L, 1));
+        assertEquals(500, map.size());
+        assertEquals(2, map.get(6L, -1));
+        assertEquals(-1, map.get(9L, -1));
+        assertFalse(map.containsKey(0L));
+        for (long value = 2; value <= 1000; value += 2) {
+            assertEquals((int) value, map.get(value * 3, -1));
+        }
+    }
+
+    @Test
+    @DisplayName("Test sorted long set - values stay ordered across chunk splits and removals")
+    void testSortedLongSetChunks() {
+        // Arrange
+        SortedLongSet set = new SortedLongSet();
+        TreeSet<Long> expected = new TreeSet<>();
+        Random random = new Random(42);
+
+        // Act
+        for (int i = 0; i < 20 * SortedLongSet.MAX_CHUNK; i++) {
+            long value = random.nextInt(10 * SortedLongSet.MAX_CHUNK);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), set.remove(value));
+            } else {
+                assertEquals(expected.add(value), set.add(value));
+            }
+        }
+
+        // Assert
+        assertEquals(expected.size(), set.size());
+        assertEquals(List.copyOf(expected), first(set, Long.MIN_VALUE, Integer.MAX_VALUE));
+        long middle = expected.first() + (expected.last() - expected.first()) / 2;
+        assertEquals(List.copyOf(expected.tailSet(middle, false)), first(set, middle, Integer.MAX_VALUE));
+        expected.forEach(set::remove);
+        assertTrue(set.isEmpty());
+        assertEquals(List.of(), first(set, Long.MIN_VALUE, 1));
+    }
+
+    private static List<Long> first(SortedLongSet set, long after, int limit) {
+        List<Long> values = new ArrayList<>();
+        set.forEachAfter(after, value -> {
+            values.add(value);
+            return values.size() < limit;
+        });
+        return values;
+    }
+
+    private static PersonView view(Long id, String lastName, Integer age) {
+        return view(id, lastName, age, 0L);
+    }
+
+    private static PersonView view(Long id, String lastName, Integer age, long version) {
+        return new PersonView(id, "First", lastName, null, null, null, age, version);
+    }
+}
@@ -1,7 +1,15 @@
 package com.example.github.demo.service;
 
+import com.example.github.demo.exception.InvalidFieldsException;
+import com.example.github.demo.exception.InvalidPatchException;
+import com.example.github.demo.exception.InvalidSearchException;
+import com.example.github.demo.exception.LookupLimitExceededException;
+import com.example.github.demo.exception.TextSearchUnavailableException;
+import com.example.github.demo.exception.VersionConflictException;
 import com.example.github.demo.model.Person;
+import com.example.github.demo.model.PersonView;
 import com.example.github.demo.repository.PersonRepository;
+import com.example.github.demo.repository.PersonSearch;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
@@ -9,14 +17,21 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -52,48 +67,361 @@ class PersonServiceTest {
     }
 
     @Test
-    @DisplayName("Test get all persons")
-    void testGetAllPersons() {
+    @DisplayName("Test get persons page - last page")
+    void testGetPersonsPageLastPage() {
         // Arrange
-        List<Person> expectedPersons = Arrays.asList(testPerson, updatedPerson);
-        when(personRepository.findAll()).thenReturn(expectedPersons);
+        when(personRepository.findViewsAfterId(0L, Limit.of(11)))
+                .thenReturn(Arrays.asList(PersonView.of(testPerson)));
 
         // Act
-        List<Person> actualPersons = personService.getAllPersons();
+        PersonPage<PersonView> page = personService.getPersonsPage(null, 10);
 
         // Assert
-        assertEquals(2, actualPersons.size());
-        assertEquals(expectedPersons, actualPersons);
-        verify(personRepository, times(1)).findAll();
+        assertEquals(1, page.persons().size());
+        assertFalse(page.hasNext());
+    }
+
+    @Test
+    @DisplayName("Test get persons page - has next page")
+    void testGetPersonsPageHasNext() {
+        // Arrange
+        Person third = new Person();
+        third.setId(3L);
+        updatedPerson.setId(2L);
+        when(personRepository.findViewsAfterId(0L, Limit.of(3)))
+                .thenReturn(Arrays.asList(PersonView.of(testPerson), PersonView.of(updatedPerson), PersonView.of(third)));
+
+        // Act
+        PersonPage<PersonView> page = personService.getPersonsPage(0L, 2);
+
+        // Assert
+        assertEquals(2, page.persons().size());
+        assertTrue(page.hasNext());
+        assertEquals(2L, page.nextAfterId());
+    }
+
+    @Test
+    @DisplayName("Test get persons page - limit is clamped")
+    void testGetPersonsPageClampsLimit() {
+        // Arrange
+        when(personRepository.findViewsAfterId(anyLong(), any(Limit.class)))
+                .thenReturn(Arrays.asList());
+
+        // Act
+        personService.getPersonsPage(5L, 0);
+        personService.getPersonsPage(5L, 1_000_000);
+
+        // Assert
+        verify(personRepository).findViewsAfterId(5L, Limit.of(2));
+        verify(personRepository).findViewsAfterId(5L, Limit.of(PersonService.MAX_PAGE_SIZE + 1));
+    }
+
+    @Test
+    @DisplayName("Test get persons page - field projection")
+    void testGetPersonsPageWithFields() {
+        // Arrange
+        List<String> fields = List.of("id", "email");
+        when(personRepository.findFieldsAfterId(fields, 0L, Limit.of(2)))
+                .thenReturn(List.of(Map.of("id", 1L, "email", "a@example.com"), Map.of("id", 2L, "email", "b@example.com")));
+
+        // Act
+        PersonPage<Map<String, Object>> page = personService.getPersonsPage(null, 1, fields);
+
+        // Assert
+        assertEquals(1, page.persons().size());
+        assertEquals(1L, page.nextAfterId());
+        verify(personRepository, never()).findViewsAfterId(anyLong(), any(Limit.class));
+    }
+
+    @Test
+    @DisplayName("Test search persons - keyset page from the repository")
+    void testSearchPersons() {
+        // Arrange
+        updatedPerson.setId(2L);
+        PersonSearch search = new PersonSearch(null, "D", null, null);
+        PersonSearch.After after = new PersonSearch.After("Adams", 7L);
+        when(personRepository.searchViews(search, after, Limit.of(2)))
+                .thenReturn(List.of(PersonView.of(testPerson), PersonView.of(updatedPerson)));
+
+        // Act
+        PersonPage<PersonView> page = personService.searchPersons(search, after, 1);
+
+        // Assert
+        assertEquals(List.of(PersonView.of(testPerson)), page.persons());
+        assertEquals(1L, page.nextAfterId());
+        assertEquals(new PersonSearch.After("Doe", 1L), search.after(page.persons().get(0)));
+    }
+
+    @Test
+    @DisplayName("Test search persons - a filter is required and the age range must not be empty")
+    void testSearchPersonsInvalid() {
+        // Act & Assert
+        assertThrows(InvalidSearchException.class,
+                () -> personService.searchPersons(new PersonSearch(null, null, null, null), null, 10));
+        assertThrows(InvalidSearchException.class,
+                () -> personService.searchPersons(new PersonSearch(null, null, 40, 30), null, 10));
+        verifyNoInteractions(personRepository);
+    }
+
+    @Test
+    @DisplayName("Test search persons - ids from the secondary index, stale rows dropped")
+    void testSearchPersonsWithSecondaryIndex() {
+        // Arrange
+        PersonSecondaryIndex secondaryIndex = mock(PersonSecondaryIndex.class);
+        PersonService indexedService = new PersonService(personRepository, null, null, secondaryIndex, null, null);
+        updatedPerson.setId(2L);
+        updatedPerson.setLastName("Dunn");
+        Person renamed = new Person(3L, "Ann", "Smith", null, null, null, 41);
+        PersonSearch search = new PersonSearch(null, "D", null, null);
+        when(secondaryIndex.canAnswer(search)).thenReturn(true);
+        when(secondaryIndex.searchIds(search, null, 3)).thenReturn(List.of(1L, 3L, 2L));
+        when(personRepository.findViewsByIdIn(List.of(1L, 3L, 2L)))
+                .thenReturn(List.of(PersonView.of(updatedPerson), PersonView.of(renamed), PersonView.of(testPerson)));
+
+        // Act
+        PersonPage<PersonView> page = indexedService.searchPersons(search, null, 2);
+
+        // Assert
+        assertEquals(List.of(PersonView.of(testPerson), PersonView.of(updatedPerson)), page.persons());
+        assertNull(page.nextAfterId());
+        verify(personRepository, never()).searchViews(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Test count persons - secondary index when it can answer, COUNT query otherwise")
+    void testCountPersons() {
+        // Arrange
+        PersonSecondaryIndex secondaryIndex = mock(PersonSecondaryIndex.class);
+        PersonService indexedService = new PersonService(personRepository, null, null, secondaryIndex, null, null);
+        PersonSearch byAge = new PersonSearch(null, null, 18, 65);
+        PersonSearch byEmail = new PersonSearch("john.doe@example.com", null, null, null);
+        when(secondaryIndex.canAnswer(byAge)).thenReturn(true);
+        when(secondaryIndex.count(byAge)).thenReturn(42L);
+        when(personRepository.countSearch(byEmail)).thenReturn(1L);
+
+        // Act & Assert
+        assertEquals(42L, indexedService.countPersons(byAge));
+        assertEquals(1L, indexedService.countPersons(byEmail));
+        assertThrows(InvalidSearchException.class,
+                () -> indexedService.countPersons(new PersonSearch(null, null, 40, 30)));
+        verify(personRepository, never()).countSearch(byAge);
+    }
+
+    @Test
+    @DisplayName("Test writes are reported to the secondary index")
+    void testWritesUpdateSecondaryIndex() {
+        // Arrange
+        PersonSecondaryIndex secondaryIndex = mock(PersonSecondaryIndex.class);
+        PersonService indexedService = new PersonService(personRepository, null, null, secondaryIndex, null, null);
+        when(personRepository.save(any(Person.class))).thenReturn(testPerson);
+        when(personRepository.patchByIdReturningVersion(eq(1L), anyMap())).thenReturn(Optional.of(1L));
+        when(personRepository.removeById(1L)).thenReturn(1);
+
+        // Act
+        indexedService.createPerson(testPerson);
+        indexedService.patchPerson(1L, Map.of("age", 31));
+        indexedService.deletePerson(1L);
+
+        // Assert
+        verify(secondaryIndex).index(PersonView.of(testPerson));
+        verify(secondaryIndex).patch(1L, Map.of("age", 31), 1L);
+        verify(secondaryIndex).remove(1L);
+    }
+
+    @Test
+    @DisplayName("Test writes are published to peers with the version they produced")
+    void testWritesPublishInvalidations() {
+        // Arrange
+        PersonInvalidationBus invalidationBus = mock(PersonInvalidationBus.class);
+        PersonService clusteredService = new PersonService(personRepository, null, null, null, invalidationBus, null);
+        when(personRepository.save(any(Person.class))).thenAnswer(invocation -> {
+            Person saved = invocation.getArgument(0);
+            saved.setId(1L);
+            saved.setVersion(0L);
+            return saved;
+        });
+        when(personRepository.updateByIdAndVersion(1L, 0L, updatedPerson)).thenReturn(1);
+        when(personRepository.patchByIdReturningVersion(eq(1L), anyMap())).thenReturn(Optional.of(2L));
+        when(personRepository.removeById(1L)).thenReturn(1);
+
+        // Act
+        clusteredService.createPerson(testPerson);
+        clusteredService.updatePerson(1L, updatedPerson, 0L);
+        clusteredService.patchPerson(1L, Map.of("age", 31));
+        clusteredService.deletePerson(1L);
+
+        // Assert
+        verify(invalidationBus).publish(1L, 0L);
+        verify(invalidationBus).publish(1L, 1L);
+        verify(invalidationBus).publish(1L, 2L);
+        verify(invalidationBus).publish(1L, null);
+    }
+
+    @Test
+    @DisplayName("Test parse fields - id always selected, canonical order")
+    void testParseFields() {
+        assertNull(PersonFields.parse(null));
+        assertNull(PersonFields.parse(" "));
+        assertEquals(List.of("id", "firstName", "email"), PersonFields.parse("email, firstName,,email"));
+        assertThrows(InvalidFieldsException.class, () -> PersonFields.parse("email,version"));
+    }
+
+    @Test
+    @DisplayName("Test get persons by IDs - request order, missing ids listed")
+    void testGetPersonsByIds() {
+        // Arrange
+        updatedPerson.setId(2L);
+        when(personRepository.findViewsByIdIn(List.of(2L, 999L, 1L)))
+                .thenReturn(Arrays.asList(PersonView.of(testPerson), PersonView.of(updatedPerson)));
+
+        // Act
+        PersonLookup<PersonView> result = personService.getPersonsByIds(Arrays.asList(2L, 999L, 1L, 2L, null));
+
+        // Assert
+        assertEquals(List.of(2L, 1L), result.persons().stream().map(PersonView::id).toList());
+        assertEquals(List.of(999L), result.missing());
+        verify(personRepository, times(1)).findViewsByIdIn(anyList());
+    }
+
+    @Test
+    @DisplayName("Test get persons by IDs - chunked IN queries")
+    void testGetPersonsByIdsChunked() {
+        // Arrange
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= 250; id++) {
+            ids.add(id);
+        }
+        when(personRepository.findViewsByIdIn(anyList())).thenReturn(List.of());
+
+        // Act
+        PersonLookup<PersonView> result = personService.getPersonsByIds(ids);
+
+        // Assert
+        assertEquals(250, result.missing().size());
+        verify(personRepository, times(3)).findViewsByIdIn(anyList());
+    }
+
+    @Test
+    @DisplayName("Test get persons by IDs - field projection")
+    void testGetPersonsByIdsWithFields() {
+        // Arrange
+        List<String> fields = List.of("id", "lastName");
+        when(personRepository.findFieldsByIdIn(fields, List.of(2L, 1L)))
+                .thenReturn(List.of(Map.of("id", 1L, "lastName", "Doe")));
+
+        // Act
+        PersonLookup<Map<String, Object>> result = personService.getPersonsByIds(List.of(2L, 1L), fields);
+
+        // Assert
+        assertEquals(List.of(Map.of("id", 1L, "lastName", "Doe")), result.persons());
+        assertEquals(List.of(2L), result.missing());
+    }
+
+    @Test
+    @DisplayName("Test get persons by IDs - limit")
+    void testGetPersonsByIdsLimit() {
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= PersonService.MAX_LOOKUP_IDS + 1; id++) {
+            ids.add(id);
+        }
+
+        assertThrows(LookupLimitExceededException.class, () -> personService.getPersonsByIds(ids));
+        verify(personRepository, never()).findViewsByIdIn(anyList());
     }
 
     @Test
     @DisplayName("Test get person by ID - found")
     void testGetPersonByIdFound() {
         // Arrange
-        when(personRepository.findById(1L)).thenReturn(Optional.of(testPerson));
+        when(personRepository.findViewById(1L)).thenReturn(Optional.of(PersonView.of(testPerson)));
 
         // Act
-        Optional<Person> result = personService.getPersonById(1L);
+        Optional<PersonView> result = personService.getPersonById(1L);
 
         // Assert
         assertTrue(result.isPresent());
-        assertEquals(testPerson, result.get());
-        verify(personRepository, times(1)).findById(1L);
+        assertEquals(PersonView.of(testPerson), result.get());
+        verify(personRepository, times(1)).findViewById(1L);
     }
 
     @Test
     @DisplayName("Test get person by ID - not found")
     void testGetPersonByIdNotFound() {
         // Arrange
-        when(personRepository.findById(999L)).thenReturn(Optional.empty());
+        when(personRepository.findViewById(999L)).thenReturn(Optional.empty());
 
         // Act
-        Optional<Person> result = personService.getPersonById(999L);
+        Optional<PersonView> result = personService.getPersonById(999L);
 
         // Assert
         assertFalse(result.isPresent());
-        verify(personRepository, times(1)).findById(999L);
+        verify(personRepository, times(1)).findViewById(999L);
+    }
+
+    @Test
+    @DisplayName("Test get person by ID - uses the coalescing loader when enabled")
+    void testGetPersonByIdWithLoader() {
+        // Arrange
+        CoalescingPersonLoader loader = mock(CoalescingPersonLoader.class);
+        PersonService coalescingService = new PersonService(personRepository, loader, null, null, null, null);
+        when(loader.load(1L)).thenReturn(Optional.of(PersonView.of(testPerson)));
+
+        // Act
+        Optional<PersonView> result = coalescingService.getPersonById(1L);
+
+        // Assert
+        assertEquals(Optional.of(PersonView.of(testPerson)), result);
+        verify(personRepository, never()).findViewById(anyLong());
+    }
+
+    @Test
+    @DisplayName("Test suggest persons - ranked ids resolved in one query, deleted ones skipped")
+    void testSuggestPersons() {
+        // Arrange
+        PersonTextIndex textIndex = mock(PersonTextIndex.class);
+        PersonService searchService = new PersonService(personRepository, null, textIndex, null, null, null);
+        updatedPerson.setId(2L);
+        when(textIndex.search("jo", PersonService.MAX_SUGGESTIONS)).thenReturn(List.of(2L, 9L, 1L));
+        when(personRepository.findViewsByIdIn(List.of(2L, 9L, 1L)))
+                .thenReturn(List.of(PersonView.of(testPerson), PersonView.of(updatedPerson)));
+
+        // Act
+        List<PersonView> result = searchService.suggestPersons("jo", 1_000);
+
+        // Assert
+        assertEquals(List.of(PersonView.of(updatedPerson), PersonView.of(testPerson)), result);
+        assertThrows(InvalidSearchException.class, () -> searchService.suggestPersons("  ", 10));
+    }
+
+    @Test
+    @DisplayName("Test suggest persons - unavailable without a text index")
+    void testSuggestPersonsDisabled() {
+        // Act & Assert
+        assertThrows(TextSearchUnavailableException.class, () -> personService.suggestPersons("jo", 10));
+        verifyNoInteractions(personRepository);
+    }
+
+    @Test
+    @DisplayName("Test writes are reported to the text index")
+    void testWritesUpdateTextIndex() {
+        // Arrange
+        PersonTextIndex textIndex = mock(PersonTextIndex.class);
+        PersonService searchService = new PersonService(personRepository, null, textIndex, null, null, null);
+        when(personRepository.save(any(Person.class))).thenReturn(testPerson);
+        when(personRepository.patchByIdReturningVersion(eq(1L), anyMap())).thenReturn(Optional.of(1L));
+        when(personRepository.removeById(1L)).thenReturn(1);
+
+        // Act
+        searchService.createPerson(testPerson);
+        searchService.updatePerson(1L, updatedPerson);
+        searchService.patchPerson(1L, Map.of("lastName", "Roe"));
+        searchService.deletePerson(1L);
+
+        // Assert
+        verify(textIndex).index(PersonView.of(testPerson));
+        verify(textIndex).index(PersonView.of(updatedPerson));
+        verify(textIndex).patch(1L, Map.of("lastName", "Roe"), 1L);
+        verify(textIndex).remove(1L);
     }
 
     @Test
@@ -109,15 +437,17 @@ class PersonServiceTest {
         savedPerson.setFirstName("New");
         savedPerson.setLastName("Person");
         
+        newPerson.setId(42L);
         when(personRepository.save(newPerson)).thenReturn(savedPerson);
 
         // Act
-        Person result = personService.createPerson(newPerson);
+        PersonView result = personService.createPerson(newPerson);
 
         // Assert
         assertNotNull(result);
-        assertEquals(1L, result.getId());
-        assertEquals("New", result.getFirstName());
+        assertEquals(1L, result.id());
+        assertEquals("New", result.firstName());
+        assertNull(newPerson.getId());
         verify(personRepository, times(1)).save(newPerson);
     }
 
@@ -125,79 +455,192 @@ class PersonServiceTest {
     @DisplayName("Test update person - found")
     void testUpdatePersonFound() {
         // Arrange
-        when(personRepository.findById(1L)).thenReturn(Optional.of(testPerson));
-        
-        Person updatedPersonWithId = new Person();
-        updatedPersonWithId.setId(1L);
-        updatedPersonWithId.setFirstName("Jane");
-        updatedPersonWithId.setLastName("Smith");
-        updatedPersonWithId.setEmail("jane.smith@example.com");
-        updatedPersonWithId.setPhoneNumber("098-765-4321");
-        updatedPersonWithId.setAddress("456 Elm St");
-        updatedPersonWithId.setAge(25);
-        
-        when(personRepository.save(any(Person.class))).thenReturn(updatedPersonWithId);
+        when(personRepository.patchByIdReturningVersion(eq(1L), anyMap())).thenReturn(Optional.of(4L));
 
         // Act
-        Optional<Person> result = personService.updatePerson(1L, updatedPerson);
+        Optional<PersonView> result = personService.updatePerson(1L, updatedPerson);
 
         // Assert
         assertTrue(result.isPresent());
-        Person actualPerson = result.get();
-        assertEquals("Jane", actualPerson.getFirstName());
-        assertEquals("Smith", actualPerson.getLastName());
-        assertEquals("jane.smith@example.com", actualPerson.getEmail());
-        assertEquals("098-765-4321", actualPerson.getPhoneNumber());
-        assertEquals("456 Elm St", actualPerson.getAddress());
-        assertEquals(25, actualPerson.getAge());
-        
-        verify(personRepository, times(1)).findById(1L);
-        verify(personRepository, times(1)).save(any(Person.class));
+        PersonView actualPerson = result.get();
+        assertEquals(1L, actualPerson.id());
+        assertEquals("Jane", actualPerson.firstName());
+        assertEquals("Smith", actualPerson.lastName());
+        assertEquals("jane.smith@example.com", actualPerson.email());
+        assertEquals("098-765-4321", actualPerson.phoneNumber());
+        assertEquals("456 Elm St", actualPerson.address());
+        assertEquals(25, actualPerson.age());
+        assertEquals(4L, actualPerson.version());
+
+        Map<String, Object> expected = new HashMap<>();
+        expected.put("firstName", "Jane");
+        expected.put("lastName", "Smith");
+        expected.put("email", "jane.smith@example.com");
+        expected.put("phoneNumber", "098-765-4321");
+        expected.put("address", "456 Elm St");
+        expected.put("age", 25);
+        verify(personRepository, times(1)).patchByIdReturningVersion(1L, expected);
+        verify(personRepository, never()).findVersionById(anyLong());
+        verify(personRepository, never()).findById(anyLong());
+        verify(personRepository, never()).save(any(Person.class));
     }
 
     @Test
     @DisplayName("Test update person - not found")
     void testUpdatePersonNotFound() {
         // Arrange
-        when(personRepository.findById(999L)).thenReturn(Optional.empty());
+        when(personRepository.patchByIdReturningVersion(eq(999L), anyMap())).thenReturn(Optional.empty());
 
         // Act
-        Optional<Person> result = personService.updatePerson(999L, updatedPerson);
+        Optional<PersonView> result = personService.updatePerson(999L, updatedPerson);
 
         // Assert
         assertFalse(result.isPresent());
-        verify(personRepository, times(1)).findById(999L);
+        verify(personRepository, times(1)).patchByIdReturningVersion(eq(999L), anyMap());
         verify(personRepository, never()).save(any(Person.class));
     }
 
+    @Test
+    @DisplayName("Test update person - matching version")
+    void testUpdatePersonWithVersion() {
+        // Arrange
+        when(personRepository.updateByIdAndVersion(1L, 3L, updatedPerson)).thenReturn(1);
+
+        // Act
+        Optional<PersonView> result = personService.updatePerson(1L, updatedPerson, 3L);
+
+        // Assert
+        assertTrue(result.isPresent());
+        assertEquals(4L, result.get().version());
+        verify(personRepository, never()).existsById(anyLong());
+    }
+
+    @Test
+    @DisplayName("Test update person - stale version")
+    void testUpdatePersonStaleVersion() {
+        // Arrange
+        when(personRepository.updateByIdAndVersion(1L, 3L, updatedPerson)).thenReturn(0);
+        when(personRepository.existsById(1L)).thenReturn(true);
+
+        // Act & Assert
+        assertThrows(VersionConflictException.class, () -> personService.updatePerson(1L, updatedPerson, 3L));
+    }
+
+    @Test
+    @DisplayName("Test update person - versioned but not found")
+    void testUpdatePersonWithVersionNotFound() {
+        // Arrange
+        when(personRepository.updateByIdAndVersion(999L, 3L, updatedPerson)).thenReturn(0);
+        when(personRepository.existsById(999L)).thenReturn(false);
+
+        // Act & Assert
+        assertFalse(personService.updatePerson(999L, updatedPerson, 3L).isPresent());
+    }
+
+    @Test
+    @DisplayName("Test get person version")
+    void testGetPersonVersion() {
+        // Arrange
+        when(personRepository.findVersionById(1L)).thenReturn(Optional.of(2L));
+
+        // Act & Assert
+        assertEquals(Optional.of(2L), personService.getPersonVersion(1L));
+        verify(personRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    @DisplayName("Test patch person - only given fields are written")
+    void testPatchPerson() {
+        // Arrange
+        Map<String, Object> changes = new HashMap<>();
+        changes.put("firstName", "Patched");
+        changes.put("age", 41L);
+        changes.put("address", null);
+        when(personRepository.patchByIdReturningVersion(eq(1L), anyMap())).thenReturn(Optional.of(1L));
+
+        // Act
+        boolean result = personService.patchPerson(1L, changes);
+
+        // Assert
+        assertTrue(result);
+        Map<String, Object> expected = new HashMap<>();
+        expected.put("firstName", "Patched");
+        expected.put("age", 41);
+        expected.put("address", null);
+        verify(personRepository, times(1)).patchByIdReturningVersion(1L, expected);
+    }
+
+    @Test
+    @DisplayName("Test patch person - not found")
+    void testPatchPersonNotFound() {
+        // Arrange
+        when(personRepository.patchByIdReturningVersion(eq(999L), anyMap())).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertFalse(personService.patchPerson(999L, Map.of("lastName", "Nobody")));
+    }
+
+    @Test
+    @DisplayName("Test patch person - empty patch only checks existence")
+    void testPatchPersonEmpty() {
+        // Arrange
+        when(personRepository.existsById(1L)).thenReturn(true);
+
+        // Act & Assert
+        assertTrue(personService.patchPerson(1L, Map.of()));
+        verify(personRepository, never()).patchByIdReturningVersion(anyLong(), anyMap());
+    }
+
+    @Test
+    @DisplayName("Test patch person - rejects unknown fields and bad values")
+    void testPatchPersonInvalid() {
+        assertThrows(InvalidPatchException.class,
+                () -> personService.patchPerson(1L, Map.of("id", 5)));
+        assertThrows(InvalidPatchException.class,
+                () -> personService.patchPerson(1L, Map.of("age", "old")));
+        assertThrows(InvalidPatchException.class,
+                () -> personService.patchPerson(1L, Map.of("age", 30.5)));
+        verify(personRepository, never()).patchByIdReturningVersion(anyLong(), anyMap());
+    }
+
     @Test
     @DisplayName("Test delete person - found")
     void testDeletePersonFound() {
         // Arrange
-        when(personRepository.findById(1L)).thenReturn(Optional.of(testPerson));
-        doNothing().when(personRepository).delete(testPerson);
+        when(personRepository.removeById(1L)).thenReturn(1);
 
         // Act
         boolean result = personService.deletePerson(1L);
 
         // Assert
         assertTrue(result);
-        verify(personRepository, times(1)).findById(1L);
-        verify(personRepository, times(1)).delete(testPerson);
+        verify(personRepository, times(1)).removeById(1L);
+        verify(personRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    @DisplayName("Test delete person - stale version")
+    void testDeletePersonStaleVersion() {
+        // Arrange
+        when(personRepository.removeByIdAndVersion(1L, 3L)).thenReturn(0);
+        when(personRepository.existsById(1L)).thenReturn(true);
+
+        // Act & Assert
+        assertThrows(VersionConflictException.class, () -> personService.deletePerson(1L, 3L));
     }
 
     @Test
     @DisplayName("Test delete person - not found")
     void testDeletePersonNotFound() {
         // Arrange
-        when(personRepository.findById(999L)).thenReturn(Optional.empty());
+        when(personRepository.removeById(999L)).thenReturn(0);
 
         // Act
         boolean result = personService.deletePerson(999L);
 
         // Assert
         assertFalse(result);
-        verify(personRepository, times(1)).findById(999L);
+        verify(personRepository, times(1)).removeById(999L);
         verify(personRepository, never()).delete(any(Person.class));
     }
 
@@ -205,7 +648,7 @@ class PersonServiceTest {
     @DisplayName("Test PersonService constructor")
     void testConstructor() {
         PersonRepository mockRepo = mock(PersonRepository.class);
-        PersonService service = new PersonService(mockRepo);
+        PersonService service = new PersonService(mockRepo, null, null, null, null, null);
         assertNotNull(service);
     }
 }
@@ -0,0 +1,257 @@
+package com.example.github.demo.service;
+
+import com.example.github.demo.model.PersonView;
+import com.example.github.demo.repository.PersonRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PersonTextIndexTest {
+
+    private PersonRepository personRepository;
+    private PersonTextIndex textIndex;
+
+    @BeforeEach
+    void setUp() {
+        personRepository = mock(PersonRepository.class);
+        textIndex = new PersonTextIndex(personRepository, 2);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        textIndex.destroy();
+    }
+
+    @Test
+    @DisplayName("Test text index - prefix, typo and email part matches")
+    void testMatching() {
+        // Arrange
+        textIndex.index(view(1L, "Margaret", "Thompson", "maggie.t@example.com", "12 Elm Street"));
+        textIndex.index(view(2L, "John", "Smith", "john.smith@example.com", "4 Oak Avenue"));
+
+        // Act & Assert
+        assertEquals(List.of(1L), textIndex.search("thom", 10));
+        assertEquals(List.of(1L), textIndex.search("Tompson", 10));
+        assertEquals(List.of(2L), textIndex.search("smith@", 10));
+        assertEquals(List.of(1L), textIndex.search("maggie", 10));
+        assertEquals(List.of(), textIndex.search("nobody", 10));
+        assertEquals(List.of(), textIndex.search(" .,@ ", 10));
+    }
+
+    @Test
+    @DisplayName("Test text index - every word must match")
+    void testAllWordsMustMatch() {
+        // Arrange
+        textIndex.index(view(1L, "Anna", "Berg", "anna@example.com", null));
+        textIndex.index(view(2L, "Anna", "Stone", "anna.stone@example.com", null));
+
+        // Act & Assert
+        assertEquals(List.of(1L), textIndex.search("anna ber", 10));
+        assertEquals(List.of(2L), textIndex.search("sto ann", 10));
+    }
+
+    @Test
+    @DisplayName("Test text index - exact before prefix before typo, last name before address")
+    void testRanking() {
+        // Arrange
+        textIndex.index(view(1L, "Peter", "Parks", null, null));
+        textIndex.index(view(2L, "Peter", "Parker", null, null));
+        textIndex.index(view(3L, "Peter", "Jones", null, "1 Parker Road"));
+        textIndex.index(view(4L, "Peter", "Parkar", null, null));
+
+        // Act
+        List<Long> ids = textIndex.search("parker", 10);
+
+        // Assert
+        assertEquals(List.of(2L, 3L, 4L), ids.subList(0, 3));
+        assertEquals(List.of(2L), textIndex.search("parker", 1));
+    }
+
+    @Test
+    @DisplayName("Test text index - patch merges text fields, remove drops the person")
+    void testPatchAndRemove() {
+        // Arrange
+        textIndex.index(view(1L, "Jane", "Doe", "jane@example.com", "1 Main Street"));
+        Map<String, Object> changes = new HashMap<>();
+        changes.put("lastName", "Roe");
+        changes.put("address", null);
+        changes.put("age", 40);
+
+        // Act
+        textIndex.patch(1L, changes, 1L);
+
+        // Assert
+        assertEquals(List.of(1L), textIndex.search("jane roe", 10));
+        assertEquals(List.of(), textIndex.search("doe", 10));
+        assertEquals(List.of(), textIndex.search("main", 10));
+
+        textIndex.remove(1L);
+        assertEquals(List.of(), textIndex.search("jane", 10));
+    }
+
+    @Test
+    @DisplayName("Test text index - patch of a person not indexed yet indexes its stored row")
+    void testPatchUnindexedPerson() {
+        // Arrange
+        when(personRepository.findViewById(5L))
+                .thenReturn(Optional.of(view(5L, "Rosalind", "Franklin", null, null)));
+
+        // Act
+        textIndex.patch(5L, Map.of("lastName", "Franklin"), 1L);
+        textIndex.patch(6L, Map.of("lastName", "Gone"), 1L);
+
+        // Assert
+        assertEquals(List.of(5L), textIndex.search("rosalind", 10));
+        assertEquals(List.of(), textIndex.search("gone", 10));
+    }
+
+    @Test
+    @DisplayName("Test text index - consecutive patches merge without a search in between")
+    void testConsecutivePatches() {
+        // Arrange
+        textIndex.index(view(1L, "Jane", "Doe", null, null));
+
+        // Act
+        textIndex.patch(1L, Map.of("firstName", "Janet"), 1L);
+        textIndex.patch(1L, Map.of("lastName", "Roe"), 2L);
+
+        // Assert
+        assertEquals(List.of(1L), textIndex.search("janet roe", 10));
+        verify(personRepository, never()).findViewById(1L);
+    }
+
+    @Test
+    @DisplayName("Test text index - writes older than the indexed version are ignored")
+    void testOutOfOrderWrites() {
+        // Arrange
+        textIndex.index(view(1L, "Jane", "Roe", null, null, 3L));
+        textIndex.index(view(2L, "Ada", "Byron", null, null, 0L));
+        textIndex.remove(2L);
+
+        // Act: callbacks of earlier commits that ran late.
+        textIndex.index(view(1L, "Jane", "Doe", null, null, 2L));
+        textIndex.patch(1L, Map.of("lastName", "Moe"), 3L);
+        textIndex.index(view(2L, "Ada", "Lovelace", null, null, 1L));
+
+        // Assert
+        assertEquals(List.of(1L), textIndex.search("roe", 10));
+        assertEquals(List.of(), textIndex.search("doe", 10));
+        assertEquals(List.of(), textIndex.search("moe", 10));
+        assertEquals(List.of(), textIndex.search("ada", 10));
+        verifyNoInteractions(personRepository);
+    }
+
+    @Test
+    @DisplayName("Test text index - patch after a missed version indexes the stored row")
+    void testPatchAfterMissedVersion() {
+        // Arrange: version 1 changed no text field, so the index still holds version 0.
+        textIndex.index(view(1L, "Jane", "Doe", "jane@example.com", null, 0L));
+        when(personRepository.findViewById(1L))
+                .thenReturn(Optional.of(view(1L, "Jane", "Roe", "jane.roe@example.com", null, 2L)));
+
+        // Act
+        textIndex.patch(1L, Map.of("lastName", "Roe"), 2L);
+
+        // Assert
+        assertEquals(List.of(1L), textIndex.search("jane.roe", 10));
+        verify(personRepository).findViewById(1L);
+    }
+
+    @Test
+    @DisplayName("Test text index - rebuild drops persons that are no longer stored")
+    void testRebuildRemovesDeletedPersons() {
+        // Arrange: indexed earlier, then deleted around the service.
+        textIndex.index(view(9L, "Old", "Entry", null, null));
+        assertEquals(List.of(9L), textIndex.search("entry", 10));
+        when(personRepository.findViewsAfterId(0L, Limit.of(2)))
+                .thenReturn(List.of(view(1L, "Ada", "Lovelace", null, null)));
+
+        // Act
+        textIndex.rebuild();
+
+        // Assert
+        assertEquals(List.of(), textIndex.search("entry", 10));
+        assertEquals(List.of(1L), textIndex.search("lovelace", 10));
+    }
+
+    @Test
+    @DisplayName("Test text index - rebuild pages through every person")
+    void testRebuild() {
+        // Arrange
+        when(personRepository.findViewsAfterId(0L, Limit.of(2)))
+                .thenReturn(List.of(view(1L, "Ada", "Lovelace", null, null), view(2L, "Alan", "Turing", null, null)));
+        when(personRepository.findViewsAfterId(2L, Limit.of(2)))
+                .thenReturn(List.of(view(3L, "Grace", "Hopper", null, null)));
+        assertFalse(textIndex.isReady());
+
+        // Act
+        textIndex.rebuild();
+
+        // Assert
+        assertTrue(textIndex.isReady());
+        assertEquals(List.of(3L), textIndex.search("hopper", 10));
+        assertEquals(List.of(1L), textIndex.search("lovelace", 10));
+        verify(personRepository, never()).findViewsAfterId(3L, Limit.of(2));
+    }
+
+    @Test
+    @DisplayName("Test text index - rebuild does not overwrite writes made while it runs")
+    void testRebuildKeepsConcurrentWrites() {
+        // Arrange
+        when(personRepository.findViewsAfterId(0L, Limit.of(2))).thenAnswer(invocation -> {
+            // Committed after the rebuild read its page.
+            textIndex.index(view(1L, "Ada", "King", null, null));
+            textIndex.remove(2L);
+            return List.of(view(1L, "Ada", "Lovelace", null, null), view(2L, "Alan", "Turing", null, null));
+        });
+
+        // Act
+        textIndex.rebuild();
+
+        // Assert
+        assertEquals(List.of(1L), textIndex.search("king", 10));
+        assertEquals(List.of(), textIndex.search("lovelace", 10));
+        assertEquals(List.of(), textIndex.search("turing", 10));
+    }
+
+    @Test
+    @DisplayName("Test text index - a failed write is swallowed and triggers a rebuild")
+    void testFailedWriteRebuilds() {
+        // Arrange
+        when(personRepository.findViewsAfterId(0L, Limit.of(2)))
+                .thenReturn(List.of(view(1L, "Ada", "Lovelace", null, null)));
+
+        // Act: without an id the document cannot be written.
+        assertDoesNotThrow(() -> textIndex.index(view(null, "Ada", "Lovelace", null, null)));
+
+        // Assert
+        verify(personRepository, timeout(5000)).findViewsAfterId(0L, Limit.of(2));
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            while (!textIndex.isReady()) {
+                Thread.sleep(10);
+            }
+        });
+        assertEquals(List.of(1L), textIndex.search("lovelace", 10));
+    }
+
+    private static PersonView view(Long id, String firstName, String lastName, String email, String address) {
+        return view(id, firstName, lastName, email, address, 0L);
+    }
+
+    private static PersonView view(Long id, String firstName, String lastName, String email, String address,
+                                   long version) {
+        return new PersonView(id, firstName, lastName, email, null, address, null, version);
+    }
+}
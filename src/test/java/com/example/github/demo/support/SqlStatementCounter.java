@@ -0,0 +1,97 @@
+package com.example.github.demo.support;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Records every JDBC round-trip made through the proxied DataSource: one entry
+ * per executed statement, and one per executed batch whatever its size.
+ * Sequence fetches are kept apart because the pooled id optimizer only calls
+ * the sequence once per allocation block, so whether one happens depends on
+ * earlier tests.
+ */
+public class SqlStatementCounter implements QueryExecutionListener {
+
+    private final List<Statement> statements = new ArrayList<>();
+    private final List<String> sequenceFetches = new ArrayList<>();
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public synchronized void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        QueryInfo query = queryInfoList.isEmpty() ? new QueryInfo("") : queryInfoList.get(0);
+        String sql = query.getQuery();
+        if (sql.toLowerCase(Locale.ROOT).contains("next value for")) {
+            sequenceFetches.add(sql);
+        } else if (execInfo.isBatch()) {
+            statements.add(new Statement("batch(" + execInfo.getBatchSize() + "): " + sql, List.of()));
+        } else {
+            statements.add(new Statement(sql, parameters(query)));
+        }
+    }
+
+    private static List<Object> parameters(QueryInfo query) {
+        if (query.getParametersList().isEmpty()) {
+            return List.of();
+        }
+        return query.getParametersList().get(0).stream()
+                .sorted(Comparator.comparing(operation -> (Integer) operation.getArgs()[0]))
+                .map(operation -> operation.getMethod().getName().equals("setNull") ? null : operation.getArgs()[1])
+                .toList();
+    }
+
+    public synchronized void reset() {
+        statements.clear();
+        sequenceFetches.clear();
+    }
+
+    public synchronized List<String> getStatements() {
+        return statements.stream().map(Statement::sql).toList();
+    }
+
+    /**
+     * The last statement that ran, with its bound parameters in index order.
+     */
+    public synchronized Statement lastStatement() {
+        if (statements.isEmpty()) {
+            fail("No SQL statement ran");
+        }
+        return statements.get(statements.size() - 1);
+    }
+
+    /**
+     * Fails, listing the SQL that ran, unless exactly {@code expected}
+     * round-trips were made since the last {@link #reset()}.
+     */
+    public synchronized void assertStatements(int expected) {
+        if (statements.size() != expected) {
+            StringBuilder message = new StringBuilder()
+                    .append("Expected ").append(expected).append(" SQL round-trip(s) but ")
+                    .append(statements.size()).append(" ran:");
+            statements.forEach(statement -> message.append("\n  ").append(statement.sql()));
+            fail(message.toString());
+        }
+    }
+
+    /**
+     * Fails unless at most {@code max} sequence fetches were made since the last {@link #reset()}.
+     */
+    public synchronized void assertSequenceFetchesAtMost(int max) {
+        if (sequenceFetches.size() > max) {
+            fail("Expected at most " + max + " sequence fetch(es) but " + sequenceFetches.size() + " ran");
+        }
+    }
+
+    public record Statement(String sql, List<Object> parameters) {
+    }
+}